@@ -117,6 +117,7 @@ public final class GCS {
         boolean      generatePNG  = false;
         boolean      generateText = false;
         boolean      loadSave     = false;
+        int          jobs         = 1;
         Path         template     = null;
         String       margins      = null;
         String       paper        = null;
@@ -199,6 +200,31 @@ public final class GCS {
                         }
                     }
                     case "--loadsave" -> loadSave = true;
+                    case "--jobs" -> {
+                        String jobsArg = null;
+                        if (parts.length > 1) {
+                            jobsArg = parts[1];
+                        } else {
+                            i++;
+                            if (i < length && !args[i].startsWith("-")) {
+                                jobsArg = args[i];
+                            }
+                        }
+                        if (jobsArg == null || jobsArg.isBlank()) {
+                            msgs.add(I18n.text("missing argument for --jobs"));
+                        } else if ("auto".equals(jobsArg)) {
+                            jobs = Runtime.getRuntime().availableProcessors();
+                        } else {
+                            try {
+                                jobs = Integer.parseInt(jobsArg.trim());
+                            } catch (NumberFormatException exception) {
+                                jobs = 0;
+                            }
+                            if (jobs < 1) {
+                                msgs.add(I18n.text("invalid argument for --jobs: ") + jobsArg);
+                            }
+                        }
+                    }
                     case "-v", "--version" -> showVersion = true;
                     default -> msgs.add(I18n.text("unknown option: ") + parts[0]);
                 }
@@ -220,7 +246,7 @@ public final class GCS {
         }
 
         if (loadSave) {
-            LoadSave.process(files);
+            LoadSave.process(files, jobs);
             System.exit(0);
         }
 
@@ -287,8 +313,10 @@ public final class GCS {
         List<String> options = new ArrayList<>();
         options.add(I18n.text("-h, --help"));
         options.add(I18n.text("Displays a description of each option."));
+        options.add(I18n.text("--jobs <count>"));
+        options.add(I18n.text("When used with --loadsave, the number of files to load and save at once, or 'auto' to use one per processor. Defaults to 1, which processes the files one at a time."));
         options.add(I18n.text("--loadsave"));
-        options.add(I18n.text("Load and then save all files specified on the command line. If a directory is specified, it will be traversed recursively and all files found will be loaded and saved. This operation is intended to easily bring files up to the current version's data format. After all files have been processed, GCS will exit."));
+        options.add(I18n.text("Load and then save all files specified on the command line. If a directory is specified, it will be traversed recursively and all files found will be loaded and saved. This operation is intended to easily bring files up to the current version's data format. Files whose contents would not change are left untouched. A file that fails to load or save is reported and the remaining files are still processed. After all files have been processed, GCS will print a summary and exit, with a non-zero status if any file failed."));
         options.add(I18n.text("--margins <margins>"));
         options.add(I18n.text("When generating PDF or PNG from the command line, allows you to specify the margins to use, rather than the ones embedded in the file. The top, left, bottom, and right margins must all be specified in inches, separated by colons, such as '1:1:1:1'."));
         options.add(I18n.text("--paper <size>"));
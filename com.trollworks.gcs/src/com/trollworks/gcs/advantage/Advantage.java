@@ -157,6 +157,7 @@ public class Advantage extends CollectedListRow implements HasSourceReference, S
         for (AdvantageModifier modifier : advantage.mModifiers) {
             mModifiers.add(new AdvantageModifier(mDataFile, modifier, false));
         }
+        adoptModifiers();
         if (deep) {
             int count = advantage.getChildCount();
             for (int i = 0; i < count; i++) {
@@ -278,6 +279,7 @@ public class Advantage extends CollectedListRow implements HasSourceReference, S
             for (int i = 0; i < count; i++) {
                 mModifiers.add(new AdvantageModifier(getDataFile(), a.getMap(i), state));
             }
+            adoptModifiers();
         }
         if (getDataFile() instanceof GURPSCharacter) {
             mUserDesc = m.getString(KEY_USER_DESC);
@@ -342,10 +344,12 @@ public class Advantage extends CollectedListRow implements HasSourceReference, S
         }
 
         // Emit the calculated values for third parties
-        w.key("calc");
-        w.startMap();
-        w.keyValue("points", getAdjustedPoints());
-        w.endMap();
+        if (saveType != SaveType.HASH) {
+            w.key("calc");
+            w.startMap();
+            w.keyValue("points", getAdjustedPoints());
+            w.endMap();
+        }
     }
 
     /** @return The container type. */
@@ -789,11 +793,9 @@ public class Advantage extends CollectedListRow implements HasSourceReference, S
     }
 
     @Override
-    public boolean contains(String text, boolean lowerCaseOnly) {
-        if (getName().toLowerCase().contains(text)) {
-            return true;
-        }
-        return super.contains(text, lowerCaseOnly);
+    protected void collectSearchText(List<String> texts) {
+        super.collectSearchText(texts);
+        texts.add(getName());
     }
 
     /** @return The type as a text string. */
@@ -931,11 +933,18 @@ public class Advantage extends CollectedListRow implements HasSourceReference, S
         List<AdvantageModifier> in = Filtered.list(modifiers, AdvantageModifier.class);
         if (!mModifiers.equals(in)) {
             mModifiers = in;
+            adoptModifiers();
             notifyOfChange();
             update();
         }
     }
 
+    private void adoptModifiers() {
+        for (AdvantageModifier modifier : mModifiers) {
+            modifier.setEnclosingRow(this);
+        }
+    }
+
     /**
      * @param name The name to match against. Case-insensitive.
      * @return The first modifier that matches the name.
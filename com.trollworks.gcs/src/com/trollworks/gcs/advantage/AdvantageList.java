@@ -35,20 +35,23 @@ public class AdvantageList extends ListFile {
     }
 
     @Override
-    protected void loadList(JsonArray a, LoadState state) throws IOException {
-        loadIntoModel(this, a, getModel(), state);
+    protected void loadRow(JsonMap m, OutlineModel model, LoadState state) throws IOException {
+        loadIntoModel(this, m, model, state);
     }
 
     public static void loadIntoModel(DataFile file, JsonArray a, OutlineModel model, LoadState state) throws IOException {
         int count = a.size();
         for (int i = 0; i < count; i++) {
-            JsonMap m1   = a.getMap(i);
-            String  type = m1.getString(DataFile.TYPE);
-            if (Advantage.KEY_ADVANTAGE.equals(type) || Advantage.KEY_ADVANTAGE_CONTAINER.equals(type)) {
-                model.addRow(new Advantage(file, m1, state), true);
-            } else {
-                Log.warn("invalid advantage type: " + type);
-            }
+            loadIntoModel(file, a.getMap(i), model, state);
+        }
+    }
+
+    public static void loadIntoModel(DataFile file, JsonMap m, OutlineModel model, LoadState state) throws IOException {
+        String type = m.getString(DataFile.TYPE);
+        if (Advantage.KEY_ADVANTAGE.equals(type) || Advantage.KEY_ADVANTAGE_CONTAINER.equals(type)) {
+            model.addRow(new Advantage(file, m, state), true);
+        } else {
+            Log.warn("invalid advantage type: " + type);
         }
     }
 }
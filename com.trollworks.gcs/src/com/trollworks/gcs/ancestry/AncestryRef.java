@@ -44,7 +44,7 @@ public class AncestryRef implements Comparable<AncestryRef> {
         return list;
     }
 
-    private static void load() {
+    private static synchronized void load() {
         if (REGISTERED_ANCESTRIES.isEmpty()) {
             for (NamedData<List<NamedData<AncestryRef>>> list : NamedData.scanLibraries(FileType.ANCESTRY_SETTINGS, Dirs.SETTINGS, AncestryRef::new)) {
                 for (NamedData<AncestryRef> data : list.getData()) {
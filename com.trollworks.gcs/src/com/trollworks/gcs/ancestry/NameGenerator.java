@@ -41,7 +41,7 @@ public class NameGenerator {
     private              int                        mMax;
     private              Map<String, Entry>         mEntries;
 
-    public static final NameGenerator get(String name) {
+    public static final synchronized NameGenerator get(String name) {
         if (REGISTERED_GENERATORS.isEmpty()) {
             for (NamedData<List<NamedData<NameGenerator>>> list : NamedData.scanLibraries(FileType.NAME_GENERATOR_SETTINGS, Dirs.SETTINGS, NameGenerator::new)) {
                 for (NamedData<NameGenerator> data : list.getData()) {
@@ -26,11 +26,15 @@ public class Attribute {
     private static final String KEY_ADJ        = "adj";
     private static final String KEY_DAMAGE     = "damage";
 
-    private String mAttrID;
-    private double mAdjustment;
-    private double mBonus;
-    private int    mCostReduction;
-    private int    mDamage;
+    private String        mAttrID;
+    private double        mAdjustment;
+    private double        mBonus;
+    private int           mCostReduction;
+    private int           mDamage;
+    private long          mValueRevision     = -1;
+    private double        mValue;
+    private long          mThresholdRevision = -1;
+    private PoolThreshold mThreshold;
 
     public Attribute(String attrID) {
         setID(attrID);
@@ -45,6 +49,8 @@ public class Attribute {
     public void initTo(double adjustment, int damage) {
         mAdjustment = adjustment;
         mDamage = damage;
+        mValueRevision = -1;
+        mThresholdRevision = -1;
     }
 
     public String getID() {
@@ -60,6 +66,15 @@ public class Attribute {
     }
 
     public PoolThreshold getCurrentThreshold(GURPSCharacter character) {
+        long revision = character.getAttributeRevision();
+        if (mThresholdRevision != revision) {
+            mThreshold = findCurrentThreshold(character);
+            mThresholdRevision = revision;
+        }
+        return mThreshold;
+    }
+
+    private PoolThreshold findCurrentThreshold(GURPSCharacter character) {
         AttributeDef def = getAttrDef(character);
         if (def != null) {
             List<PoolThreshold> thresholds = def.getThresholds();
@@ -93,11 +108,13 @@ public class Attribute {
     }
 
     public double getDoubleValue(GURPSCharacter character) {
-        AttributeDef def = getAttrDef(character);
-        if (def != null) {
-            return def.getBaseValue(character) + mAdjustment + mBonus;
+        long revision = character.getAttributeRevision();
+        if (mValueRevision != revision) {
+            AttributeDef def = getAttrDef(character);
+            mValue = def != null ? def.getBaseValue(character) + mAdjustment + mBonus : 0;
+            mValueRevision = revision;
         }
-        return 0;
+        return mValue;
     }
 
     public void setIntValue(GURPSCharacter character, int value) {
@@ -107,7 +124,7 @@ public class Attribute {
             if (def != null) {
                 character.postUndoEdit(String.format(I18n.text("%s 点变化"), def.getName()), (c, v) -> setIntValue(c, ((Integer) v).intValue()), Integer.valueOf(old), Integer.valueOf(value));
                 mAdjustment = value - (def.getBaseValue(character) + mBonus);
-                character.notifyOfChange();
+                character.notifyOfAttributeChange();
             }
         }
     }
@@ -119,7 +136,7 @@ public class Attribute {
             if (def != null) {
                 character.postUndoEdit(String.format(I18n.text("%s 点变化"), def.getName()), (c, v) -> setDoubleValue(c, ((Double) v).doubleValue()), Double.valueOf(old), Double.valueOf(value));
                 mAdjustment = value - (def.getBaseValue(character) + mBonus);
-                character.notifyOfChange();
+                character.notifyOfAttributeChange();
             }
         }
     }
@@ -127,14 +144,14 @@ public class Attribute {
     public void setBonus(GURPSCharacter character, double bonus) {
         if (mBonus != bonus) {
             mBonus = bonus;
-            character.notifyOfChange();
+            character.notifyOfAttributeChange();
         }
     }
 
     public void setCostReduction(GURPSCharacter character, int reductionPercentage) {
         if (mCostReduction != reductionPercentage) {
             mCostReduction = reductionPercentage;
-            character.notifyOfChange();
+            character.notifyOfAttributeChange();
         }
     }
 
@@ -148,7 +165,7 @@ public class Attribute {
             if (def != null) {
                 character.postUndoEdit(String.format(I18n.text("目前 %s 点变化"), def.getName()), (c, v) -> setDamage(c, ((Integer) v).intValue()), Integer.valueOf(mDamage), Integer.valueOf(damage));
                 mDamage = damage;
-                character.notifyOfChange();
+                character.notifyOfAttributeChange();
             }
         }
     }
@@ -11,12 +11,19 @@
 
 package com.trollworks.gcs.character;
 
+import com.trollworks.gcs.utility.undo.MeasuredEdit;
+
+import java.util.Objects;
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
 
-/** Provides undo support for character fields. */
-public class CharacterUndo extends AbstractUndoableEdit {
+/**
+ * Provides undo support for character fields. Consecutive changes to the same field are merged into
+ * one.
+ */
+public class CharacterUndo extends AbstractUndoableEdit implements MeasuredEdit {
     private GURPSCharacter  mCharacter;
     private String          mName;
     private CharacterSetter mSetter;
@@ -40,6 +47,28 @@ public class CharacterUndo extends AbstractUndoableEdit {
         mAfter = after;
     }
 
+    @Override
+    public boolean addEdit(UndoableEdit edit) {
+        if (edit instanceof CharacterUndo other && canUndo() && other.mCharacter == mCharacter && other.mName.equals(mName) && Objects.equals(other.mBefore, mAfter)) {
+            mAfter = other.mAfter;
+            other.die();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        return EDIT_OVERHEAD + estimateSize(mBefore) + estimateSize(mAfter);
+    }
+
+    private static long estimateSize(Object value) {
+        if (value instanceof Portrait portrait) {
+            return portrait.getMemoryUsage();
+        }
+        return MeasuredEdit.estimateSize(value);
+    }
+
     @Override
     public String getPresentationName() {
         return mName;
@@ -31,20 +31,23 @@ import com.trollworks.gcs.utility.json.JsonMap;
 import com.trollworks.gcs.utility.json.JsonWriter;
 
 import java.io.IOException;
+import java.util.List;
 
 public abstract class CollectedModels extends DataFile {
-    public static final String       KEY_ADVANTAGES      = "advantages";
-    public static final String       KEY_SKILLS          = "skills";
-    public static final String       KEY_SPELLS          = "spells";
-    public static final String       KEY_EQUIPMENT       = "equipment";
-    public static final String       KEY_OTHER_EQUIPMENT = "other_equipment";
-    public static final String       KEY_NOTES           = "notes";
-    private             OutlineModel mAdvantages;
-    private             OutlineModel mSkills;
-    private             OutlineModel mSpells;
-    private             OutlineModel mEquipment;
-    private             OutlineModel mOtherEquipment;
-    private             OutlineModel mNotes;
+    public static final String                  KEY_ADVANTAGES      = "advantages";
+    public static final String                  KEY_SKILLS          = "skills";
+    public static final String                  KEY_SPELLS          = "spells";
+    public static final String                  KEY_EQUIPMENT       = "equipment";
+    public static final String                  KEY_OTHER_EQUIPMENT = "other_equipment";
+    public static final String                  KEY_NOTES           = "notes";
+    private             OutlineModel            mAdvantages;
+    private             OutlineModel            mSkills;
+    private             OutlineModel            mSpells;
+    private             OutlineModel            mEquipment;
+    private             OutlineModel            mOtherEquipment;
+    private             OutlineModel            mNotes;
+    private             RowNameIndex<Advantage> mAdvantageIndex;
+    private             RowNameIndex<Skill>     mSkillIndex;
 
     protected CollectedModels() {
         mAdvantages = new OutlineModel();
@@ -54,6 +57,8 @@ public abstract class CollectedModels extends DataFile {
         mOtherEquipment = new OutlineModel();
         mOtherEquipment.setProperty(EquipmentList.KEY_OTHER_ROOT, Boolean.TRUE);
         mNotes = new OutlineModel();
+        mAdvantageIndex = new RowNameIndex<>(mAdvantages, Advantage.class, Advantage::getName, null);
+        mSkillIndex = new RowNameIndex<>(mSkills, Skill.class, Skill::getName, Skill::getSpecialization);
     }
 
     protected void loadModels(JsonMap m, LoadState state) throws IOException {
@@ -63,6 +68,58 @@ public abstract class CollectedModels extends DataFile {
         EquipmentList.loadIntoModel(this, m.getArray(KEY_EQUIPMENT), mEquipment, state);
         EquipmentList.loadIntoModel(this, m.getArray(KEY_OTHER_EQUIPMENT), mOtherEquipment, state);
         NoteList.loadIntoModel(this, m.getArray(KEY_NOTES), mNotes, state);
+        invalidateNameIndexes();
+    }
+
+    /**
+     * Discards the name indexes. Call this whenever rows may have been added to or removed from
+     * the advantages or skills.
+     */
+    protected void invalidateNameIndexes() {
+        mAdvantageIndex.invalidate();
+        mSkillIndex.invalidate();
+    }
+
+    /**
+     * Builds the name indexes ahead of need, so that they may then be read from several threads at
+     * once.
+     */
+    protected void prepareNameIndexes() {
+        mAdvantageIndex.build();
+        mSkillIndex.build();
+    }
+
+    /**
+     * Updates the name indexes to account for changes to the specified rows.
+     *
+     * @param rows The rows that have changed.
+     */
+    protected void updateNameIndexes(ListRow... rows) {
+        mAdvantageIndex.rowsChanged(rows);
+        mSkillIndex.rowsChanged(rows);
+    }
+
+    /**
+     * @param name The name to look for, ignoring case.
+     * @return The advantages with the specified name, including disabled ones, in the order they
+     *         appear in the list.
+     */
+    public List<Advantage> getAdvantagesNamed(String name) {
+        return mAdvantageIndex.get(name);
+    }
+
+    /**
+     * @param name           The name to look for, ignoring case.
+     * @param specialization The specialization to look for, ignoring case. Pass in {@code null} or
+     *                       an empty string to ignore.
+     * @return The skills, techniques and skill containers with the specified name and
+     *         specialization, in the order they appear in the list.
+     */
+    public List<Skill> getSkillsNamed(String name, String specialization) {
+        if (specialization == null || specialization.isEmpty()) {
+            return mSkillIndex.get(name);
+        }
+        return mSkillIndex.get(name, specialization);
     }
 
     protected void saveModels(JsonWriter w, SaveType saveType) throws IOException {
@@ -26,7 +26,6 @@ import com.trollworks.gcs.ui.widget.outline.Outline;
 import com.trollworks.gcs.ui.widget.outline.OutlineModel;
 import com.trollworks.gcs.ui.widget.outline.Row;
 import com.trollworks.gcs.ui.widget.outline.RowItemRenderer;
-import com.trollworks.gcs.ui.widget.outline.RowIterator;
 import com.trollworks.gcs.ui.widget.outline.RowPostProcessor;
 import com.trollworks.gcs.utility.I18n;
 
@@ -97,11 +96,7 @@ public abstract class CollectedOutlinesDockable extends DataFileDockable impleme
     }
 
     private static void searchOne(ListOutline outline, String text, List<Object> list) {
-        for (ListRow row : new RowIterator<ListRow>(outline.getModel())) {
-            if (row.contains(text, true)) {
-                list.add(row);
-            }
-        }
+        list.addAll(outline.getModel().getSearchIndex().search(text));
     }
 
     @Override
@@ -38,6 +38,7 @@ public final class FieldFactory {
     public static final DefaultFormatterFactory OUTPUT_DPI             = new DefaultFormatterFactory(new IntegerFormatter(50, 300, false));
     public static final DefaultFormatterFactory TOOLTIP_TIMEOUT        = new DefaultFormatterFactory(new IntegerFormatter(1, 300, false));
     public static final DefaultFormatterFactory TOOLTIP_MILLIS_TIMEOUT = new DefaultFormatterFactory(new IntegerFormatter(0, 5000, false));
+    public static final DefaultFormatterFactory UNDO_MEMORY_BUDGET     = new DefaultFormatterFactory(new IntegerFormatter(1, 1024, false));
     public static final DefaultFormatterFactory PERCENT_REDUCTION      = new DefaultFormatterFactory(new IntegerFormatter(0, 80, false));
     public static final DefaultFormatterFactory POSINT3                = new DefaultFormatterFactory(new IntegerFormatter(0, 999, false));
     public static final DefaultFormatterFactory POSINT5                = new DefaultFormatterFactory(new IntegerFormatter(0, 99999, false));
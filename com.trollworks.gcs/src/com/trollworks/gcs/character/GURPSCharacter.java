@@ -22,12 +22,15 @@ import com.trollworks.gcs.attribute.PoolThreshold;
 import com.trollworks.gcs.attribute.ThresholdOps;
 import com.trollworks.gcs.datafile.LoadState;
 import com.trollworks.gcs.equipment.Equipment;
+import com.trollworks.gcs.expression.EvaluationException;
+import com.trollworks.gcs.expression.Variable;
 import com.trollworks.gcs.expression.VariableResolver;
 import com.trollworks.gcs.feature.AttributeBonusLimitation;
 import com.trollworks.gcs.feature.Bonus;
 import com.trollworks.gcs.feature.CostReduction;
 import com.trollworks.gcs.feature.DRBonus;
 import com.trollworks.gcs.feature.Feature;
+import com.trollworks.gcs.feature.FeatureMap;
 import com.trollworks.gcs.feature.LeveledAmount;
 import com.trollworks.gcs.feature.SkillBonus;
 import com.trollworks.gcs.feature.SkillPointBonus;
@@ -59,12 +62,15 @@ import com.trollworks.gcs.utility.json.JsonMap;
 import com.trollworks.gcs.utility.json.JsonWriter;
 import com.trollworks.gcs.utility.text.Numbers;
 import com.trollworks.gcs.utility.undo.StdUndoManager;
+import com.trollworks.gcs.utility.units.WeightAccumulator;
 import com.trollworks.gcs.utility.units.WeightUnits;
 import com.trollworks.gcs.utility.units.WeightValue;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -98,10 +104,13 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
     private static final String KEY_ST        = "ST";
     private static final String KEY_WILL_ADJ  = "will_adj";
 
-    private Set<String>                         mVariableResolverExclusions;
+    private static final Variable SIZE_MODIFIER = Variable.get("sm");
+
+    private Attribute[]                         mVariableBindings;
+    private ThreadLocal<BitSet>                 mVariablesBeingResolved;
     private long                                mModifiedOn;
     private long                                mCreatedOn;
-    private HashMap<String, ArrayList<Feature>> mFeatureMap;
+    private FeatureMap                          mFeatureMap;
     private JsonMap                             mThirdPartyData;
     private Map<String, Attribute>              mAttributes;
     private int                                 mLiftingStrengthBonus;
@@ -124,6 +133,12 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
     private int                                 mCachedSkillPoints;
     private int                                 mCachedSpellPoints;
     private int                                 mCachedRacePoints;
+    private RecalcGraph                         mRecalcGraph;
+    private RecalcScheduler                     mRecalcScheduler;
+    private long                                mAttributeRevision;
+    private long                                mThresholdOpRevision;
+    private int[]                               mThresholdOpCounts;
+    private boolean                             mRecalculating;
 
     /** Creates a new character with only default values set. */
     public GURPSCharacter() {
@@ -144,9 +159,15 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
     }
 
     private void characterInitialize(boolean full) {
-        mVariableResolverExclusions = new HashSet<>();
+        mVariableBindings = new Attribute[0];
+        // Kept per thread, as spell levels may be resolved by several threads at once
+        mVariablesBeingResolved = ThreadLocal.withInitial(BitSet::new);
+        mRecalcGraph = new RecalcGraph();
+        mRecalcScheduler = new RecalcScheduler(this);
+        mAttributeRevision++;
+        mThresholdOpRevision = -1;
         mSheetSettings = new SheetSettings(this);
-        mFeatureMap = new HashMap<>();
+        mFeatureMap = new FeatureMap();
         mTotalPoints = Settings.getInstance().getGeneralSettings().getInitialPoints();
         mAttributes = new HashMap<>();
         for (String attrID : mSheetSettings.getAttributes().keySet()) {
@@ -165,6 +186,58 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
 
     @Override
     public void notifyOfChange() {
+        mAttributeRevision++;
+        if (!mRecalculating) {
+            mRecalcGraph.invalidateAll();
+            invalidateNameIndexes();
+            // The set of attributes may have changed, so forget any variable bindings
+            Arrays.fill(mVariableBindings, null);
+        }
+        notifyOfChangeInternal();
+    }
+
+    @Override
+    public void notifyOfRowChange(ListRow... rows) {
+        if (RecalcScheduler.defer(rows)) {
+            return;
+        }
+        for (ListRow row : rows) {
+            row.invalidateContentDigest();
+        }
+        updateNameIndexes(rows);
+        for (ListRow row : rows) {
+            if (RecalcGraph.affectsAttributes(row)) {
+                mAttributeRevision++;
+                break;
+            }
+        }
+        if (!mRecalculating) {
+            for (ListRow row : rows) {
+                mRecalcGraph.rowChanged(row);
+            }
+        }
+        notifyOfChangeInternal();
+    }
+
+    /** Called when the value of an attribute has changed. */
+    public void notifyOfAttributeChange() {
+        mAttributeRevision++;
+        if (!mRecalculating) {
+            mRecalcGraph.attributesChanged();
+        }
+        notifyOfChangeInternal();
+    }
+
+    /**
+     * @return The current attribute revision. This changes whenever an edit is made that may alter
+     *         the value of an attribute, so that values computed from the attributes can be cached
+     *         until then.
+     */
+    public long getAttributeRevision() {
+        return mAttributeRevision;
+    }
+
+    private void notifyOfChangeInternal() {
         setModifiedOn(System.currentTimeMillis() / FieldFactory.TIMESTAMP_FACTOR);
         super.notifyOfChange();
     }
@@ -179,25 +252,65 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
         return KEY_ROOT;
     }
 
+    /**
+     * Brings the calculated values up-to-date. Only those calculations affected by changes made
+     * since the last call are performed.
+     */
     public void recalculate() {
-        calculateWeightAndWealthCarried(false);
-        calculateWealthNotCarried(false);
-        updateSkills();
-        updateSpells();
-        int     maxTries = 5;
-        boolean changed;
-        do {
-            // Unfortunately, there are what amount to circular references in the GURPS logic, so
-            // we need to potentially run though this process a few times until things stabilize.
-            // To avoid a potential endless loop, though, we cap the iterations.
-            processFeaturesAndPrereqs();
-            changed = updateSkills();
-            changed |= updateSpells();
-        } while (changed && --maxTries > 0);
-        calculateAttributePoints();
-        calculateAdvantagePoints();
-        calculateSkillPoints();
-        calculateSpellPoints();
+        if (mRecalcGraph.isClean()) {
+            return;
+        }
+        mRecalculating = true;
+        try {
+            // The carried and not carried equipment share no rows, so may be rolled up together
+            if (mRecalcGraph.take(RecalcGraph.Node.WEIGHT_AND_WEALTH)) {
+                mRecalcScheduler.add(getEquipmentModel().getRowCount(), () -> calculateWeightAndWealthCarried(false));
+            }
+            if (mRecalcGraph.take(RecalcGraph.Node.WEALTH_NOT_CARRIED)) {
+                mRecalcScheduler.add(getOtherEquipmentModel().getRowCount(), () -> calculateWealthNotCarried(false));
+            }
+            mRecalcScheduler.run();
+            if (mRecalcGraph.take(RecalcGraph.Node.FEATURES)) {
+                processFeatures();
+            }
+            // The encumbrance level affects skills, but the weight carried usually isn't enough
+            // to change it, so only force the skills to update when it actually moves.
+            mRecalcGraph.setEncumbranceForSkills(getEncumbranceLevel(true));
+            boolean skillsChanged = mRecalcGraph.take(RecalcGraph.Node.SKILLS) && mRecalcGraph.updateSkills(this);
+            boolean spellsChanged = mRecalcGraph.take(RecalcGraph.Node.SPELLS) && mRecalcGraph.updateSpells(this, mRecalcScheduler);
+            if (mRecalcGraph.take(RecalcGraph.Node.PREREQS) || skillsChanged || spellsChanged) {
+                processPrerequisites();
+            }
+            // Each of the point totals only reads the rows and stores into its own fields
+            if (mRecalcGraph.take(RecalcGraph.Node.ATTRIBUTE_POINTS)) {
+                mRecalcScheduler.add(mAttributes.size(), this::calculateAttributePoints);
+            }
+            if (mRecalcGraph.take(RecalcGraph.Node.ADVANTAGE_POINTS)) {
+                mRecalcScheduler.add(getAdvantagesModel().getRowCount(), this::calculateAdvantagePoints);
+            }
+            if (mRecalcGraph.take(RecalcGraph.Node.SKILL_POINTS)) {
+                mRecalcScheduler.add(getSkillsModel().getRowCount(), this::calculateSkillPoints);
+            }
+            if (mRecalcGraph.take(RecalcGraph.Node.SPELL_POINTS)) {
+                mRecalcScheduler.add(getSpellsModel().getRowCount(), this::calculateSpellPoints);
+            }
+            mRecalcScheduler.run();
+        } finally {
+            mRecalculating = false;
+        }
+    }
+
+    /**
+     * Fills in any values that are otherwise computed lazily on first use, so that the character
+     * may then be safely read from several threads at once, provided nothing is modified.
+     */
+    void prepareForConcurrentReads() {
+        for (Attribute attr : mAttributes.values()) {
+            attr.getDoubleValue(this);
+        }
+        // Also determines the current threshold of each attribute
+        countThresholdOpMet(ThresholdOps.HALVE_ST);
+        prepareNameIndexes();
     }
 
     @Override
@@ -251,9 +364,11 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
         w.key(KEY_SETTINGS);
         mSheetSettings.save(w, true);
         w.keyValue(KEY_CREATED_DATE, Numbers.formatDateTime(Numbers.DATE_TIME_STORED_FORMAT, mCreatedOn * FieldFactory.TIMESTAMP_FACTOR));
-        w.keyValue(KEY_MODIFIED_DATE, Numbers.formatDateTime(Numbers.DATE_TIME_STORED_FORMAT, mModifiedOn * FieldFactory.TIMESTAMP_FACTOR));
+        if (saveType != SaveType.HASH) {
+            w.keyValue(KEY_MODIFIED_DATE, Numbers.formatDateTime(Numbers.DATE_TIME_STORED_FORMAT, mModifiedOn * FieldFactory.TIMESTAMP_FACTOR));
+        }
         w.key(KEY_PROFILE);
-        mProfile.save(w);
+        mProfile.save(w, saveType);
         w.key(KEY_ATTRIBUTES);
         w.startArray();
         for (AttributeDef def : AttributeDef.getOrdered(mSheetSettings.getAttributes())) {
@@ -265,9 +380,10 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
         w.endArray();
         w.keyValue(KEY_TOTAL_POINTS, mTotalPoints);
         saveModels(w, saveType);
-        if (saveType != SaveType.HASH) {
-            w.keyValueNotEmpty(KEY_THIRD_PARTY_DATA, mThirdPartyData);
+        if (saveType == SaveType.HASH) {
+            return;
         }
+        w.keyValueNotEmpty(KEY_THIRD_PARTY_DATA, mThirdPartyData);
 
         // Emit the calculated values for third parties
         w.key("calc");
@@ -314,24 +430,14 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
         }
     }
 
+    /**
+     * Updates the levels of all skills, in dependency order.
+     *
+     * @return Whether any skill level changed.
+     */
     public boolean updateSkills() {
-        boolean changed = false;
-        for (Skill skill : getSkillsIterator()) {
-            if (skill.updateLevel(true)) {
-                changed = true;
-            }
-        }
-        return changed;
-    }
-
-    private boolean updateSpells() {
-        boolean changed = false;
-        for (Spell spell : getSpellsIterator()) {
-            if (spell.updateLevel(true)) {
-                changed = true;
-            }
-        }
-        return changed;
+        mRecalcGraph.invalidateAllSkills();
+        return mRecalcGraph.take(RecalcGraph.Node.SKILLS) && mRecalcGraph.updateSkills(this);
     }
 
     /** @return The current lifting strength bonus from features. */
@@ -654,12 +760,7 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The converted imperial {@link WeightValue}.
      */
     public static WeightValue convertFromGurpsMetric(WeightValue value) {
-        return switch (value.getUnits()) {
-            case G -> new WeightValue(value.getValue().div(new Fixed6(30)), WeightUnits.OZ);
-            case KG -> new WeightValue(value.getValue().mul(new Fixed6(2)), WeightUnits.LB);
-            case T -> new WeightValue(value.getValue(), WeightUnits.LT);
-            default -> value;
-        };
+        return convertGurpsMetric(value, false);
     }
 
     /**
@@ -670,12 +771,16 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The converted metric {@link WeightValue}.
      */
     public static WeightValue convertToGurpsMetric(WeightValue value) {
-        return switch (value.getUnits()) {
-            case LB -> new WeightValue(value.getValue().div(new Fixed6(2)), WeightUnits.KG);
-            case LT, TN -> new WeightValue(value.getValue(), WeightUnits.T);
-            case OZ -> new WeightValue(value.getValue().mul(new Fixed6(30)), WeightUnits.G);
-            default -> value;
-        };
+        return convertGurpsMetric(value, true);
+    }
+
+    private static WeightValue convertGurpsMetric(WeightValue value, boolean toMetric) {
+        WeightUnits units = value.getUnits();
+        WeightUnits to    = units.getGurpsMetricUnits(toMetric);
+        if (to == units) {
+            return value;
+        }
+        return new WeightValue(Fixed6.fromRawValue(units.convertGurpsMetric(value.getValue().getRawValue(), toMetric)), to);
     }
 
     /**
@@ -685,33 +790,40 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      *               the previous values.
      */
     public void calculateWeightAndWealthCarried(boolean notify) {
-        WeightValue savedWeight          = new WeightValue(mCachedWeightCarried);
-        WeightValue savedWeightForSkills = new WeightValue(mCachedWeightCarriedForSkills);
-        Fixed6      savedWealth          = mCachedWealthCarried;
-        WeightUnits defaultWeightUnits   = mSheetSettings.defaultWeightUnits();
-        mCachedWeightCarried = new WeightValue(Fixed6.ZERO, defaultWeightUnits);
-        mCachedWeightCarriedForSkills = new WeightValue(Fixed6.ZERO, defaultWeightUnits);
-        mCachedWealthCarried = Fixed6.ZERO;
+        WeightUnits       defaultWeightUnits = mSheetSettings.defaultWeightUnits();
+        boolean           useSimpleMetric    = mSheetSettings.useSimpleMetricConversions();
+        WeightAccumulator weight             = new WeightAccumulator(defaultWeightUnits);
+        WeightAccumulator weightForSkills    = new WeightAccumulator(defaultWeightUnits);
+        long              wealth             = 0;
         for (Row one : getEquipmentModel().getTopLevelRows()) {
             Equipment equipment = (Equipment) one;
             equipment.update();
-            WeightValue weight = new WeightValue(equipment.getExtendedWeight(false));
-            if (mSheetSettings.useSimpleMetricConversions()) {
-                weight = defaultWeightUnits.isMetric() ? convertToGurpsMetric(weight) : convertFromGurpsMetric(weight);
-            }
-            mCachedWeightCarried.add(weight);
-            mCachedWealthCarried = mCachedWealthCarried.add(equipment.getExtendedValue());
-
-            weight = new WeightValue(equipment.getExtendedWeight(true));
-            if (mSheetSettings.useSimpleMetricConversions()) {
-                weight = defaultWeightUnits.isMetric() ? convertToGurpsMetric(weight) : convertFromGurpsMetric(weight);
+            if (useSimpleMetric) {
+                weight.addConvertedByGurpsMetric(equipment.getExtendedWeight(false));
+                weightForSkills.addConvertedByGurpsMetric(equipment.getExtendedWeight(true));
+            } else {
+                weight.add(equipment.getExtendedWeight(false));
+                weightForSkills.add(equipment.getExtendedWeight(true));
             }
-            mCachedWeightCarriedForSkills.add(weight);
+            wealth += equipment.getExtendedValue().getRawValue();
         }
-        if (notify) {
-            if (!savedWeight.equals(mCachedWeightCarried) || !savedWeightForSkills.equals(mCachedWeightCarriedForSkills) || !mCachedWealthCarried.equals(savedWealth)) {
-                notifyOfChange();
-            }
+        // Only replace the cached values when they differ, so that an unchanged inventory creates
+        // no garbage
+        boolean changed = false;
+        if (!weight.matches(mCachedWeightCarried)) {
+            mCachedWeightCarried = weight.toWeightValue();
+            changed = true;
+        }
+        if (!weightForSkills.matches(mCachedWeightCarriedForSkills)) {
+            mCachedWeightCarriedForSkills = weightForSkills.toWeightValue();
+            changed = true;
+        }
+        if (mCachedWealthCarried == null || mCachedWealthCarried.getRawValue() != wealth) {
+            mCachedWealthCarried = Fixed6.fromRawValue(wealth);
+            changed = true;
+        }
+        if (notify && changed) {
+            notifyOfChange();
         }
     }
 
@@ -722,15 +834,15 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      *               the previous values.
      */
     public void calculateWealthNotCarried(boolean notify) {
-        Fixed6 savedWealth = mCachedWealthNotCarried;
-        mCachedWealthNotCarried = Fixed6.ZERO;
+        long wealth = 0;
         for (Row one : getOtherEquipmentModel().getTopLevelRows()) {
             Equipment equipment = (Equipment) one;
             equipment.update();
-            mCachedWealthNotCarried = mCachedWealthNotCarried.add(equipment.getExtendedValue());
+            wealth += equipment.getExtendedValue().getRawValue();
         }
-        if (notify) {
-            if (!mCachedWealthNotCarried.equals(savedWealth)) {
+        if (mCachedWealthNotCarried == null || mCachedWealthNotCarried.getRawValue() != wealth) {
+            mCachedWealthNotCarried = Fixed6.fromRawValue(wealth);
+            if (notify) {
                 notifyOfChange();
             }
         }
@@ -882,8 +994,8 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The advantage, if present, or {@code null}.
      */
     public Advantage getAdvantageNamed(String name) {
-        for (Advantage advantage : getAdvantagesIterator(false)) {
-            if (advantage.getName().equals(name)) {
+        for (Advantage advantage : getAdvantagesNamed(name)) {
+            if (advantage.isEnabled() && advantage.getName().equals(name)) {
                 return advantage;
             }
         }
@@ -912,17 +1024,12 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The skill if it is present, or {@code null} if its not.
      */
     public List<Skill> getSkillNamed(String name, String specialization, boolean requirePoints, Set<String> excludes) {
-        List<Skill> skills              = new ArrayList<>();
-        boolean     checkSpecialization = specialization != null && !specialization.isEmpty();
-        for (Skill skill : getSkillsIterator()) {
+        List<Skill> skills = new ArrayList<>();
+        for (Skill skill : getSkillsNamed(name, specialization)) {
             if (!skill.canHaveChildren()) {
                 if (excludes == null || !excludes.contains(skill.toString())) {
                     if (!requirePoints || skill instanceof Technique || skill.getPoints() > 0) {
-                        if (skill.getName().equalsIgnoreCase(name)) {
-                            if (!checkSpecialization || skill.getSpecialization().equalsIgnoreCase(specialization)) {
-                                skills.add(skill);
-                            }
-                        }
+                        skills.add(skill);
                     }
                 }
             }
@@ -961,12 +1068,15 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
     }
 
     private void processFeatures() {
-        HashMap<String, ArrayList<Feature>> map = new HashMap<>();
-        buildFeatureMap(map, getAdvantagesIterator(false));
-        buildFeatureMap(map, getSkillsIterator());
-        buildFeatureMap(map, getSpellsIterator());
-        buildFeatureMap(map, getEquipmentIterator());
+        FeatureMap   map     = new FeatureMap();
+        Set<ListRow> sources = new HashSet<>();
+        buildFeatureMap(map, sources, getAdvantagesIterator(false));
+        buildFeatureMap(map, sources, getSkillsIterator());
+        buildFeatureMap(map, sources, getSpellsIterator());
+        buildFeatureMap(map, sources, getEquipmentIterator());
+        mRecalcGraph.setFeatureSources(sources);
         setFeatureMap(map);
+        mRecalcGraph.featuresChanged();
     }
 
     private void processPrerequisites() {
@@ -977,7 +1087,7 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
         processPrerequisites(getOtherEquipmentIterator());
     }
 
-    private static void buildFeatureMap(HashMap<String, ArrayList<Feature>> map, Iterator<? extends ListRow> iterator) {
+    private static void buildFeatureMap(FeatureMap map, Set<ListRow> sources, Iterator<? extends ListRow> iterator) {
         while (iterator.hasNext()) {
             ListRow row = iterator.next();
             if (row instanceof Equipment equipment) {
@@ -986,6 +1096,9 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
                     continue;
                 }
             }
+            if (RecalcGraph.hasFeatures(row)) {
+                sources.add(row);
+            }
             for (Feature feature : row.getFeatures()) {
                 processFeature(map, row instanceof Advantage ? ((Advantage) row).getLevels() : 0, feature);
                 if (feature instanceof Bonus) {
@@ -1023,16 +1136,14 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
         }
     }
 
-    private static void processFeature(HashMap<String, ArrayList<Feature>> map, int levels, Feature feature) {
-        String        key  = feature.getKey().toLowerCase();
-        List<Feature> list = map.computeIfAbsent(key, k -> new ArrayList<>(1));
+    private static void processFeature(FeatureMap map, int levels, Feature feature) {
         if (feature instanceof Bonus) {
             LeveledAmount amount = ((Bonus) feature).getAmount();
             if (amount.getLevel() != levels) {
                 amount.setLevel(levels);
             }
         }
-        list.add(feature);
+        map.add(feature);
     }
 
     private void processPrerequisites(Iterator<? extends ListRow> iterator) {
@@ -1059,7 +1170,7 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
     }
 
     /** @param map The new feature map. */
-    public void setFeatureMap(HashMap<String, ArrayList<Feature>> map) {
+    public void setFeatureMap(FeatureMap map) {
         mFeatureMap = map;
         String strPrefix = Attribute.ID_ATTR_PREFIX + "st.";
         setLiftingStrengthBonus(getIntegerBonusFor(strPrefix + AttributeBonusLimitation.LIFTING_ONLY.name()));
@@ -1088,15 +1199,9 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The cost reduction, as a percentage.
      */
     public int getCostReductionFor(String id) {
-        int           total = 0;
-        List<Feature> list  = mFeatureMap.get(id.toLowerCase());
-
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof CostReduction) {
-                    total += ((CostReduction) feature).getPercentage();
-                }
-            }
+        int total = 0;
+        for (CostReduction costReduction : mFeatureMap.getCostReductions(id)) {
+            total += costReduction.getPercentage();
         }
         if (total > 80) {
             total = 80;
@@ -1118,17 +1223,12 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The bonus.
      */
     public int getIntegerBonusFor(String id, StringBuilder tooltip) {
-        int           total = 0;
-        List<Feature> list  = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof Bonus bonus && !(feature instanceof WeaponDamageBonus)) {
-                    total += bonus.getAmount().getIntegerAdjustedAmount();
-                    bonus.addToToolTip(tooltip);
-                }
+        if (tooltip != null) {
+            for (Bonus bonus : mFeatureMap.getBonuses(id)) {
+                bonus.addToToolTip(tooltip);
             }
         }
-        return total;
+        return mFeatureMap.getIntegerBonus(id);
     }
 
     /**
@@ -1141,22 +1241,17 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
         if (dr == null) {
             dr = new HashMap<>();
         }
-        List<Feature> list = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof DRBonus bonus) {
-                    String  specialization = bonus.getSpecialization();
-                    int     amt            = bonus.getAmount().getIntegerAdjustedAmount();
-                    Integer value          = dr.get(specialization);
-                    if (value == null) {
-                        value = Integer.valueOf(amt);
-                    } else {
-                        value = Integer.valueOf(value.intValue() + amt);
-                    }
-                    dr.put(specialization, value);
-                    bonus.addToToolTip(tooltip);
-                }
+        for (DRBonus bonus : mFeatureMap.getDRBonuses(id)) {
+            String  specialization = bonus.getSpecialization();
+            int     amt            = bonus.getAmount().getIntegerAdjustedAmount();
+            Integer value          = dr.get(specialization);
+            if (value == null) {
+                value = Integer.valueOf(amt);
+            } else {
+                value = Integer.valueOf(value.intValue() + amt);
             }
+            dr.put(specialization, value);
+            bonus.addToToolTip(tooltip);
         }
         return dr;
     }
@@ -1180,19 +1275,14 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
             }
         }
         if (rsl != Integer.MIN_VALUE) {
-            List<Feature> list = mFeatureMap.get(id.toLowerCase());
-            if (list != null) {
-                for (Feature feature : list) {
-                    if (feature instanceof WeaponDamageBonus bonus) {
-                        if (bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(specializationQualifier) && bonus.getRelativeLevelCriteria().matches(rsl) && bonus.matchesCategories(categoriesQualifier)) {
-                            bonuses.add(bonus);
-                            LeveledAmount amount = bonus.getAmount();
-                            int           level  = amount.getLevel();
-                            amount.setLevel(dieCount);
-                            bonus.addToToolTip(toolTip);
-                            amount.setLevel(level);
-                        }
-                    }
+            for (WeaponDamageBonus bonus : mFeatureMap.getWeaponDamageBonuses(id)) {
+                if (bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(specializationQualifier) && bonus.getRelativeLevelCriteria().matches(rsl) && bonus.matchesCategories(categoriesQualifier)) {
+                    bonuses.add(bonus);
+                    LeveledAmount amount = bonus.getAmount();
+                    int           level  = amount.getLevel();
+                    amount.setLevel(dieCount);
+                    bonus.addToToolTip(toolTip);
+                    amount.setLevel(level);
                 }
             }
         }
@@ -1210,19 +1300,14 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      */
     public List<WeaponDamageBonus> getNamedWeaponDamageBonusesFor(String id, String nameQualifier, String usageQualifier, Set<String> categoriesQualifier, int dieCount, StringBuilder toolTip) {
         List<WeaponDamageBonus> bonuses = new ArrayList<>();
-        List<Feature>           list    = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof WeaponDamageBonus bonus) {
-                    if (bonus.getWeaponSelectionType() == WeaponSelectionType.WEAPONS_WITH_NAME && bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(usageQualifier) && bonus.matchesCategories(categoriesQualifier)) {
-                        bonuses.add(bonus);
-                        LeveledAmount amount = bonus.getAmount();
-                        int           level  = amount.getLevel();
-                        amount.setLevel(dieCount);
-                        bonus.addToToolTip(toolTip);
-                        amount.setLevel(level);
-                    }
-                }
+        for (WeaponDamageBonus bonus : mFeatureMap.getWeaponDamageBonuses(id)) {
+            if (bonus.getWeaponSelectionType() == WeaponSelectionType.WEAPONS_WITH_NAME && bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(usageQualifier) && bonus.matchesCategories(categoriesQualifier)) {
+                bonuses.add(bonus);
+                LeveledAmount amount = bonus.getAmount();
+                int           level  = amount.getLevel();
+                amount.setLevel(dieCount);
+                bonus.addToToolTip(toolTip);
+                amount.setLevel(level);
             }
         }
         return bonuses;
@@ -1237,15 +1322,10 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      */
     public List<SkillBonus> getNamedWeaponSkillBonusesFor(String id, String nameQualifier, String usageQualifier, Set<String> categoriesQualifier, StringBuilder toolTip) {
         List<SkillBonus> bonuses = new ArrayList<>();
-        List<Feature>    list    = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof SkillBonus bonus) {
-                    if (bonus.getSkillSelectionType() == SkillSelectionType.WEAPONS_WITH_NAME && bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(usageQualifier) && bonus.matchesCategories(categoriesQualifier)) {
-                        bonuses.add(bonus);
-                        bonus.addToToolTip(toolTip);
-                    }
-                }
+        for (SkillBonus bonus : mFeatureMap.getSkillBonuses(id)) {
+            if (bonus.getSkillSelectionType() == SkillSelectionType.WEAPONS_WITH_NAME && bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(usageQualifier) && bonus.matchesCategories(categoriesQualifier)) {
+                bonuses.add(bonus);
+                bonus.addToToolTip(toolTip);
             }
         }
         return bonuses;
@@ -1271,16 +1351,11 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The bonus.
      */
     public int getSkillComparedIntegerBonusFor(String id, String nameQualifier, String specializationQualifier, Set<String> categoryQualifier, StringBuilder toolTip) {
-        int           total = 0;
-        List<Feature> list  = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof SkillBonus bonus) {
-                    if (bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(specializationQualifier) && bonus.matchesCategories(categoryQualifier)) {
-                        total += bonus.getAmount().getIntegerAdjustedAmount();
-                        bonus.addToToolTip(toolTip);
-                    }
-                }
+        int total = 0;
+        for (SkillBonus bonus : mFeatureMap.getSkillBonuses(id)) {
+            if (bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(specializationQualifier) && bonus.matchesCategories(categoryQualifier)) {
+                total += bonus.getAmount().getIntegerAdjustedAmount();
+                bonus.addToToolTip(toolTip);
             }
         }
         return total;
@@ -1306,16 +1381,11 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The point bonus.
      */
     public int getSkillPointComparedIntegerBonusFor(String id, String nameQualifier, String specializationQualifier, Set<String> categoryQualifier, StringBuilder toolTip) {
-        int           total = 0;
-        List<Feature> list  = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof SkillPointBonus bonus) {
-                    if (bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(specializationQualifier) && bonus.matchesCategories(categoryQualifier)) {
-                        total += bonus.getAmount().getIntegerAdjustedAmount();
-                        bonus.addToToolTip(toolTip);
-                    }
-                }
+        int total = 0;
+        for (SkillPointBonus bonus : mFeatureMap.getSkillPointBonuses(id)) {
+            if (bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(specializationQualifier) && bonus.matchesCategories(categoryQualifier)) {
+                total += bonus.getAmount().getIntegerAdjustedAmount();
+                bonus.addToToolTip(toolTip);
             }
         }
         return total;
@@ -1328,16 +1398,11 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The bonus.
      */
     public int getSpellComparedIntegerBonusFor(String id, String qualifier, Set<String> categories, StringBuilder toolTip) {
-        int           total = 0;
-        List<Feature> list  = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof SpellBonus bonus) {
-                    if (bonus.getNameCriteria().matches(qualifier) && bonus.matchesCategories(categories)) {
-                        total += bonus.getAmount().getIntegerAdjustedAmount();
-                        bonus.addToToolTip(toolTip);
-                    }
-                }
+        int total = 0;
+        for (SpellBonus bonus : mFeatureMap.getSpellBonuses(id)) {
+            if (bonus.getNameCriteria().matches(qualifier) && bonus.matchesCategories(categories)) {
+                total += bonus.getAmount().getIntegerAdjustedAmount();
+                bonus.addToToolTip(toolTip);
             }
         }
         return total;
@@ -1361,16 +1426,11 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The point bonus.
      */
     public int getSpellPointComparedIntegerBonusFor(String id, String qualifier, Set<String> categories, StringBuilder toolTip) {
-        int           total = 0;
-        List<Feature> list  = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof SpellPointBonus bonus) {
-                    if (bonus.getNameCriteria().matches(qualifier) && bonus.matchesCategories(categories)) {
-                        total += bonus.getAmount().getIntegerAdjustedAmount();
-                        bonus.addToToolTip(toolTip);
-                    }
-                }
+        int total = 0;
+        for (SpellPointBonus bonus : mFeatureMap.getSpellPointBonuses(id)) {
+            if (bonus.getNameCriteria().matches(qualifier) && bonus.matchesCategories(categories)) {
+                total += bonus.getAmount().getIntegerAdjustedAmount();
+                bonus.addToToolTip(toolTip);
             }
         }
         return total;
@@ -1381,16 +1441,7 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
      * @return The bonus.
      */
     public double getDoubleBonusFor(String id) {
-        double        total = 0;
-        List<Feature> list  = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof Bonus && !(feature instanceof WeaponDamageBonus)) {
-                    total += ((Bonus) feature).getAmount().getAdjustedAmount();
-                }
-            }
-        }
-        return total;
+        return mFeatureMap.getDoubleBonus(id);
     }
 
     /**
@@ -1409,63 +1460,100 @@ public class GURPSCharacter extends CollectedModels implements VariableResolver
     }
 
     public boolean isThresholdOpMet(ThresholdOps op) {
-        for (Attribute attr : mAttributes.values()) {
-            PoolThreshold threshold = attr.getCurrentThreshold(this);
-            if (threshold != null && threshold.getOps().contains(op)) {
-                return true;
-            }
-        }
-        return false;
+        return countThresholdOpMet(op) > 0;
     }
 
     public int countThresholdOpMet(ThresholdOps op) {
-        int total = 0;
-        for (Attribute attr : mAttributes.values()) {
-            PoolThreshold threshold = attr.getCurrentThreshold(this);
-            if (threshold != null && threshold.getOps().contains(op)) {
-                total++;
+        if (mThresholdOpRevision != mAttributeRevision) {
+            ThresholdOps[] ops    = ThresholdOps.values();
+            int[]          counts = new int[ops.length];
+            for (Attribute attr : mAttributes.values()) {
+                PoolThreshold threshold = attr.getCurrentThreshold(this);
+                if (threshold != null) {
+                    List<ThresholdOps> thresholdOps = threshold.getOps();
+                    for (ThresholdOps one : ops) {
+                        if (thresholdOps.contains(one)) {
+                            counts[one.ordinal()]++;
+                        }
+                    }
+                }
             }
+            mThresholdOpCounts = counts;
+            mThresholdOpRevision = mAttributeRevision;
         }
-        return total;
+        return mThresholdOpCounts[op.ordinal()];
+    }
+
+    @Override
+    public double resolveVariable(Variable variable) throws EvaluationException {
+        return resolveVariableValue(variable).doubleValue();
     }
 
     @Override
-    public String resolveVariable(String variableName) {
-        if (mVariableResolverExclusions.contains(variableName)) {
-            Log.error("attempt to resolve variable via itself: $" + variableName);
-            return "";
+    public String resolveVariableText(Variable variable) throws EvaluationException {
+        return resolveVariableValue(variable).toString();
+    }
+
+    private Number resolveVariableValue(Variable variable) throws EvaluationException {
+        int    index         = variable.getIndex();
+        BitSet beingResolved = mVariablesBeingResolved.get();
+        if (beingResolved.get(index)) {
+            Log.error("attempt to resolve variable via itself: $" + variable.getName());
+            throw unresolvedVariable(variable);
         }
-        mVariableResolverExclusions.add(variableName);
+        beingResolved.set(index);
         try {
-            if ("sm".equals(variableName)) {
-                return String.valueOf(getProfile().getSizeModifier());
+            if (variable == SIZE_MODIFIER) {
+                return Integer.valueOf(getProfile().getSizeModifier());
             }
-            String[]  parts = variableName.split("\\.", 2);
-            Attribute attr  = getAttributes().get(parts[0]);
+            Attribute attr = bindVariable(variable);
             if (attr == null) {
-                Log.error("no such variable: $" + variableName);
-                return "";
+                Log.error("no such variable: $" + variable.getName());
+                throw unresolvedVariable(variable);
             }
             AttributeDef def = attr.getAttrDef(this);
             if (def == null) {
-                Log.error("no such variable definition: $" + variableName);
-                return "";
+                Log.error("no such variable definition: $" + variable.getName());
+                throw unresolvedVariable(variable);
             }
-            if (def.getType() == AttributeType.POOL && parts.length > 1) {
-                switch (parts[1]) {
+            String qualifier = variable.getQualifier();
+            if (def.getType() == AttributeType.POOL && qualifier != null) {
+                switch (qualifier) {
                     case "current":
-                        return String.valueOf(attr.getCurrentIntValue(this));
+                        return Integer.valueOf(attr.getCurrentIntValue(this));
                     case "maximum":
-                        return String.valueOf(attr.getIntValue(this));
+                        return Integer.valueOf(attr.getIntValue(this));
                     default:
-                        Log.error("no such variable: $" + variableName);
-                        return "";
+                        Log.error("no such variable: $" + variable.getName());
+                        throw unresolvedVariable(variable);
                 }
             }
-            return String.valueOf(attr.getDoubleValue(this));
+            return Double.valueOf(attr.getDoubleValue(this));
         } finally {
-            mVariableResolverExclusions.remove(variableName);
+            beingResolved.clear(index);
+        }
+    }
+
+    private static EvaluationException unresolvedVariable(Variable variable) {
+        return new EvaluationException(String.format(I18n.text("无法识别变量$%s"), variable.getName()));
+    }
+
+    private Attribute bindVariable(Variable variable) {
+        int index = variable.getIndex();
+        if (RecalcScheduler.isRunningConcurrently()) {
+            // The bindings may only be added to from the thread that owns the character
+            Attribute attr = index < mVariableBindings.length ? mVariableBindings[index] : null;
+            return attr != null ? attr : mAttributes.get(variable.getBaseName());
+        }
+        if (index >= mVariableBindings.length) {
+            mVariableBindings = Arrays.copyOf(mVariableBindings, index + 8);
+        }
+        Attribute attr = mVariableBindings[index];
+        if (attr == null) {
+            attr = mAttributes.get(variable.getBaseName());
+            mVariableBindings[index] = attr;
         }
+        return attr;
     }
 
     public AncestryRef getAncestryRef() {
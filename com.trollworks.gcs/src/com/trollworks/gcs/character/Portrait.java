@@ -0,0 +1,141 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.character;
+
+import com.trollworks.gcs.ui.RetinaIcon;
+import com.trollworks.gcs.ui.image.Img;
+import com.trollworks.gcs.utility.FileType;
+import com.trollworks.gcs.utility.Log;
+import com.trollworks.gcs.utility.json.JsonDigest;
+import com.trollworks.gcs.utility.undo.MeasuredEdit;
+
+import java.awt.EventQueue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import javax.imageio.ImageIO;
+
+/**
+ * A character portrait, holding both its encoded form, as stored in the sheet, and the icon it
+ * decodes to. Whichever of the two the portrait wasn't created from is only produced when first
+ * asked for, and then kept, so that loading a sheet doesn't decode its image and saving one doesn't
+ * re-encode an image that hasn't changed.
+ */
+public final class Portrait {
+    private String                        mEncoded;
+    private JsonDigest                    mDigest;
+    private CompletableFuture<RetinaIcon> mIcon;
+    private boolean                       mRepaintPending;
+
+    /** @param encoded The base64-encoded image data, as stored in a sheet. */
+    Portrait(String encoded) {
+        mEncoded = encoded;
+    }
+
+    /** @param icon The portrait icon, as produced by {@link Profile#createPortrait(Img)}. */
+    Portrait(RetinaIcon icon) {
+        mIcon = CompletableFuture.completedFuture(icon);
+    }
+
+    /** @return The base64-encoded PNG form of the portrait, or {@code null} if it has none. */
+    public synchronized String getEncoded() {
+        if (mEncoded == null) {
+            RetinaIcon icon = getIcon();
+            if (icon != null) {
+                try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+                    ImageIO.write(icon.getRetina(), FileType.PNG.getExtension(), baos);
+                    mEncoded = Base64.getEncoder().encodeToString(baos.toByteArray());
+                } catch (Exception imageException) {
+                    Log.warn(imageException);
+                }
+            }
+        }
+        return mEncoded;
+    }
+
+    /**
+     * @return A hash of the encoded form of the portrait, or {@code null} if it has none. Cheaper to
+     *         write into a content digest than the encoded form itself.
+     */
+    public synchronized JsonDigest getDigest() {
+        if (mDigest == null) {
+            String encoded = getEncoded();
+            if (encoded != null) {
+                mDigest = JsonDigest.of((w) -> w.value(encoded));
+            }
+        }
+        return mDigest;
+    }
+
+    /**
+     * @return The portrait icon, decoding it first if that hasn't been done yet. May be {@code null}
+     *         if the image could not be decoded.
+     */
+    public RetinaIcon getIcon() {
+        return decode().join();
+    }
+
+    /**
+     * Starts decoding the portrait in the background, if that hasn't been done yet. Must be called
+     * on the event dispatch thread.
+     *
+     * @param onReady Called on the event dispatch thread once the icon is available, if it isn't
+     *                already.
+     * @return {@code true} if {@link #getIcon()} can be called without waiting.
+     */
+    public boolean isReady(Runnable onReady) {
+        CompletableFuture<RetinaIcon> icon = decode();
+        if (icon.isDone()) {
+            return true;
+        }
+        if (!mRepaintPending) {
+            mRepaintPending = true;
+            icon.thenRun(() -> EventQueue.invokeLater(() -> {
+                mRepaintPending = false;
+                onReady.run();
+            }));
+        }
+        return false;
+    }
+
+    /** @return An estimate of the memory held by the portrait, in bytes. */
+    long getMemoryUsage() {
+        long size;
+        synchronized (this) {
+            size = MeasuredEdit.estimateSize(mEncoded);
+        }
+        CompletableFuture<RetinaIcon> icon = mIcon;
+        if (icon != null && icon.isDone()) {
+            RetinaIcon one = icon.join();
+            if (one != null) {
+                size += MeasuredEdit.estimateSize(one.getNormal()) + MeasuredEdit.estimateSize(one.getRetina());
+            }
+        }
+        return size;
+    }
+
+    private synchronized CompletableFuture<RetinaIcon> decode() {
+        if (mIcon == null) {
+            String encoded = mEncoded;
+            mIcon = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return Profile.createPortrait(Img.create(new ByteArrayInputStream(Base64.getDecoder().decode(encoded))));
+                } catch (Exception imageException) {
+                    Log.error(imageException);
+                    return null;
+                }
+            });
+        }
+        return mIcon;
+    }
+}
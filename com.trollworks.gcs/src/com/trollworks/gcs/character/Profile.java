@@ -31,6 +31,8 @@ import com.trollworks.gcs.utility.Fixed6;
 import com.trollworks.gcs.utility.I18n;
 import com.trollworks.gcs.utility.Log;
 import com.trollworks.gcs.utility.NamedData;
+import com.trollworks.gcs.utility.SaveType;
+import com.trollworks.gcs.utility.json.JsonDigest;
 import com.trollworks.gcs.utility.json.JsonMap;
 import com.trollworks.gcs.utility.json.JsonWriter;
 import com.trollworks.gcs.utility.text.Numbers;
@@ -44,15 +46,11 @@ import static java.time.temporal.ChronoField.MONTH_OF_YEAR;
 
 import java.awt.Graphics2D;
 import java.awt.Transparency;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.SignStyle;
-import java.util.Base64;
 import java.util.List;
-import javax.imageio.ImageIO;
 
 /** Holds the character profile. */
 public class Profile {
@@ -81,7 +79,7 @@ public class Profile {
     private static final DateTimeFormatter MONTH_AND_DAY_FORMAT = new DateTimeFormatterBuilder().parseCaseInsensitive().parseLenient().appendText(MONTH_OF_YEAR, FULL).appendLiteral(' ').appendValue(DAY_OF_MONTH, 1, 2, SignStyle.NOT_NEGATIVE).toFormatter();
 
     private GURPSCharacter mCharacter;
-    private RetinaIcon     mPortrait;
+    private Portrait       mPortrait;
     private String         mName;
     private String         mTitle;
     private String         mOrganization;
@@ -175,16 +173,12 @@ public class Profile {
         }
 
         if (m.has(KEY_PORTRAIT)) {
-            try {
-                mPortrait = createPortrait(Img.create(new ByteArrayInputStream(
-                        Base64.getDecoder().decode(m.getString(KEY_PORTRAIT)))));
-            } catch (Exception imageException) {
-                Log.error(imageException);
-            }
+            // Decoding is put off until the portrait is first needed
+            mPortrait = new Portrait(m.getString(KEY_PORTRAIT));
         }
     }
 
-    void save(JsonWriter w) throws IOException {
+    void save(JsonWriter w, SaveType saveType) throws IOException {
         w.startMap();
         w.keyValueNot(KEY_PLAYER_NAME, mPlayerName, "");
         w.keyValueNot(KEY_NAME, mName, "");
@@ -207,11 +201,17 @@ public class Profile {
         w.keyValueNot(KEY_TL, mTechLevel, "");
         w.keyValueNot(KEY_RELIGION, mReligion, "");
         if (mPortrait != null) {
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                ImageIO.write(mPortrait.getRetina(), FileType.PNG.getExtension(), baos);
-                w.keyValue(KEY_PORTRAIT, Base64.getEncoder().encodeToString(baos.toByteArray()));
-            } catch (Exception imageException) {
-                Log.warn(imageException);
+            if (saveType == SaveType.HASH) {
+                // A hash of the portrait is enough to tell whether it has changed since the last save
+                JsonDigest digest = mPortrait.getDigest();
+                if (digest != null) {
+                    w.keyValue(KEY_PORTRAIT, digest.toString());
+                }
+            } else {
+                String encoded = mPortrait.getEncoded();
+                if (encoded != null) {
+                    w.keyValue(KEY_PORTRAIT, encoded);
+                }
             }
         }
         w.endMap();
@@ -223,12 +223,28 @@ public class Profile {
 
     /** @return The portrait. */
     public RetinaIcon getPortrait() {
-        return mPortrait;
+        return mPortrait != null ? mPortrait.getIcon() : null;
     }
 
     /** @return The portrait, or the default image if none is set. */
     public RetinaIcon getPortraitWithFallback() {
-        return mPortrait == null ? Images.DEFAULT_PORTRAIT : mPortrait;
+        RetinaIcon portrait = getPortrait();
+        return portrait == null ? Images.DEFAULT_PORTRAIT : portrait;
+    }
+
+    /**
+     * Must be called on the event dispatch thread.
+     *
+     * @param onReady Called on the event dispatch thread once the portrait has been decoded, if that
+     *                is still being done in the background.
+     * @return The portrait, the default image if none is set, or {@code null} if it is still being
+     *         decoded.
+     */
+    public RetinaIcon getPortraitIfReady(Runnable onReady) {
+        if (mPortrait != null && !mPortrait.isReady(onReady)) {
+            return null;
+        }
+        return getPortraitWithFallback();
     }
 
     /**
@@ -238,15 +254,19 @@ public class Profile {
      */
     public void setPortrait(Img portrait) {
         if (portrait == null) {
-            if (mPortrait != null) {
-                mCharacter.postUndoEdit(I18n.text("头像更改"), (c, v) -> c.getProfile().setPortrait(v != null ? ((RetinaIcon) v).getRetina() : null), mPortrait, null);
-                mPortrait = null;
-                mCharacter.notifyOfChange();
+            applyPortrait(null);
+        } else {
+            RetinaIcon current = getPortrait();
+            if (current == null || current.getRetina() != portrait) {
+                applyPortrait(new Portrait(createPortrait(portrait)));
             }
-        } else if (mPortrait == null || mPortrait.getRetina() != portrait) {
-            RetinaIcon newPortrait = createPortrait(portrait);
-            mCharacter.postUndoEdit(I18n.text("头像更改"), (c, v) -> c.getProfile().setPortrait(v != null ? ((RetinaIcon) v).getRetina() : null), mPortrait, newPortrait);
-            mPortrait = newPortrait;
+        }
+    }
+
+    private void applyPortrait(Portrait portrait) {
+        if (mPortrait != portrait) {
+            mCharacter.postUndoEdit(I18n.text("头像更改"), (c, v) -> c.getProfile().applyPortrait((Portrait) v), mPortrait, portrait);
+            mPortrait = portrait;
             mCharacter.notifyOfChange();
         }
     }
@@ -0,0 +1,434 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.character;
+
+import com.trollworks.gcs.advantage.Advantage;
+import com.trollworks.gcs.equipment.Equipment;
+import com.trollworks.gcs.equipment.EquipmentList;
+import com.trollworks.gcs.modifier.AdvantageModifier;
+import com.trollworks.gcs.modifier.EquipmentModifier;
+import com.trollworks.gcs.notes.Note;
+import com.trollworks.gcs.skill.Skill;
+import com.trollworks.gcs.skill.SkillDefault;
+import com.trollworks.gcs.skill.SkillDefaultType;
+import com.trollworks.gcs.skill.Technique;
+import com.trollworks.gcs.spell.RitualMagicSpell;
+import com.trollworks.gcs.spell.Spell;
+import com.trollworks.gcs.ui.widget.outline.ListRow;
+import com.trollworks.gcs.ui.widget.outline.OutlineModel;
+import com.trollworks.gcs.ui.widget.outline.Row;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks which portions of a {@link GURPSCharacter} need to be recalculated after an edit, along
+ * with the dependencies between skills, so that only the dirty closure of an edit is recomputed.
+ */
+class RecalcGraph {
+    /** The calculations that make up a full recalculation, in the order they must be run. */
+    enum Node {
+        WEIGHT_AND_WEALTH,
+        WEALTH_NOT_CARRIED,
+        FEATURES,
+        SKILLS,
+        SPELLS,
+        PREREQS,
+        ATTRIBUTE_POINTS,
+        ADVANTAGE_POINTS,
+        SKILL_POINTS,
+        SPELL_POINTS
+    }
+
+    private EnumSet<Node>           mDirty;
+    private Set<Skill>              mDirtySkills;
+    private Set<Spell>              mDirtySpells;
+    private boolean                 mAllSkillsDirty;
+    private boolean                 mAllSpellsDirty;
+    private Set<ListRow>            mFeatureSources;
+    private List<List<Skill>>       mComponents;
+    private Map<Skill, List<Skill>> mDependents;
+    private Encumbrance             mEncumbranceForSkills;
+    private boolean                 mRitualMagicDirty;
+
+    RecalcGraph() {
+        mDirty = EnumSet.allOf(Node.class);
+        mDirtySkills = new HashSet<>();
+        mDirtySpells = new HashSet<>();
+        mAllSkillsDirty = true;
+        mAllSpellsDirty = true;
+        mFeatureSources = new HashSet<>();
+        mComponents = new ArrayList<>();
+        mDependents = new HashMap<>();
+    }
+
+    /** @return {@code true} if nothing needs to be recalculated. */
+    boolean isClean() {
+        return mDirty.isEmpty();
+    }
+
+    /**
+     * @param node The {@link Node} to check.
+     * @return {@code true} if the node was dirty. The node is marked clean as a side effect.
+     */
+    boolean take(Node node) {
+        return mDirty.remove(node);
+    }
+
+    /** Marks everything as needing to be recalculated. */
+    void invalidateAll() {
+        mDirty = EnumSet.allOf(Node.class);
+        mAllSkillsDirty = true;
+        mAllSpellsDirty = true;
+    }
+
+    /** Marks all skills as needing to be recalculated. */
+    void invalidateAllSkills() {
+        mDirty.add(Node.SKILLS);
+        mAllSkillsDirty = true;
+    }
+
+    /** Marks all spells as needing to be recalculated. */
+    void invalidateAllSpells() {
+        mDirty.add(Node.SPELLS);
+        mAllSpellsDirty = true;
+    }
+
+    /** Marks everything that depends on the feature map as needing to be recalculated. */
+    void featuresChanged() {
+        invalidateAllSkills();
+        invalidateAllSpells();
+        mDirty.add(Node.PREREQS);
+        mDirty.add(Node.ATTRIBUTE_POINTS);
+    }
+
+    /** Marks everything that depends on attribute values as needing to be recalculated. */
+    void attributesChanged() {
+        invalidateAllSkills();
+        invalidateAllSpells();
+        mDirty.add(Node.PREREQS);
+        mDirty.add(Node.ATTRIBUTE_POINTS);
+    }
+
+    /**
+     * Marks the calculations that depend upon the specified row as needing to be recalculated.
+     *
+     * @param row The row that was changed.
+     */
+    void rowChanged(ListRow row) {
+        if (row instanceof Note) {
+            return;
+        }
+        if (row instanceof Skill skill) {
+            mDirty.add(Node.SKILLS);
+            mDirty.add(Node.SKILL_POINTS);
+            mDirty.add(Node.PREREQS);
+            mDirtySkills.add(skill);
+            // Ritual magic spells look up their base skill by name, so they may be affected even
+            // when the skill's level doesn't change.
+            mDirty.add(Node.SPELLS);
+            mRitualMagicDirty = true;
+        } else if (row instanceof Spell spell) {
+            mDirty.add(Node.SPELLS);
+            mDirty.add(Node.SPELL_POINTS);
+            mDirty.add(Node.PREREQS);
+            mDirtySpells.add(spell);
+        } else if (row instanceof Advantage) {
+            // Advantage levels may be referenced by attribute expressions, so everything that
+            // depends on attribute values is affected, too.
+            mDirty.add(Node.FEATURES);
+            mDirty.add(Node.ADVANTAGE_POINTS);
+            attributesChanged();
+            return;
+        } else if (row instanceof Equipment) {
+            OutlineModel owner = row.getOwner();
+            boolean      other = owner != null && owner.getProperty(EquipmentList.KEY_OTHER_ROOT) != null;
+            if (owner == null || !other) {
+                mDirty.add(Node.WEIGHT_AND_WEALTH);
+            }
+            if (owner == null || other) {
+                mDirty.add(Node.WEALTH_NOT_CARRIED);
+            }
+            mDirty.add(Node.PREREQS);
+        } else {
+            invalidateAll();
+            return;
+        }
+        if (mFeatureSources.contains(row) || hasFeatures(row)) {
+            mDirty.add(Node.FEATURES);
+        }
+    }
+
+    /**
+     * @param row The row to check.
+     * @return {@code true} if the row, or one of its modifiers, has features.
+     */
+    static boolean hasFeatures(ListRow row) {
+        if (!row.getFeatures().isEmpty()) {
+            return true;
+        }
+        if (row instanceof Advantage advantage) {
+            for (AdvantageModifier modifier : advantage.getModifiers()) {
+                if (!modifier.getFeatures().isEmpty()) {
+                    return true;
+                }
+            }
+        } else if (row instanceof Equipment equipment) {
+            for (EquipmentModifier modifier : equipment.getModifiers()) {
+                if (!modifier.getFeatures().isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param encumbrance The current encumbrance level for skills. If this differs from the level
+     *                    seen last time, all skills are marked as needing to be recalculated.
+     */
+    void setEncumbranceForSkills(Encumbrance encumbrance) {
+        if (mEncumbranceForSkills != encumbrance) {
+            mEncumbranceForSkills = encumbrance;
+            invalidateAllSkills();
+        }
+    }
+
+    /**
+     * @param row The row to check.
+     * @return {@code true} if a change to the row may alter the value of an attribute. Attribute
+     *         base expressions may refer to advantage levels, so anything other than a skill, spell,
+     *         piece of equipment or note is considered to do so.
+     */
+    static boolean affectsAttributes(ListRow row) {
+        return !(row instanceof Skill || row instanceof Spell || row instanceof Equipment || row instanceof Note);
+    }
+
+    /** @param sources The rows that contributed features to the most recent feature map. */
+    void setFeatureSources(Set<ListRow> sources) {
+        mFeatureSources = sources;
+    }
+
+    /**
+     * Updates the levels of the dirty skills, along with any skills that depend on them, in
+     * dependency order. Skills that form a circular chain of defaults are resolved by repeatedly
+     * updating the members of the cycle in sheet order until they stabilize, with the number of
+     * passes capped at one more than the size of the cycle.
+     *
+     * @param character The character to work on.
+     * @return Whether any skill level changed.
+     */
+    boolean updateSkills(GURPSCharacter character) {
+        Map<Skill, List<Skill>> previousDependents = mDependents;
+        rebuildSkillGraph(character);
+        Set<Skill> targets = null;
+        if (!mAllSkillsDirty) {
+            targets = new HashSet<>();
+            List<Skill> queue = new ArrayList<>(mDirtySkills);
+            while (!queue.isEmpty()) {
+                Skill skill = queue.remove(queue.size() - 1);
+                if (targets.add(skill)) {
+                    addDependents(queue, previousDependents.get(skill));
+                    addDependents(queue, mDependents.get(skill));
+                }
+            }
+        }
+        mAllSkillsDirty = false;
+        mDirtySkills.clear();
+        boolean changed = false;
+        for (List<Skill> component : mComponents) {
+            if (targets == null || targets.contains(component.get(0))) {
+                changed |= updateComponent(component);
+            }
+        }
+        if (changed) {
+            mDirty.add(Node.SPELLS);
+            mRitualMagicDirty = true;
+        }
+        return changed;
+    }
+
+    private static void addDependents(List<Skill> queue, List<Skill> dependents) {
+        if (dependents != null) {
+            queue.addAll(dependents);
+        }
+    }
+
+    private static boolean updateComponent(List<Skill> component) {
+        int size = component.size();
+        if (size == 1) {
+            return component.get(0).updateLevel(true);
+        }
+        boolean changed = false;
+        int     passes  = size + 1;
+        boolean passChanged;
+        do {
+            passChanged = false;
+            for (Skill skill : component) {
+                passChanged |= skill.updateLevel(true);
+            }
+            changed |= passChanged;
+        } while (passChanged && --passes > 0);
+        return changed;
+    }
+
+    /**
+     * Updates the levels of the dirty spells. A spell's level depends only upon attributes,
+     * features and skills, never upon another spell, so large numbers of spells are split across
+     * several tasks.
+     *
+     * @param character The character to work on.
+     * @param scheduler The {@link RecalcScheduler} to run the updates with.
+     * @return Whether any spell level changed.
+     */
+    boolean updateSpells(GURPSCharacter character, RecalcScheduler scheduler) {
+        List<Spell> spells = new ArrayList<>();
+        for (Spell spell : character.getSpellsIterator()) {
+            if (mAllSpellsDirty || mDirtySpells.contains(spell) || (mRitualMagicDirty && spell instanceof RitualMagicSpell)) {
+                spells.add(spell);
+            }
+        }
+        mAllSpellsDirty = false;
+        mRitualMagicDirty = false;
+        mDirtySpells.clear();
+        int       count     = spells.size();
+        int       taskCount = RecalcScheduler.getTaskCount(count);
+        boolean[] changed   = new boolean[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            int         task  = i;
+            List<Spell> slice = spells.subList(count * i / taskCount, count * (i + 1) / taskCount);
+            scheduler.add(slice.size(), () -> {
+                for (Spell spell : slice) {
+                    changed[task] |= spell.updateLevel(true);
+                }
+            });
+        }
+        scheduler.run();
+        for (boolean one : changed) {
+            if (one) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rebuildSkillGraph(GURPSCharacter character) {
+        List<Skill> skills = new ArrayList<>();
+        for (Skill skill : character.getSkillsIterator()) {
+            skills.add(skill);
+        }
+        Map<Skill, List<Skill>> dependencies = new HashMap<>();
+        mDependents = new HashMap<>();
+        for (Skill skill : skills) {
+            List<Skill> deps = new ArrayList<>();
+            if (skill.canHaveChildren()) {
+                for (Row child : skill.getChildren()) {
+                    if (child instanceof Skill childSkill) {
+                        deps.add(childSkill);
+                    }
+                }
+            } else if (skill instanceof Technique technique) {
+                addSkillsFor(deps, character, technique.getDefault());
+            } else {
+                for (SkillDefault skillDefault : skill.getDefaults()) {
+                    addSkillsFor(deps, character, skillDefault);
+                }
+            }
+            dependencies.put(skill, deps);
+            for (Skill dep : deps) {
+                mDependents.computeIfAbsent(dep, k -> new ArrayList<>(1)).add(skill);
+            }
+        }
+        mComponents = new StronglyConnected(dependencies).compute(skills);
+    }
+
+    private static void addSkillsFor(List<Skill> deps, GURPSCharacter character, SkillDefault skillDefault) {
+        if (skillDefault != null && SkillDefaultType.isSkillBased(skillDefault.getType())) {
+            for (Skill one : character.getSkillsNamed(skillDefault.getName(), skillDefault.getSpecialization())) {
+                if (!one.canHaveChildren()) {
+                    deps.add(one);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tarjan's algorithm. Components are produced with dependencies ahead of their dependents and,
+     * within a component, in the order the skills appear on the sheet.
+     */
+    private static class StronglyConnected {
+        private Map<Skill, List<Skill>> mDependencies;
+        private Map<Skill, Integer>     mIndex;
+        private Map<Skill, Integer>     mLowLink;
+        private Map<Skill, Integer>     mOrder;
+        private List<Skill>             mStack;
+        private Set<Skill>              mOnStack;
+        private List<List<Skill>>       mComponents;
+
+        StronglyConnected(Map<Skill, List<Skill>> dependencies) {
+            mDependencies = dependencies;
+            mIndex = new HashMap<>();
+            mLowLink = new HashMap<>();
+            mOrder = new HashMap<>();
+            mStack = new ArrayList<>();
+            mOnStack = new HashSet<>();
+            mComponents = new ArrayList<>();
+        }
+
+        List<List<Skill>> compute(List<Skill> skills) {
+            int size = skills.size();
+            for (int i = 0; i < size; i++) {
+                mOrder.put(skills.get(i), Integer.valueOf(i));
+            }
+            for (Skill skill : skills) {
+                if (!mIndex.containsKey(skill)) {
+                    visit(skill);
+                }
+            }
+            return mComponents;
+        }
+
+        private void visit(Skill skill) {
+            int index = mIndex.size();
+            mIndex.put(skill, Integer.valueOf(index));
+            mLowLink.put(skill, Integer.valueOf(index));
+            mStack.add(skill);
+            mOnStack.add(skill);
+            for (Skill dep : mDependencies.get(skill)) {
+                if (!mIndex.containsKey(dep)) {
+                    visit(dep);
+                    mLowLink.put(skill, Integer.valueOf(Math.min(mLowLink.get(skill).intValue(), mLowLink.get(dep).intValue())));
+                } else if (mOnStack.contains(dep)) {
+                    mLowLink.put(skill, Integer.valueOf(Math.min(mLowLink.get(skill).intValue(), mIndex.get(dep).intValue())));
+                }
+            }
+            if (mLowLink.get(skill).intValue() == index) {
+                List<Skill> component = new ArrayList<>();
+                Skill       one;
+                do {
+                    one = mStack.remove(mStack.size() - 1);
+                    mOnStack.remove(one);
+                    component.add(one);
+                } while (one != skill);
+                if (component.size() > 1) {
+                    component.sort((s1, s2) -> Integer.compare(mOrder.get(s1).intValue(), mOrder.get(s2).intValue()));
+                }
+                mComponents.add(component);
+            }
+        }
+    }
+}
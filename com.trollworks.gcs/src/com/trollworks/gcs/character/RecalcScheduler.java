@@ -0,0 +1,142 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.character;
+
+import com.trollworks.gcs.ui.widget.outline.ListRow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs independent portions of a {@link GURPSCharacter} recalculation concurrently on the common
+ * fork-join pool. Row change notifications raised while the work runs, along with the discarding of
+ * the rows' cached digests, search text and filter results that goes with them, are held back and
+ * replayed on the calling thread, in the order the work was added, once all of it has completed, so
+ * the outcome is the same as running the work serially. Small amounts of work are always run
+ * serially on the calling thread, as the cost of handing them off would outweigh any gain.
+ */
+class RecalcScheduler {
+    /** The minimum number of rows of work to hand to a single task. */
+    static final         int                          MIN_ROWS_PER_TASK  = 128;
+    /** The minimum total number of rows of work before anything is run concurrently. */
+    static final         int                          PARALLEL_THRESHOLD = 2 * MIN_ROWS_PER_TASK;
+    private static final ThreadLocal<List<ListRow[]>> DEFERRED           = new ThreadLocal<>();
+    private              GURPSCharacter               mCharacter;
+    private              List<Runnable>               mTasks;
+    private              int                          mRowCount;
+
+    /** @param character The character being recalculated. */
+    RecalcScheduler(GURPSCharacter character) {
+        mCharacter = character;
+        mTasks = new ArrayList<>();
+    }
+
+    /**
+     * @param rowCount The number of rows to be processed.
+     * @return The number of tasks the rows should be split across. This will be {@code 1} when the
+     *         rows are too few to be worth splitting.
+     */
+    static int getTaskCount(int rowCount) {
+        if (rowCount < PARALLEL_THRESHOLD) {
+            return 1;
+        }
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(Math.min(parallelism, rowCount / MIN_ROWS_PER_TASK), 1);
+    }
+
+    /**
+     * Adds a task to be run by the next call to {@link #run()}. The task must not modify anything
+     * that another task added before that call reads or modifies.
+     *
+     * @param rowCount The number of rows the task will process, used to decide whether the work
+     *                 is large enough to be worth running concurrently.
+     * @param task     The task.
+     */
+    void add(int rowCount, Runnable task) {
+        mTasks.add(task);
+        mRowCount += rowCount;
+    }
+
+    /** Runs the tasks added since the last call and waits for them to complete. */
+    void run() {
+        List<Runnable> tasks       = mTasks;
+        int            rowCount    = mRowCount;
+        int            parallelism = ForkJoinPool.getCommonPoolParallelism();
+        mTasks = new ArrayList<>();
+        mRowCount = 0;
+        if (tasks.size() < 2 || rowCount < PARALLEL_THRESHOLD || parallelism < 2) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        mCharacter.prepareForConcurrentReads();
+        List<Work> work = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            work.add(new Work(task));
+        }
+        ForkJoinTask.invokeAll(work);
+        for (Work one : work) {
+            for (ListRow[] rows : one.mDeferred) {
+                mCharacter.notifyOfRowChange(rows);
+            }
+        }
+    }
+
+    /**
+     * @param rows The rows that changed.
+     * @return {@code true} if the notification was held back because it was raised by a task that
+     *         is being run concurrently.
+     */
+    static boolean defer(ListRow[] rows) {
+        List<ListRow[]> deferred = DEFERRED.get();
+        if (deferred == null) {
+            return false;
+        }
+        deferred.add(rows);
+        return true;
+    }
+
+    /** @return {@code true} if the current thread is running a task concurrently. */
+    static boolean isRunningConcurrently() {
+        return DEFERRED.get() != null;
+    }
+
+    private static class Work extends RecursiveAction {
+        private static final long            serialVersionUID = 1L;
+        private              Runnable        mTask;
+        private              List<ListRow[]> mDeferred;
+
+        Work(Runnable task) {
+            mTask = task;
+            mDeferred = new ArrayList<>();
+        }
+
+        @Override
+        protected void compute() {
+            List<ListRow[]> previous = DEFERRED.get();
+            DEFERRED.set(mDeferred);
+            try {
+                mTask.run();
+            } finally {
+                if (previous != null) {
+                    DEFERRED.set(previous);
+                } else {
+                    DEFERRED.remove();
+                }
+            }
+        }
+    }
+}
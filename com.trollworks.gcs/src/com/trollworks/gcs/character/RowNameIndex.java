@@ -0,0 +1,160 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.character;
+
+import com.trollworks.gcs.ui.widget.outline.ListRow;
+import com.trollworks.gcs.ui.widget.outline.OutlineModel;
+import com.trollworks.gcs.ui.widget.outline.RowIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An index of the rows within an {@link OutlineModel}, keyed by case-folded name and
+ * specialization. The index is built on demand and discarded whenever it may no longer reflect the
+ * rows in the model.
+ *
+ * @param <T> The type of row being indexed.
+ */
+class RowNameIndex<T extends ListRow> {
+    private OutlineModel                      mModel;
+    private Class<T>                          mType;
+    private Function<T, String>               mNameAccessor;
+    private Function<T, String>               mSpecializationAccessor;
+    private Map<String, List<T>>              mByName;
+    private Map<String, Map<String, List<T>>> mByNameAndSpecialization;
+    private Map<T, String[]>                  mIndexedAs;
+
+    /**
+     * @param model                  The model to index.
+     * @param type                   The type of row being indexed.
+     * @param nameAccessor           Used to obtain the name of a row.
+     * @param specializationAccessor Used to obtain the specialization of a row. May be {@code null}
+     *                               if the rows have no specialization.
+     */
+    RowNameIndex(OutlineModel model, Class<T> type, Function<T, String> nameAccessor, Function<T, String> specializationAccessor) {
+        mModel = model;
+        mType = type;
+        mNameAccessor = nameAccessor;
+        mSpecializationAccessor = specializationAccessor;
+    }
+
+    /**
+     * @param name The name to look for.
+     * @return The rows with the specified name, ignoring case, in the order they appear in the
+     *         model.
+     */
+    List<T> get(String name) {
+        if (name == null) {
+            return Collections.emptyList();
+        }
+        build();
+        List<T> rows = mByName.get(fold(name));
+        return rows != null ? rows : Collections.emptyList();
+    }
+
+    /**
+     * @param name           The name to look for.
+     * @param specialization The specialization to look for.
+     * @return The rows with the specified name and specialization, ignoring case, in the order
+     *         they appear in the model.
+     */
+    List<T> get(String name, String specialization) {
+        if (name == null || specialization == null) {
+            return Collections.emptyList();
+        }
+        build();
+        Map<String, List<T>> bySpecialization = mByNameAndSpecialization.get(fold(name));
+        if (bySpecialization != null) {
+            List<T> rows = bySpecialization.get(fold(specialization));
+            if (rows != null) {
+                return rows;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /** Discards the index, forcing it to be rebuilt the next time it is needed. */
+    void invalidate() {
+        mByName = null;
+        mByNameAndSpecialization = null;
+        mIndexedAs = null;
+    }
+
+    /**
+     * Discards the index if any of the rows have been renamed or are unknown to it.
+     *
+     * @param rows The rows that have changed.
+     */
+    void rowsChanged(ListRow... rows) {
+        if (mIndexedAs != null) {
+            for (ListRow row : rows) {
+                if (mType.isInstance(row)) {
+                    T        one       = mType.cast(row);
+                    String[] indexedAs = mIndexedAs.get(one);
+                    if (indexedAs == null || !indexedAs[0].equals(mNameAccessor.apply(one)) || !indexedAs[1].equals(getSpecialization(one))) {
+                        invalidate();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Builds the index, if it isn't already built. */
+    void build() {
+        if (mIndexedAs == null) {
+            Map<String, List<T>>              byName                  = new HashMap<>();
+            Map<String, Map<String, List<T>>> byNameAndSpecialization = new HashMap<>();
+            Map<T, String[]>                  indexedAs               = new HashMap<>();
+            for (T row : new RowIterator<T>(mModel)) {
+                String name           = mNameAccessor.apply(row);
+                String specialization = getSpecialization(row);
+                String foldedName     = fold(name);
+                byName.computeIfAbsent(foldedName, k -> new ArrayList<>(1)).add(row);
+                byNameAndSpecialization.computeIfAbsent(foldedName, k -> new HashMap<>()).computeIfAbsent(fold(specialization), k -> new ArrayList<>(1)).add(row);
+                indexedAs.put(row, new String[]{name, specialization});
+            }
+            mByName = byName;
+            mByNameAndSpecialization = byNameAndSpecialization;
+            mIndexedAs = indexedAs;
+        }
+    }
+
+    private String getSpecialization(T row) {
+        return mSpecializationAccessor != null ? mSpecializationAccessor.apply(row) : "";
+    }
+
+    /**
+     * @param text The text to fold.
+     * @return A form of the text such that two strings fold to the same value if and only if
+     *         {@link String#equalsIgnoreCase(String)} considers them equal.
+     */
+    static String fold(String text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            if (Character.toLowerCase(Character.toUpperCase(ch)) != ch) {
+                char[] chars = text.toCharArray();
+                for (int j = i; j < length; j++) {
+                    chars[j] = Character.toLowerCase(Character.toUpperCase(chars[j]));
+                }
+                return new String(chars);
+            }
+        }
+        return text;
+    }
+}
@@ -17,6 +17,7 @@ import com.trollworks.gcs.page.DropPanel;
 import com.trollworks.gcs.ui.Colors;
 import com.trollworks.gcs.ui.Fonts;
 import com.trollworks.gcs.ui.GraphicsUtilities;
+import com.trollworks.gcs.ui.RetinaIcon;
 import com.trollworks.gcs.ui.border.TitledBorder;
 import com.trollworks.gcs.ui.image.Img;
 import com.trollworks.gcs.ui.scale.Scale;
@@ -93,7 +94,10 @@ public class PortraitPanel extends DropPanel implements DropTargetListener {
         Graphics2D gc     = GraphicsUtilities.prepare(g);
         gc.setColor(Colors.CONTENT);
         gc.fillRect(insets.left, insets.top, getWidth() - (insets.left + insets.right), getHeight() - (insets.top + insets.bottom));
-        mSheet.getCharacter().getProfile().getPortraitWithFallback().paintIcon(this, gc, insets.left, insets.top);
+        RetinaIcon portrait = mSheet.getCharacter().getProfile().getPortraitIfReady(this::repaint);
+        if (portrait != null) {
+            portrait.paintIcon(this, gc, insets.left, insets.top);
+        }
     }
 
     @Override
@@ -14,10 +14,12 @@ package com.trollworks.gcs.cmdline;
 import com.trollworks.gcs.advantage.AdvantageList;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.datafile.DataFile;
+import com.trollworks.gcs.datafile.SnapshotCache;
 import com.trollworks.gcs.equipment.EquipmentList;
 import com.trollworks.gcs.modifier.AdvantageModifierList;
 import com.trollworks.gcs.modifier.EquipmentModifierList;
 import com.trollworks.gcs.notes.NoteList;
+import com.trollworks.gcs.settings.Settings;
 import com.trollworks.gcs.skill.SkillList;
 import com.trollworks.gcs.spell.SpellList;
 import com.trollworks.gcs.template.Template;
@@ -31,91 +33,185 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
-public final class LoadSave implements Runnable {
-    private List<Path> mPaths;
+/**
+ * Loads and then saves files, to bring them up to the current data format. Files whose contents
+ * would not change are left untouched. A failure to process one file is reported and the rest are
+ * still processed, with the process exiting with a non-zero status at the end.
+ */
+public final class LoadSave {
+    private List<Path>   mFiles;
+    private List<String> mFailures;
+    private int          mWritten;
+    private int          mUnchanged;
 
-    public static void process(List<Path> paths) {
+    /**
+     * @param paths The files and directories to process. Directories are traversed recursively.
+     * @param jobs  The number of files to process at once. When less than 2, files are processed
+     *              one at a time on the event queue.
+     */
+    public static void process(List<Path> paths, int jobs) {
         if (paths.isEmpty()) {
             System.err.println(I18n.text("必须选择一个或多个文件或目录以继续"));
             System.exit(1);
         }
         System.setProperty("java.awt.headless", Boolean.TRUE.toString());
         UIUtilities.initialize();
+        // Make sure the settings are loaded before any workers might race to do so
+        Settings.getInstance();
+        // Every file loaded is saved again straight away, leaving any snapshot of it stale
+        SnapshotCache.disableUpdates();
+        LoadSave loadSave = new LoadSave();
+        for (Path path : paths) {
+            loadSave.collect(path);
+        }
+        long start = System.nanoTime();
         try {
-            // This is run on the event queue since much of the sheet logic assumes a UI
-            // environment and would otherwise cause concurrent modification exceptions, as the
-            // detection of whether it was safe to modify data would be inaccurate.
-            EventQueue.invokeAndWait(new LoadSave(paths));
+            if (jobs < 2) {
+                // This is run on the event queue since much of the sheet logic assumes a UI
+                // environment and would otherwise cause concurrent modification exceptions, as the
+                // detection of whether it was safe to modify data would be inaccurate.
+                EventQueue.invokeAndWait(() -> {
+                    for (Path path : loadSave.mFiles) {
+                        loadSave.loadSave(path);
+                    }
+                });
+            } else {
+                // Each file is loaded and saved entirely on one worker thread and no two workers ever
+                // share a file. The state shared between files (the settings, and the ancestry,
+                // name generator and calendar registries) is either loaded up front or fills itself
+                // under a lock, so the files don't need the protection of the event queue.
+                ExecutorService workers = Executors.newFixedThreadPool(jobs);
+                for (Path path : loadSave.mFiles) {
+                    workers.execute(() -> loadSave.loadSave(path));
+                }
+                workers.shutdown();
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
         } catch (Exception exception) {
             exception.printStackTrace(System.err);
             System.exit(1);
         }
+        if (!loadSave.report(System.nanoTime() - start)) {
+            System.exit(1);
+        }
     }
 
-    private LoadSave(List<Path> paths) {
-        mPaths = paths;
+    private LoadSave() {
+        mFiles = new ArrayList<>();
+        mFailures = new ArrayList<>();
     }
 
-    @Override
-    public void run() {
-        try {
-            for (Path path : mPaths) {
-                traverse(path);
-            }
-        } catch (IOException ioe) {
-            ioe.printStackTrace();
-            System.out.println(I18n.text("  ** 遇到错误 **"));
-        }
-    }
-
-    private static void traverse(Path path) throws IOException {
+    private void collect(Path path) {
         if (!shouldSkip(path)) {
             if (Files.isDirectory(path)) {
                 try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
                     for (Path child : stream) {
-                        traverse(child);
+                        collect(child);
                     }
+                } catch (IOException exception) {
+                    failed(path, exception);
                 }
-            } else {
-                String ext = PathUtils.getExtension(path.getFileName());
-                if (FileType.SHEET.matchExtension(ext)) {
-                    save(new GURPSCharacter(path), path);
-                } else if (FileType.TEMPLATE.matchExtension(ext)) {
-                    save(new Template(path), path);
-                } else if (FileType.ADVANTAGE.matchExtension(ext)) {
-                    loadSave(new AdvantageList(), path);
-                } else if (FileType.ADVANTAGE_MODIFIER.matchExtension(ext)) {
-                    loadSave(new AdvantageModifierList(), path);
-                } else if (FileType.EQUIPMENT.matchExtension(ext)) {
-                    loadSave(new EquipmentList(), path);
-                } else if (FileType.EQUIPMENT_MODIFIER.matchExtension(ext)) {
-                    loadSave(new EquipmentModifierList(), path);
-                } else if (FileType.SKILL.matchExtension(ext)) {
-                    loadSave(new SkillList(), path);
-                } else if (FileType.SPELL.matchExtension(ext)) {
-                    loadSave(new SpellList(), path);
-                } else if (FileType.NOTE.matchExtension(ext)) {
-                    loadSave(new NoteList(), path);
-                }
+            } else if (isSupported(path)) {
+                mFiles.add(path);
+            }
+        }
+    }
+
+    private static boolean isSupported(Path path) {
+        String ext = PathUtils.getExtension(path.getFileName());
+        for (FileType fileType : new FileType[]{FileType.SHEET, FileType.TEMPLATE, FileType.ADVANTAGE,
+                FileType.ADVANTAGE_MODIFIER, FileType.EQUIPMENT, FileType.EQUIPMENT_MODIFIER,
+                FileType.SKILL, FileType.SPELL, FileType.NOTE}) {
+            if (fileType.matchExtension(ext)) {
+                return true;
             }
         }
+        return false;
     }
 
-    private static void loadSave(DataFile data, Path path) throws IOException {
+    private static DataFile load(Path path) throws IOException {
+        String ext = PathUtils.getExtension(path.getFileName());
+        if (FileType.SHEET.matchExtension(ext)) {
+            return new GURPSCharacter(path);
+        }
+        if (FileType.TEMPLATE.matchExtension(ext)) {
+            return new Template(path);
+        }
+        DataFile data;
+        if (FileType.ADVANTAGE.matchExtension(ext)) {
+            data = new AdvantageList();
+        } else if (FileType.ADVANTAGE_MODIFIER.matchExtension(ext)) {
+            data = new AdvantageModifierList();
+        } else if (FileType.EQUIPMENT.matchExtension(ext)) {
+            data = new EquipmentList();
+        } else if (FileType.EQUIPMENT_MODIFIER.matchExtension(ext)) {
+            data = new EquipmentModifierList();
+        } else if (FileType.SKILL.matchExtension(ext)) {
+            data = new SkillList();
+        } else if (FileType.SPELL.matchExtension(ext)) {
+            data = new SpellList();
+        } else {
+            data = new NoteList();
+        }
         data.load(path);
-        save(data, path);
+        return data;
     }
 
-    private static void save(DataFile data, Path path) {
-        if (!data.save(path)) {
-            System.out.println("failed to save " + path);
-            System.exit(1);
+    private void loadSave(Path path) {
+        try {
+            if (load(path).saveIfChanged(path)) {
+                written(path);
+            } else {
+                unchanged(path);
+            }
+        } catch (Exception exception) {
+            failed(path, exception);
         }
+    }
+
+    private synchronized void written(Path path) {
+        mWritten++;
         System.out.println(path);
     }
 
+    private synchronized void unchanged(Path path) {
+        mUnchanged++;
+        System.out.println(MessageFormat.format(I18n.text("{0}（未更改）"), path));
+    }
+
+    private synchronized void failed(Path path, Exception exception) {
+        String msg = exception.getMessage();
+        msg = MessageFormat.format(I18n.text("{0}：{1}"), path, msg != null ? msg : exception.getClass().getSimpleName());
+        mFailures.add(msg);
+        System.err.println(I18n.text("  ** 遇到错误 ** ") + msg);
+    }
+
+    /**
+     * @param elapsed The time taken, in nanoseconds.
+     * @return {@code true} if every file was processed successfully.
+     */
+    private synchronized boolean report(long elapsed) {
+        System.out.println();
+        System.out.println(MessageFormat.format(I18n.text("处理了{0}个文件，用时{1}秒：{2}个已保存，{3}个未更改，{4}个失败"),
+                Integer.valueOf(mFiles.size()), String.format("%.1f", Double.valueOf(elapsed / 1.0e9)),
+                Integer.valueOf(mWritten), Integer.valueOf(mUnchanged), Integer.valueOf(mFailures.size())));
+        if (mFailures.isEmpty()) {
+            return true;
+        }
+        System.err.println(I18n.text("以下文件处理失败："));
+        for (String failure : mFailures) {
+            System.err.println("  " + failure);
+        }
+        return false;
+    }
+
     private static boolean shouldSkip(Path path) {
         return path.getFileName().toString().startsWith(".");
     }
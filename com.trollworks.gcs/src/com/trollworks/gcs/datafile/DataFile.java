@@ -16,27 +16,36 @@ import com.trollworks.gcs.menu.edit.Undoable;
 import com.trollworks.gcs.settings.Settings;
 import com.trollworks.gcs.settings.SheetSettings;
 import com.trollworks.gcs.ui.widget.DataModifiedListener;
+import com.trollworks.gcs.ui.widget.outline.ListRow;
 import com.trollworks.gcs.utility.FileType;
 import com.trollworks.gcs.utility.Log;
-import com.trollworks.gcs.utility.SafeFileUpdater;
 import com.trollworks.gcs.utility.SaveType;
 import com.trollworks.gcs.utility.VersionException;
-import com.trollworks.gcs.utility.json.Json;
+import com.trollworks.gcs.utility.json.JsonDigest;
 import com.trollworks.gcs.utility.json.JsonMap;
+import com.trollworks.gcs.utility.json.JsonReader;
+import com.trollworks.gcs.utility.json.JsonRecorder;
+import com.trollworks.gcs.utility.json.JsonRecordingWriter;
 import com.trollworks.gcs.utility.json.JsonWriter;
 import com.trollworks.gcs.utility.undo.StdUndoManager;
 
+import java.awt.EventQueue;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 import javax.swing.Icon;
 import javax.swing.undo.UndoableEdit;
 
@@ -59,6 +68,10 @@ public abstract class DataFile extends ChangeableData implements Undoable {
     private             List<DataModifiedListener> mDataModifiedListeners = new ArrayList<>();
     private             boolean                    mSortingMarksDirty     = true;
     private             boolean                    mModified;
+    private             long                       mRevision;
+    private             PendingSave                mPendingSave;
+    private             JsonDigest                 mSavedDigest;
+    private volatile    Queue<ListRow>             mDeferredRowChanges;
 
     @Override
     public void notifyOfChange() {
@@ -66,9 +79,106 @@ public abstract class DataFile extends ChangeableData implements Undoable {
         super.notifyOfChange();
     }
 
-    /** @param path The path to load. */
+    /**
+     * Called when the contents of specific rows have changed. Sub-classes that can limit the amount
+     * of work they need to do in response to a change may override this to take note of the rows
+     * involved.
+     *
+     * @param rows The rows that changed.
+     */
+    public void notifyOfRowChange(ListRow... rows) {
+        Queue<ListRow> deferred = mDeferredRowChanges;
+        if (deferred != null) {
+            Collections.addAll(deferred, rows);
+            return;
+        }
+        for (ListRow row : rows) {
+            row.invalidateContentDigest();
+        }
+        notifyOfChange();
+    }
+
+    /**
+     * Starts holding back the notifications made by {@link #notifyOfRowChange(ListRow...)}, which
+     * may then be made from several threads at once, until {@link #endDeferringRowChanges(boolean)}
+     * is called.
+     */
+    void startDeferringRowChanges() {
+        mDeferredRowChanges = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Stops holding back row change notifications. Must be called on the thread that called {@link
+     * #startDeferringRowChanges()}.
+     *
+     * @param send Whether to send the notifications that were held back, rather than drop them.
+     */
+    void endDeferringRowChanges(boolean send) {
+        Queue<ListRow> rows = mDeferredRowChanges;
+        mDeferredRowChanges = null;
+        if (send && rows != null && !rows.isEmpty()) {
+            notifyOfRowChange(rows.toArray(new ListRow[0]));
+        }
+    }
+
+    /**
+     * @return A digest of the contents of this file, excluding anything that doesn't affect what
+     *         it means, such as timestamps and calculated values. Rows contribute their cached
+     *         digests, so this is cheap to call repeatedly on a file where little has changed.
+     */
+    public JsonDigest getContentDigest() {
+        return JsonDigest.of((w) -> save(w, SaveType.HASH, false));
+    }
+
+    /**
+     * Starts tracking the contents of this file as of its last save, so that undoing or redoing
+     * back to them marks the file as unmodified again. Does nothing if the file is currently
+     * modified, as its saved contents are then no longer known.
+     */
+    public void trackSavedContent() {
+        if (!mModified && mSavedDigest == null) {
+            mSavedDigest = getContentDigest();
+            mUndoManager.setTransactionListener(this::checkForSavedContent);
+        }
+    }
+
+    private void checkForSavedContent() {
+        if (mModified && mSavedDigest != null && mPendingSave == null && mSavedDigest.equals(getContentDigest())) {
+            setModified(false);
+        }
+    }
+
+    /**
+     * Loads the file, using the copy in the {@link SnapshotCache} if it is up-to-date.
+     *
+     * @param path The path to load.
+     */
     public void load(Path path) throws IOException {
         setPath(path);
+        JsonMap snapshot = SnapshotCache.load(path);
+        if (snapshot != null) {
+            load(snapshot, new LoadState());
+            mModified = false;
+            return;
+        }
+        SnapshotCache.Pending pending = SnapshotCache.prepare(path);
+        LoadState             state   = new LoadState();
+        state.mKeepDocument = pending != null;
+        loadJSON(path, state);
+        if (pending != null) {
+            pending.update(state.mDocument);
+        }
+        mModified = false;
+    }
+
+    /**
+     * Loads the file from its JSON. If {@link LoadState#mKeepDocument} is set, the document that
+     * was read must be left in {@link LoadState#mDocument}.
+     *
+     * @param path  The path to load.
+     * @param state The {@link LoadState} to use.
+     */
+    protected void loadJSON(Path path, LoadState state) throws IOException {
         try (BufferedReader fileReader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
             fileReader.mark(20);
             char[] buffer = new char[5];
@@ -80,10 +190,15 @@ public abstract class DataFile extends ChangeableData implements Undoable {
             if (n == 5 && buffer[0] == '<' && buffer[1] == '?' && buffer[2] == 'x' && buffer[3] == 'm' && buffer[4] == 'l') {
                 throw new IOException("The old xml format from versions prior to GCS v4.20 cannot be read by this version of GCS");
             } else {
-                load(Json.asMap(Json.parse(fileReader)), new LoadState());
+                JsonReader   reader   = new JsonReader(fileReader);
+                JsonRecorder recorder = state.mKeepDocument ? new JsonRecorder() : null;
+                reader.setRecorder(recorder);
+                load(reader, state);
+                if (recorder != null) {
+                    state.mDocument = recorder.getValue();
+                }
             }
         }
-        mModified = false;
     }
 
     /**
@@ -91,6 +206,25 @@ public abstract class DataFile extends ChangeableData implements Undoable {
      * @param state The {@link LoadState} to use.
      */
     public void load(JsonMap m, LoadState state) throws IOException {
+        loadHeader(m, state);
+        loadSelf(m, state);
+    }
+
+    /**
+     * @param reader The {@link JsonReader} to load data from.
+     * @param state  The {@link LoadState} to use.
+     */
+    public void load(JsonReader reader, LoadState state) throws IOException {
+        load(reader.nextMap(), state);
+    }
+
+    /**
+     * Loads the identity and version of the data file.
+     *
+     * @param m     The {@link JsonMap} to load data from.
+     * @param state The {@link LoadState} to use.
+     */
+    protected final void loadHeader(JsonMap m, LoadState state) throws IOException {
         try {
             mID = UUID.fromString(m.getString(ID));
         } catch (Exception exception) {
@@ -100,7 +234,6 @@ public abstract class DataFile extends ChangeableData implements Undoable {
         if (state.mDataFileVersion > CURRENT_VERSION) {
             throw VersionException.createTooNew();
         }
-        loadSelf(m, state);
     }
 
     /**
@@ -112,30 +245,134 @@ public abstract class DataFile extends ChangeableData implements Undoable {
     protected abstract void loadSelf(JsonMap m, LoadState state) throws IOException;
 
     /**
-     * Saves the data out to the specified path. Does not affect the result of {@link #getPath()}.
+     * Saves the data out to the specified path, waiting for it to be written. Does not affect the
+     * result of {@link #getPath()}.
      *
      * @param path The path to write to.
      * @return {@code true} on success.
      */
     public boolean save(Path path) {
-        SafeFileUpdater transaction = new SafeFileUpdater();
-        boolean         success     = false;
-        transaction.begin();
+        PendingSave save = startSave(path, null);
+        return save != null && finishSave(save, save.mResult.join().booleanValue());
+    }
+
+    /**
+     * Saves the data out to the specified path, with the writing being done in the background. The
+     * data is captured before this method returns, so may be freely modified afterwards. The file
+     * is only marked as unmodified once it has been written, and then only if no further changes
+     * have been made in the meantime. Does not affect the result of {@link #getPath()}.
+     *
+     * @param path         The path to write to.
+     * @param onCompletion Called on the event dispatch thread once the save has completed, with
+     *                     {@code true} on success. May be {@code null}.
+     */
+    public void saveInBackground(Path path, Consumer<Boolean> onCompletion) {
+        PendingSave save = startSave(path, onCompletion);
+        if (save == null) {
+            if (onCompletion != null) {
+                onCompletion.accept(Boolean.FALSE);
+            }
+            return;
+        }
+        save.mResult.thenAccept(success -> EventQueue.invokeLater(() -> finishSave(save, success.booleanValue())));
+    }
+
+    /**
+     * Waits for a save started by {@link #saveInBackground(Path, Consumer)} to complete, if one is
+     * in progress. Must be called on the event dispatch thread.
+     */
+    public void waitForSave() {
+        PendingSave save = mPendingSave;
+        if (save != null) {
+            finishSave(save, save.mResult.join().booleanValue());
+        }
+    }
+
+    /**
+     * Saves the data out to the specified path on the calling thread, unless the file there already
+     * holds exactly what would be written. Does not affect the result of {@link #getPath()} or
+     * {@link #isModified()}.
+     *
+     * @param path The path to write to.
+     * @return {@code true} if the file was written, {@code false} if it was already up-to-date.
+     */
+    public boolean saveIfChanged(Path path) throws IOException {
+        byte[] data = toBytes((w) -> save(w, SaveType.NORMAL, false));
+        if (Files.isRegularFile(path) && Files.size(path) == data.length && Arrays.equals(data, Files.readAllBytes(path))) {
+            return false;
+        }
+        SaveQueue.write(path, data);
+        return true;
+    }
+
+    private static byte[] toBytes(JsonDigest.Source source) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JsonWriter w = new JsonWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8), "\t")) {
+            source.save(w);
+        }
+        return buffer.toByteArray();
+    }
+
+    private PendingSave startSave(Path path, Consumer<Boolean> onCompletion) {
         try {
-            File transactionFile = transaction.getTransactionFile(path.toFile());
-            try (JsonWriter w = new JsonWriter(new BufferedWriter(new FileWriter(transactionFile, StandardCharsets.UTF_8)), "\t")) {
-                save(w, SaveType.NORMAL, false);
+            // Only the calls made to the writer are captured here. Turning them into text, and
+            // into a digest of the contents, is left to the background thread.
+            JsonRecordingWriter contents = new JsonRecordingWriter();
+            save(contents, SaveType.NORMAL, false);
+            JsonRecordingWriter digestContents = null;
+            if (mSavedDigest != null) {
+                digestContents = new JsonRecordingWriter();
+                save(digestContents, SaveType.HASH, false);
             }
-            transaction.commit();
-            setModified(false);
-            success = true;
+            JsonRecordingWriter digestSource = digestContents;
+            PendingSave         save         = new PendingSave(mRevision, onCompletion);
+            save.mResult = SaveQueue.submit(path, () -> {
+                // Completing the result makes the digest visible to the event dispatch thread
+                if (digestSource != null) {
+                    save.mDigest = JsonDigest.of(digestSource::replay);
+                }
+                return toBytes(contents::replay);
+            });
+            mPendingSave = save;
+            return save;
         } catch (Exception exception) {
             Log.error(exception);
-            transaction.abort();
+            return null;
+        }
+    }
+
+    private boolean finishSave(PendingSave save, boolean success) {
+        if (!save.mFinished) {
+            save.mFinished = true;
+            if (mPendingSave == save) {
+                mPendingSave = null;
+            }
+            if (success && save.mRevision == mRevision) {
+                if (save.mDigest != null) {
+                    mSavedDigest = save.mDigest;
+                }
+                setModified(false);
+            }
+            if (save.mOnCompletion != null) {
+                save.mOnCompletion.accept(Boolean.valueOf(success));
+            }
         }
         return success;
     }
 
+    private static class PendingSave {
+        private CompletableFuture<Boolean> mResult;
+        private long                       mRevision;
+        private Consumer<Boolean>          mOnCompletion;
+        private JsonDigest                 mDigest;
+        private boolean                    mFinished;
+
+        PendingSave(long revision, Consumer<Boolean> onCompletion) {
+            mRevision = revision;
+            mOnCompletion = onCompletion;
+        }
+    }
+
     /**
      * Writes the data to the specified {@link JsonWriter}.
      *
@@ -208,6 +445,9 @@ public abstract class DataFile extends ChangeableData implements Undoable {
 
     /** @param modified Whether or not the data has been modified. */
     public final void setModified(boolean modified) {
+        if (modified) {
+            mRevision++;
+        }
         if (mModified != modified) {
             mModified = modified;
             for (DataModifiedListener listener : mDataModifiedListeners.toArray(new DataModifiedListener[0])) {
@@ -235,6 +475,10 @@ public abstract class DataFile extends ChangeableData implements Undoable {
 
     /** @param mgr The {@link StdUndoManager} to use. */
     public final void setUndoManager(StdUndoManager mgr) {
+        if (mSavedDigest != null) {
+            mUndoManager.setTransactionListener(null);
+            mgr.setTransactionListener(this::checkForSavedContent);
+        }
         mUndoManager = mgr;
     }
 
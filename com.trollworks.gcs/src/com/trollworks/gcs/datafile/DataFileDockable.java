@@ -45,6 +45,9 @@ public abstract class DataFileDockable extends Dockable implements CloseHandler,
         super(new BorderLayout());
         mDataFile = file;
         mDataFile.setUndoManager(new StdUndoManager());
+        if (mDataFile.getPath() != null) {
+            mDataFile.trackSavedContent();
+        }
     }
 
     /** @return The {@link DataFile}. */
@@ -100,14 +103,32 @@ public abstract class DataFileDockable extends Dockable implements CloseHandler,
     }
 
     @Override
-    public boolean saveTo(Path path) {
-        if (mDataFile.save(path)) {
+    public void saveTo(Path path, Runnable onSuccess) {
+        // Take on the new path right away, so that saving again before the write completes doesn't
+        // ask for a location again, and put the old one back should the write fail
+        Path previous = mDataFile.getPath();
+        if (!path.equals(previous)) {
             mDataFile.setPath(path);
             getDockContainer().updateTitle(this);
-            return true;
         }
-        Modal.showError(this, I18n.text(String.format("尝试将文件保存到这里时发生了一个错误：\n%s", path)));
-        return false;
+        mDataFile.saveInBackground(path, (success) -> {
+            if (success.booleanValue()) {
+                if (onSuccess != null) {
+                    onSuccess.run();
+                }
+            } else {
+                if (path.equals(mDataFile.getPath()) && !path.equals(previous)) {
+                    mDataFile.setPath(previous);
+                    getDockContainer().updateTitle(this);
+                }
+                Modal.showError(this, I18n.text(String.format("尝试将文件保存到这里时发生了一个错误：\n%s", path)));
+            }
+        });
+    }
+
+    @Override
+    public void waitForSave() {
+        mDataFile.waitForSave();
     }
 
     @Override
@@ -119,6 +140,7 @@ public abstract class DataFileDockable extends Dockable implements CloseHandler,
     public boolean attemptClose() {
         if (SaveCommand.attemptSave(this) != SaveResult.CANCEL) {
             getDockContainer().close(this);
+            getUndoManager().discardAllEdits();
             return true;
         }
         return false;
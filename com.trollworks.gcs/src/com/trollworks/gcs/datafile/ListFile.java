@@ -17,24 +17,160 @@ import com.trollworks.gcs.ui.widget.outline.Row;
 import com.trollworks.gcs.utility.SaveType;
 import com.trollworks.gcs.utility.json.JsonArray;
 import com.trollworks.gcs.utility.json.JsonMap;
+import com.trollworks.gcs.utility.json.JsonReader;
+import com.trollworks.gcs.utility.json.JsonRecorder;
 import com.trollworks.gcs.utility.json.JsonWriter;
 import com.trollworks.gcs.utility.text.NumericComparator;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 
 /** A list of rows. */
 public abstract class ListFile extends DataFile {
-    private static final String       KEY_ROWS = "rows";
-    private              OutlineModel mModel   = new OutlineModel();
+    private static final String          KEY_ROWS         = "rows";
+    private static final long            MIN_INDEXED_SIZE = 64 * 1024;
+    private              OutlineModel    mModel           = new OutlineModel();
+    private              MappedRowSource mRowSource;
+    private              boolean         mTrackWhenLoaded;
 
     protected ListFile() {
         setSortingMarksDirty(false);
     }
 
+    /**
+     * Loads the rows as they are read, rather than reading all of them first, provided the file's
+     * version precedes them, as it always does in files written by this application.
+     */
+    @Override
+    public void load(JsonReader reader, LoadState state) throws IOException {
+        if (reader.peek() != JsonReader.Token.BEGIN_MAP) {
+            super.load(reader, state);
+            return;
+        }
+        JsonMap m        = new JsonMap();
+        boolean streamed = false;
+        boolean late     = false;
+        reader.beginMap();
+        while (reader.hasNext()) {
+            String key = reader.nextKey();
+            if (m.has(key) || (streamed && KEY_ROWS.equals(key))) {
+                throw new IOException("duplicate key \"" + key + "\"");
+            }
+            if (!streamed && KEY_ROWS.equals(key) && m.has(VERSION) && reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                loadHeader(m, state);
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    JsonMap row = ListRow.readRow(reader, state);
+                    loadRow(row, getModel(), state);
+                    ListRow.skipUnloadedChildren(row, state);
+                }
+                reader.endArray();
+                streamed = true;
+            } else {
+                m.put(key, reader.nextValue());
+                late = streamed;
+            }
+        }
+        reader.endMap();
+        if (!streamed) {
+            load(m, state);
+        } else if (late) {
+            loadHeader(m, state);
+        }
+    }
+
+    /**
+     * Large files are indexed in place, so that their rows may be read and loaded concurrently.
+     */
+    @Override
+    protected void loadJSON(Path path, LoadState state) throws IOException {
+        if (Files.size(path) >= MIN_INDEXED_SIZE) {
+            MappedRowIndex index = MappedRowIndex.create(path, KEY_ROWS);
+            if (index != null) {
+                JsonMap header = index.getHeader();
+                loadHeader(header, state);
+                // Each row is recorded into its own slot, as the rows may be read concurrently
+                Object[] rows = state.mKeepDocument ? new Object[index.getRowCount()] : null;
+                RowLoader.load(this, index.getRowCount(), (i, model, st) -> {
+                    JsonReader   reader   = index.openRow(i);
+                    JsonRecorder recorder = rows != null ? new JsonRecorder() : null;
+                    reader.setRecorder(recorder);
+                    JsonMap row = ListRow.readRow(reader, st);
+                    loadRow(row, model, st);
+                    ListRow.skipUnloadedChildren(row, st);
+                    if (recorder != null) {
+                        rows[i] = recorder.getValue();
+                    }
+                }, state);
+                if (rows != null) {
+                    JsonMap document = new JsonMap();
+                    for (String key : header.keySet()) {
+                        document.put(key, header.get(key));
+                    }
+                    JsonArray a = new JsonArray();
+                    for (Object row : rows) {
+                        a.put(row);
+                    }
+                    document.put(KEY_ROWS, a);
+                    state.mDocument = document;
+                }
+                return;
+            }
+        }
+        super.loadJSON(path, state);
+    }
+
+    /**
+     * Loads the file, leaving each of its top-level rows to be loaded when its model first needs
+     * it, should the file be large enough to be indexed in place. The {@link SnapshotCache} isn't
+     * used in that case, as the rows it holds would all have to be loaded at once. Otherwise, the
+     * file is loaded by {@link #load(Path)}.
+     *
+     * @param path The path to load.
+     */
+    public void loadLazily(Path path) throws IOException {
+        if (Files.size(path) >= MIN_INDEXED_SIZE) {
+            MappedRowIndex index = MappedRowIndex.create(path, KEY_ROWS);
+            if (index != null && index.getRowCount() > 0) {
+                setPath(path);
+                LoadState state = new LoadState();
+                loadHeader(index.getHeader(), state);
+                mRowSource = new MappedRowSource(this, index, state);
+                mModel.setUnloadedRows(mRowSource, index.getRowCount());
+                return;
+            }
+        }
+        load(path);
+    }
+
+    /** Called once every top-level row has been loaded, after a call to {@link #loadLazily(Path)}. */
+    void rowsFinishedLoading() {
+        mRowSource = null;
+        if (mTrackWhenLoaded) {
+            mTrackWhenLoaded = false;
+            super.trackSavedContent();
+        }
+    }
+
+    /**
+     * Waits for every top-level row to have been loaded, as the saved contents can't be known
+     * until then.
+     */
+    @Override
+    public void trackSavedContent() {
+        if (mRowSource != null) {
+            mTrackWhenLoaded = true;
+        } else {
+            super.trackSavedContent();
+        }
+    }
+
     @Override
     protected void loadSelf(JsonMap m, LoadState state) throws IOException {
         loadList(m.getArray(KEY_ROWS), state);
@@ -46,19 +182,23 @@ public abstract class ListFile extends DataFile {
      * @param a     The {@link JsonArray} to load data from.
      * @param state The {@link LoadState} to use.
      */
-    protected abstract void loadList(JsonArray a, LoadState state) throws IOException;
+    protected void loadList(JsonArray a, LoadState state) throws IOException {
+        RowLoader.load(this, a.size(), (i, model, st) -> loadRow(a.getMap(i), model, st), state);
+    }
+
+    /**
+     * Called to load a single top-level row. May be called from several threads at once, each with
+     * its own {@link OutlineModel} and {@link LoadState}.
+     *
+     * @param m     The {@link JsonMap} to load data from.
+     * @param model The {@link OutlineModel} to add the row to.
+     * @param state The {@link LoadState} to use.
+     */
+    protected abstract void loadRow(JsonMap m, OutlineModel model, LoadState state) throws IOException;
 
     @Override
     protected final void saveSelf(JsonWriter w, SaveType saveType) throws IOException {
-        List<Row> rows = getTopLevelRows();
-        if (!rows.isEmpty()) {
-            w.key(KEY_ROWS);
-            w.startArray();
-            for (Row one : rows) {
-                ((ListRow) one).save(w, saveType);
-            }
-            w.endArray();
-        }
+        ListRow.saveList(w, KEY_ROWS, getTopLevelRows(), saveType);
     }
 
     /** @return The top-level rows in this list. */
@@ -76,17 +216,31 @@ public abstract class ListFile extends DataFile {
         return mModel.getRowCount() == 0;
     }
 
-    /** @return The set of categories that exist in this ListFile. */
+    /**
+     * @return The set of categories that exist in this ListFile. Doesn't require the top-level rows
+     *         to have been loaded, but may have to wait for their categories to be gathered. See
+     *         {@link #whenCategoriesKnown()}.
+     */
     public List<String> getCategories() {
         Set<String> set = new TreeSet<>();
-        for (Row row : getTopLevelRows()) {
+        for (Row row : mModel.getLoadedTopLevelRows()) {
             processRowForCategories(row, set);
         }
+        if (mRowSource != null) {
+            mRowSource.addCategories(set);
+        }
         List<String> list = new ArrayList<>(set);
         list.sort(NumericComparator.CASELESS_COMPARATOR);
         return list;
     }
 
+    /**
+     * @return A future that completes once {@link #getCategories()} can return without waiting.
+     */
+    public CompletableFuture<?> whenCategoriesKnown() {
+        return mRowSource != null ? mRowSource.getCategoriesFuture() : CompletableFuture.completedFuture(null);
+    }
+
     private static void processRowForCategories(Row row, Set<String> set) {
         if (row instanceof ListRow lr) {
             set.addAll(lr.getCategories());
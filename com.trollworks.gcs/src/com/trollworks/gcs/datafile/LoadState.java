@@ -11,6 +11,8 @@
 
 package com.trollworks.gcs.datafile;
 
+import com.trollworks.gcs.utility.json.JsonMap;
+import com.trollworks.gcs.utility.json.JsonReader;
 import com.trollworks.gcs.utility.units.WeightUnits;
 
 /** Temporary storage for data needed at load time. */
@@ -21,4 +23,12 @@ public class LoadState {
     public boolean     mForUndo;
     /** The default weight units to use. */
     public WeightUnits mDefWeightUnits;
+    /** The reader rows are being streamed from, if any. */
+    public JsonReader  mReader;
+    /** The row data whose children have yet to be read from {@link #mReader}, if any. */
+    public JsonMap     mRowAwaitingChildren;
+    /** Whether the document being loaded from JSON should be kept whole in {@link #mDocument}. */
+    public boolean     mKeepDocument;
+    /** The document that was loaded from JSON, if {@link #mKeepDocument} was set. */
+    public Object      mDocument;
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.datafile;
+
+import com.trollworks.gcs.utility.Platform;
+import com.trollworks.gcs.utility.json.Json;
+import com.trollworks.gcs.utility.json.JsonMap;
+import com.trollworks.gcs.utility.json.JsonReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The location of each top-level row within a memory-mapped list file, found by scanning the raw
+ * bytes of the file without decoding any of them. Each row may then be read independently of the
+ * others, and from any thread.
+ */
+final class MappedRowIndex {
+    private ByteBuffer mBuffer;
+    private JsonMap    mHeader;
+    private int[]      mBounds;
+    private int        mCount;
+    private int        mPos;
+
+    private MappedRowIndex(ByteBuffer buffer) {
+        mBuffer = buffer;
+        mHeader = new JsonMap();
+        mBounds = new int[256];
+    }
+
+    /**
+     * @param path    The path of the list file.
+     * @param rowsKey The key the rows are stored under.
+     * @return The index, or {@code null} if the file isn't in the strict form this application
+     *         writes and so must be read by the regular parser instead.
+     */
+    static MappedRowIndex create(Path path, String rowsKey) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            // Windows won't allow a mapped file to be replaced until its mapping has been garbage
+            // collected, which would get in the way of saving it again, so read it in there.
+            buffer = Platform.isWindows() ? ByteBuffer.wrap(Files.readAllBytes(path)) : channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        MappedRowIndex index = new MappedRowIndex(buffer);
+        return index.scan(rowsKey) ? index : null;
+    }
+
+    /** @return The file's top-level values, other than the rows. */
+    JsonMap getHeader() {
+        return mHeader;
+    }
+
+    /** @return The number of top-level rows. */
+    int getRowCount() {
+        return mCount;
+    }
+
+    /**
+     * @param index The index of the row.
+     * @return A {@link JsonReader} positioned at the start of the row.
+     */
+    JsonReader openRow(int index) {
+        return new JsonReader(new StringReader(decode(mBounds[index * 2], mBounds[index * 2 + 1])));
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        mBuffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean scan(String rowsKey) throws IOException {
+        boolean sawRows = false;
+        if (next() != '{') {
+            return false;
+        }
+        if (peek() == '}') {
+            mPos++;
+        } else {
+            while (true) {
+                if (next() != '"') {
+                    return false;
+                }
+                int start = mPos;
+                if (!skipString()) {
+                    return false;
+                }
+                String key = decode(start, mPos - 1);
+                if (key.indexOf('\\') != -1 || mHeader.has(key) || (sawRows && key.equals(rowsKey)) || next() != ':') {
+                    return false;
+                }
+                if (key.equals(rowsKey) && peek() == '[') {
+                    mPos++;
+                    if (!scanRows()) {
+                        return false;
+                    }
+                    sawRows = true;
+                } else {
+                    skipWhitespace();
+                    start = mPos;
+                    if (!skipValue()) {
+                        return false;
+                    }
+                    mHeader.put(key, Json.parse(new StringReader(decode(start, mPos))));
+                }
+                int ch = next();
+                if (ch == '}') {
+                    break;
+                }
+                if (ch != ',') {
+                    return false;
+                }
+            }
+        }
+        skipWhitespace();
+        return sawRows && mPos == mBuffer.limit();
+    }
+
+    private boolean scanRows() {
+        if (peek() == ']') {
+            mPos++;
+            return true;
+        }
+        while (true) {
+            skipWhitespace();
+            int start = mPos;
+            if (!skipValue()) {
+                return false;
+            }
+            if (mCount * 2 == mBounds.length) {
+                mBounds = Arrays.copyOf(mBounds, mBounds.length * 2);
+            }
+            mBounds[mCount * 2] = start;
+            mBounds[mCount * 2 + 1] = mPos;
+            mCount++;
+            int ch = next();
+            if (ch == ']') {
+                return true;
+            }
+            if (ch != ',') {
+                return false;
+            }
+        }
+    }
+
+    private boolean skipValue() {
+        int limit = mBuffer.limit();
+        if (mPos >= limit) {
+            return false;
+        }
+        int ch = mBuffer.get(mPos);
+        if (ch == '"') {
+            mPos++;
+            return skipString();
+        }
+        if (ch == '{' || ch == '[') {
+            int depth = 0;
+            while (mPos < limit) {
+                ch = mBuffer.get(mPos++);
+                if (ch == '"') {
+                    if (!skipString()) {
+                        return false;
+                    }
+                } else if (ch == '{' || ch == '[') {
+                    depth++;
+                } else if (ch == '}' || ch == ']') {
+                    if (--depth == 0) {
+                        return true;
+                    }
+                } else if (ch == '\'' || ch == '/' || ch == '#') {
+                    // Relaxed syntax, which only the regular parser knows how to handle
+                    return false;
+                }
+            }
+            return false;
+        }
+        int start = mPos;
+        while (mPos < limit && isScalarByte(mBuffer.get(mPos))) {
+            mPos++;
+        }
+        return mPos != start;
+    }
+
+    private static boolean isScalarByte(int ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '-' || ch == '+' || ch == '.';
+    }
+
+    private boolean skipString() {
+        int limit = mBuffer.limit();
+        while (mPos < limit) {
+            int ch = mBuffer.get(mPos++);
+            if (ch == '"') {
+                return true;
+            }
+            if (ch == '\\') {
+                mPos++;
+            }
+        }
+        return false;
+    }
+
+    private int next() {
+        skipWhitespace();
+        return mPos < mBuffer.limit() ? mBuffer.get(mPos++) : -1;
+    }
+
+    private int peek() {
+        skipWhitespace();
+        return mPos < mBuffer.limit() ? mBuffer.get(mPos) : -1;
+    }
+
+    private void skipWhitespace() {
+        int limit = mBuffer.limit();
+        while (mPos < limit) {
+            int ch = mBuffer.get(mPos);
+            if (ch != ' ' && ch != '\t' && ch != '\n' && ch != '\r') {
+                break;
+            }
+            mPos++;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.datafile;
+
+import com.trollworks.gcs.ui.widget.outline.ListRow;
+import com.trollworks.gcs.ui.widget.outline.Row;
+import com.trollworks.gcs.ui.widget.outline.UnloadedRowSource;
+import com.trollworks.gcs.utility.json.JsonMap;
+import com.trollworks.gcs.utility.json.JsonReader;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Supplies the top-level rows of a {@link ListFile} from its {@link MappedRowIndex}, decoding each
+ * only when the list's model first needs it. The categories of the rows are gathered on a
+ * background thread in the meantime, so that they're known without having to load every row.
+ */
+final class MappedRowSource implements UnloadedRowSource {
+    private ListFile                      mFile;
+    private MappedRowIndex                mIndex;
+    private LoadState                     mState;
+    private RowLoader.Source              mSource;
+    private boolean[]                     mLoaded;
+    private CompletableFuture<String[][]> mCategories;
+
+    /**
+     * @param file  The {@link ListFile} the rows belong to.
+     * @param index The {@link MappedRowIndex} of the file.
+     * @param state The {@link LoadState} the file's header was loaded with.
+     */
+    MappedRowSource(ListFile file, MappedRowIndex index, LoadState state) {
+        mFile = file;
+        mIndex = index;
+        mState = state;
+        mSource = (i, model, st) -> {
+            JsonMap row = ListRow.readRow(index.openRow(i), st);
+            file.loadRow(row, model, st);
+            ListRow.skipUnloadedChildren(row, st);
+        };
+        mLoaded = new boolean[index.getRowCount()];
+        mCategories = CompletableFuture.supplyAsync(this::scanCategories);
+    }
+
+    private String[][] scanCategories() {
+        int        count      = mIndex.getRowCount();
+        String[][] categories = new String[count][];
+        for (int i = 0; i < count; i++) {
+            Set<String> set = new TreeSet<>();
+            try {
+                JsonReader reader = mIndex.openRow(i);
+                ListRow.collectCategories(reader.nextMap(), set);
+            } catch (Exception exception) {
+                // The row will fail to load too, and will be logged then
+            }
+            categories[i] = set.toArray(new String[0]);
+        }
+        return categories;
+    }
+
+    /** @return A future that completes once the categories of the rows are known. */
+    CompletableFuture<String[][]> getCategoriesFuture() {
+        return mCategories;
+    }
+
+    /**
+     * Adds the categories of the rows that haven't been loaded yet to a set, waiting for them to
+     * be gathered first, if need be.
+     *
+     * @param set The set to add the categories to.
+     */
+    void addCategories(Set<String> set) {
+        String[][] categories = mCategories.join();
+        for (int i = 0; i < categories.length; i++) {
+            if (!mLoaded[i]) {
+                Collections.addAll(set, categories[i]);
+            }
+        }
+    }
+
+    @Override
+    public Row[] loadRows(int[] indexes) {
+        for (int index : indexes) {
+            mLoaded[index] = true;
+        }
+        return RowLoader.loadDetached(mFile, indexes, mSource, mState);
+    }
+
+    @Override
+    public void allRowsLoaded() {
+        mFile.rowsFinishedLoading();
+    }
+}
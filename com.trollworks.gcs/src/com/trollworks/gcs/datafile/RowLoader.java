@@ -0,0 +1,188 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.datafile;
+
+import com.trollworks.gcs.ui.widget.outline.OutlineModel;
+import com.trollworks.gcs.ui.widget.outline.Row;
+import com.trollworks.gcs.utility.Log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Loads the top-level rows of a {@link ListFile}, splitting large lists into contiguous slices that
+ * are loaded concurrently on the common fork-join pool. Each slice is loaded into a model of its
+ * own, and the rows are then moved into the list's model in their original order, so the outcome is
+ * the same as loading them serially. Small lists are always loaded serially on the calling thread.
+ */
+final class RowLoader {
+    /** The minimum number of rows to hand to a single task. */
+    static final int MIN_ROWS_PER_TASK  = 128;
+    /** The minimum total number of rows before anything is loaded concurrently. */
+    static final int PARALLEL_THRESHOLD = 2 * MIN_ROWS_PER_TASK;
+
+    /** Loads a single top-level row. */
+    interface Source {
+        /**
+         * @param index The index of the row.
+         * @param model The {@link OutlineModel} to add the row to.
+         * @param state The {@link LoadState} to use.
+         */
+        void loadRow(int index, OutlineModel model, LoadState state) throws IOException;
+    }
+
+    private RowLoader() {
+    }
+
+    /**
+     * @param file   The {@link ListFile} being loaded.
+     * @param count  The number of top-level rows.
+     * @param source The {@link Source} of the rows.
+     * @param state  The {@link LoadState} to use.
+     */
+    static void load(ListFile file, int count, Source source, LoadState state) throws IOException {
+        int taskCount = getTaskCount(count, state);
+        if (taskCount < 2) {
+            OutlineModel model = file.getModel();
+            for (int i = 0; i < count; i++) {
+                source.loadRow(i, model, state);
+            }
+            return;
+        }
+        List<Slice> slices = createSlices(file, count, taskCount, source, state);
+        // Rows may report changes to the file as they finish loading. Those are held back until
+        // the rows are in place and then sent from this thread, as the file isn't thread-safe.
+        file.startDeferringRowChanges();
+        boolean loaded = false;
+        try {
+            invokeAll(slices);
+            OutlineModel model = file.getModel();
+            for (Slice slice : slices) {
+                for (Row row : slice.mModel.getTopLevelRows()) {
+                    model.addRow(row, true);
+                }
+            }
+            loaded = true;
+        } finally {
+            file.endDeferringRowChanges(loaded);
+        }
+    }
+
+    /**
+     * Loads top-level rows without adding them to the list's model. A row that fails to load is
+     * logged and skipped, rather than failing the others.
+     *
+     * @param file    The {@link ListFile} the rows belong to.
+     * @param indexes The indexes of the rows to load.
+     * @param source  The {@link Source} of the rows.
+     * @param state   The {@link LoadState} to copy the file's details from.
+     * @return The rows, in the same order as their indexes. An entry is {@code null} if no row was
+     *         loaded for its index.
+     */
+    static Row[] loadDetached(ListFile file, int[] indexes, Source source, LoadState state) {
+        Row[]  rows     = new Row[indexes.length];
+        Source detached = (i, model, st) -> {
+            OutlineModel own = new OutlineModel();
+            try {
+                source.loadRow(indexes[i], own, st);
+            } catch (Exception exception) {
+                Log.error("unable to load row " + indexes[i] + " of " + file.getPath(), exception);
+            }
+            List<Row> loaded = own.getTopLevelRows();
+            rows[i] = loaded.isEmpty() ? null : loaded.get(0);
+        };
+        int taskCount = getTaskCount(indexes.length, state);
+        // The rows are new, so the changes they may report as they finish loading are dropped
+        file.startDeferringRowChanges();
+        try {
+            if (taskCount < 2) {
+                LoadState st = copyState(state);
+                for (int i = 0; i < indexes.length; i++) {
+                    detached.loadRow(i, null, st);
+                }
+            } else {
+                invokeAll(createSlices(file, indexes.length, taskCount, detached, state));
+            }
+        } catch (IOException exception) {
+            // Can't happen, as the detached source logs its failures rather than throw them
+            Log.error(exception);
+        } finally {
+            file.endDeferringRowChanges(false);
+        }
+        return rows;
+    }
+
+    private static LoadState copyState(LoadState state) {
+        LoadState copy = new LoadState();
+        copy.mDataFileVersion = state.mDataFileVersion;
+        copy.mDefWeightUnits = state.mDefWeightUnits;
+        return copy;
+    }
+
+    private static int getTaskCount(int count, LoadState state) {
+        if (count < PARALLEL_THRESHOLD || state.mForUndo) {
+            return 1;
+        }
+        return Math.min(ForkJoinPool.getCommonPoolParallelism(), count / MIN_ROWS_PER_TASK);
+    }
+
+    private static List<Slice> createSlices(ListFile file, int count, int taskCount, Source source, LoadState state) {
+        // Rows consult the sheet settings as they load, so make sure they exist before forking
+        file.getSheetSettings();
+        List<Slice> slices = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            slices.add(new Slice(source, count * i / taskCount, count * (i + 1) / taskCount, state));
+        }
+        return slices;
+    }
+
+    private static void invokeAll(List<Slice> slices) throws IOException {
+        try {
+            ForkJoinTask.invokeAll(slices);
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    private static class Slice extends RecursiveAction {
+        private static final long         serialVersionUID = 1L;
+        private              Source       mSource;
+        private              int          mStart;
+        private              int          mEnd;
+        private              LoadState    mState;
+        private              OutlineModel mModel;
+
+        Slice(Source source, int start, int end, LoadState state) {
+            mSource = source;
+            mStart = start;
+            mEnd = end;
+            mState = copyState(state);
+            mModel = new OutlineModel();
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (int i = mStart; i < mEnd; i++) {
+                    mSource.loadRow(i, mModel, mState);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
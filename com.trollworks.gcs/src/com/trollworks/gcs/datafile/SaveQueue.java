@@ -0,0 +1,142 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.datafile;
+
+import com.trollworks.gcs.utility.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes files on a background thread, one at a time and in the order they were submitted. Each
+ * file is written in full to a temporary file in the same directory, flushed to the device, and then
+ * moved over the original, so that the original is only ever replaced by a complete copy. A write
+ * submitted while an earlier one for the same file is still waiting to start replaces it.
+ */
+final class SaveQueue {
+    private static final ExecutorService QUEUE   = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Background Save");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<Path, Job>  PENDING = new HashMap<>();
+
+    private SaveQueue() {
+    }
+
+    /** Produces the data to write, on the background thread. */
+    interface Source {
+        /** @return The data to write. */
+        byte[] getData() throws IOException;
+    }
+
+    /**
+     * @param path The path to write to.
+     * @param data The {@link Source} of the data to write.
+     * @return A future that completes with {@code true} once the file has been replaced, or with
+     *         {@code false} if that could not be done.
+     */
+    static CompletableFuture<Boolean> submit(Path path, Source data) {
+        path = path.normalize().toAbsolutePath();
+        synchronized (PENDING) {
+            Job job = PENDING.get(path);
+            if (job != null) {
+                job.mData = data;
+            } else {
+                job = new Job(path, data);
+                PENDING.put(path, job);
+                QUEUE.submit(job);
+            }
+            return job.mResult;
+        }
+    }
+
+    private static class Job implements Runnable {
+        private Path                       mPath;
+        private Source                     mData;
+        private CompletableFuture<Boolean> mResult;
+
+        Job(Path path, Source data) {
+            mPath = path;
+            mData = data;
+            mResult = new CompletableFuture<>();
+        }
+
+        @Override
+        public void run() {
+            Source data;
+            synchronized (PENDING) {
+                PENDING.remove(mPath);
+                data = mData;
+            }
+            boolean success = false;
+            try {
+                write(mPath, data.getData());
+                success = true;
+            } catch (Exception exception) {
+                Log.error(exception);
+            } finally {
+                // Always complete, even should an Error escape, as the event dispatch thread may be
+                // waiting on the result
+                mResult.complete(Boolean.valueOf(success));
+            }
+        }
+    }
+
+    /**
+     * Writes a file in the same way as the background thread does, but on the calling thread.
+     *
+     * @param path The path to write to.
+     * @param data The data to write.
+     */
+    static void write(Path path, byte[] data) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        // File.createTempFile() is used, rather than Files.createTempFile(), so that the new file
+        // gets the usual permissions rather than being readable only by its owner
+        Path tmp = File.createTempFile(".trn", null, dir.toFile()).toPath();
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException exception) {
+                    Log.error(exception);
+                }
+            }
+        }
+    }
+}
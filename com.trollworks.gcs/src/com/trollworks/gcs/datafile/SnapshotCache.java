@@ -0,0 +1,304 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.datafile;
+
+import com.trollworks.gcs.settings.Settings;
+import com.trollworks.gcs.utility.Log;
+import com.trollworks.gcs.utility.Platform;
+import com.trollworks.gcs.utility.json.BinaryJsonReader;
+import com.trollworks.gcs.utility.json.BinaryJsonWriter;
+import com.trollworks.gcs.utility.json.Json;
+import com.trollworks.gcs.utility.json.JsonMap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache of data files in a compact binary form, which loads considerably faster than the JSON it
+ * was produced from. The JSON files remain the only source of truth and are never written to: a
+ * cached copy is used only while the size and modification time of its file match those recorded
+ * when it was made, and is otherwise ignored and rebuilt. Copies that haven't been used for a while
+ * are removed, as are the least recently used ones once the cache grows too large. The cache is
+ * neither read nor written while turned off in the general settings.
+ */
+public final class SnapshotCache {
+    private static final String          MAGIC                 = "gcs-snapshot";
+    private static final int             FORMAT                = 1;
+    private static final String          EXTENSION             = ".snapshot";
+    // Files modified more recently than this aren't cached, since a further change that leaves the
+    // size alone might then go unnoticed on file systems with coarse modification times.
+    private static final long            SETTLE_TIME           = TimeUnit.SECONDS.toNanos(3);
+    private static final long            MAX_AGE               = TimeUnit.DAYS.toMillis(30);
+    private static final long            MAX_TOTAL_SIZE        = 256L * 1024 * 1024;
+    private static final int             WRITES_PER_EVICTION   = 64;
+    private static final ExecutorService QUEUE                 = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Snapshot Cache");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static       Path            CACHE_DIR;
+    private static       int             WRITES_SINCE_EVICTION = WRITES_PER_EVICTION;
+    private static       boolean         UPDATES_DISABLED;
+
+    private SnapshotCache() {
+    }
+
+    /**
+     * Stops cached copies from being made or brought up to date, for when the files being loaded
+     * are about to be saved again, which would leave those copies stale straight away. Must be
+     * called before any loading starts.
+     */
+    public static void disableUpdates() {
+        UPDATES_DISABLED = true;
+    }
+
+    private static boolean isEnabled() {
+        return Settings.getInstance().getGeneralSettings().useSnapshotCache();
+    }
+
+    /**
+     * @param path The path of the data file.
+     * @return The contents of the data file, or {@code null} if no up-to-date copy is in the
+     *         cache, or the cache is turned off.
+     */
+    public static JsonMap load(Path path) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Path cachePath = getCachePath(path);
+        if (cachePath == null) {
+            return null;
+        }
+        try {
+            BasicFileAttributes attrs  = Files.readAttributes(path, BasicFileAttributes.class);
+            BinaryJsonReader    reader = new BinaryJsonReader(Files.readAllBytes(cachePath));
+            if (MAGIC.equals(reader.next()) && Json.asInt(reader.next()) == FORMAT && getKey(path).equals(reader.next()) && Json.asLong(reader.next()) == attrs.size() && Json.asLong(reader.next()) == getModificationTime(attrs)) {
+                JsonMap m = Json.asMap(reader.next());
+                QUEUE.submit(() -> markUsed(cachePath));
+                return m;
+            }
+        } catch (NoSuchFileException exception) {
+            // Nothing cached yet
+        } catch (Exception exception) {
+            Log.warn("unable to use cached copy of " + path + ": " + exception.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Should be called just before a data file is loaded from its JSON, so that the document read
+     * by the load can then be used to bring its cached copy up to date.
+     *
+     * @param path The path of the data file.
+     * @return The pending update, or {@code null} if the file shouldn't be cached at this time.
+     */
+    public static Pending prepare(Path path) {
+        if (UPDATES_DISABLED || !isEnabled()) {
+            return null;
+        }
+        Path cachePath = getCachePath(path);
+        if (cachePath == null) {
+            return null;
+        }
+        try {
+            BasicFileAttributes attrs   = Files.readAttributes(path, BasicFileAttributes.class);
+            long                modTime = getModificationTime(attrs);
+            if (System.currentTimeMillis() * 1_000_000 - modTime < SETTLE_TIME) {
+                return null;
+            }
+            return new Pending(path, cachePath, attrs.size(), modTime);
+        } catch (Exception exception) {
+            return null;
+        }
+    }
+
+    /** An update to the cached copy of a data file that is being loaded. */
+    public static final class Pending {
+        private Path mPath;
+        private Path mCachePath;
+        private long mSize;
+        private long mModTime;
+
+        Pending(Path path, Path cachePath, long size, long modTime) {
+            mPath = path;
+            mCachePath = cachePath;
+            mSize = size;
+            mModTime = modTime;
+        }
+
+        /**
+         * Schedules the cached copy to be written in the background. Should only be called once
+         * the file has been successfully loaded.
+         *
+         * @param document The document that was read from the file's JSON.
+         */
+        public void update(Object document) {
+            if (document instanceof JsonMap) {
+                QUEUE.submit(() -> {
+                    try {
+                        write(this, document);
+                    } catch (Exception exception) {
+                        Log.warn("unable to cache " + mPath + ": " + exception.getMessage());
+                    }
+                });
+            }
+        }
+    }
+
+    private static void write(Pending pending, Object document) throws IOException {
+        // The document is only a faithful copy if the file hasn't changed since it was read
+        BasicFileAttributes attrs = Files.readAttributes(pending.mPath, BasicFileAttributes.class);
+        if (attrs.size() != pending.mSize || getModificationTime(attrs) != pending.mModTime) {
+            return;
+        }
+        BinaryJsonWriter w = new BinaryJsonWriter();
+        w.write(MAGIC);
+        w.write(Integer.valueOf(FORMAT));
+        w.write(getKey(pending.mPath));
+        w.write(Long.valueOf(pending.mSize));
+        w.write(Long.valueOf(pending.mModTime));
+        w.write(document);
+        Path dir = pending.mCachePath.getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, null, EXTENSION);
+        try {
+            Files.write(tmp, w.toByteArray());
+            try {
+                Files.move(tmp, pending.mCachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(tmp, pending.mCachePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        // Check on the size of the cache when first written to, and every so often after that
+        if (++WRITES_SINCE_EVICTION >= WRITES_PER_EVICTION) {
+            WRITES_SINCE_EVICTION = 0;
+            evict(dir);
+        }
+    }
+
+    private static void markUsed(Path cachePath) {
+        try {
+            Files.setLastModifiedTime(cachePath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException exception) {
+            // Only affects when the copy will be evicted
+        }
+    }
+
+    /**
+     * Removes the copies that haven't been used within {@link #MAX_AGE}, then the least recently
+     * used of those remaining until they take up no more than {@link #MAX_TOTAL_SIZE}. Only called
+     * from the {@link #QUEUE}, so never removes a copy while it is being written.
+     */
+    private static void evict(Path dir) {
+        List<Path>          paths = new ArrayList<>();
+        Map<Path, FileTime> used  = new HashMap<>();
+        Map<Path, Long>     sizes = new HashMap<>();
+        long                total = 0;
+        long                now   = System.currentTimeMillis();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path path : stream) {
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (now - attrs.lastModifiedTime().toMillis() > MAX_AGE) {
+                        Files.deleteIfExists(path);
+                    } else {
+                        paths.add(path);
+                        used.put(path, attrs.lastModifiedTime());
+                        sizes.put(path, Long.valueOf(attrs.size()));
+                        total += attrs.size();
+                    }
+                } catch (IOException exception) {
+                    Log.warn("unable to evict " + path + ": " + exception.getMessage());
+                }
+            }
+        } catch (IOException exception) {
+            Log.warn("unable to evict from " + dir + ": " + exception.getMessage());
+            return;
+        }
+        if (total > MAX_TOTAL_SIZE) {
+            paths.sort(Comparator.comparing(used::get));
+            for (Path path : paths) {
+                try {
+                    Files.deleteIfExists(path);
+                    total -= sizes.get(path).longValue();
+                } catch (IOException exception) {
+                    Log.warn("unable to evict " + path + ": " + exception.getMessage());
+                }
+                if (total <= MAX_TOTAL_SIZE) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static long getModificationTime(BasicFileAttributes attrs) {
+        return attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    private static String getKey(Path path) {
+        return path.normalize().toAbsolutePath().toString();
+    }
+
+    private static Path getCachePath(Path path) {
+        try {
+            byte[]        digest = MessageDigest.getInstance("SHA-256").digest(getKey(path).getBytes(StandardCharsets.UTF_8));
+            StringBuilder buffer = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                buffer.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+                buffer.append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            buffer.append(EXTENSION);
+            return getCacheDir().resolve(buffer.toString());
+        } catch (Exception exception) {
+            Log.error(exception);
+            return null;
+        }
+    }
+
+    private static synchronized Path getCacheDir() {
+        if (CACHE_DIR == null) {
+            String homeDir = System.getProperty("user.home", ".");
+            Path   path;
+            if (Platform.isMacintosh()) {
+                path = Path.of(homeDir, "Library", "Caches", "gcs");
+            } else if (Platform.isWindows()) {
+                String localAppData = System.getenv("LOCALAPPDATA");
+                path = (localAppData != null ? Path.of(localAppData) : Path.of(homeDir, "AppData", "Local")).resolve("gcs").resolve("Cache");
+            } else {
+                String cacheHome = System.getenv("XDG_CACHE_HOME");
+                path = (cacheHome != null && !cacheHome.isBlank() ? Path.of(cacheHome) : Path.of(homeDir, ".cache")).resolve("gcs");
+            }
+            CACHE_DIR = path.resolve("snapshots").normalize().toAbsolutePath();
+        }
+        return CACHE_DIR;
+    }
+}
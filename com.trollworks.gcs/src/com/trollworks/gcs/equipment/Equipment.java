@@ -19,13 +19,14 @@ import com.trollworks.gcs.datafile.LoadState;
 import com.trollworks.gcs.feature.ContainedWeightReduction;
 import com.trollworks.gcs.feature.Feature;
 import com.trollworks.gcs.menu.item.HasSourceReference;
+import com.trollworks.gcs.modifier.CostAdjustment;
 import com.trollworks.gcs.modifier.EquipmentModifier;
 import com.trollworks.gcs.modifier.EquipmentModifierCostType;
 import com.trollworks.gcs.modifier.EquipmentModifierWeightType;
-import com.trollworks.gcs.modifier.Fraction;
 import com.trollworks.gcs.modifier.Modifier;
 import com.trollworks.gcs.modifier.ModifierCostValueType;
 import com.trollworks.gcs.modifier.ModifierWeightValueType;
+import com.trollworks.gcs.modifier.WeightAdjustment;
 import com.trollworks.gcs.settings.SheetSettings;
 import com.trollworks.gcs.skill.SkillDefault;
 import com.trollworks.gcs.template.Template;
@@ -145,6 +146,7 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
         for (EquipmentModifier modifier : equipment.mModifiers) {
             mModifiers.add(new EquipmentModifier(mDataFile, modifier, false));
         }
+        adoptModifiers();
         mExtendedValue = new Fixed6(mQuantity).mul(getAdjustedValue());
         mExtendedWeight = new WeightValue(getAdjustedWeight(false));
         mExtendedWeight.setValue(mExtendedWeight.getValue().mul(new Fixed6(mQuantity)));
@@ -268,6 +270,7 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
             for (int i = 0; i < count; i++) {
                 mModifiers.add(new EquipmentModifier(getDataFile(), a.getMap(i), state));
             }
+            adoptModifiers();
         }
     }
 
@@ -306,14 +309,16 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
         saveList(w, KEY_MODIFIERS, mModifiers, saveType);
 
         // Emit the calculated values for third parties
-        w.key("calc");
-        w.startMap();
-        w.keyValue("extended_value", mExtendedValue.toString());
-        w.keyValue("extended_weight", mExtendedWeight.toString(false));
-        if (mWeightIgnoredForSkills) {
-            w.keyValue("extended_weight_for_skills", mExtendedWeightForSkills.toString(false));
+        if (saveType != SaveType.HASH) {
+            w.key("calc");
+            w.startMap();
+            w.keyValue("extended_value", mExtendedValue.toString());
+            w.keyValue("extended_weight", mExtendedWeight.toString(false));
+            if (mWeightIgnoredForSkills) {
+                w.keyValue("extended_weight_for_skills", mExtendedWeightForSkills.toString(false));
+            }
+            w.endMap();
         }
-        w.endMap();
     }
 
     @Override
@@ -323,53 +328,58 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
     }
 
     private void updateExtendedValue() {
-        Fixed6 savedValue = mExtendedValue;
-        int    count      = getChildCount();
-        mExtendedValue = new Fixed6(mQuantity).mul(getAdjustedValue());
+        int  count    = getChildCount();
+        long extended = Fixed6.mulRaw(Fixed6.rawValueOf(mQuantity), getAdjustedValue().getRawValue());
         for (int i = 0; i < count; i++) {
             Equipment child = (Equipment) getChild(i);
             child.updateExtendedValue();
-            mExtendedValue = mExtendedValue.add(child.mExtendedValue);
+            extended += child.mExtendedValue.getRawValue();
         }
-        if (!mExtendedValue.equals(savedValue)) {
+        // Only replace the value when it differs, so that an unchanged inventory creates no garbage
+        if (mExtendedValue.getRawValue() != extended) {
+            mExtendedValue = Fixed6.fromRawValue(extended);
             notifyOfChange();
         }
     }
 
     private void updateExtendedWeight() {
-        WeightValue saved          = mExtendedWeight;
-        WeightValue savedForSkills = mExtendedWeightForSkills;
-        int         count          = getChildCount();
-        WeightUnits units          = mWeight.getUnits();
-        mExtendedWeight = new WeightValue(getAdjustedWeight(false).getValue().mul(new Fixed6(mQuantity)), units);
-        mExtendedWeightForSkills = new WeightValue(getAdjustedWeight(true).getValue().mul(new Fixed6(mQuantity)), units);
-        WeightValue   contained          = new WeightValue(Fixed6.ZERO, units);
-        WeightValue   containedForSkills = new WeightValue(Fixed6.ZERO, units);
+        int           count              = getChildCount();
+        WeightUnits   units              = mWeight.getUnits();
+        long          quantity           = Fixed6.rawValueOf(mQuantity);
+        long          extended           = Fixed6.mulRaw(getAdjustedWeightRawValue(false), quantity);
+        long          extendedForSkills  = Fixed6.mulRaw(getAdjustedWeightRawValue(true), quantity);
+        long          contained          = 0;
+        long          containedForSkills = 0;
         SheetSettings sheetSettings      = mDataFile.getSheetSettings();
         boolean       useSimpleMetric    = sheetSettings.useSimpleMetricConversions();
+        boolean       metric             = units.isMetric();
         for (int i = 0; i < count; i++) {
             Equipment one = (Equipment) getChild(i);
             one.updateExtendedWeight();
-            WeightValue weight = one.mExtendedWeight;
+            WeightUnits childUnits = one.mExtendedWeight.getUnits();
+            long        weight     = one.mExtendedWeight.getValue().getRawValue();
             if (useSimpleMetric) {
-                weight = units.isMetric() ? GURPSCharacter.convertToGurpsMetric(weight) : GURPSCharacter.convertFromGurpsMetric(weight);
+                contained += units.convert(childUnits.getGurpsMetricUnits(metric), childUnits.convertGurpsMetric(weight, metric));
+            } else {
+                contained += units.convert(childUnits, weight);
             }
-            contained.add(weight);
-            weight = one.mExtendedWeightForSkills;
+            childUnits = one.mExtendedWeightForSkills.getUnits();
+            weight = one.mExtendedWeightForSkills.getValue().getRawValue();
             if (useSimpleMetric) {
-                weight = units.isMetric() ? GURPSCharacter.convertToGurpsMetric(weight) : GURPSCharacter.convertFromGurpsMetric(weight);
+                containedForSkills += units.convert(childUnits.getGurpsMetricUnits(metric), childUnits.convertGurpsMetric(weight, metric));
+            } else {
+                containedForSkills += units.convert(childUnits, weight);
             }
-            containedForSkills.add(weight);
         }
-        Fixed6      percentage         = Fixed6.ZERO;
-        WeightValue reduction          = new WeightValue(Fixed6.ZERO, units);
+        long        percentage         = 0;
+        long        reduction          = 0;
         WeightUnits defaultWeightUnits = sheetSettings.defaultWeightUnits();
         for (Feature feature : getFeatures()) {
             if (feature instanceof ContainedWeightReduction cwr) {
                 if (cwr.isPercentage()) {
-                    percentage = percentage.add(new Fixed6(cwr.getPercentageReduction()));
+                    percentage += Fixed6.rawValueOf(cwr.getPercentageReduction());
                 } else {
-                    reduction.add(cwr.getAbsoluteReduction(defaultWeightUnits));
+                    reduction += convert(units, cwr.getAbsoluteReduction(defaultWeightUnits));
                 }
             }
         }
@@ -378,37 +388,55 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
                 for (Feature feature : modifier.getFeatures()) {
                     if (feature instanceof ContainedWeightReduction cwr) {
                         if (cwr.isPercentage()) {
-                            percentage = percentage.add(new Fixed6(cwr.getPercentageReduction()));
+                            percentage += Fixed6.rawValueOf(cwr.getPercentageReduction());
                         } else {
-                            reduction.add(cwr.getAbsoluteReduction(defaultWeightUnits));
+                            reduction += convert(units, cwr.getAbsoluteReduction(defaultWeightUnits));
                         }
                     }
                 }
             }
         }
-        if (percentage.greaterThan(Fixed6.ZERO)) {
-            Fixed6 oneHundred = new Fixed6(100);
-            if (percentage.greaterThanOrEqual(oneHundred)) {
-                contained = new WeightValue(Fixed6.ZERO, units);
-                containedForSkills = new WeightValue(Fixed6.ZERO, units);
+        // The conversions from units to the same units below are deliberate: they round the same
+        // way the WeightValue arithmetic they replace did, so that totals in units with inexact
+        // factors, such as grams, come out the same as they always have
+        if (percentage > 0) {
+            long oneHundred = Fixed6.rawValueOf(100);
+            if (percentage >= oneHundred) {
+                contained = 0;
+                containedForSkills = 0;
             } else {
-                contained.subtract(new WeightValue(contained.getValue().mul(percentage).div(oneHundred), contained.getUnits()));
-                containedForSkills.subtract(new WeightValue(containedForSkills.getValue().mul(percentage).div(oneHundred), containedForSkills.getUnits()));
+                contained -= units.convert(units, Fixed6.divRaw(Fixed6.mulRaw(contained, percentage), oneHundred));
+                containedForSkills -= units.convert(units, Fixed6.divRaw(Fixed6.mulRaw(containedForSkills, percentage), oneHundred));
             }
         }
-        contained.subtract(reduction);
-        containedForSkills.subtract(reduction);
-        if (contained.getNormalizedValue().greaterThan(Fixed6.ZERO)) {
-            mExtendedWeight.add(contained);
+        contained -= units.convert(units, reduction);
+        containedForSkills -= units.convert(units, reduction);
+        if (units.normalize(contained) > 0) {
+            extended += units.convert(units, contained);
+        }
+        if (units.normalize(containedForSkills) > 0) {
+            extendedForSkills += units.convert(units, containedForSkills);
         }
-        if (containedForSkills.getNormalizedValue().greaterThan(Fixed6.ZERO)) {
-            mExtendedWeightForSkills.add(containedForSkills);
+        // Only replace the weights when they differ, so that an unchanged inventory creates no
+        // garbage
+        boolean changed = false;
+        if (mExtendedWeight.getUnits() != units || mExtendedWeight.getValue().getRawValue() != extended) {
+            mExtendedWeight = new WeightValue(Fixed6.fromRawValue(extended), units);
+            changed = true;
         }
-        if (!saved.equals(mExtendedWeight) || !savedForSkills.equals(mExtendedWeightForSkills)) {
+        if (mExtendedWeightForSkills.getUnits() != units || mExtendedWeightForSkills.getValue().getRawValue() != extendedForSkills) {
+            mExtendedWeightForSkills = new WeightValue(Fixed6.fromRawValue(extendedForSkills), units);
+            changed = true;
+        }
+        if (changed) {
             notifyOfChange();
         }
     }
 
+    private static long convert(WeightUnits units, WeightValue weight) {
+        return units.convert(weight.getUnits(), weight.getValue().getRawValue());
+    }
+
     /** @return The quantity. */
     public int getQuantity() {
         return mQuantity;
@@ -552,10 +580,9 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
         Fixed6 cf = Fixed6.ZERO;
         for (EquipmentModifier modifier : modifiers) {
             if (modifier.isEnabled() && modifier.getCostAdjType() == EquipmentModifierCostType.TO_BASE_COST) {
-                String                adj = modifier.getCostAdjAmount();
-                ModifierCostValueType mvt = EquipmentModifierCostType.TO_BASE_COST.determineType(adj);
-                Fixed6                amt = mvt.extractValue(adj, false);
-                if (mvt == ModifierCostValueType.MULTIPLIER) {
+                CostAdjustment adj = modifier.getCostAdjustment();
+                Fixed6         amt = adj.getAmount();
+                if (adj.getValueType() == ModifierCostValueType.MULTIPLIER) {
                     amt = amt.sub(Fixed6.ONE);
                 }
                 cf = cf.add(amt);
@@ -582,10 +609,9 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
         Fixed6 cost        = value;
         for (EquipmentModifier modifier : modifiers) {
             if (modifier.isEnabled() && modifier.getCostAdjType() == costType) {
-                String                adj = modifier.getCostAdjAmount();
-                ModifierCostValueType mvt = costType.determineType(adj);
-                Fixed6                amt = mvt.extractValue(adj, false);
-                switch (mvt) {
+                CostAdjustment adj = modifier.getCostAdjustment();
+                Fixed6         amt = adj.getAmount();
+                switch (adj.getValueType()) {
                     case ADDITION -> additions = additions.add(amt);
                     case PERCENTAGE -> percentages = percentages.add(amt);
                     case MULTIPLIER -> cost = cost.mul(amt);
@@ -624,10 +650,19 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
 
     /** @return The weight after any adjustments. */
     public WeightValue getAdjustedWeight(boolean forSkills) {
+        return new WeightValue(Fixed6.fromRawValue(getAdjustedWeightRawValue(forSkills)), mWeight.getUnits());
+    }
+
+    /**
+     * @param forSkills Whether the weight is for the purposes of skills.
+     * @return The raw {@link Fixed6} value of the weight after any adjustments, in the same units
+     *         as {@link #getWeight()}.
+     */
+    private long getAdjustedWeightRawValue(boolean forSkills) {
         if (forSkills && mWeightIgnoredForSkills) {
-            return new WeightValue(Fixed6.ZERO, mWeight.getUnits());
+            return 0;
         }
-        return getWeightAdjustedForModifiers(mWeight, getModifiers());
+        return getWeightAdjustedForModifiersRawValue(mWeight, getModifiers());
     }
 
     /**
@@ -636,60 +671,57 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
      * @return The adjusted value.
      */
     public WeightValue getWeightAdjustedForModifiers(WeightValue weight, List<EquipmentModifier> modifiers) {
+        return new WeightValue(Fixed6.fromRawValue(getWeightAdjustedForModifiersRawValue(weight, modifiers)), weight.getUnits());
+    }
+
+    private long getWeightAdjustedForModifiersRawValue(WeightValue weight, List<EquipmentModifier> modifiers) {
         WeightUnits defUnits = getDataFile().getSheetSettings().defaultWeightUnits();
-        weight = new WeightValue(weight);
+        WeightUnits units    = weight.getUnits();
+        long        original = weight.getValue().getRawValue();
+        long        value    = original;
 
         // Apply all EquipmentModifierWeightType.TO_ORIGINAL_COST
-        Fixed6      percentages = Fixed6.ZERO;
-        WeightValue original    = new WeightValue(weight);
+        long percentages = 0;
         for (EquipmentModifier modifier : modifiers) {
             if (modifier.isEnabled() && modifier.getWeightAdjType() == EquipmentModifierWeightType.TO_ORIGINAL_WEIGHT) {
-                String                  adj = modifier.getWeightAdjAmount();
-                ModifierWeightValueType mvt = EquipmentModifierWeightType.TO_ORIGINAL_WEIGHT.determineType(adj);
-                Fixed6                  amt = mvt.extractFraction(adj, false).value();
-                if (mvt == ModifierWeightValueType.ADDITION) {
-                    weight.add(new WeightValue(amt, ModifierWeightValueType.extractUnits(adj, defUnits)));
+                WeightAdjustment adj = modifier.getWeightAdjustment();
+                if (adj.getValueType() == ModifierWeightValueType.ADDITION) {
+                    value += units.convert(adj.getUnits(defUnits), adj.getValue());
                 } else {
-                    percentages = percentages.add(amt);
+                    percentages += adj.getValue();
                 }
             }
         }
-        if (!percentages.equals(Fixed6.ZERO)) {
-            original.setValue(original.getValue().mul(percentages.div(new Fixed6(100))));
-            weight.add(original);
+        if (percentages != 0) {
+            // Converting to the same units rounds the way WeightValue.add() always has
+            value += units.convert(units, Fixed6.mulRaw(original, Fixed6.divRaw(percentages, Fixed6.rawValueOf(100))));
         }
 
         // Apply all EquipmentModifierWeightType.TO_BASE_COST
-        weight = processMultiplyAddWeightStep(EquipmentModifierWeightType.TO_BASE_WEIGHT, weight, defUnits, modifiers);
+        value = processMultiplyAddWeightStep(EquipmentModifierWeightType.TO_BASE_WEIGHT, units, value, defUnits, modifiers);
 
         // Apply all EquipmentModifierWeightType.TO_FINAL_BASE_COST
-        weight = processMultiplyAddWeightStep(EquipmentModifierWeightType.TO_FINAL_BASE_WEIGHT, weight, defUnits, modifiers);
+        value = processMultiplyAddWeightStep(EquipmentModifierWeightType.TO_FINAL_BASE_WEIGHT, units, value, defUnits, modifiers);
 
         // Apply all EquipmentModifierWeightType.TO_FINAL_COST
-        weight = processMultiplyAddWeightStep(EquipmentModifierWeightType.TO_FINAL_WEIGHT, weight, defUnits, modifiers);
-        if (weight.getValue().lessThan(Fixed6.ZERO)) {
-            weight.setValue(Fixed6.ZERO);
-        }
-        return weight;
+        value = processMultiplyAddWeightStep(EquipmentModifierWeightType.TO_FINAL_WEIGHT, units, value, defUnits, modifiers);
+        return Math.max(value, 0);
     }
 
-    private static WeightValue processMultiplyAddWeightStep(EquipmentModifierWeightType weightType, WeightValue weight, WeightUnits defUnits, List<EquipmentModifier> modifiers) {
-        weight = new WeightValue(weight);
-        WeightValue sum = new WeightValue(Fixed6.ZERO, weight.getUnits());
+    private static long processMultiplyAddWeightStep(EquipmentModifierWeightType weightType, WeightUnits units, long value, WeightUnits defUnits, List<EquipmentModifier> modifiers) {
+        long sum = 0;
         for (EquipmentModifier modifier : modifiers) {
             if (modifier.isEnabled() && modifier.getWeightAdjType() == weightType) {
-                String                  adj      = modifier.getWeightAdjAmount();
-                ModifierWeightValueType mvt      = weightType.determineType(adj);
-                Fraction                fraction = mvt.extractFraction(adj, false);
-                switch (mvt) {
-                    case MULTIPLIER -> weight.setValue(weight.getValue().mul(fraction.mNumerator).div(fraction.mDenominator));
-                    case PERCENTAGE_MULTIPLIER -> weight.setValue(weight.getValue().mul(fraction.mNumerator).div(fraction.mDenominator.mul(new Fixed6(100))));
-                    case ADDITION -> sum.add(new WeightValue(fraction.value(), ModifierWeightValueType.extractUnits(adj, defUnits)));
+                WeightAdjustment adj = modifier.getWeightAdjustment();
+                switch (adj.getValueType()) {
+                    case MULTIPLIER -> value = Fixed6.divRaw(Fixed6.mulRaw(value, adj.getNumerator()), adj.getDenominator());
+                    case PERCENTAGE_MULTIPLIER -> value = Fixed6.divRaw(Fixed6.mulRaw(value, adj.getNumerator()), Fixed6.mulRaw(adj.getDenominator(), Fixed6.rawValueOf(100)));
+                    case ADDITION -> sum += units.convert(adj.getUnits(defUnits), adj.getValue());
                 }
             }
         }
-        weight.add(sum);
-        return weight;
+        // Converting to the same units rounds the way WeightValue.add() always has
+        return value + units.convert(units, sum);
     }
 
     /** @return The weight. */
@@ -773,11 +805,9 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
     }
 
     @Override
-    public boolean contains(String text, boolean lowerCaseOnly) {
-        if (getDescription().toLowerCase().contains(text)) {
-            return true;
-        }
-        return super.contains(text, lowerCaseOnly);
+    protected void collectSearchText(List<String> texts) {
+        super.collectSearchText(texts);
+        texts.add(getDescription());
     }
 
     @Override
@@ -864,11 +894,18 @@ public class Equipment extends CollectedListRow implements HasSourceReference {
         List<EquipmentModifier> in = Filtered.list(modifiers, EquipmentModifier.class);
         if (!mModifiers.equals(in)) {
             mModifiers = in;
+            adoptModifiers();
             notifyOfChange();
             update();
         }
     }
 
+    private void adoptModifiers() {
+        for (EquipmentModifier modifier : mModifiers) {
+            modifier.setEnclosingRow(this);
+        }
+    }
+
     /**
      * @param name The name to match against. Case-insensitive.
      * @return The first modifier that matches the name.
@@ -85,9 +85,20 @@ public class ArgumentTokenizer implements Enumeration<String> {
 
     public static final double getDoubleArgument(Evaluator evaluator, String arguments) throws EvaluationException {
         try {
-            return getDouble(new Evaluator(evaluator).evaluate(arguments));
+            return getDouble(evaluator.evaluate(arguments));
         } catch (Exception exception) {
             throw new EvaluationException(I18n.text("无效参数：") + arguments, exception);
         }
     }
+
+    public static final double getDoubleArgument(Evaluator evaluator, Expression[] arguments) throws EvaluationException {
+        if (arguments.length != 1) {
+            return getDoubleArgument(evaluator, evaluator.replaceVariables(Expression.join(arguments)));
+        }
+        try {
+            return getDouble(arguments[0].evaluate(evaluator));
+        } catch (Exception exception) {
+            throw new EvaluationException(I18n.text("无效参数：") + arguments[0], exception);
+        }
+    }
 }
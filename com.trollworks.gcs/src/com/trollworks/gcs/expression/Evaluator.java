@@ -54,18 +54,24 @@ import com.trollworks.gcs.utility.I18n;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /** A simple expression evaluator. */
 public class Evaluator {
-    private static    List<Operator>                  DEFAULT_OPERATORS = new ArrayList<>();
-    private static    Map<String, ExpressionFunction> DEFAULT_FUNCTIONS = new HashMap<>();
-    private           VariableResolver                mVariableResolver;
-    private           List<Operator>                  mOperators        = new ArrayList<>();
-    private           Map<String, ExpressionFunction> mFunctions        = new HashMap<>();
-    private transient Stack<ExpressionOperator>       mOperatorStack;
-    private transient Stack<Object>                   mOperandStack;
+    private static final int                             MAX_CACHED_EXPRESSIONS = 512;
+    private static final List<Operator>                  DEFAULT_OPERATORS      = new ArrayList<>();
+    private static final Map<String, ExpressionFunction> DEFAULT_FUNCTIONS      = new HashMap<>();
+    private static final Map<String, Expression>         CACHE                  = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+            return size() > MAX_CACHED_EXPRESSIONS;
+        }
+    };
+    private              VariableResolver                mVariableResolver;
+    private              List<Operator>                  mOperators;
+    private              Map<String, ExpressionFunction> mFunctions;
 
     static {
         addDefaultOperator(new OpenParen());
@@ -110,10 +116,18 @@ public class Evaluator {
 
     public static final void addDefaultOperator(Operator operator) {
         DEFAULT_OPERATORS.add(operator);
+        clearCache();
     }
 
     public static final void addDefaultFunction(ExpressionFunction function) {
         DEFAULT_FUNCTIONS.put(function.getName(), function);
+        clearCache();
+    }
+
+    private static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
     }
 
     /** Creates a new Evaluator that does not do variable resolution. */
@@ -128,8 +142,8 @@ public class Evaluator {
      */
     public Evaluator(VariableResolver variableResolver) {
         mVariableResolver = variableResolver;
-        mOperators.addAll(DEFAULT_OPERATORS);
-        mFunctions.putAll(DEFAULT_FUNCTIONS);
+        mOperators = DEFAULT_OPERATORS;
+        mFunctions = DEFAULT_FUNCTIONS;
     }
 
     /**
@@ -139,8 +153,8 @@ public class Evaluator {
      */
     public Evaluator(Evaluator other) {
         mVariableResolver = other.mVariableResolver;
-        mOperators.addAll(other.mOperators);
-        mFunctions.putAll(other.mFunctions);
+        mOperators = other.mOperators == DEFAULT_OPERATORS ? DEFAULT_OPERATORS : new ArrayList<>(other.mOperators);
+        mFunctions = other.mFunctions == DEFAULT_FUNCTIONS ? DEFAULT_FUNCTIONS : new HashMap<>(other.mFunctions);
     }
 
     /** @return The current variable resolver. */
@@ -159,6 +173,9 @@ public class Evaluator {
      * @param operator The {@link Operator}.
      */
     public void addOperator(Operator operator) {
+        if (mOperators == DEFAULT_OPERATORS) {
+            mOperators = new ArrayList<>(DEFAULT_OPERATORS);
+        }
         mOperators.add(operator);
     }
 
@@ -168,9 +185,36 @@ public class Evaluator {
      * @param function The {@link ExpressionFunction}.
      */
     public void addFunction(ExpressionFunction function) {
+        if (mFunctions == DEFAULT_FUNCTIONS) {
+            mFunctions = new HashMap<>(DEFAULT_FUNCTIONS);
+        }
         mFunctions.put(function.getName(), function);
     }
 
+    /**
+     * Compile an expression for later evaluation. Expressions that only make use of the default
+     * operators and functions are cached, so compiling the same text again is cheap.
+     *
+     * @param expression The expression to compile.
+     * @return The compiled {@link Expression}.
+     */
+    public final Expression compile(String expression) throws EvaluationException {
+        if (mOperators != DEFAULT_OPERATORS || mFunctions != DEFAULT_FUNCTIONS) {
+            return new Expression(expression, parse(expression));
+        }
+        Expression compiled;
+        synchronized (CACHE) {
+            compiled = CACHE.get(expression);
+        }
+        if (compiled == null) {
+            compiled = new Expression(expression, parse(expression));
+            synchronized (CACHE) {
+                CACHE.put(expression, compiled);
+            }
+        }
+        return compiled;
+    }
+
     /**
      * Evaluate an expression and return a result.
      *
@@ -178,14 +222,7 @@ public class Evaluator {
      * @return The result. May be a {@link String} or a {@link Double}.
      */
     public final Object evaluate(String expression) throws EvaluationException {
-        parse(expression);
-        while (!mOperatorStack.isEmpty()) {
-            processTree(mOperandStack, mOperatorStack);
-        }
-        if (mOperandStack.isEmpty()) {
-            return "";
-        }
-        return evaluateOperand(mOperandStack.pop());
+        return compile(expression).evaluate(this);
     }
 
     /**
@@ -218,16 +255,16 @@ public class Evaluator {
         }
     }
 
-    private void processTree(Stack<Object> operandStack, Stack<ExpressionOperator> operatorStack) {
+    private static void processTree(Stack<Object> operandStack, Stack<ExpressionOperator> operatorStack) {
         Object rightOperand = operandStack.isEmpty() ? null : operandStack.pop();
         Object leftOperand  = operandStack.isEmpty() ? null : operandStack.pop();
-        operandStack.push(new ExpressionTree(this, leftOperand, rightOperand, operatorStack.pop().mOperator, null));
+        operandStack.push(new ExpressionTree(leftOperand, rightOperand, operatorStack.pop().mOperator, null));
     }
 
-    private void parse(String expression) throws EvaluationException {
+    private Object parse(String expression) throws EvaluationException {
         try {
-            mOperandStack = new Stack<>();
-            mOperatorStack = new Stack<>();
+            Stack<Object>             operandStack  = new Stack<>();
+            Stack<ExpressionOperator> operatorStack = new Stack<>();
             boolean  haveOperand   = false;
             boolean  haveOperator  = false;
             Operator unaryOperator = null;
@@ -245,7 +282,7 @@ public class Evaluator {
                         opIndex = nextOperator.mIndex;
                     }
                     if (opIndex > i || opIndex == -1) {
-                        i = processOperand(expression, i, opIndex, mOperandStack, unaryOperator);
+                        i = processOperand(expression, i, opIndex, operandStack, unaryOperator);
                         haveOperand = true;
                         haveOperator = false;
                         unaryOperator = null;
@@ -259,7 +296,7 @@ public class Evaluator {
                                 throw new EvaluationException(String.format(I18n.text("不允许连续的一元运算符 (位置=%d)"), Integer.valueOf(i)));
                             }
                         } else {
-                            i = processOperator(expression, opIndex, operator, mOperatorStack, mOperandStack, haveOperand, unaryOperator);
+                            i = processOperator(expression, opIndex, operator, operatorStack, operandStack, haveOperand, unaryOperator);
                             unaryOperator = null;
                         }
                         if (!(nextOperator != null && nextOperator.mOperator instanceof CloseParen)) {
@@ -269,6 +306,10 @@ public class Evaluator {
                     }
                 }
             }
+            while (!operatorStack.isEmpty()) {
+                processTree(operandStack, operatorStack);
+            }
+            return operandStack.isEmpty() ? null : operandStack.pop();
         } catch (EvaluationException evalEx) {
             throw evalEx;
         } catch (Exception exception) {
@@ -293,10 +334,34 @@ public class Evaluator {
         if (text.isEmpty()) {
             throw new EvaluationException(invalidExpressionText());
         }
-        operandStack.push(new ExpressionOperand(text, unaryOperator));
+        Variable variable = null;
+        if (text.charAt(0) == '$' && variableEnd(text, 0) == text.length() - 1) {
+            variable = Variable.get(text.substring(1));
+        }
+        operandStack.push(new ExpressionOperand(text, variable, unaryOperator));
         return result;
     }
 
+    /**
+     * @param expression The text containing a variable reference.
+     * @param dollar     The index of the '$' that starts the variable reference.
+     * @return The index of the last character of the variable name, or the value of {@code dollar}
+     *         if there is no valid name.
+     */
+    private static int variableEnd(String expression, int dollar) {
+        int last = dollar;
+        int max  = expression.length();
+        for (int i = dollar + 1; i < max; i++) {
+            char ch = expression.charAt(i);
+            if (ch == '_' || ch == '.' || ch == '#' || ch >= 'A' && ch <= 'Z' || ch >= 'a' && ch <= 'z' || i != dollar + 1 && ch >= '0' && ch <= '9') {
+                last = i;
+            } else {
+                break;
+            }
+        }
+        return last;
+    }
+
     private int processOperator(String expression, int index, Operator operator, Stack<ExpressionOperator> operatorStack, Stack<Object> operandStack, boolean haveOperand, Operator unaryOperator) throws EvaluationException {
         if (haveOperand && operator instanceof OpenParen) {
             NextOperator nextOperator = processFunction(expression, index, operandStack);
@@ -325,7 +390,7 @@ public class Evaluator {
                 throw new EvaluationException(invalidExpressionText());
             }
             if (exop.mUnaryOperator != null) {
-                operandStack.push(new ExpressionTree(this, operandStack.pop(), null, null, exop.mUnaryOperator));
+                operandStack.push(new ExpressionTree(operandStack.pop(), null, null, exop.mUnaryOperator));
             }
         } else {
             if (!operatorStack.isEmpty()) {
@@ -360,10 +425,31 @@ public class Evaluator {
         if (function == null) {
             throw new EvaluationException(String.format(I18n.text("函数未定义：%s"), operand.mValue));
         }
-        operandStack.push(new ParsedFunction(function, expression.substring(operatorIndex + 1, next), operand.mUnaryOperator));
+        String arguments = expression.substring(operatorIndex + 1, next);
+        operandStack.push(new ParsedFunction(function, arguments, compileArguments(arguments), operand.mUnaryOperator));
         return nextOperator;
     }
 
+    /**
+     * @param arguments The arguments to a function.
+     * @return The arguments, split apart and compiled, or {@code null} if any of them can't be
+     *         compiled. In the latter case, the function will be given the raw argument text at
+     *         evaluation time, as some functions don't treat their arguments as expressions.
+     */
+    private Expression[] compileArguments(String arguments) {
+        List<Expression>  compiled  = new ArrayList<>();
+        ArgumentTokenizer tokenizer = new ArgumentTokenizer(arguments);
+        try {
+            while (tokenizer.hasMoreTokens()) {
+                String token = tokenizer.nextToken();
+                compiled.add(new Expression(token, parse(token)));
+            }
+        } catch (EvaluationException exception) {
+            return null;
+        }
+        return compiled.toArray(new Expression[0]);
+    }
+
     private NextOperator nextOperator(String expression, int start, Operator match) {
         int length = expression.length();
         for (int i = start; i < length; i++) {
@@ -408,13 +494,18 @@ public class Evaluator {
 
     final Object evaluateOperand(Object operand) throws EvaluationException {
         if (operand instanceof ExpressionTree) {
-            return ((ExpressionTree) operand).evaluate();
+            return ((ExpressionTree) operand).evaluate(this);
         } else if (operand instanceof ExpressionOperand exop) {
-            Object   value = replaceVariables(exop.mValue);
+            Object   value = exop.mVariable != null ? Double.valueOf(resolveVariable(exop.mVariable)) : replaceVariables(exop.mValue);
             Operator unary = exop.mUnaryOperator;
             return unary != null ? unary.evaluate(value) : value;
         } else if (operand instanceof ParsedFunction function) {
-            Object value = function.mFunction.execute(this, replaceVariables(function.mArguments));
+            Object value;
+            if (function.mCompiledArguments != null) {
+                value = function.mFunction.execute(this, function.mCompiledArguments);
+            } else {
+                value = function.mFunction.execute(this, replaceVariables(function.mArguments));
+            }
             if (function.mUnaryOperator != null) {
                 value = function.mUnaryOperator.evaluate(value);
             }
@@ -425,40 +516,48 @@ public class Evaluator {
         return null;
     }
 
-    private String replaceVariables(String expression) throws EvaluationException {
+    /**
+     * @param variable The {@link Variable} to resolve.
+     * @return The value of the variable.
+     */
+    public final double resolveVariable(Variable variable) throws EvaluationException {
+        if (mVariableResolver == null) {
+            throw new EvaluationException(String.format(I18n.text("无法识别变量$%s"), variable.getName()));
+        }
+        return mVariableResolver.resolveVariable(variable);
+    }
+
+    /**
+     * @param variable The {@link Variable} to resolve.
+     * @return The value of the variable, as text to substitute into an expression.
+     */
+    public final String resolveVariableText(Variable variable) throws EvaluationException {
+        if (mVariableResolver == null) {
+            throw new EvaluationException(String.format(I18n.text("无法识别变量$%s"), variable.getName()));
+        }
+        return mVariableResolver.resolveVariableText(variable);
+    }
+
+    /**
+     * @param expression The text to process.
+     * @return The text, with any variable references replaced by their values.
+     */
+    public final String replaceVariables(String expression) throws EvaluationException {
         int dollar = expression.indexOf('$');
         while (dollar >= 0) {
-            int last = dollar;
-            int max  = expression.length();
-            for (int i = dollar + 1; i < max; i++) {
-                char ch = expression.charAt(i);
-                if (ch == '_' || ch == '.' || ch == '#' || ch >= 'A' && ch <= 'Z' || ch >= 'a' && ch <= 'z' || i != dollar + 1 && ch >= '0' && ch <= '9') {
-                    last = i;
-                } else {
-                    break;
-                }
-            }
+            int last = variableEnd(expression, dollar);
             if (dollar == last) {
                 throw new EvaluationException(String.format(I18n.text("在位置%d有无效变量"), Integer.valueOf(dollar)));
-            } else {
-                String name  = expression.substring(dollar + 1, last + 1);
-                String value = null;
-                if (mVariableResolver != null) {
-                    value = mVariableResolver.resolveVariable(name);
-                }
-                if (value == null || value.trim().isEmpty()) {
-                    throw new EvaluationException(String.format(I18n.text("无法识别变量$%s"), name));
-                }
-                StringBuilder buffer = new StringBuilder();
-                if (dollar > 0) {
-                    buffer.append(expression, 0, dollar);
-                }
-                buffer.append(value);
-                if (last + 1 < max) {
-                    buffer.append(expression.substring(last + 1));
-                }
-                expression = buffer.toString();
             }
+            StringBuilder buffer = new StringBuilder();
+            if (dollar > 0) {
+                buffer.append(expression, 0, dollar);
+            }
+            buffer.append(resolveVariableText(Variable.get(expression.substring(dollar + 1, last + 1))));
+            if (last + 1 < expression.length()) {
+                buffer.append(expression.substring(last + 1));
+            }
+            expression = buffer.toString();
             dollar = expression.indexOf('$');
         }
         return expression;
@@ -0,0 +1,80 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.expression;
+
+/**
+ * An expression that has been parsed into a tree. Once compiled, an expression is immutable and
+ * may be evaluated any number of times, with any {@link Evaluator}.
+ */
+public final class Expression {
+    private String mSource;
+    private Object mRoot;
+
+    Expression(String source, Object root) {
+        mSource = source;
+        mRoot = root;
+    }
+
+    /** @return The text the expression was compiled from. */
+    public String getSource() {
+        return mSource;
+    }
+
+    /**
+     * Evaluate the expression and return a result.
+     *
+     * @param evaluator The {@link Evaluator} to use for variable resolution.
+     * @return The result. May be a {@link String} or a {@link Double}.
+     */
+    public Object evaluate(Evaluator evaluator) throws EvaluationException {
+        if (mRoot == null) {
+            return "";
+        }
+        return evaluator.evaluateOperand(mRoot);
+    }
+
+    /**
+     * Evaluate the expression and return a number result.
+     *
+     * @param evaluator The {@link Evaluator} to use for variable resolution.
+     * @return The result. If the result can't be translated to a number, an EvaluationException
+     *         will be thrown.
+     */
+    public double evaluateToNumber(Evaluator evaluator) throws EvaluationException {
+        try {
+            return ArgumentTokenizer.getForcedDouble(evaluate(evaluator));
+        } catch (Exception exception) {
+            throw new EvaluationException(exception);
+        }
+    }
+
+    /**
+     * @param expressions The expressions to join.
+     * @return The source text of the expressions, separated by commas, as they would have appeared
+     *         in a function's argument list.
+     */
+    public static String join(Expression[] expressions) {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < expressions.length; i++) {
+            if (i != 0) {
+                buffer.append(',');
+            }
+            buffer.append(expressions[i].mSource);
+        }
+        return buffer.toString();
+    }
+
+    @Override
+    public String toString() {
+        return mSource;
+    }
+}
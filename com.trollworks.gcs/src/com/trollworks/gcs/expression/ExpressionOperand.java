@@ -15,10 +15,12 @@ import com.trollworks.gcs.expression.operator.Operator;
 
 class ExpressionOperand {
     String   mValue;
+    Variable mVariable;
     Operator mUnaryOperator;
 
-    ExpressionOperand(String value, Operator unaryOperator) {
+    ExpressionOperand(String value, Variable variable, Operator unaryOperator) {
         mValue = value;
+        mVariable = variable;
         mUnaryOperator = unaryOperator;
     }
 }
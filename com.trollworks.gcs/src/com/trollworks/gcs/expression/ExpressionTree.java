@@ -15,23 +15,21 @@ import com.trollworks.gcs.expression.operator.Operator;
 import com.trollworks.gcs.utility.I18n;
 
 class ExpressionTree {
-    private Evaluator mEvaluator;
-    private Object    mLeftOperand;
-    private Object    mRightOperand;
-    private Operator  mOperator;
-    private Operator  mUnaryOperator;
+    private Object   mLeftOperand;
+    private Object   mRightOperand;
+    private Operator mOperator;
+    private Operator mUnaryOperator;
 
-    ExpressionTree(Evaluator evaluator, Object leftOperand, Object rightOperand, Operator operator, Operator unaryOperator) {
-        mEvaluator = evaluator;
+    ExpressionTree(Object leftOperand, Object rightOperand, Operator operator, Operator unaryOperator) {
         mLeftOperand = leftOperand;
         mRightOperand = rightOperand;
         mOperator = operator;
         mUnaryOperator = unaryOperator;
     }
 
-    final Object evaluate() throws EvaluationException {
-        Object left  = mEvaluator.evaluateOperand(mLeftOperand);
-        Object right = mEvaluator.evaluateOperand(mRightOperand);
+    final Object evaluate(Evaluator evaluator) throws EvaluationException {
+        Object left  = evaluator.evaluateOperand(mLeftOperand);
+        Object right = evaluator.evaluateOperand(mRightOperand);
         if (mLeftOperand != null && mRightOperand != null) {
             Object result = mOperator.evaluate(left, right);
             return mUnaryOperator != null ? mUnaryOperator.evaluate(result) : result;
@@ -17,11 +17,13 @@ import com.trollworks.gcs.expression.operator.Operator;
 class ParsedFunction {
     ExpressionFunction mFunction;
     String             mArguments;
+    Expression[]       mCompiledArguments;
     Operator           mUnaryOperator;
 
-    ParsedFunction(ExpressionFunction function, String arguments, Operator unaryOperator) {
+    ParsedFunction(ExpressionFunction function, String arguments, Expression[] compiledArguments, Operator unaryOperator) {
         mFunction = function;
         mArguments = arguments;
+        mCompiledArguments = compiledArguments;
         mUnaryOperator = unaryOperator;
     }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.expression;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A variable referenced by an expression. Variables are resolved to a single shared instance per
+ * name when an expression is compiled, and each carries a small, unique index that a
+ * {@link VariableResolver} may use to remember what the variable is bound to.
+ */
+public final class Variable {
+    private static final Map<String, Variable> VARIABLES = new HashMap<>();
+    private              String                mName;
+    private              String                mBaseName;
+    private              String                mQualifier;
+    private              int                   mIndex;
+
+    private Variable(String name, int index) {
+        mName = name;
+        int dot = name.indexOf('.');
+        if (dot == -1) {
+            mBaseName = name;
+        } else {
+            mBaseName = name.substring(0, dot);
+            mQualifier = name.substring(dot + 1);
+        }
+        mIndex = index;
+    }
+
+    /**
+     * @param name The name of the variable, without the leading '$'.
+     * @return The variable with the specified name.
+     */
+    public static Variable get(String name) {
+        synchronized (VARIABLES) {
+            Variable variable = VARIABLES.get(name);
+            if (variable == null) {
+                variable = new Variable(name, VARIABLES.size());
+                VARIABLES.put(name, variable);
+            }
+            return variable;
+        }
+    }
+
+    /** @return The full name of the variable. */
+    public String getName() {
+        return mName;
+    }
+
+    /** @return The portion of the name prior to the first '.'. */
+    public String getBaseName() {
+        return mBaseName;
+    }
+
+    /** @return The portion of the name after the first '.', or {@code null}. */
+    public String getQualifier() {
+        return mQualifier;
+    }
+
+    /** @return The unique index of this variable. */
+    public int getIndex() {
+        return mIndex;
+    }
+
+    @Override
+    public String toString() {
+        return "$" + mName;
+    }
+}
@@ -12,5 +12,19 @@
 package com.trollworks.gcs.expression;
 
 public interface VariableResolver {
-    String resolveVariable(String variableName);
+    /**
+     * @param variable The {@link Variable} to resolve.
+     * @return The value of the variable.
+     * @throws EvaluationException if the variable cannot be resolved.
+     */
+    double resolveVariable(Variable variable) throws EvaluationException;
+
+    /**
+     * @param variable The {@link Variable} to resolve.
+     * @return The value of the variable, as text to substitute into an expression.
+     * @throws EvaluationException if the variable cannot be resolved.
+     */
+    default String resolveVariableText(Variable variable) throws EvaluationException {
+        return String.valueOf(resolveVariable(variable));
+    }
 }
@@ -14,6 +14,7 @@ package com.trollworks.gcs.expression.function;
 import com.trollworks.gcs.expression.ArgumentTokenizer;
 import com.trollworks.gcs.expression.EvaluationException;
 import com.trollworks.gcs.expression.Evaluator;
+import com.trollworks.gcs.expression.Expression;
 
 public class Cbrt implements ExpressionFunction {
     @Override
@@ -25,4 +26,9 @@ public class Cbrt implements ExpressionFunction {
     public final Object execute(Evaluator evaluator, String arguments) throws EvaluationException {
         return Double.valueOf(Math.cbrt(ArgumentTokenizer.getDoubleArgument(evaluator, arguments)));
     }
+
+    @Override
+    public final Object execute(Evaluator evaluator, Expression[] arguments) throws EvaluationException {
+        return Double.valueOf(Math.cbrt(ArgumentTokenizer.getDoubleArgument(evaluator, arguments)));
+    }
 }
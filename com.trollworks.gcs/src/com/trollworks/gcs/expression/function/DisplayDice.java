@@ -29,11 +29,10 @@ public class DisplayDice implements ExpressionFunction {
     @Override
     public Object execute(Evaluator evaluator, String arguments) throws EvaluationException {
         try {
-            Evaluator         ev        = new Evaluator(evaluator);
             ArgumentTokenizer tokenizer = new ArgumentTokenizer(arguments);
             List<Integer>     args      = new ArrayList<>();
             while (tokenizer.hasMoreTokens()) {
-                args.add(Integer.valueOf((int) ArgumentTokenizer.getDouble(ev.evaluate(tokenizer.nextToken()))));
+                args.add(Integer.valueOf((int) ArgumentTokenizer.getDouble(evaluator.evaluate(tokenizer.nextToken()))));
             }
             Dice dice = switch (args.size()) {
                 case 1 -> new Dice(1, args.get(0).intValue(), 0, 1); // sides
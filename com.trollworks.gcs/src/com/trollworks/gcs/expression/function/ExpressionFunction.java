@@ -13,9 +13,24 @@ package com.trollworks.gcs.expression.function;
 
 import com.trollworks.gcs.expression.EvaluationException;
 import com.trollworks.gcs.expression.Evaluator;
+import com.trollworks.gcs.expression.Expression;
 
 public interface ExpressionFunction {
     String getName();
 
     Object execute(Evaluator evaluator, String arguments) throws EvaluationException;
+
+    /**
+     * Called instead of {@link #execute(Evaluator, String)} when the function's arguments could be
+     * compiled ahead of time. Functions that only need the values of their arguments should
+     * override this to avoid re-parsing them on every call. By default, the variables in the
+     * original argument text are resolved and {@link #execute(Evaluator, String)} is called.
+     *
+     * @param evaluator The {@link Evaluator} to use for variable resolution.
+     * @param arguments The compiled arguments.
+     * @return The result.
+     */
+    default Object execute(Evaluator evaluator, Expression[] arguments) throws EvaluationException {
+        return execute(evaluator, evaluator.replaceVariables(Expression.join(arguments)));
+    }
 }
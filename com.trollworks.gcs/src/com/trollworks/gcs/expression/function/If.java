@@ -14,6 +14,7 @@ package com.trollworks.gcs.expression.function;
 import com.trollworks.gcs.expression.ArgumentTokenizer;
 import com.trollworks.gcs.expression.EvaluationException;
 import com.trollworks.gcs.expression.Evaluator;
+import com.trollworks.gcs.expression.Expression;
 
 public class If implements ExpressionFunction {
     @Override
@@ -24,26 +25,34 @@ public class If implements ExpressionFunction {
     @Override
     public final Object execute(Evaluator evaluator, String arguments) throws EvaluationException {
         ArgumentTokenizer tokenizer = new ArgumentTokenizer(arguments);
-        Evaluator         ev        = new Evaluator(evaluator);
-        Object            result    = ev.evaluate(tokenizer.nextToken());
+        if (!isTrue(evaluator.evaluate(tokenizer.nextToken()))) {
+            tokenizer.nextToken();
+        }
+        return evaluator.evaluate(tokenizer.nextToken());
+    }
+
+    @Override
+    public final Object execute(Evaluator evaluator, Expression[] arguments) throws EvaluationException {
+        if (arguments.length == 0) {
+            return execute(evaluator, "");
+        }
+        int which = isTrue(arguments[0].evaluate(evaluator)) ? 1 : 2;
+        return which < arguments.length ? arguments[which].evaluate(evaluator) : "";
+    }
+
+    private static boolean isTrue(Object result) {
         if (result instanceof Double) {
-            if (((Double) result).doubleValue() == 0) {
-                tokenizer.nextToken();
-            }
-        } else {
-            String str = result.toString();
-            if (str.isEmpty()) {
-                tokenizer.nextToken();
-            } else {
-                try {
-                    if (Double.parseDouble(str) == 0) {
-                        tokenizer.nextToken();
-                    }
-                } catch (NumberFormatException nfe) {
-                    // Treat as true
-                }
-            }
+            return ((Double) result).doubleValue() != 0;
+        }
+        String str = result.toString();
+        if (str.isEmpty()) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(str) != 0;
+        } catch (NumberFormatException nfe) {
+            // Treat as true
+            return true;
         }
-        return ev.evaluate(tokenizer.nextToken());
     }
 }
@@ -29,8 +29,8 @@ public class LookupAdvantageLevel implements ExpressionFunction {
             if (arguments.startsWith("\"") && arguments.endsWith("\"")) {
                 arguments = arguments.substring(1, arguments.length() - 1);
             }
-            for (Advantage advantage : gchar.getAdvantagesIterator(false)) {
-                if (advantage.getName().equalsIgnoreCase(arguments)) {
+            for (Advantage advantage : gchar.getAdvantagesNamed(arguments)) {
+                if (advantage.isEnabled()) {
                     if (advantage.isLeveled()) {
                         double levels = advantage.getLevels();
                         if (advantage.allowHalfLevels() && advantage.hasHalfLevel()) {
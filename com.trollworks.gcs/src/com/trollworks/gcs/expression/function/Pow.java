@@ -14,6 +14,7 @@ package com.trollworks.gcs.expression.function;
 import com.trollworks.gcs.expression.ArgumentTokenizer;
 import com.trollworks.gcs.expression.EvaluationException;
 import com.trollworks.gcs.expression.Evaluator;
+import com.trollworks.gcs.expression.Expression;
 import com.trollworks.gcs.utility.I18n;
 
 public class Pow implements ExpressionFunction {
@@ -25,10 +26,20 @@ public class Pow implements ExpressionFunction {
     @Override
     public final Object execute(Evaluator evaluator, String arguments) throws EvaluationException {
         try {
-            Evaluator         ev        = new Evaluator(evaluator);
             ArgumentTokenizer tokenizer = new ArgumentTokenizer(arguments);
-            double            arg1      = ArgumentTokenizer.getDouble(ev.evaluate(tokenizer.nextToken()));
-            double            arg2      = ArgumentTokenizer.getDouble(ev.evaluate(tokenizer.nextToken()));
+            double            arg1      = ArgumentTokenizer.getDouble(evaluator.evaluate(tokenizer.nextToken()));
+            double            arg2      = ArgumentTokenizer.getDouble(evaluator.evaluate(tokenizer.nextToken()));
+            return Double.valueOf(Math.pow(arg1, arg2));
+        } catch (Exception exception) {
+            throw new EvaluationException(I18n.text("Two numeric arguments are required"), exception);
+        }
+    }
+
+    @Override
+    public final Object execute(Evaluator evaluator, Expression[] arguments) throws EvaluationException {
+        try {
+            double arg1 = ArgumentTokenizer.getDouble(arguments[0].evaluate(evaluator));
+            double arg2 = ArgumentTokenizer.getDouble(arguments[1].evaluate(evaluator));
             return Double.valueOf(Math.pow(arg1, arg2));
         } catch (Exception exception) {
             throw new EvaluationException(I18n.text("Two numeric arguments are required"), exception);
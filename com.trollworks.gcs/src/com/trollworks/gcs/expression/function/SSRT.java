@@ -40,11 +40,10 @@ public class SSRT implements ExpressionFunction {
     @Override
     public Object execute(Evaluator evaluator, String arguments) throws EvaluationException {
         try {
-            Evaluator         ev        = new Evaluator(evaluator);
             ArgumentTokenizer tokenizer = new ArgumentTokenizer(arguments);
-            double            length    = ArgumentTokenizer.getDouble(ev.evaluate(tokenizer.nextToken()));
-            LengthUnits       units     = Enums.extract(ev.evaluate(tokenizer.nextToken()).toString(), LengthUnits.values(), LengthUnits.YD);
-            boolean           wantSize  = ArgumentTokenizer.getDouble(ev.evaluate(tokenizer.nextToken())) != 0;
+            double            length    = ArgumentTokenizer.getDouble(evaluator.evaluate(tokenizer.nextToken()));
+            LengthUnits       units     = Enums.extract(evaluator.evaluate(tokenizer.nextToken()).toString(), LengthUnits.values(), LengthUnits.YD);
+            boolean           wantSize  = ArgumentTokenizer.getDouble(evaluator.evaluate(tokenizer.nextToken())) != 0;
             int               value     = yardsToValue(LengthUnits.YD.convert(units, new Fixed6(length)), wantSize);
             return Integer.valueOf(wantSize ? value : -value);
         } catch (Exception exception) {
@@ -14,6 +14,7 @@ package com.trollworks.gcs.expression.function;
 import com.trollworks.gcs.expression.ArgumentTokenizer;
 import com.trollworks.gcs.expression.EvaluationException;
 import com.trollworks.gcs.expression.Evaluator;
+import com.trollworks.gcs.expression.Expression;
 import com.trollworks.gcs.utility.Fixed6;
 import com.trollworks.gcs.utility.units.LengthUnits;
 
@@ -25,7 +26,15 @@ public class SSRTtoYards implements ExpressionFunction {
 
     @Override
     public Object execute(Evaluator evaluator, String arguments) throws EvaluationException {
-        int v = (int) ArgumentTokenizer.getDoubleArgument(evaluator, arguments);
+        return toYards((int) ArgumentTokenizer.getDoubleArgument(evaluator, arguments));
+    }
+
+    @Override
+    public Object execute(Evaluator evaluator, Expression[] arguments) throws EvaluationException {
+        return toYards((int) ArgumentTokenizer.getDoubleArgument(evaluator, arguments));
+    }
+
+    private static Object toYards(int v) {
         if (v < -15) {
             v = -15;
         }
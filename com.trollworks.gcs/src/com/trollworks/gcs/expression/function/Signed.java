@@ -14,6 +14,7 @@ package com.trollworks.gcs.expression.function;
 import com.trollworks.gcs.expression.ArgumentTokenizer;
 import com.trollworks.gcs.expression.EvaluationException;
 import com.trollworks.gcs.expression.Evaluator;
+import com.trollworks.gcs.expression.Expression;
 import com.trollworks.gcs.utility.text.Numbers;
 
 public class Signed implements ExpressionFunction {
@@ -24,6 +25,11 @@ public class Signed implements ExpressionFunction {
 
     @Override
     public Object execute(Evaluator evaluator, String arguments) throws EvaluationException {
-        return Numbers.formatWithForcedSign(ArgumentTokenizer.getDoubleArgument(new Evaluator(evaluator), arguments));
+        return Numbers.formatWithForcedSign(ArgumentTokenizer.getDoubleArgument(evaluator, arguments));
+    }
+
+    @Override
+    public Object execute(Evaluator evaluator, Expression[] arguments) throws EvaluationException {
+        return Numbers.formatWithForcedSign(ArgumentTokenizer.getDoubleArgument(evaluator, arguments));
     }
 }
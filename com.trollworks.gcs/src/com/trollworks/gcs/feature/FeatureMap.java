@@ -0,0 +1,211 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.feature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The features that apply to a character, keyed by their lowercased feature key and split by type,
+ * so that queries need neither rescan nor filter the full list.
+ */
+public final class FeatureMap {
+    private Map<String, Bucket> mBuckets = new HashMap<>();
+
+    /**
+     * Adds a feature to the map. The feature's amount, if any, should already have its level set.
+     *
+     * @param feature The feature to add.
+     */
+    public void add(Feature feature) {
+        mBuckets.computeIfAbsent(key(feature.getKey()).intern(), k -> new Bucket()).add(feature);
+    }
+
+    /**
+     * @param id The feature ID to search for.
+     * @return The bonuses, other than weapon damage bonuses, with the specified ID.
+     */
+    public List<Bonus> getBonuses(String id) {
+        Bucket bucket = mBuckets.get(key(id));
+        return bucket != null ? bucket.mBonuses : Collections.emptyList();
+    }
+
+    /**
+     * @param id The feature ID to search for.
+     * @return The cost reductions with the specified ID.
+     */
+    public List<CostReduction> getCostReductions(String id) {
+        Bucket bucket = mBuckets.get(key(id));
+        return bucket != null ? bucket.mCostReductions : Collections.emptyList();
+    }
+
+    /**
+     * @param id The feature ID to search for.
+     * @return The DR bonuses with the specified ID.
+     */
+    public List<DRBonus> getDRBonuses(String id) {
+        Bucket bucket = mBuckets.get(key(id));
+        return bucket != null ? bucket.mDRBonuses : Collections.emptyList();
+    }
+
+    /**
+     * @param id The feature ID to search for.
+     * @return The weapon damage bonuses with the specified ID.
+     */
+    public List<WeaponDamageBonus> getWeaponDamageBonuses(String id) {
+        Bucket bucket = mBuckets.get(key(id));
+        return bucket != null ? bucket.mWeaponDamageBonuses : Collections.emptyList();
+    }
+
+    /**
+     * @param id The feature ID to search for.
+     * @return The skill bonuses with the specified ID.
+     */
+    public List<SkillBonus> getSkillBonuses(String id) {
+        Bucket bucket = mBuckets.get(key(id));
+        return bucket != null ? bucket.mSkillBonuses : Collections.emptyList();
+    }
+
+    /**
+     * @param id The feature ID to search for.
+     * @return The skill point bonuses with the specified ID.
+     */
+    public List<SkillPointBonus> getSkillPointBonuses(String id) {
+        Bucket bucket = mBuckets.get(key(id));
+        return bucket != null ? bucket.mSkillPointBonuses : Collections.emptyList();
+    }
+
+    /**
+     * @param id The feature ID to search for.
+     * @return The spell bonuses with the specified ID.
+     */
+    public List<SpellBonus> getSpellBonuses(String id) {
+        Bucket bucket = mBuckets.get(key(id));
+        return bucket != null ? bucket.mSpellBonuses : Collections.emptyList();
+    }
+
+    /**
+     * @param id The feature ID to search for.
+     * @return The spell point bonuses with the specified ID.
+     */
+    public List<SpellPointBonus> getSpellPointBonuses(String id) {
+        Bucket bucket = mBuckets.get(key(id));
+        return bucket != null ? bucket.mSpellPointBonuses : Collections.emptyList();
+    }
+
+    /**
+     * @param id The feature ID to search for.
+     * @return The sum of the integer amounts of the bonuses returned by {@link
+     *         #getBonuses(String)}.
+     */
+    public int getIntegerBonus(String id) {
+        Bucket bucket = mBuckets.get(key(id));
+        if (bucket == null) {
+            return 0;
+        }
+        bucket.computeTotals();
+        return bucket.mIntegerTotal;
+    }
+
+    /**
+     * @param id The feature ID to search for.
+     * @return The sum of the amounts of the bonuses returned by {@link #getBonuses(String)}.
+     */
+    public double getDoubleBonus(String id) {
+        Bucket bucket = mBuckets.get(key(id));
+        if (bucket == null) {
+            return 0;
+        }
+        bucket.computeTotals();
+        return bucket.mDoubleTotal;
+    }
+
+    /**
+     * @param id The feature ID.
+     * @return The ID in the form used as a key within the map. This is the same as {@link
+     *         String#toLowerCase()}, but avoids creating a new string when the ID is already plain
+     *         lowercase ASCII, which is nearly always the case.
+     */
+    private static String key(String id) {
+        int length = id.length();
+        for (int i = 0; i < length; i++) {
+            char ch = id.charAt(i);
+            if ((ch >= 'A' && ch <= 'Z') || ch > 127) {
+                return id.toLowerCase();
+            }
+        }
+        return id;
+    }
+
+    private static final class Bucket {
+        List<Bonus>             mBonuses             = Collections.emptyList();
+        List<CostReduction>     mCostReductions      = Collections.emptyList();
+        List<DRBonus>           mDRBonuses           = Collections.emptyList();
+        List<WeaponDamageBonus> mWeaponDamageBonuses = Collections.emptyList();
+        List<SkillBonus>        mSkillBonuses        = Collections.emptyList();
+        List<SkillPointBonus>   mSkillPointBonuses   = Collections.emptyList();
+        List<SpellBonus>        mSpellBonuses        = Collections.emptyList();
+        List<SpellPointBonus>   mSpellPointBonuses   = Collections.emptyList();
+        volatile boolean        mTotalsComputed;
+        int                     mIntegerTotal;
+        double                  mDoubleTotal;
+
+        void add(Feature feature) {
+            mTotalsComputed = false;
+            if (feature instanceof CostReduction costReduction) {
+                mCostReductions = append(mCostReductions, costReduction);
+            } else if (feature instanceof WeaponDamageBonus bonus) {
+                mWeaponDamageBonuses = append(mWeaponDamageBonuses, bonus);
+            } else if (feature instanceof Bonus bonus) {
+                mBonuses = append(mBonuses, bonus);
+                if (bonus instanceof DRBonus drBonus) {
+                    mDRBonuses = append(mDRBonuses, drBonus);
+                } else if (bonus instanceof SkillBonus skillBonus) {
+                    mSkillBonuses = append(mSkillBonuses, skillBonus);
+                } else if (bonus instanceof SkillPointBonus skillPointBonus) {
+                    mSkillPointBonuses = append(mSkillPointBonuses, skillPointBonus);
+                } else if (bonus instanceof SpellBonus spellBonus) {
+                    mSpellBonuses = append(mSpellBonuses, spellBonus);
+                } else if (bonus instanceof SpellPointBonus spellPointBonus) {
+                    mSpellPointBonuses = append(mSpellPointBonuses, spellPointBonus);
+                }
+            }
+        }
+
+        void computeTotals() {
+            if (!mTotalsComputed) {
+                int    integerTotal = 0;
+                double doubleTotal  = 0;
+                for (Bonus bonus : mBonuses) {
+                    LeveledAmount amount = bonus.getAmount();
+                    integerTotal += amount.getIntegerAdjustedAmount();
+                    doubleTotal += amount.getAdjustedAmount();
+                }
+                mIntegerTotal = integerTotal;
+                mDoubleTotal = doubleTotal;
+                // Set last, so that another thread that sees it also sees the totals
+                mTotalsComputed = true;
+            }
+        }
+
+        private static <T> List<T> append(List<T> list, T one) {
+            if (list.isEmpty()) {
+                list = new ArrayList<>(1);
+            }
+            list.add(one);
+            return list;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.trollworks.gcs.ui.Fonts;
 import com.trollworks.gcs.ui.widget.outline.Column;
 import com.trollworks.gcs.ui.widget.outline.Row;
 
+import java.util.List;
 import javax.swing.Icon;
 
 /** A {@link Row} that represents a directory in the library explorer. */
@@ -51,6 +52,11 @@ public class LibraryDirectoryRow extends Row implements LibraryExplorerRow {
         return mName;
     }
 
+    @Override
+    protected void collectSearchText(List<String> texts) {
+        texts.add(getName());
+    }
+
     @Override
     public Object getData(Column column) {
         return mName;
@@ -34,7 +34,9 @@ import com.trollworks.gcs.ui.widget.outline.ListRow;
 import com.trollworks.gcs.ui.widget.outline.OutlineModel;
 import com.trollworks.gcs.ui.widget.outline.Row;
 import com.trollworks.gcs.ui.widget.outline.RowFilter;
+import com.trollworks.gcs.ui.widget.outline.RowSearchIndex;
 import com.trollworks.gcs.utility.I18n;
+import com.trollworks.gcs.utility.Log;
 import com.trollworks.gcs.utility.PrintProxy;
 import com.trollworks.gcs.utility.text.Text;
 
@@ -44,20 +46,40 @@ import java.awt.EventQueue;
 import java.awt.KeyboardFocusManager;
 import java.awt.dnd.DropTarget;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.SwingConstants;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 
 /** A list from a library. */
 public abstract class LibraryDockable extends DataFileDockable implements RowFilter, DocumentListener, JumpToSearchTarget, RetargetableFocus, DataChangeListener, Runnable, FontAdjustable {
-    private Toolbar           mToolbar;
-    private PopupMenu<Scales> mScalesPopup;
-    private EditorField       mFilterField;
-    private PopupMenu<String> mCategoryPopup;
-    private FontIconButton    mLockButton;
-    private ListOutline       mOutline;
-    private boolean           mUpdatePending;
+    private static final int                   FILTER_DELAY = 150;
+    private              Toolbar               mToolbar;
+    private              PopupMenu<Scales>     mScalesPopup;
+    private              EditorField           mFilterField;
+    private              PopupMenu<String>     mCategoryPopup;
+    private              FontIconButton        mLockButton;
+    private              ListOutline           mOutline;
+    private              boolean               mUpdatePending;
+    private              Timer                 mFilterTimer;
+    private              int                   mFilterRequest;
+    private              String                mAppliedFilter;
+    private              Matches               mMatches;
+
+    /** The rows found by a search, along with a set of them for quick lookups. */
+    private static final class Matches {
+        private final RowSearchIndex.Result mResult;
+        private final Set<Row>              mRows;
+
+        Matches(RowSearchIndex.Result result) {
+            mResult = result;
+            mRows = new HashSet<>(result);
+        }
+    }
 
     /** Creates a new LibraryDockable. */
     protected LibraryDockable(ListFile file) {
@@ -155,12 +177,19 @@ public abstract class LibraryDockable extends DataFileDockable implements RowFil
                 Text.makeFiller(10, 'M'), I18n.text("在这里输入文本以找出包括匹配项目的行"));
         mFilterField.setHint(I18n.text("过滤"));
         mFilterField.getDocument().addDocumentListener(this);
+        mFilterTimer = new Timer(FILTER_DELAY, (evt) -> startFilter());
+        mFilterTimer.setRepeats(false);
+        mAppliedFilter = "";
         mToolbar.add(mFilterField, Toolbar.LAYOUT_FILL);
     }
 
     private void createCategoryPopup() {
         mCategoryPopup = new PopupMenu<>(new ArrayList<>(), (p) -> {
             if (mOutline != null) {
+                if (mCategoryPopup.getSelectedIndex() != 0) {
+                    // Rows that haven't been loaded yet can't be filtered out, so load them now
+                    mOutline.getModel().loadAllRows();
+                }
                 mOutline.reapplyRowFilter();
             }
         });
@@ -168,11 +197,24 @@ public abstract class LibraryDockable extends DataFileDockable implements RowFil
         mToolbar.add(mCategoryPopup);
     }
 
+    /**
+     * Rebuilds the category popup from the categories in the list. Should those not be known yet,
+     * because the list's rows are still being scanned for them, the popup is left with just its
+     * first item for now, and rebuilt again once they are.
+     */
     private void adjustCategoryPopup() {
         String last = mCategoryPopup.getSelectedItem();
         mCategoryPopup.clear();
         mCategoryPopup.addItem(I18n.text("任何类型"));
-        List<String> categories = getDataFile().getCategories();
+        ListFile             file  = getDataFile();
+        CompletableFuture<?> known = file.whenCategoriesKnown();
+        List<String>         categories;
+        if (known.isDone()) {
+            categories = file.getCategories();
+        } else {
+            categories = new ArrayList<>();
+            known.whenComplete((result, throwable) -> EventQueue.invokeLater(this::adjustCategoryPopup));
+        }
         String       selection  = null;
         if (!categories.isEmpty()) {
             mCategoryPopup.addSeparator();
@@ -205,16 +247,54 @@ public abstract class LibraryDockable extends DataFileDockable implements RowFil
                     filtered = !listRow.getCategories().contains(selectedItem);
                 }
             }
-            if (!filtered) {
-                String filter = mFilterField.getText();
-                if (!filter.isEmpty()) {
-                    filtered = !listRow.contains(filter.toLowerCase(), true);
+            if (!filtered && !mAppliedFilter.isEmpty()) {
+                if (mOutline.getModel().isCurrentSearchIndex(mMatches.mResult.getIndex())) {
+                    filtered = !mMatches.mRows.contains(listRow);
+                } else {
+                    // The rows have changed since the search was made, so check this one directly
+                    filtered = !listRow.contains(mAppliedFilter, true);
                 }
             }
         }
         return filtered;
     }
 
+    /**
+     * Searches for the rows matching the filter text on a background thread, then applies the
+     * result on the event dispatch thread, unless the filter text has changed again by then. When
+     * the new text contains the text of the previous search, only the rows that search found are
+     * checked. The set of matching rows is built on the background thread too, so that applying
+     * the result only has to swap it in.
+     */
+    private void startFilter() {
+        String filter  = mFilterField.getText().toLowerCase();
+        int    request = ++mFilterRequest;
+        if (filter.isEmpty()) {
+            applyFilter(filter, null);
+            return;
+        }
+        // The index is built here, rather than on the background thread, as that reads the rows
+        RowSearchIndex        index    = mOutline.getModel().getSearchIndex();
+        RowSearchIndex.Result previous = mMatches != null ? mMatches.mResult : null;
+        CompletableFuture.supplyAsync(() -> new Matches(index.search(filter, previous))).whenComplete((matches, throwable) -> {
+            if (throwable != null) {
+                Log.error(throwable);
+            } else {
+                EventQueue.invokeLater(() -> {
+                    if (request == mFilterRequest) {
+                        applyFilter(filter, matches);
+                    }
+                });
+            }
+        });
+    }
+
+    private void applyFilter(String filter, Matches matches) {
+        mAppliedFilter = filter;
+        mMatches = matches;
+        mOutline.reapplyRowFilter();
+    }
+
     @Override
     public void dataWasChanged() {
         if (!mUpdatePending) {
@@ -227,6 +307,10 @@ public abstract class LibraryDockable extends DataFileDockable implements RowFil
     public void run() {
         mOutline.updateRowHeights();
         adjustCategoryPopup();
+        if (!mAppliedFilter.isEmpty()) {
+            // Refresh the matches, so that rows stop being checked one at a time
+            mFilterTimer.restart();
+        }
         mUpdatePending = false;
     }
 
@@ -246,7 +330,7 @@ public abstract class LibraryDockable extends DataFileDockable implements RowFil
     }
 
     private void documentChanged() {
-        mOutline.reapplyRowFilter();
+        mFilterTimer.restart();
     }
 
     @Override
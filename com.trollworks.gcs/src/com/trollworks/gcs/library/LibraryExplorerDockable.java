@@ -337,49 +337,49 @@ public class LibraryExplorerDockable extends Dockable implements SearchTarget, D
 
     private FileProxy openAdvantageList(Path path) throws IOException {
         AdvantageList list = new AdvantageList();
-        list.load(path);
+        list.loadLazily(path);
         list.getModel().setLocked(true);
         return dockLibrary(new AdvantagesDockable(list));
     }
 
     private FileProxy openAdvantageModifierList(Path path) throws IOException {
         AdvantageModifierList list = new AdvantageModifierList();
-        list.load(path);
+        list.loadLazily(path);
         list.getModel().setLocked(true);
         return dockLibrary(new AdvantageModifiersDockable(list));
     }
 
     private FileProxy openEquipmentList(Path path) throws IOException {
         EquipmentList list = new EquipmentList();
-        list.load(path);
+        list.loadLazily(path);
         list.getModel().setLocked(true);
         return dockLibrary(new EquipmentDockable(list));
     }
 
     private FileProxy openEquipmentModifierList(Path path) throws IOException {
         EquipmentModifierList list = new EquipmentModifierList();
-        list.load(path);
+        list.loadLazily(path);
         list.getModel().setLocked(true);
         return dockLibrary(new EquipmentModifiersDockable(list));
     }
 
     private FileProxy openSkillList(Path path) throws IOException {
         SkillList list = new SkillList();
-        list.load(path);
+        list.loadLazily(path);
         list.getModel().setLocked(true);
         return dockLibrary(new SkillsDockable(list));
     }
 
     private FileProxy openSpellList(Path path) throws IOException {
         SpellList list = new SpellList();
-        list.load(path);
+        list.loadLazily(path);
         list.getModel().setLocked(true);
         return dockLibrary(new SpellsDockable(list));
     }
 
     private FileProxy openNoteList(Path path) throws IOException {
         NoteList list = new NoteList();
-        list.load(path);
+        list.loadLazily(path);
         list.getModel().setLocked(true);
         return dockLibrary(new NotesDockable(list));
     }
@@ -524,22 +524,11 @@ public class LibraryExplorerDockable extends Dockable implements SearchTarget, D
     }
 
     private void collect(String text, List<LibraryExplorerSearchResult> list) {
-        for (Row row : mOutline.getModel().getTopLevelRows()) {
-            collect(row, text, list);
-        }
-    }
-
-    private static void collect(Row row, String text, List<LibraryExplorerSearchResult> list) {
-        if (row instanceof LibraryExplorerRow libRow) {
-            if (libRow.getName().toLowerCase().contains(text)) {
+        for (Row row : mOutline.getModel().getSearchIndex().search(text)) {
+            if (row instanceof LibraryExplorerRow libRow) {
                 list.add(new LibraryExplorerSearchResult(libRow));
             }
         }
-        if (row instanceof LibraryDirectoryRow) {
-            for (Row child : row.getChildren()) {
-                collect(child, text, list);
-            }
-        }
     }
 
     @Override
@@ -17,6 +17,7 @@ import com.trollworks.gcs.utility.FileType;
 import com.trollworks.gcs.utility.PathUtils;
 
 import java.nio.file.Path;
+import java.util.List;
 import javax.swing.Icon;
 
 /** A {@link Row} that represents a file in the library explorer. */
@@ -53,6 +54,11 @@ public class LibraryFileRow extends Row implements LibraryExplorerRow {
         return PathUtils.getLeafName(mFilePath.getFileName(), false);
     }
 
+    @Override
+    protected void collectSearchText(List<String> texts) {
+        texts.add(getName());
+    }
+
     @Override
     public Object getData(Column column) {
         return mFilePath;
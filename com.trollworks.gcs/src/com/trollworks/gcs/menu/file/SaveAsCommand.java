@@ -61,12 +61,14 @@ public final class SaveAsCommand extends Command {
             }
             Path path = Modal.presentSaveFileDialog(UIUtilities.getComponentForDialog(saveable),
                     I18n.text("另存为……"), Dirs.GENERAL, name, fileType.getFilter());
-            if (path != null && saveable.saveTo(path)) {
-                Settings.getInstance().addRecentFile(path);
-                LibraryExplorerDockable explorer = LibraryExplorerDockable.get();
-                if (explorer != null) {
-                    explorer.refresh();
-                }
+            if (path != null) {
+                saveable.saveTo(path, () -> {
+                    Settings.getInstance().addRecentFile(path);
+                    LibraryExplorerDockable explorer = LibraryExplorerDockable.get();
+                    if (explorer != null) {
+                        explorer.refresh();
+                    }
+                });
             }
         }
     }
@@ -84,6 +84,7 @@ public final class SaveCommand extends Command {
     }
 
     private static SaveResult attemptSaveInternal(Saveable saveable) {
+        saveable.waitForSave();
         if (saveable.isModified()) {
             saveable.toFrontAndFocus();
             Modal dialog = Modal.prepareToShowMessage(UIUtilities.getComponentForDialog(saveable),
@@ -96,6 +97,7 @@ public final class SaveCommand extends Command {
             switch (dialog.getResult()) {
                 case Modal.OK:
                     save(saveable);
+                    saveable.waitForSave();
                     if (saveable.isModified()) {
                         return SaveResult.CANCEL;
                     }
@@ -118,9 +120,7 @@ public final class SaveCommand extends Command {
         if (saveable != null) {
             Path path = saveable.getBackingFile();
             if (path != null) {
-                if (saveable.saveTo(path)) {
-                    Settings.getInstance().addRecentFile(path);
-                }
+                saveable.saveTo(path, () -> Settings.getInstance().addRecentFile(path));
                 return;
             }
             SaveAsCommand.saveAs(saveable);
@@ -38,10 +38,16 @@ public interface Saveable extends FileProxy {
     String getSaveTitle();
 
     /**
-     * Called to actually save the contents to a path.
+     * Called to actually save the contents to a path. The writing may be completed in the
+     * background, in which case failure will be reported to the user once known. Call {@link
+     * #waitForSave()} and then check {@link #isModified()} to find out whether the save succeeded.
      *
-     * @param path The path to save to.
-     * @return {@code} true on success.
+     * @param path      The path to save to.
+     * @param onSuccess Called on the event dispatch thread once the contents have been written. May
+     *                  be {@code null}.
      */
-    boolean saveTo(Path path);
+    void saveTo(Path path, Runnable onSuccess);
+
+    /** Waits for any save that is still being completed in the background. */
+    void waitForSave();
 }
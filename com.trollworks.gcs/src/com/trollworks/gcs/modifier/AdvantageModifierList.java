@@ -36,20 +36,23 @@ public class AdvantageModifierList extends ListFile {
     }
 
     @Override
-    protected void loadList(JsonArray a, LoadState state) throws IOException {
-        loadIntoModel(this, a, getModel(), state);
+    protected void loadRow(JsonMap m, OutlineModel model, LoadState state) throws IOException {
+        loadIntoModel(this, m, model, state);
     }
 
     public static void loadIntoModel(DataFile file, JsonArray a, OutlineModel model, LoadState state) throws IOException {
         int count = a.size();
         for (int i = 0; i < count; i++) {
-            JsonMap m1   = a.getMap(i);
-            String  type = m1.getString(DataFile.TYPE);
-            if (AdvantageModifier.KEY_MODIFIER.equals(type) || AdvantageModifier.KEY_MODIFIER_CONTAINER.equals(type)) {
-                model.addRow(new AdvantageModifier(file, m1, state), true);
-            } else {
-                Log.warn("invalid advantage modifier type: " + type);
-            }
+            loadIntoModel(file, a.getMap(i), model, state);
+        }
+    }
+
+    public static void loadIntoModel(DataFile file, JsonMap m, OutlineModel model, LoadState state) throws IOException {
+        String type = m.getString(DataFile.TYPE);
+        if (AdvantageModifier.KEY_MODIFIER.equals(type) || AdvantageModifier.KEY_MODIFIER_CONTAINER.equals(type)) {
+            model.addRow(new AdvantageModifier(file, m, state), true);
+        } else {
+            Log.warn("invalid advantage modifier type: " + type);
         }
     }
 }
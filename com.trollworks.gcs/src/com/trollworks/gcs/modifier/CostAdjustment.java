@@ -0,0 +1,42 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.modifier;
+
+import com.trollworks.gcs.utility.Fixed6;
+
+/**
+ * The parsed form of an {@link EquipmentModifier}'s cost adjustment, so that the adjustment text
+ * need not be re-parsed each time an equipment's value is calculated.
+ */
+public final class CostAdjustment {
+    private final ModifierCostValueType mValueType;
+    private final Fixed6                mAmount;
+
+    /**
+     * @param costType The type of the cost adjustment.
+     * @param text     The text of the cost adjustment.
+     */
+    CostAdjustment(EquipmentModifierCostType costType, String text) {
+        mValueType = costType.determineType(text);
+        mAmount = mValueType.extractValue(text, false);
+    }
+
+    /** @return The type of value the amount represents. */
+    public ModifierCostValueType getValueType() {
+        return mValueType;
+    }
+
+    /** @return The amount of the adjustment. */
+    public Fixed6 getAmount() {
+        return mAmount;
+    }
+}
@@ -46,6 +46,8 @@ public class EquipmentModifier extends Modifier {
     private EquipmentModifierWeightType mWeightType;
     private String                      mWeightAmount;
     private String                      mTechLevel;
+    private CostAdjustment              mCostAdjustment;
+    private WeightAdjustment            mWeightAdjustment;
 
     /**
      * Creates a new EquipmentModifier.
@@ -61,6 +63,8 @@ public class EquipmentModifier extends Modifier {
         mWeightType = other.mWeightType;
         mWeightAmount = other.mWeightAmount;
         mTechLevel = other.mTechLevel;
+        mCostAdjustment = other.mCostAdjustment;
+        mWeightAdjustment = other.mWeightAdjustment;
         if (deep) {
             int count = other.getChildCount();
             for (int i = 0; i < count; i++) {
@@ -136,6 +140,7 @@ public class EquipmentModifier extends Modifier {
     public boolean setCostAdjType(EquipmentModifierCostType costType) {
         if (costType != mCostType) {
             mCostType = costType;
+            mCostAdjustment = null;
             notifyOfChange();
             return true;
         }
@@ -155,6 +160,7 @@ public class EquipmentModifier extends Modifier {
         amount = mCostType.format(amount, false);
         if (!mCostAmount.equals(amount)) {
             mCostAmount = amount;
+            mCostAdjustment = null;
             notifyOfChange();
             return true;
         }
@@ -173,6 +179,7 @@ public class EquipmentModifier extends Modifier {
     public boolean setWeightAdjType(EquipmentModifierWeightType weightType) {
         if (weightType != mWeightType) {
             mWeightType = weightType;
+            mWeightAdjustment = null;
             notifyOfChange();
             return true;
         }
@@ -192,12 +199,33 @@ public class EquipmentModifier extends Modifier {
         amount = mWeightType.format(amount, getDataFile().getSheetSettings().defaultWeightUnits(), false);
         if (!mWeightAmount.equals(amount)) {
             mWeightAmount = amount;
+            mWeightAdjustment = null;
             notifyOfChange();
             return true;
         }
         return false;
     }
 
+    /** @return The parsed form of the cost adjustment. */
+    public CostAdjustment getCostAdjustment() {
+        CostAdjustment adj = mCostAdjustment;
+        if (adj == null) {
+            adj = new CostAdjustment(mCostType, mCostAmount);
+            mCostAdjustment = adj;
+        }
+        return adj;
+    }
+
+    /** @return The parsed form of the weight adjustment. */
+    public WeightAdjustment getWeightAdjustment() {
+        WeightAdjustment adj = mWeightAdjustment;
+        if (adj == null) {
+            adj = new WeightAdjustment(mWeightType, mWeightAmount);
+            mWeightAdjustment = adj;
+        }
+        return adj;
+    }
+
     @Override
     public String getJSONTypeName() {
         return canHaveChildren() ? KEY_MODIFIER_CONTAINER : KEY_MODIFIER;
@@ -221,6 +249,8 @@ public class EquipmentModifier extends Modifier {
         mWeightType = EquipmentModifierWeightType.TO_ORIGINAL_WEIGHT;
         mWeightAmount = getDefaultWeightAmount();
         mTechLevel = "";
+        mCostAdjustment = null;
+        mWeightAdjustment = null;
     }
 
     @Override
@@ -230,10 +260,12 @@ public class EquipmentModifier extends Modifier {
             if (m.has(KEY_COST_TYPE)) {
                 mCostType = Enums.extract(m.getString(KEY_COST_TYPE), EquipmentModifierCostType.values(), EquipmentModifierCostType.TO_ORIGINAL_COST);
                 mCostAmount = mCostType.format(m.getString(KEY_COST_ADJ), false);
+                mCostAdjustment = null;
             }
             if (m.has(KEY_WEIGHT_TYPE)) {
                 mWeightType = Enums.extract(m.getString(KEY_WEIGHT_TYPE), EquipmentModifierWeightType.values(), EquipmentModifierWeightType.TO_ORIGINAL_WEIGHT);
                 mWeightAmount = mWeightType.format(m.getString(KEY_WEIGHT_ADJ), getDataFile().getSheetSettings().defaultWeightUnits(), false);
+                mWeightAdjustment = null;
             }
             mTechLevel = m.getString(KEY_TECH_LEVEL);
         }
@@ -21,6 +21,7 @@ import com.trollworks.gcs.utility.json.JsonMap;
 import com.trollworks.gcs.utility.json.JsonWriter;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -33,6 +34,7 @@ public abstract class Modifier extends ListRow implements Comparable<Modifier>,
     protected String  mReference;
     protected boolean mEnabled;
     protected boolean mReadOnly;
+    private   ListRow mEnclosingRow;
 
     protected Modifier(DataFile file, Modifier other) {
         super(file, other);
@@ -48,6 +50,19 @@ public abstract class Modifier extends ListRow implements Comparable<Modifier>,
         mEnabled = !isContainer;
     }
 
+    /**
+     * @param row The row this modifier belongs to, whose data includes it, so that changes to the
+     *            modifier are reflected in that row's content digest.
+     */
+    public void setEnclosingRow(ListRow row) {
+        mEnclosingRow = row;
+    }
+
+    @Override
+    protected ListRow getEnclosingRow() {
+        return mEnclosingRow;
+    }
+
     /** @return An exact clone of this modifier. */
     public abstract Modifier cloneModifier(boolean deep);
 
@@ -166,11 +181,9 @@ public abstract class Modifier extends ListRow implements Comparable<Modifier>,
     }
 
     @Override
-    public boolean contains(String text, boolean lowerCaseOnly) {
-        if (getName().toLowerCase().contains(text)) {
-            return true;
-        }
-        return super.contains(text, lowerCaseOnly);
+    protected void collectSearchText(List<String> texts) {
+        super.collectSearchText(texts);
+        texts.add(getName());
     }
 
     @Override
@@ -0,0 +1,69 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.modifier;
+
+import com.trollworks.gcs.utility.Fixed6;
+import com.trollworks.gcs.utility.units.WeightUnits;
+
+/**
+ * The parsed form of an {@link EquipmentModifier}'s weight adjustment, so that the adjustment text
+ * need not be re-parsed each time an equipment's weight is calculated. Values are held as raw
+ * {@link Fixed6} values.
+ */
+public final class WeightAdjustment {
+    private final ModifierWeightValueType mValueType;
+    private final long                    mNumerator;
+    private final long                    mDenominator;
+    private final long                    mValue;
+    private final WeightUnits             mUnits;
+
+    /**
+     * @param weightType The type of the weight adjustment.
+     * @param text       The text of the weight adjustment.
+     */
+    WeightAdjustment(EquipmentModifierWeightType weightType, String text) {
+        mValueType = weightType.determineType(text);
+        Fraction fraction = mValueType.extractFraction(text, false);
+        mNumerator = fraction.mNumerator.getRawValue();
+        mDenominator = fraction.mDenominator.getRawValue();
+        mValue = fraction.value().getRawValue();
+        mUnits = ModifierWeightValueType.extractUnits(text, null);
+    }
+
+    /** @return The type of value the adjustment represents. */
+    public ModifierWeightValueType getValueType() {
+        return mValueType;
+    }
+
+    /** @return The raw {@link Fixed6} numerator of the adjustment. */
+    public long getNumerator() {
+        return mNumerator;
+    }
+
+    /** @return The raw {@link Fixed6} denominator of the adjustment. */
+    public long getDenominator() {
+        return mDenominator;
+    }
+
+    /** @return The raw {@link Fixed6} value of the numerator divided by the denominator. */
+    public long getValue() {
+        return mValue;
+    }
+
+    /**
+     * @param defUnits The units to return if the adjustment text did not specify any.
+     * @return The units of the adjustment.
+     */
+    public WeightUnits getUnits(WeightUnits defUnits) {
+        return mUnits != null ? mUnits : defUnits;
+    }
+}
@@ -51,6 +51,8 @@ public final class GeneralSettings {
     private static final String KEY_TOOLTIP_INITIAL_DELAY_MILLISECONDS = "tooltip_initial_delay_milliseconds";
     private static final String KEY_TOOLTIP_DISMISS_DELAY_SECONDS      = "tooltip_dismiss_delay_seconds";
     private static final String KEY_TOOLTIP_RESHOW_DELAY_MILLISECONDS  = "tooltip_reshow_delay_milliseconds";
+    private static final String KEY_UNDO_MEMORY_BUDGET_MEGABYTES       = "undo_memory_budget_megabytes";
+    private static final String KEY_USE_SNAPSHOT_CACHE                 = "use_snapshot_cache";
 
     private Scales    mInitialUIScale;
     private String    mDefaultPlayerName;
@@ -63,8 +65,10 @@ public final class GeneralSettings {
     private int       mToolTipDismissDelaySeconds;
     private int       mToolTipReshowDelayMilliseconds;
     private int       mImageResolution;
+    private int       mUndoMemoryBudget;
     private boolean   mAutoFillProfile;
     private boolean   mIncludeUnspentPointsInTotal;
+    private boolean   mUseSnapshotCache;
 
     public GeneralSettings() {
         mInitialUIScale = Scales.QUARTER_AGAIN_SIZE;
@@ -78,8 +82,10 @@ public final class GeneralSettings {
         mToolTipDismissDelaySeconds = 60;
         mToolTipReshowDelayMilliseconds = 500;
         mImageResolution = 200;
+        mUndoMemoryBudget = 16;
         mAutoFillProfile = true;
         mIncludeUnspentPointsInTotal = true;
+        mUseSnapshotCache = true;
     }
 
     public GeneralSettings(Path path) throws IOException {
@@ -111,8 +117,10 @@ public final class GeneralSettings {
         mToolTipDismissDelaySeconds = other.mToolTipDismissDelaySeconds;
         mToolTipReshowDelayMilliseconds = other.mToolTipReshowDelayMilliseconds;
         mImageResolution = other.mImageResolution;
+        mUndoMemoryBudget = other.mUndoMemoryBudget;
         mAutoFillProfile = other.mAutoFillProfile;
         mIncludeUnspentPointsInTotal = other.mIncludeUnspentPointsInTotal;
+        mUseSnapshotCache = other.mUseSnapshotCache;
     }
 
     private void load(JsonMap m) {
@@ -140,7 +148,9 @@ public final class GeneralSettings {
         } else {
             mAutoFillProfile = m.getBooleanWithDefault(KEY_AUTO_FILL_PROFILE, mAutoFillProfile);
         }
+        setUndoMemoryBudget(m.getIntWithDefault(KEY_UNDO_MEMORY_BUDGET_MEGABYTES, mUndoMemoryBudget));
         mIncludeUnspentPointsInTotal = m.getBooleanWithDefault(KEY_UNSPENT_POINTS, mIncludeUnspentPointsInTotal);
+        mUseSnapshotCache = m.getBooleanWithDefault(KEY_USE_SNAPSHOT_CACHE, mUseSnapshotCache);
     }
 
     public void save(Path path) throws IOException {
@@ -176,6 +186,8 @@ public final class GeneralSettings {
         w.keyValue(KEY_TOOLTIP_DISMISS_DELAY_SECONDS, mToolTipDismissDelaySeconds);
         w.keyValue(KEY_TOOLTIP_RESHOW_DELAY_MILLISECONDS, mToolTipReshowDelayMilliseconds);
         w.keyValue(KEY_IMAGE_RESOLUTION, mImageResolution);
+        w.keyValue(KEY_UNDO_MEMORY_BUDGET_MEGABYTES, mUndoMemoryBudget);
+        w.keyValue(KEY_USE_SNAPSHOT_CACHE, mUseSnapshotCache);
         w.keyValue(KEY_AUTO_FILL_PROFILE, mAutoFillProfile);
         w.keyValue(KEY_UNSPENT_POINTS, mIncludeUnspentPointsInTotal);
         w.endMap();
@@ -279,6 +291,22 @@ public final class GeneralSettings {
         mImageResolution = resolution;
     }
 
+    public int getUndoMemoryBudget() {
+        return mUndoMemoryBudget;
+    }
+
+    public void setUndoMemoryBudget(int megabytes) {
+        mUndoMemoryBudget = Math.max(megabytes, 1);
+    }
+
+    public boolean useSnapshotCache() {
+        return mUseSnapshotCache;
+    }
+
+    public void setUseSnapshotCache(boolean useSnapshotCache) {
+        mUseSnapshotCache = useSnapshotCache;
+    }
+
     public boolean autoFillProfile() {
         return mAutoFillProfile;
     }
@@ -324,12 +352,18 @@ public final class GeneralSettings {
         if (mImageResolution != that.mImageResolution) {
             return false;
         }
+        if (mUndoMemoryBudget != that.mUndoMemoryBudget) {
+            return false;
+        }
         if (mAutoFillProfile != that.mAutoFillProfile) {
             return false;
         }
         if (mIncludeUnspentPointsInTotal != that.mIncludeUnspentPointsInTotal) {
             return false;
         }
+        if (mUseSnapshotCache != that.mUseSnapshotCache) {
+            return false;
+        }
         if (mInitialUIScale != that.mInitialUIScale) {
             return false;
         }
@@ -361,8 +395,10 @@ public final class GeneralSettings {
         result = 31 * result + mToolTipDismissDelaySeconds;
         result = 31 * result + mToolTipReshowDelayMilliseconds;
         result = 31 * result + mImageResolution;
+        result = 31 * result + mUndoMemoryBudget;
         result = 31 * result + (mAutoFillProfile ? 1 : 0);
         result = 31 * result + (mIncludeUnspentPointsInTotal ? 1 : 0);
+        result = 31 * result + (mUseSnapshotCache ? 1 : 0);
         return result;
     }
 
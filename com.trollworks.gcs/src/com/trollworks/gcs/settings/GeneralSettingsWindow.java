@@ -55,6 +55,8 @@ public final class GeneralSettingsWindow extends SettingsWindow<GeneralSettings>
     private EditorField            mToolTipDismissDelaySeconds;
     private EditorField            mToolTipReshowDelayMilliseconds;
     private EditorField            mImageResolution;
+    private EditorField            mUndoMemoryBudget;
+    private Checkbox               mUseSnapshotCache;
     private Checkbox               mIncludeUnspentPointsInTotal;
     private EditorField            mGCalcKey;
     private PopupMenu<CalendarRef> mCalendar;
@@ -219,6 +221,29 @@ public final class GeneralSettingsWindow extends SettingsWindow<GeneralSettings>
         wrapper.add(mToolTipReshowDelayMilliseconds, new PrecisionLayoutData().setFillHorizontalAlignment());
         wrapper.add(new Label(I18n.text("毫秒")));
 
+        panel.add(new Label(I18n.text("撤销记录内存上限")),
+                new PrecisionLayoutData().setEndHorizontalAlignment());
+        wrapper = new Wrapper(new PrecisionLayout().setMargins(0).setColumns(3));
+        panel.add(wrapper, new PrecisionLayoutData().setFillHorizontalAlignment().
+                setGrabHorizontalSpace(true).setHorizontalSpan(2));
+        mUndoMemoryBudget = new EditorField(FieldFactory.UNDO_MEMORY_BUDGET, (f) -> {
+            Settings.getInstance().getGeneralSettings().setUndoMemoryBudget(((Integer) f.getValue()).intValue());
+            adjustResetButton();
+        }, SwingConstants.RIGHT, Integer.valueOf(settings.getUndoMemoryBudget()),
+                FieldFactory.getMaxValue(FieldFactory.UNDO_MEMORY_BUDGET),
+                I18n.text("每个打开的文件的撤销记录最多可以占用多少内存。超出后，较早的撤销记录将被移到临时文件中"));
+        wrapper.add(mUndoMemoryBudget, new PrecisionLayoutData().setFillHorizontalAlignment());
+        wrapper.add(new Label(I18n.text("MB")));
+
+        mUseSnapshotCache = new Checkbox(I18n.text("使用快照缓存"),
+                settings.useSnapshotCache(), (b) -> {
+            Settings.getInstance().getGeneralSettings().setUseSnapshotCache(b.isChecked());
+            adjustResetButton();
+        });
+        mUseSnapshotCache.setToolTipText(I18n.text("在缓存目录中保留已打开数据文件的二进制副本，以便更快地再次打开它们"));
+        mUseSnapshotCache.setOpaque(false);
+        wrapper.add(mUseSnapshotCache, new PrecisionLayoutData().setLeftMargin(10));
+
         // Sixth row
         mPDFViewer = new PopupMenu<>(PDFViewer.valuesForPlatform(), (p) -> {
             PDFViewer pdfViewer = p.getSelectedItem();
@@ -317,6 +342,8 @@ public final class GeneralSettingsWindow extends SettingsWindow<GeneralSettings>
         mToolTipDismissDelaySeconds.setValue(Integer.valueOf(settings.getToolTipDismissDelaySeconds()));
         mToolTipReshowDelayMilliseconds.setValue(Integer.valueOf(settings.getToolTipReshowDelayMilliseconds()));
         mImageResolution.setValue(Integer.valueOf(settings.getImageResolution()));
+        mUndoMemoryBudget.setValue(Integer.valueOf(settings.getUndoMemoryBudget()));
+        mUseSnapshotCache.setChecked(settings.useSnapshotCache());
         mIncludeUnspentPointsInTotal.setChecked(settings.includeUnspentPointsInTotal());
         mGCalcKey.setValue(settings.getGCalcKey());
         PDFViewer pdfViewer = settings.getPDFViewer();
@@ -314,7 +314,7 @@ public class Skill extends CollectedListRow implements HasSourceReference {
             WeaponStats.saveList(w, KEY_WEAPONS, mWeapons);
 
             // Emit the calculated values for third parties
-            int level = getLevel();
+            int level = saveType != SaveType.HASH ? getLevel() : 0;
             if (level > 0) {
                 w.key("calc");
                 w.startMap();
@@ -368,6 +368,9 @@ public class Skill extends CollectedListRow implements HasSourceReference {
 
     /** @return The tooltTip to describe how the level was calculated */
     public String getLevelToolTip() {
+        if (!mLevel.hasToolTip()) {
+            mLevel.mToolTip = explainLevel().mToolTip;
+        }
         return mLevel.getToolTip();
     }
 
@@ -505,7 +508,18 @@ public class Skill extends CollectedListRow implements HasSourceReference {
     /** @return The calculated skill level. */
     protected SkillLevel calculateLevelSelf() {
         mDefaultedFrom = getBestDefaultWithPoints();
-        return calculateLevel(getCharacter(), getName(), getSpecialization(), getCategories(), getDefaults(), getAttribute(), getDifficulty(), getPoints(), new HashSet<>(), getEncumbrancePenaltyMultiplier());
+        return calculateLevel(getCharacter(), getName(), getSpecialization(), getCategories(), getDefaults(), getAttribute(), getDifficulty(), getPoints(), new HashSet<>(), getEncumbrancePenaltyMultiplier(), null);
+    }
+
+    /**
+     * Calculates the level again, this time recording the modifiers that contributed to it. Level
+     * calculations done during a recalculation skip this, as the result is only needed when it is
+     * actually going to be displayed.
+     *
+     * @return The calculated skill level, along with a tooltip describing how it was determined.
+     */
+    protected SkillLevel explainLevel() {
+        return calculateLevel(getCharacter(), getName(), getSpecialization(), getCategories(), getDefaults(), getAttribute(), getDifficulty(), getPoints(), new HashSet<>(), getEncumbrancePenaltyMultiplier(), new StringBuilder());
     }
 
     /**
@@ -513,7 +527,7 @@ public class Skill extends CollectedListRow implements HasSourceReference {
      * @return The calculated level.
      */
     public int getLevel(Set<String> excludes) {
-        return calculateLevel(getCharacter(), getName(), getSpecialization(), getCategories(), getDefaults(), getAttribute(), getDifficulty(), getPoints(), excludes, getEncumbrancePenaltyMultiplier()).mLevel;
+        return calculateLevel(getCharacter(), getName(), getSpecialization(), getCategories(), getDefaults(), getAttribute(), getDifficulty(), getPoints(), excludes, getEncumbrancePenaltyMultiplier(), null).mLevel;
     }
 
     /** @return The attribute. */
@@ -582,14 +596,10 @@ public class Skill extends CollectedListRow implements HasSourceReference {
     }
 
     @Override
-    public boolean contains(String text, boolean lowerCaseOnly) {
-        if (getName().toLowerCase().contains(text)) {
-            return true;
-        }
-        if (getSpecialization().toLowerCase().contains(text)) {
-            return true;
-        }
-        return super.contains(text, lowerCaseOnly);
+    protected void collectSearchText(List<String> texts) {
+        super.collectSearchText(texts);
+        texts.add(getName());
+        texts.add(getSpecialization());
     }
 
     @Override
@@ -744,9 +754,27 @@ public class Skill extends CollectedListRow implements HasSourceReference {
      * @return The calculated skill level.
      */
     public SkillLevel calculateLevel(GURPSCharacter character, String name, String specialization, Set<String> categories, List<SkillDefault> defaults, String attribute, SkillDifficulty difficulty, int points, Set<String> excludes, int encPenaltyMult) {
-        StringBuilder toolTip       = new StringBuilder();
-        int           relativeLevel = difficulty.getBaseRelativeLevel();
-        int           level         = resolveAttribute(character, attribute);
+        return calculateLevel(character, name, specialization, categories, defaults, attribute, difficulty, points, excludes, encPenaltyMult, new StringBuilder());
+    }
+
+    /**
+     * Calculates the skill level.
+     *
+     * @param character      The character the skill will be attached to.
+     * @param name           The name of the skill.
+     * @param specialization The specialization of the skill.
+     * @param defaults       The defaults the skill has.
+     * @param attribute      The attribute the skill is based on.
+     * @param difficulty     The difficulty of the skill.
+     * @param points         The number of points spent in the skill.
+     * @param excludes       The set of skills to exclude from any default calculations.
+     * @param encPenaltyMult The encumbrance penalty multiplier.
+     * @param toolTip        A buffer to record the contributing modifiers into. May be {@code null}.
+     * @return The calculated skill level.
+     */
+    public SkillLevel calculateLevel(GURPSCharacter character, String name, String specialization, Set<String> categories, List<SkillDefault> defaults, String attribute, SkillDifficulty difficulty, int points, Set<String> excludes, int encPenaltyMult, StringBuilder toolTip) {
+        int relativeLevel = difficulty.getBaseRelativeLevel();
+        int level         = resolveAttribute(character, attribute);
         if (level != Integer.MIN_VALUE) {
             if (difficulty == SkillDifficulty.W) {
                 points /= 3;
@@ -781,7 +809,7 @@ public class Skill extends CollectedListRow implements HasSourceReference {
                     relativeLevel += bonus;
                     bonus = character.getEncumbranceLevel(true).getEncumbrancePenalty() * encPenaltyMult;
                     level += bonus;
-                    if (bonus != 0) {
+                    if (bonus != 0 && toolTip != null) {
                         toolTip.append(String.format(I18n.text("\n负重 [%d]"), Integer.valueOf(bonus)));
                     }
                 }
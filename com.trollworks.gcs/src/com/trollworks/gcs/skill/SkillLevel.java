@@ -19,7 +19,10 @@ public class SkillLevel {
     public int    mLevel;
     /** The relative skill level. */
     public int    mRelativeLevel;
-    /** The tooltip describing how this level was calculated. */
+    /**
+     * The tooltip describing how this level was calculated, or {@code null} if the level was
+     * calculated without one.
+     */
     public String mToolTip;
 
     public static String getNoAdditionalModifiers() {
@@ -47,12 +50,14 @@ public class SkillLevel {
      *
      * @param level         The skill level.
      * @param relativeLevel The relative skill level.
-     * @param toolTip       The tooltip to display for this skill.
+     * @param toolTip       The tooltip to display for this skill. Pass in {@code null} if the level
+     *                      was calculated without recording the modifiers that contributed to it.
      */
     public SkillLevel(int level, int relativeLevel, StringBuilder toolTip) {
-        this(level, relativeLevel);
-        if (toolTip != null && !toolTip.isEmpty()) {
-            mToolTip = getIncludesModifiersFrom() + toolTip;
+        mLevel = level;
+        mRelativeLevel = relativeLevel;
+        if (toolTip != null) {
+            mToolTip = toolTip.isEmpty() ? getNoAdditionalModifiers() : getIncludesModifiersFrom() + toolTip;
         }
     }
 
@@ -78,6 +83,11 @@ public class SkillLevel {
         return mLevel == other.mLevel && mRelativeLevel == other.mRelativeLevel;
     }
 
+    /** @return Whether the tooltip describing how this level was calculated is available. */
+    public boolean hasToolTip() {
+        return mToolTip != null;
+    }
+
     public String getToolTip() {
         return mToolTip;
     }
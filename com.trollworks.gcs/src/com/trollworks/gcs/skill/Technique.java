@@ -55,9 +55,28 @@ public class Technique extends Skill {
      * @return The calculated technique level.
      */
     public static SkillLevel calculateTechniqueLevel(GURPSCharacter character, String name, String specialization, Set<String> categories, SkillDefault def, SkillDifficulty difficulty, int points, boolean requirePoints, boolean limited, int limitModifier) {
-        StringBuilder toolTip       = new StringBuilder();
-        int           relativeLevel = 0;
-        int           level         = Integer.MIN_VALUE;
+        return calculateTechniqueLevel(character, name, specialization, categories, def, difficulty, points, requirePoints, limited, limitModifier, new StringBuilder());
+    }
+
+    /**
+     * Calculates the technique level.
+     *
+     * @param character      The character the technique will be attached to.
+     * @param name           The name of the technique.
+     * @param specialization The specialization of the technique.
+     * @param def            The default the technique is based on.
+     * @param difficulty     The difficulty of the technique.
+     * @param points         The number of points spent in the technique.
+     * @param requirePoints  Whether only skills that have points in them are considered for
+     *                       defaults.
+     * @param limited        Whether the technique has been limited or not.
+     * @param limitModifier  The maximum bonus the technique can grant.
+     * @param toolTip        A buffer to record the contributing modifiers into. May be {@code null}.
+     * @return The calculated technique level.
+     */
+    public static SkillLevel calculateTechniqueLevel(GURPSCharacter character, String name, String specialization, Set<String> categories, SkillDefault def, SkillDifficulty difficulty, int points, boolean requirePoints, boolean limited, int limitModifier, StringBuilder toolTip) {
+        int relativeLevel = 0;
+        int level         = Integer.MIN_VALUE;
         if (character != null) {
             level = getBaseLevel(character, def, requirePoints);
             if (level != Integer.MIN_VALUE) {
@@ -234,7 +253,12 @@ public class Technique extends Skill {
 
     @Override
     protected SkillLevel calculateLevelSelf() {
-        return calculateTechniqueLevel(getCharacter(), getName(), getSpecialization(), getCategories(), getDefault(), getDifficulty(), getPoints(), true, isLimited(), getLimitModifier());
+        return calculateTechniqueLevel(getCharacter(), getName(), getSpecialization(), getCategories(), getDefault(), getDifficulty(), getPoints(), true, isLimited(), getLimitModifier(), null);
+    }
+
+    @Override
+    protected SkillLevel explainLevel() {
+        return calculateTechniqueLevel(getCharacter(), getName(), getSpecialization(), getCategories(), getDefault(), getDifficulty(), getPoints(), true, isLimited(), getLimitModifier(), new StringBuilder());
     }
 
     @Override
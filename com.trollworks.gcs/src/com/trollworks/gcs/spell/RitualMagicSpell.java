@@ -94,7 +94,12 @@ public class RitualMagicSpell extends Spell {
     /** @return The calculated spell skill level. */
     @Override
     protected SkillLevel calculateLevelSelf() {
-        return calculateLevel(getCharacter(), getName(), getBaseSkillName(), getColleges(), getPowerSource(), getCategories(), getDifficulty(), mPrerequisiteSpellsCount, getPoints());
+        return calculateLevel(getCharacter(), getName(), getBaseSkillName(), getColleges(), getPowerSource(), getCategories(), getDifficulty(), mPrerequisiteSpellsCount, getPoints(), false);
+    }
+
+    @Override
+    protected SkillLevel explainLevel() {
+        return calculateLevel(getCharacter(), getName(), getBaseSkillName(), getColleges(), getPowerSource(), getCategories(), getDifficulty(), mPrerequisiteSpellsCount, getPoints(), true);
     }
 
     /**
@@ -111,15 +116,33 @@ public class RitualMagicSpell extends Spell {
      * @return The calculated spell level.
      */
     public static SkillLevel calculateLevel(GURPSCharacter character, String name, String baseSkillName, List<String> colleges, String powerSource, Set<String> categories, SkillDifficulty difficulty, int prereqSpellsCount, int points) {
+        return calculateLevel(character, name, baseSkillName, colleges, powerSource, categories, difficulty, prereqSpellsCount, points, true);
+    }
+
+    /**
+     * Calculates the spell level.
+     *
+     * @param character         The character the spell will be attached to.
+     * @param name              The name of the spell.
+     * @param baseSkillName     The base name of the skill the Ritual Magic Spell defaults from.
+     * @param colleges          The colleges of the spell.
+     * @param powerSource       The power source of the spell.
+     * @param difficulty        The difficulty of the spell.
+     * @param prereqSpellsCount The number of prerequisite spells for the spell with this name.
+     * @param points            The number of points spent in the spell.
+     * @param explain           Whether to record the modifiers that contributed to the level.
+     * @return The calculated spell level.
+     */
+    public static SkillLevel calculateLevel(GURPSCharacter character, String name, String baseSkillName, List<String> colleges, String powerSource, Set<String> categories, SkillDifficulty difficulty, int prereqSpellsCount, int points, boolean explain) {
         if (colleges == null) {
             colleges = new ArrayList<>();
         }
         SkillLevel skillLevel = null;
         if (colleges.isEmpty()) {
-            skillLevel = determineSkillLevelForCollege(character, name, baseSkillName, "", categories, difficulty, prereqSpellsCount, points);
+            skillLevel = determineSkillLevelForCollege(character, name, baseSkillName, "", categories, difficulty, prereqSpellsCount, points, explain);
         } else {
             for (String college : colleges) {
-                SkillLevel si = determineSkillLevelForCollege(character, name, baseSkillName, college, categories, difficulty, prereqSpellsCount, points);
+                SkillLevel si = determineSkillLevelForCollege(character, name, baseSkillName, college, categories, difficulty, prereqSpellsCount, points, explain);
                 if (skillLevel == null || skillLevel.mLevel < si.mLevel) {
                     skillLevel = si;
                 }
@@ -127,25 +150,27 @@ public class RitualMagicSpell extends Spell {
         }
         // Apply bonuses for spells
         if (character != null) {
-            StringBuilder tip         = new StringBuilder(skillLevel.mToolTip);
+            StringBuilder tip         = explain ? new StringBuilder(skillLevel.mToolTip) : null;
             int           bonusLevels = Spell.getBestCollegeSpellBonus(character, categories, colleges, tip);
             bonusLevels += Spell.getSpellBonusesFor(character, ID_POWER_SOURCE, powerSource, categories, tip);
             bonusLevels += Spell.getSpellBonusesFor(character, ID_NAME, name, categories, tip);
             skillLevel.mLevel += bonusLevels;
             skillLevel.mRelativeLevel += bonusLevels;
-            skillLevel.mToolTip = tip.toString();
+            if (explain) {
+                skillLevel.mToolTip = tip.toString();
+            }
         }
         return skillLevel;
     }
 
-    private static SkillLevel determineSkillLevelForCollege(GURPSCharacter character, String name, String baseSkillName, String college, Set<String> categories, SkillDifficulty difficulty, int prereqSpellsCount, int points) {
+    private static SkillLevel determineSkillLevelForCollege(GURPSCharacter character, String name, String baseSkillName, String college, Set<String> categories, SkillDifficulty difficulty, int prereqSpellsCount, int points, boolean explain) {
         SkillDefault def        = new SkillDefault("skill", college.isBlank() ? null : baseSkillName, college, -prereqSpellsCount);
-        SkillLevel   skillLevel = Technique.calculateTechniqueLevel(character, name, college, categories, def, difficulty, points, false, true, 0);
+        SkillLevel   skillLevel = Technique.calculateTechniqueLevel(character, name, college, categories, def, difficulty, points, false, true, 0, explain ? new StringBuilder() : null);
         // calculateTechniqueLevel() does not add the default skill modifier to the relative level, only to the final level
         skillLevel.mRelativeLevel += def.getModifier();
 
         SkillDefault fallbackDef        = new SkillDefault("skill", college.isBlank() ? null : baseSkillName, null, -(6 + prereqSpellsCount));
-        SkillLevel   fallbackSkillLevel = Technique.calculateTechniqueLevel(character, name, college, categories, fallbackDef, difficulty, points, false, true, 0);
+        SkillLevel   fallbackSkillLevel = Technique.calculateTechniqueLevel(character, name, college, categories, fallbackDef, difficulty, points, false, true, 0, explain ? new StringBuilder() : null);
         // calculateTechniqueLevel() does not add the default skill modifier to the relative level, only to the final level
         fallbackSkillLevel.mRelativeLevel += fallbackDef.getModifier();
 
@@ -380,7 +380,7 @@ public class Spell extends CollectedListRow implements HasSourceReference {
             WeaponStats.saveList(w, KEY_WEAPONS, mWeapons);
 
             // Emit the calculated values for third parties
-            int level = getLevel();
+            int level = saveType != SaveType.HASH ? getLevel() : 0;
             if (level > 0) {
                 w.key("calc");
                 w.startMap();
@@ -452,7 +452,19 @@ public class Spell extends CollectedListRow implements HasSourceReference {
 
     /** @return The calculated spell skill level. */
     protected SkillLevel calculateLevelSelf() {
-        return calculateLevel(getCharacter(), getPoints(), mAttribute, mDifficulty, mColleges, mPowerSource, mName, getCategories());
+        return calculateLevel(getCharacter(), getPoints(), mAttribute, mDifficulty, mColleges, mPowerSource, mName, getCategories(), null);
+    }
+
+    /**
+     * Calculates the level again, this time recording the modifiers that contributed to it. Level
+     * calculations done during a recalculation skip this, as the result is only needed when it is
+     * actually going to be displayed.
+     *
+     * @return The calculated spell skill level, along with a tooltip describing how it was
+     *         determined.
+     */
+    protected SkillLevel explainLevel() {
+        return calculateLevel(getCharacter(), getPoints(), mAttribute, mDifficulty, mColleges, mPowerSource, mName, getCategories(), new StringBuilder());
     }
 
     /**
@@ -483,9 +495,24 @@ public class Spell extends CollectedListRow implements HasSourceReference {
      * @return The calculated spell level.
      */
     public static SkillLevel calculateLevel(GURPSCharacter character, int points, String attribute, SkillDifficulty difficulty, List<String> colleges, String powerSource, String name, Set<String> categories) {
-        StringBuilder toolTip       = new StringBuilder();
-        int           relativeLevel = difficulty.getBaseRelativeLevel();
-        int           level;
+        return calculateLevel(character, points, attribute, difficulty, colleges, powerSource, name, categories, new StringBuilder());
+    }
+
+    /**
+     * Calculates the spell level.
+     *
+     * @param character   The character the spell will be attached to.
+     * @param points      The number of points spent in the spell.
+     * @param difficulty  The difficulty of the spell.
+     * @param colleges    The colleges the spell belongs to.
+     * @param powerSource The source of power for the spell.
+     * @param name        The name of the spell.
+     * @param toolTip     A buffer to record the contributing modifiers into. May be {@code null}.
+     * @return The calculated spell level.
+     */
+    public static SkillLevel calculateLevel(GURPSCharacter character, int points, String attribute, SkillDifficulty difficulty, List<String> colleges, String powerSource, String name, Set<String> categories, StringBuilder toolTip) {
+        int relativeLevel = difficulty.getBaseRelativeLevel();
+        int level;
 
         if (character != null) {
             level = Skill.resolveAttribute(character, attribute);
@@ -884,19 +911,11 @@ public class Spell extends CollectedListRow implements HasSourceReference {
     }
 
     @Override
-    public boolean contains(String text, boolean lowerCaseOnly) {
-        if (getName().toLowerCase().contains(text)) {
-            return true;
-        }
-        if (getSpellClass().toLowerCase().contains(text)) {
-            return true;
-        }
-        for (String college : getColleges()) {
-            if (college.toLowerCase().contains(text)) {
-                return true;
-            }
-        }
-        return super.contains(text, lowerCaseOnly);
+    protected void collectSearchText(List<String> texts) {
+        super.collectSearchText(texts);
+        texts.add(getName());
+        texts.add(getSpellClass());
+        texts.addAll(getColleges());
     }
 
     @Override
@@ -1023,6 +1042,9 @@ public class Spell extends CollectedListRow implements HasSourceReference {
     }
 
     public String getLevelToolTip() {
+        if (!mLevel.hasToolTip()) {
+            mLevel.mToolTip = explainLevel().mToolTip;
+        }
         return mLevel.getToolTip();
     }
 
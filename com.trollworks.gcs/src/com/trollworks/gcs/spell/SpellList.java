@@ -35,22 +35,25 @@ public class SpellList extends ListFile {
     }
 
     @Override
-    protected void loadList(JsonArray a, LoadState state) throws IOException {
-        loadIntoModel(this, a, getModel(), state);
+    protected void loadRow(JsonMap m, OutlineModel model, LoadState state) throws IOException {
+        loadIntoModel(this, m, model, state);
     }
 
     public static void loadIntoModel(DataFile file, JsonArray a, OutlineModel model, LoadState state) throws IOException {
         int count = a.size();
         for (int i = 0; i < count; i++) {
-            JsonMap m1   = a.getMap(i);
-            String  type = m1.getString(DataFile.TYPE);
-            if (Spell.KEY_SPELL.equals(type) || Spell.KEY_SPELL_CONTAINER.equals(type)) {
-                model.addRow(new Spell(file, m1, state), true);
-            } else if (RitualMagicSpell.KEY_RITUAL_MAGIC_SPELL.equals(type)) {
-                model.addRow(new RitualMagicSpell(file, m1, state), true);
-            } else {
-                Log.warn("invalid spell type: " + type);
-            }
+            loadIntoModel(file, a.getMap(i), model, state);
+        }
+    }
+
+    public static void loadIntoModel(DataFile file, JsonMap m, OutlineModel model, LoadState state) throws IOException {
+        String type = m.getString(DataFile.TYPE);
+        if (Spell.KEY_SPELL.equals(type) || Spell.KEY_SPELL_CONTAINER.equals(type)) {
+            model.addRow(new Spell(file, m, state), true);
+        } else if (RitualMagicSpell.KEY_RITUAL_MAGIC_SPELL.equals(type)) {
+            model.addRow(new RitualMagicSpell(file, m, state), true);
+        } else {
+            Log.warn("invalid spell type: " + type);
         }
     }
 }
@@ -58,6 +58,30 @@ public interface Cell {
      */
     int compare(Column column, Row one, Row two);
 
+    /**
+     * Extracts whatever {@link #compare(Column, Row, Row)} needs from a row up front, so that a sort
+     * does so once per row rather than on every comparison. Implementations that override {@link
+     * #compare(Column, Row, Row)} should override this and {@link #compareSortKeys(Column, Object,
+     * Object)} to match.
+     *
+     * @param column The column to extract the key for.
+     * @param row    The row to extract the key from.
+     * @return The sort key.
+     */
+    default Object getSortKey(Column column, Row row) {
+        return row;
+    }
+
+    /**
+     * @param column The column to compare.
+     * @param one    The sort key for the first row, from {@link #getSortKey(Column, Row)}.
+     * @param two    The sort key for the second row, from {@link #getSortKey(Column, Row)}.
+     * @return The same result {@link #compare(Column, Row, Row)} would return for the two rows.
+     */
+    default int compareSortKeys(Column column, Object one, Object two) {
+        return compare(column, (Row) one, (Row) two);
+    }
+
     /**
      * @param event  The {@link MouseEvent} that caused the tooltip to be shown.
      * @param bounds The bounds of the cell.
@@ -170,13 +170,14 @@ public class Column implements Transferable {
 
     /**
      * @param outline The outline using this column.
-     * @return The preferred width of this column.
+     * @return The preferred width of this column. Of the rows that haven't been loaded yet, only
+     *         the first few are loaded to be taken into account.
      */
     public int getPreferredWidth(Outline outline) {
         Scale        scale          = Scale.get(outline);
         int          preferredWidth = getPreferredHeaderWidth(outline);
         OutlineModel model          = outline.getModel();
-        for (Row row : model.getRows()) {
+        for (Row row : model.getRowsToMeasure()) {
             int width = getRowCell(row).getPreferredWidth(outline, row, this) + scale.scale(model.getIndentWidthWithDisclosure(row, this));
             if (width > preferredWidth) {
                 preferredWidth = width;
@@ -211,7 +211,7 @@ public class ListOutline extends Outline implements Runnable, ActionListener, Du
             updateRows(mRowsToEdit);
             updateRowHeights(mRowsToEdit);
             repaint();
-            mDataFile.notifyOfChange();
+            mDataFile.notifyOfRowChange(mRowsToEdit.toArray(new ListRow[0]));
         }
         mRowsToEdit = null;
     }
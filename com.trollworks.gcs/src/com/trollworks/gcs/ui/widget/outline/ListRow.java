@@ -36,8 +36,11 @@ import com.trollworks.gcs.template.Template;
 import com.trollworks.gcs.utility.Filtered;
 import com.trollworks.gcs.utility.Log;
 import com.trollworks.gcs.utility.SaveType;
+import com.trollworks.gcs.utility.json.Json;
 import com.trollworks.gcs.utility.json.JsonArray;
+import com.trollworks.gcs.utility.json.JsonDigest;
 import com.trollworks.gcs.utility.json.JsonMap;
+import com.trollworks.gcs.utility.json.JsonReader;
 import com.trollworks.gcs.utility.json.JsonWriter;
 
 import java.io.IOException;
@@ -48,6 +51,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
 import javax.swing.Icon;
@@ -65,6 +69,9 @@ public abstract class ListRow extends Row {
     private static final String KEY_CHILDREN                            = "children";
     private static final String KEY_PREREQS                             = "prereqs";
 
+    // Shared by all rows without prerequisites. Never modified, as it is always replaced instead.
+    private static final PrereqList NO_PREREQS = new PrereqList(null, true);
+
     protected DataFile           mDataFile;
     private   UUID               mID;
     private   List<Feature>      mFeatures;
@@ -74,7 +81,8 @@ public abstract class ListRow extends Row {
     private   String             mUnsatisfiedReason;
     private   String             mNotes;
     private   String             mVTTNotes;
-    private   TreeSet<String>    mCategories;
+    private   SortedSet<String>  mCategories;
+    private   JsonDigest         mContentDigest;
 
     public static void saveList(JsonWriter w, String key, List<?> list, SaveType saveType) throws IOException {
         List<ListRow> rows = Filtered.list(list, ListRow.class);
@@ -82,7 +90,12 @@ public abstract class ListRow extends Row {
             w.key(key);
             w.startArray();
             for (ListRow row : rows) {
-                row.save(w, saveType);
+                if (saveType == SaveType.HASH) {
+                    // Each row stands in for its contents with its own, usually cached, digest
+                    w.value(row.getContentDigest().toString());
+                } else {
+                    row.save(w, saveType);
+                }
             }
             w.endArray();
         }
@@ -158,14 +171,13 @@ public abstract class ListRow extends Row {
         setCanHaveChildren(isContainer);
         setOpen(isContainer);
         mDataFile = dataFile;
-        mID = UUID.randomUUID();
-        mFeatures = new ArrayList<>();
-        mPrereqList = new PrereqList(null, true);
-        mDefaults = new ArrayList<>();
+        mFeatures = Collections.emptyList();
+        mPrereqList = NO_PREREQS;
+        mDefaults = Collections.emptyList();
         mIsSatisfied = true;
         mNotes = "";
         mVTTNotes = "";
-        mCategories = new TreeSet<>();
+        mCategories = Collections.emptySortedSet();
     }
 
     /**
@@ -180,14 +192,17 @@ public abstract class ListRow extends Row {
         mNotes = rowToClone.mNotes;
         mVTTNotes = rowToClone.mVTTNotes;
         for (Feature feature : rowToClone.mFeatures) {
-            mFeatures.add(feature.cloneFeature());
+            addFeature(feature.cloneFeature());
+        }
+        if (rowToClone.mPrereqList != NO_PREREQS) {
+            mPrereqList = new PrereqList(null, rowToClone.mPrereqList);
         }
-        mPrereqList = new PrereqList(null, rowToClone.getPrereqs());
-        mDefaults = new ArrayList<>();
         for (SkillDefault skillDefault : rowToClone.mDefaults) {
-            mDefaults.add(new SkillDefault(skillDefault));
+            mDefaults = append(mDefaults, new SkillDefault(skillDefault));
+        }
+        if (!rowToClone.mCategories.isEmpty()) {
+            mCategories = new TreeSet<>(rowToClone.mCategories);
         }
-        mCategories = new TreeSet<>(rowToClone.mCategories);
     }
 
     /**
@@ -201,6 +216,10 @@ public abstract class ListRow extends Row {
     public abstract ListRow cloneRow(DataFile dataFile, boolean deep, boolean forSheet);
 
     public UUID getID() {
+        // Generated on demand, since nearly all rows are given one when they are loaded
+        if (mID == null) {
+            mID = UUID.randomUUID();
+        }
         return mID;
     }
 
@@ -259,6 +278,72 @@ public abstract class ListRow extends Row {
         return result;
     }
 
+    @Override
+    public void insertChild(int index, Row row) {
+        super.insertChild(index, row);
+        invalidateContentDigest();
+    }
+
+    @Override
+    public void removeChild(Row row) {
+        super.removeChild(row);
+        invalidateContentDigest();
+    }
+
+    /**
+     * @return A digest of this row's contents, including its children, but excluding its ID and
+     *         other state that doesn't affect what the row means, such as whether it is open. Two
+     *         rows with equal digests may be treated as duplicates. The digest is cached until the
+     *         row or one of its descendants changes.
+     */
+    public JsonDigest getContentDigest() {
+        if (mContentDigest == null) {
+            mContentDigest = JsonDigest.of((w) -> save(w, SaveType.HASH));
+        }
+        return mContentDigest;
+    }
+
+    /**
+     * @param other The row to compare against.
+     * @return {@code true} if the other row has the same contents as this one.
+     */
+    public boolean hasSameContentAs(ListRow other) {
+        return other != null && getContentDigest().equals(other.getContentDigest());
+    }
+
+    /**
+     * Discards the cached results of {@link #getContentDigest()} and the owner's {@link RowFilter}
+     * for this row and its ancestors, and for any row enclosing them, along with the cached search
+     * text for this row. Called automatically as part of {@link #notifyOfChange()}, through
+     * {@link DataFile#notifyOfRowChange(ListRow...)} when the row belongs to a data file.
+     */
+    public void invalidateContentDigest() {
+        invalidateSearchText();
+        Row top = this;
+        for (Row row = this; row != null; row = row.getParent()) {
+            // Whether a parent is filtered out may depend on the contents of its children
+            row.invalidateFilterResult();
+            if (row instanceof ListRow listRow) {
+                listRow.mContentDigest = null;
+            }
+            top = row;
+        }
+        if (top instanceof ListRow listRow) {
+            ListRow enclosing = listRow.getEnclosingRow();
+            if (enclosing != null) {
+                enclosing.invalidateContentDigest();
+            }
+        }
+    }
+
+    /**
+     * @return The row that saves this one as part of its own data, such as the advantage a modifier
+     *         belongs to, or {@code null} if there is none. Only consulted for top-level rows.
+     */
+    protected ListRow getEnclosingRow() {
+        return null;
+    }
+
     /** @return The type name to use for this data. */
     public abstract String getJSONTypeName();
 
@@ -288,6 +373,81 @@ public abstract class ListRow extends Row {
         mUnsatisfiedReason = reason;
     }
 
+    /**
+     * Reads the data for a row from a stream. If the row has children, they are left in the stream
+     * and recorded in the {@link LoadState}, so that {@link #load(DataFile, JsonMap, LoadState)}
+     * can load them directly from the stream, rather than building up the data for all of them
+     * first. Callers must pass the result to {@link #skipUnloadedChildren(JsonMap, LoadState)}
+     * once they are done with it.
+     *
+     * @param reader The {@link JsonReader} to read from.
+     * @param state  The {@link LoadState} to use.
+     * @return The row's data, minus its children.
+     */
+    public static JsonMap readRow(JsonReader reader, LoadState state) throws IOException {
+        if (reader.peek() != JsonReader.Token.BEGIN_MAP) {
+            return Json.asMap(reader.nextValue());
+        }
+        JsonMap m = new JsonMap();
+        reader.beginMap();
+        while (reader.hasNext()) {
+            String key = reader.nextKey();
+            if (m.has(key)) {
+                throw new IOException("duplicate key \"" + key + "\"");
+            }
+            if (KEY_CHILDREN.equals(key) && reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                state.mReader = reader;
+                state.mRowAwaitingChildren = m;
+                return m;
+            }
+            m.put(key, reader.nextValue());
+        }
+        reader.endMap();
+        return m;
+    }
+
+    /**
+     * Discards anything left in the stream for a row returned by {@link #readRow(JsonReader,
+     * LoadState)}, which will be the case if the row was never loaded.
+     *
+     * @param m     The row's data.
+     * @param state The {@link LoadState} to use.
+     */
+    public static void skipUnloadedChildren(JsonMap m, LoadState state) throws IOException {
+        if (state.mRowAwaitingChildren == m) {
+            state.mRowAwaitingChildren = null;
+            JsonReader reader = state.mReader;
+            reader.skipValue();
+            while (reader.hasNext()) {
+                reader.nextKey();
+                reader.skipValue();
+            }
+            reader.endMap();
+        }
+    }
+
+    /**
+     * Adds the categories a row would have once loaded, along with those of its children, to a
+     * set, without loading it.
+     *
+     * @param m   The row's data.
+     * @param set The set to add the categories to.
+     */
+    public static void collectCategories(JsonMap m, Set<String> set) {
+        JsonArray a     = m.getArray(KEY_CATEGORIES);
+        int       count = a.size();
+        for (int i = 0; i < count; i++) {
+            set.add(a.getString(i));
+        }
+        if (m.getString(DataFile.TYPE).endsWith("_container")) {
+            JsonArray children = m.getArray(KEY_CHILDREN);
+            count = children.size();
+            for (int i = 0; i < count; i++) {
+                collectCategories(children.getMap(i), set);
+            }
+        }
+    }
+
     /**
      * Loads this row's contents.
      *
@@ -296,6 +456,26 @@ public abstract class ListRow extends Row {
      * @param state    The {@link LoadState} to use.
      */
     public final void load(DataFile dataFile, JsonMap m, LoadState state) throws IOException {
+        mContentDigest = null;
+        loadContents(dataFile, m, state);
+        if (state.mRowAwaitingChildren == m) {
+            state.mRowAwaitingChildren = null;
+            loadChildren(dataFile, m, state.mReader, state);
+        } else if (canHaveChildren() && m.has(KEY_CHILDREN)) {
+            JsonArray a     = m.getArray(KEY_CHILDREN);
+            int       count = a.size();
+            for (int i = 0; i < count; i++) {
+                loadChild(a.getMap(i), state);
+            }
+        }
+        finishedLoading(state);
+        if (state.mForUndo) {
+            // The row is already in use, so anything cached from its old contents must go too
+            invalidateContentDigest();
+        }
+    }
+
+    private void loadContents(DataFile dataFile, JsonMap m, LoadState state) throws IOException {
         if (m.has(KEY_ID)) {
             try {
                 mID = UUID.fromString(m.getString(KEY_ID));
@@ -315,7 +495,7 @@ public abstract class ListRow extends Row {
             JsonArray a     = m.getArray(KEY_DEFAULTS);
             int       count = a.size();
             for (int i = 0; i < count; i++) {
-                mDefaults.add(new SkillDefault(a.getMap(i), false));
+                mDefaults = append(mDefaults, new SkillDefault(a.getMap(i), false));
             }
         }
         if (m.has(KEY_FEATURES)) {
@@ -325,17 +505,17 @@ public abstract class ListRow extends Row {
                 JsonMap m1   = a.getMap(i);
                 String  type = m1.getString(DataFile.TYPE);
                 switch (type) {
-                    case AttributeBonus.KEY_ROOT -> mFeatures.add(new AttributeBonus(dataFile, m1));
+                    case AttributeBonus.KEY_ROOT -> addFeature(new AttributeBonus(dataFile, m1));
                     case DRBonus.KEY_ROOT -> loadDRBonus(dataFile, state, m1);
-                    case ReactionBonus.KEY_ROOT -> mFeatures.add(new ReactionBonus(dataFile, m1));
-                    case ConditionalModifier.KEY_ROOT -> mFeatures.add(new ConditionalModifier(dataFile, m1));
-                    case SkillBonus.KEY_ROOT -> mFeatures.add(new SkillBonus(dataFile, m1));
-                    case SkillPointBonus.KEY_ROOT -> mFeatures.add(new SkillPointBonus(dataFile, m1));
-                    case SpellBonus.KEY_ROOT -> mFeatures.add(new SpellBonus(dataFile, m1));
-                    case SpellPointBonus.KEY_ROOT -> mFeatures.add(new SpellPointBonus(dataFile, m1));
-                    case WeaponDamageBonus.KEY_ROOT -> mFeatures.add(new WeaponDamageBonus(dataFile, m1));
-                    case CostReduction.KEY_ROOT -> mFeatures.add(new CostReduction(m1));
-                    case ContainedWeightReduction.KEY_ROOT -> mFeatures.add(new ContainedWeightReduction(m1));
+                    case ReactionBonus.KEY_ROOT -> addFeature(new ReactionBonus(dataFile, m1));
+                    case ConditionalModifier.KEY_ROOT -> addFeature(new ConditionalModifier(dataFile, m1));
+                    case SkillBonus.KEY_ROOT -> addFeature(new SkillBonus(dataFile, m1));
+                    case SkillPointBonus.KEY_ROOT -> addFeature(new SkillPointBonus(dataFile, m1));
+                    case SpellBonus.KEY_ROOT -> addFeature(new SpellBonus(dataFile, m1));
+                    case SpellPointBonus.KEY_ROOT -> addFeature(new SpellPointBonus(dataFile, m1));
+                    case WeaponDamageBonus.KEY_ROOT -> addFeature(new WeaponDamageBonus(dataFile, m1));
+                    case CostReduction.KEY_ROOT -> addFeature(new CostReduction(m1));
+                    case ContainedWeightReduction.KEY_ROOT -> addFeature(new ContainedWeightReduction(m1));
                     default -> Log.warn("unknown feature type: " + type);
                 }
             }
@@ -345,21 +525,45 @@ public abstract class ListRow extends Row {
         if (m.has(KEY_CATEGORIES)) {
             JsonArray a     = m.getArray(KEY_CATEGORIES);
             int       count = a.size();
-            for (int i = 0; i < count; i++) {
-                mCategories.add(a.getString(i));
+            if (count > 0) {
+                mCategories = new TreeSet<>();
+                for (int i = 0; i < count; i++) {
+                    mCategories.add(a.getString(i));
+                }
             }
         }
         if (canHaveChildren()) {
             setOpen(m.getBoolean(KEY_OPEN));
-            if (m.has(KEY_CHILDREN)) {
-                JsonArray a     = m.getArray(KEY_CHILDREN);
-                int       count = a.size();
-                for (int i = 0; i < count; i++) {
-                    loadChild(a.getMap(i), state);
-                }
+        }
+    }
+
+    private void loadChildren(DataFile dataFile, JsonMap m, JsonReader reader, LoadState state) throws IOException {
+        if (canHaveChildren()) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                JsonMap child = readRow(reader, state);
+                loadChild(child, state);
+                skipUnloadedChildren(child, state);
             }
+            reader.endArray();
+        } else {
+            reader.skipValue();
+        }
+        // Children are always written last, but should a hand-edited file have anything after
+        // them, load the row's own contents again with it included.
+        boolean more = false;
+        while (reader.hasNext()) {
+            String key = reader.nextKey();
+            if (m.has(key)) {
+                throw new IOException("duplicate key \"" + key + "\"");
+            }
+            m.put(key, reader.nextValue());
+            more = true;
+        }
+        reader.endMap();
+        if (more) {
+            loadContents(dataFile, m, state);
         }
-        finishedLoading(state);
     }
 
     private void loadDRBonus(DataFile dataFile, LoadState state, JsonMap m) throws IOException {
@@ -388,60 +592,72 @@ public abstract class ListRow extends Row {
                     bonus.setLocation("fin");
                     break;
                 case "torso":
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("vitals");
                     break;
                 case "full_body":
                     bonus.setLocation("eye");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     // Intentional fall-through
                 case "full_body_except_eyes":
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("skull");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("face");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("neck");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("torso");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("vitals");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("groin");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("arm");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("hand");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("leg");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("foot");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("tail");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("wing");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("fin");
-                    mFeatures.add(bonus);
+                    addFeature(bonus);
                     bonus = new DRBonus(bonus);
                     bonus.setLocation("brain");
                     break;
             }
         }
-        mFeatures.add(bonus);
+        addFeature(bonus);
+    }
+
+    private void addFeature(Feature feature) {
+        mFeatures = append(mFeatures, feature);
+    }
+
+    private static <T> List<T> append(List<T> list, T one) {
+        if (list.isEmpty()) {
+            list = new ArrayList<>(1);
+        }
+        list.add(one);
+        return list;
     }
 
     protected abstract void loadSelf(JsonMap m, LoadState state) throws IOException;
@@ -456,10 +672,10 @@ public abstract class ListRow extends Row {
     protected void prepareForLoad(LoadState state) {
         mNotes = "";
         mVTTNotes = "";
-        mFeatures.clear();
-        mDefaults.clear();
-        mPrereqList = new PrereqList(null, true);
-        mCategories.clear();
+        mFeatures = Collections.emptyList();
+        mDefaults = Collections.emptyList();
+        mPrereqList = NO_PREREQS;
+        mCategories = Collections.emptySortedSet();
     }
 
     /**
@@ -480,7 +696,9 @@ public abstract class ListRow extends Row {
     public void save(JsonWriter w, SaveType saveType) throws IOException {
         w.startMap();
         w.keyValue(DataFile.TYPE, getJSONTypeName());
-        w.keyValue(KEY_ID, mID.toString());
+        if (saveType != SaveType.HASH) {
+            w.keyValue(KEY_ID, getID().toString());
+        }
         saveSelf(w, saveType);
         if (!mPrereqList.isEmpty()) {
             w.key(KEY_PREREQS);
@@ -533,7 +751,10 @@ public abstract class ListRow extends Row {
 
     public void notifyOfChange() {
         if (mDataFile != null) {
-            mDataFile.notifyOfChange();
+            // The data file discards the cached digests, possibly later on another thread
+            mDataFile.notifyOfRowChange(this);
+        } else {
+            invalidateContentDigest();
         }
     }
 
@@ -704,10 +925,10 @@ public abstract class ListRow extends Row {
     /**
      * @param text          The text to search for.
      * @param lowerCaseOnly The passed in text is all lowercase.
-     * @return {@code true} if this row contains the text.
+     * @return {@code true} if this row's {@link #getSearchText()} contains the text.
      */
     public boolean contains(String text, boolean lowerCaseOnly) {
-        return false;
+        return getSearchText().contains(lowerCaseOnly ? text : text.toLowerCase());
     }
 
     /** @return An image representative of this row. */
@@ -11,13 +11,20 @@
 
 package com.trollworks.gcs.ui.widget.outline;
 
+import com.trollworks.gcs.utility.undo.MeasuredEdit;
+import com.trollworks.gcs.utility.undo.UndoSpillFile;
+
 import java.util.Collection;
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
 
-/** An undo that contains one or more {@link RowUndo}s. */
-public class MultipleRowUndo extends AbstractUndoableEdit {
+/**
+ * An undo that contains one or more {@link RowUndo}s. Consecutive undos that change the same values
+ * of the same rows are merged into one.
+ */
+public class MultipleRowUndo extends AbstractUndoableEdit implements MeasuredEdit {
     private RowUndo[] mUndos;
 
     /**
@@ -34,8 +41,13 @@ public class MultipleRowUndo extends AbstractUndoableEdit {
     }
 
     private void notifyDataFile() {
-        if (mUndos.length > 0) {
-            mUndos[0].getDataFile().notifyOfChange();
+        int length = mUndos.length;
+        if (length > 0) {
+            ListRow[] rows = new ListRow[length];
+            for (int i = 0; i < length; i++) {
+                rows[i] = mUndos[i].getRow();
+            }
+            mUndos[0].getDataFile().notifyOfRowChange(rows);
         }
     }
 
@@ -62,6 +74,49 @@ public class MultipleRowUndo extends AbstractUndoableEdit {
         }
     }
 
+    @Override
+    public boolean addEdit(UndoableEdit edit) {
+        if (edit instanceof MultipleRowUndo other && canUndo() && other.mUndos.length == mUndos.length && mUndos.length > 0 && getPresentationName().equals(other.getPresentationName())) {
+            for (int i = 0; i < mUndos.length; i++) {
+                if (!mUndos[i].canMerge(other.mUndos[i])) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < mUndos.length; i++) {
+                mUndos[i].merge(other.mUndos[i]);
+            }
+            other.die();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        long usage = EDIT_OVERHEAD;
+        for (RowUndo undo : mUndos) {
+            usage += undo.getMemoryUsage();
+        }
+        return usage;
+    }
+
+    @Override
+    public void die() {
+        super.die();
+        for (RowUndo undo : mUndos) {
+            undo.die();
+        }
+    }
+
+    @Override
+    public boolean spill(UndoSpillFile file) {
+        boolean spilled = false;
+        for (RowUndo undo : mUndos) {
+            spilled |= undo.spill(file);
+        }
+        return spilled;
+    }
+
     @Override
     public String getPresentationName() {
         if (mUndos.length == 0) {
@@ -119,6 +119,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
     private              Dock              mAlternateDragDestination;
     private              String            mLastTooltipText;
     private              int               mLastTooltipX;
+    private              int               mUnloadedRowHeight;
 
     /**
      * Creates a new outline.
@@ -138,6 +139,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         mPotentialContentSizeChangeCommand = CMD_POTENTIAL_CONTENT_SIZE_CHANGE;
         mDragChildInsertIndex = -1;
         mLastRow = -1;
+        mUnloadedRowHeight = -1;
 
         setActionCommand(CMD_OPEN_SELECTION);
         setBackground(Colors.CONTENT);
@@ -162,9 +164,13 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         }
     }
 
-    /** Causes the {@link RowFilter} to be re-applied. */
+    /**
+     * Causes the {@link RowFilter} to be re-applied. Should be called whenever the criteria the
+     * filter uses change.
+     */
     public void reapplyRowFilter() {
         if (mModel.getRowFilter() != null) {
+            mModel.invalidateRowFilterResults();
             mModel.reapplyRowFilter();
             revalidateView();
         }
@@ -256,21 +262,23 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         if (needRevalidate) {
             revalidateView();
         }
+        if (mUnloadedRowHeight == -1 && mModel.hasUnloadedRows()) {
+            mUnloadedRowHeight = estimateUnloadedRowHeight(columns);
+        }
 
-        boolean needHeightAdjust = false;
-        for (int i = getFirstRowToDisplay(); i <= getLastRowToDisplay(); i++) {
-            Row row = mModel.getRowAtIndex(i);
-            if (!mModel.isRowFiltered(row)) {
-                int height = row.getHeight();
-                if (height == -1) {
-                    height = row.getPreferredHeight(this, columns);
-                    row.setHeight(height);
+        int              first = getFirstRowToDisplay();
+        int              last  = getLastRowToDisplay();
+        RowPositionIndex index = mModel.getPositionIndex();
+        if (index.hasUnmeasuredRows()) {
+            for (int i = first; i <= last; i++) {
+                Row row = mModel.getRowAtIndexWithoutLoading(i);
+                if (row.getHeight() == -1 && !mModel.isRowFiltered(row)) {
+                    row.setHeight(getPreferredRowHeight(row, columns));
                 }
-                size.height += height + (mDrawRowDividers ? one : 0);
-                needHeightAdjust = true;
             }
         }
-        if (mDrawRowDividers && needHeightAdjust) {
+        size.height += getRowsHeight(first, last + 1);
+        if (mDrawRowDividers && first <= last && index.visibleBetween(first, last + 1) > 0) {
             size.height -= one;
         }
 
@@ -366,11 +374,12 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         Insets    insets     = getInsets();
         Rectangle bounds     = new Rectangle(insets.left, insets.top, getWidth() - (insets.left + insets.right), getHeight() - (insets.top + insets.bottom));
         boolean   active     = isFocusOwner();
-        int       first      = getFirstRowToDisplay();
+        int       first      = getFirstRowToPaint(clip);
         int       last       = getLastRowToDisplay();
         boolean   isPrinting = Page.isPrinting(this);
         boolean   showIndent = showIndent();
 
+        bounds.y = getRowIndexStart(first);
         for (int rowIndex = first; rowIndex <= last; rowIndex++) {
             Row row = mModel.getRowAtIndex(rowIndex);
             if (!mModel.isRowFiltered(row)) {
@@ -440,6 +449,15 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         }
     }
 
+    /**
+     * @param clip The area being painted.
+     * @return The index of the first row that ends within or below the area. Rows above it aren't
+     *         visited, so that those that haven't been loaded yet needn't be.
+     */
+    private int getFirstRowToPaint(Rectangle clip) {
+        return mModel.getPositionIndex().indexAt(getFirstRowToDisplay(), clip.y - getInsets().top, getRowDividerHeight());
+    }
+
     private void drawBackground(Graphics2D gc) {
         Scale scale = Scale.get(this);
         int   one   = scale.scale(1);
@@ -452,10 +470,11 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         int       bottom     = getHeight() - (top + insets.bottom);
         Rectangle bounds     = new Rectangle(insets.left, top, getWidth() - (insets.left + insets.right), bottom);
         boolean   active     = isFocusOwner();
-        int       first      = getFirstRowToDisplay();
+        int       first      = getFirstRowToPaint(clip);
         int       last       = getLastRowToDisplay();
         boolean   isPrinting = Page.isPrinting(this);
 
+        bounds.y = getRowIndexStart(first);
         for (int rowIndex = first; rowIndex <= last; rowIndex++) {
             Row row = mModel.getRowAtIndex(rowIndex);
             if (!mModel.isRowFiltered(row)) {
@@ -587,28 +606,23 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
 
     /** Repaints the current selection. */
     protected void repaintSelectionInternal() {
-        Scale        scale   = Scale.get(this);
-        int          one     = scale.scale(1);
-        Insets       insets  = getInsets();
-        Rectangle    bounds  = new Rectangle(insets.left, insets.top, getWidth() - (insets.left + insets.right), getHeight() - (insets.top + insets.bottom));
-        int          last    = getLastRowToDisplay();
-        List<Column> columns = mModel.getColumns();
-        for (int i = getFirstRowToDisplay(); i <= last; i++) {
-            Row row = mModel.getRowAtIndex(i);
+        Insets       insets    = getInsets();
+        Rectangle    bounds    = new Rectangle(insets.left, insets.top, getWidth() - (insets.left + insets.right), 0);
+        int          last      = getLastRowToDisplay();
+        List<Column> columns   = mModel.getColumns();
+        Selection    selection = mModel.getSelection();
+        // Only the selected rows are visited, and only their bounds are needed, so none are loaded
+        for (int i = selection.nextSelectedIndex(getFirstRowToDisplay()); i != -1 && i <= last; i = selection.nextSelectedIndex(i + 1)) {
+            Row row = mModel.getRowAtIndexWithoutLoading(i);
             if (!mModel.isRowFiltered(row)) {
                 int height = row.getHeight();
                 if (height == -1) {
-                    height = row.getPreferredHeight(this, columns);
+                    height = getPreferredRowHeight(row, columns);
                     row.setHeight(height);
                 }
-                if (mDrawRowDividers) {
-                    height += one;
-                }
-                if (mModel.isRowSelected(row)) {
-                    bounds.height = height;
-                    repaint(bounds);
-                }
-                bounds.y += height;
+                bounds.y = getRowIndexStart(i);
+                bounds.height = height + getRowDividerHeight();
+                repaint(bounds);
             }
         }
     }
@@ -651,13 +665,12 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
                     if (rowTop < y) {
                         return y - rowTop;
                     } else {
-                        List<Row> rows  = mModel.getRows();
-                        int       first = getFirstRowToDisplay();
+                        int first = getFirstRowToDisplay();
                         do {
                             if (--rowIndex <= first) {
                                 break;
                             }
-                        } while (mModel.isRowFiltered(rows.get(rowIndex)));
+                        } while (mModel.isRowFiltered(mModel.getRowAtIndexWithoutLoading(rowIndex)));
                         if (rowIndex >= first) {
                             return y - getRowIndexStart(rowIndex);
                         }
@@ -934,20 +947,8 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
      * @return The row, or {@code null} if none is found.
      */
     public Row overRow(int y) {
-        int       one  = Scale.get(this).scale(1);
-        List<Row> rows = mModel.getRows();
-        int       pos  = getInsets().top;
-        int       last = getLastRowToDisplay();
-        for (int i = getFirstRowToDisplay(); i <= last; i++) {
-            Row row = rows.get(i);
-            if (!mModel.isRowFiltered(row)) {
-                pos += row.getHeight() + (mDrawRowDividers ? one : 0);
-                if (y < pos) {
-                    return row;
-                }
-            }
-        }
-        return null;
+        int index = overRowIndex(y);
+        return index != -1 ? mModel.getRowAtIndex(index) : null;
     }
 
     /**
@@ -957,17 +958,12 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
      * @return The row index, or {@code -1} if none is found.
      */
     public int overRowIndex(int y) {
-        int       one  = Scale.get(this).scale(1);
-        List<Row> rows = mModel.getRows();
-        int       pos  = getInsets().top;
-        int       last = getLastRowToDisplay();
-        for (int i = getFirstRowToDisplay(); i <= last; i++) {
-            Row row = rows.get(i);
-            if (!mModel.isRowFiltered(row)) {
-                pos += row.getHeight() + (mDrawRowDividers ? one : 0);
-                if (y < pos) {
-                    return i;
-                }
+        int first = getFirstRowToDisplay();
+        int last  = getLastRowToDisplay();
+        if (first <= last) {
+            int index = mModel.getPositionIndex().indexAt(first, y - getInsets().top, getRowDividerHeight());
+            if (index <= last) {
+                return index;
             }
         }
         return -1;
@@ -978,19 +974,16 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
      * @return The row index to insert at, from {@code 0} to {@link OutlineModel#getRowCount()} .
      */
     public int getRowInsertionIndex(int y) {
-        int       one  = Scale.get(this).scale(1);
-        List<Row> rows = mModel.getRows();
-        int       pos  = getInsets().top;
-        int       last = getLastRowToDisplay();
-        for (int i = getFirstRowToDisplay(); i <= last; i++) {
-            Row row = rows.get(i);
-            if (!mModel.isRowFiltered(row)) {
-                int height = row.getHeight();
-                int tmp    = pos + height / 2;
-                if (y <= tmp) {
-                    return i;
-                }
-                pos += height + (mDrawRowDividers ? one : 0);
+        int last  = getLastRowToDisplay();
+        int index = overRowIndex(y);
+        if (index != -1) {
+            if (y <= getRowIndexStart(index) + mModel.getRowAtIndex(index).getHeight() / 2) {
+                return index;
+            }
+            // Past the middle of the row, so insert before the next one that is shown, if any
+            index = mModel.getPositionIndex().nextVisible(index + 1);
+            if (index <= last) {
+                return index;
             }
         }
         return last;
@@ -1001,16 +994,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
      * @return The starting y-coordinate for the specified row index.
      */
     public int getRowIndexStart(int index) {
-        int       one  = Scale.get(this).scale(1);
-        List<Row> rows = mModel.getRows();
-        int       pos  = getInsets().top;
-        for (int i = getFirstRowToDisplay(); i < index; i++) {
-            Row row = rows.get(i);
-            if (!mModel.isRowFiltered(row)) {
-                pos += row.getHeight() + (mDrawRowDividers ? one : 0);
-            }
-        }
-        return pos;
+        return getInsets().top + getRowsHeight(getFirstRowToDisplay(), Math.min(index, mModel.getRowCount()));
     }
 
     /**
@@ -1018,20 +1002,27 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
      * @return The starting y-coordinate for the specified row.
      */
     public int getRowStart(Row row) {
-        int       one  = Scale.get(this).scale(1);
-        List<Row> rows = mModel.getRows();
-        int       pos  = getInsets().top;
-        int       last = getLastRowToDisplay();
-        for (int i = getFirstRowToDisplay(); i <= last; i++) {
-            Row oneRow = rows.get(i);
-            if (row == oneRow) {
-                break;
-            }
-            if (!mModel.isRowFiltered(oneRow)) {
-                pos += oneRow.getHeight() + (mDrawRowDividers ? one : 0);
-            }
+        int first = getFirstRowToDisplay();
+        int last  = getLastRowToDisplay();
+        int index = mModel.getPositionIndex().indexOf(row);
+        if (index < first || index > last) {
+            index = last + 1;
         }
-        return pos;
+        return getInsets().top + getRowsHeight(first, index);
+    }
+
+    /**
+     * @param start The index of the first row, inclusive.
+     * @param end   The index of the last row, exclusive.
+     * @return The height taken by the rows in the range that aren't filtered out, including their
+     *         dividers.
+     */
+    private int getRowsHeight(int start, int end) {
+        return start < end ? mModel.getPositionIndex().heightBetween(start, end, getRowDividerHeight()) : 0;
+    }
+
+    private int getRowDividerHeight() {
+        return mDrawRowDividers ? Scale.get(this).scale(1) : 0;
     }
 
     /**
@@ -1345,7 +1336,8 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
                         method |= Selection.MOUSE_FLIP;
                     }
                     mSelectOnMouseUp = mModel.getSelection().selectByMouse(rowIndexHit, method);
-                    reapplyRowFilter();
+                    // Only the selection has changed, so the cached filter results are still good
+                    mModel.reapplyRowFilter();
                     if (event.isPopupTrigger()) {
                         mSelectOnMouseUp = -1;
                         mIgnoreClick = true;
@@ -1490,7 +1482,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
                         OutlineModel model  = getModel();
                         RowFilter    filter = model.getRowFilter();
                         if (filter != null) {
-                            while (filter.isRowFiltered(model.getRowAtIndex(index))) {
+                            while (model.isRowFiltered(model.getRowAtIndex(index))) {
                                 int last = index;
                                 index = selection.selectUp(shiftDown);
                                 if (index == last || index == -1) {
@@ -1508,7 +1500,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
                         OutlineModel model  = getModel();
                         RowFilter    filter = model.getRowFilter();
                         if (filter != null) {
-                            while (filter.isRowFiltered(model.getRowAtIndex(index))) {
+                            while (model.isRowFiltered(model.getRowAtIndex(index))) {
                                 int last = index;
                                 index = selection.selectDown(shiftDown);
                                 if (index == last || index == -1) {
@@ -1540,7 +1532,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
             RowFilter filter = model.getRowFilter();
             if (filter != null) {
                 int i = 0;
-                while (i < count && filter.isRowFiltered(model.getRowAtIndex(i))) {
+                while (i < count && model.isRowFiltered(model.getRowAtIndex(i))) {
                     i++;
                 }
                 if (i == count) {
@@ -1571,7 +1563,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
             RowFilter filter = model.getRowFilter();
             if (filter != null) {
                 int i = count - 1;
-                while (i >= 0 && filter.isRowFiltered(model.getRowAtIndex(i))) {
+                while (i >= 0 && model.isRowFiltered(model.getRowAtIndex(i))) {
                     i--;
                 }
                 if (i < 0) {
@@ -1983,7 +1975,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
      * @return {@code true} if the contents of the drag can be dropped into this outline.
      */
     protected boolean isRowDragAcceptable(DropTargetDragEvent dtde, Row[] rows) {
-        return rows.length > 0 && mModel.getRows().contains(rows[0]);
+        return rows.length > 0 && mModel.getIndexOfRow(rows[0]) != -1;
     }
 
     @Override
@@ -2118,7 +2110,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         Point     pt                    = UIUtilities.convertDropTargetDragPointTo(dtde, this);
         int       y                     = getInsets().top;
         int       last                  = getLastRowToDisplay();
-        boolean   isFromSelf            = dragRows != null && dragRows.length > 0 && mModel.getRows().contains(dragRows[0]);
+        boolean   isFromSelf            = dragRows != null && dragRows.length > 0 && mModel.getIndexOfRow(dragRows[0]) != -1;
         Rectangle bounds;
         int       indent;
         Row       row;
@@ -2377,7 +2369,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         if (mDragChildInsertIndex != -1) {
             StateEdit edit         = new StateEdit(mModel, I18n.text("拖拽并放置行"));
             Row[]     dragRows     = mModel.getDragRows();
-            boolean   isFromSelf   = dragRows != null && dragRows.length > 0 && mModel.getRows().contains(dragRows[0]);
+            boolean   isFromSelf   = dragRows != null && dragRows.length > 0 && mModel.getIndexOfRow(dragRows[0]) != -1;
             int       count        = mModel.getRowCount();
             List<Row> rows         = new ArrayList<>(count);
             List<Row> selection    = new ArrayList<>(count);
@@ -2538,9 +2530,15 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         updateRowHeights(rows);
     }
 
-    /** Causes all row heights to be recalculated. */
+    /**
+     * Causes all row heights to be recalculated. Rows that haven't been loaded yet are left that
+     * way, and given the height of one that has been instead.
+     */
     public void updateRowHeights() {
-        updateRowHeights(mModel.getRows());
+        if (mModel.hasUnloadedRows()) {
+            mUnloadedRowHeight = estimateUnloadedRowHeight(mModel.getColumns());
+        }
+        updateRowHeights(mModel.getRowsWithoutLoading());
     }
 
     /**
@@ -2553,7 +2551,7 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         boolean      needRevalidate = false;
         for (Row row : rows) {
             int height     = row.getHeight();
-            int prefHeight = row.getPreferredHeight(this, columns);
+            int prefHeight = getPreferredRowHeight(row, columns);
             if (height != prefHeight) {
                 row.setHeight(prefHeight);
                 needRevalidate = true;
@@ -2565,6 +2563,31 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         }
     }
 
+    private int getPreferredRowHeight(Row row, List<Column> columns) {
+        return row instanceof UnloadedRow ? Math.max(mUnloadedRowHeight, 0) : row.getPreferredHeight(this, columns);
+    }
+
+    /**
+     * @param columns The columns used to display the rows.
+     * @return The height to give the rows that haven't been loaded yet, which is the preferred
+     *         height of the first row that has been, loading one if there isn't any.
+     */
+    private int estimateUnloadedRowHeight(List<Column> columns) {
+        for (Row row : mModel.getRowsWithoutLoading()) {
+            if (!(row instanceof UnloadedRow)) {
+                return row.getPreferredHeight(this, columns);
+            }
+        }
+        int count = mModel.getRowCount();
+        for (int i = 0; i < count; i++) {
+            Row row = mModel.getRowAtIndex(i);
+            if (!(row instanceof UnloadedRow)) {
+                return row.getPreferredHeight(this, columns);
+            }
+        }
+        return 0;
+    }
+
     @Override
     public Insets getAutoscrollInsets() {
         int         margin      = Scale.get(this).scale(AUTO_SCROLL_MARGIN);
@@ -2608,6 +2631,17 @@ public class Outline extends ActionPanel implements OutlineModelListener, Compon
         revalidateView();
     }
 
+    @Override
+    public void rowsLoaded(OutlineModel model, Row[] rows) {
+        // Measure them straight away, as they're usually loaded because they're about to be painted
+        List<Column> columns = mModel.getColumns();
+        for (Row row : rows) {
+            row.setHeight(row.getPreferredHeight(this, columns));
+        }
+        contentSizeMayHaveChanged();
+        revalidateView();
+    }
+
     @Override
     public void rowsWillBeRemoved(OutlineModel model, Row[] rows) {
         // Nothing to do.
@@ -34,6 +34,9 @@ public class OutlineModel implements SelectionOwner, StateEditable {
     private static final String                     UNDO_KEY_SORT_CONFIG = "SortConfig";
     /** The current config version. */
     public static final  int                        CONFIG_VERSION       = 4;
+    // The number of leading rows loaded for the purpose of sizing columns, if none have been yet
+    private static final int                        ROWS_TO_MEASURE      = 100;
+    private static       int                        LAST_FILTER_GENERATION;
     private              List<OutlineModelListener> mListeners;
     private              List<Column>               mColumns;
     private              List<Row>                  mRows;
@@ -51,6 +54,12 @@ public class OutlineModel implements SelectionOwner, StateEditable {
     private              int                        mHierarchyColumnID;
     private              RowFilter                  mRowFilter;
     private              Map<String, Object>        mProperties;
+    private              RowPositionIndex           mPositionIndex;
+    private              RowSearchIndex             mSearchIndex;
+    private              int                        mFilterGeneration;
+    private              UnloadedRowSource          mUnloadedRowSource;
+    private              int                        mUnloadedRowCount;
+    private              int                        mUnloadableRowCount;
 
     /** Creates a new model. */
     public OutlineModel() {
@@ -104,6 +113,12 @@ public class OutlineModel implements SelectionOwner, StateEditable {
         }
     }
 
+    private void notifyOfRowsLoaded(Row[] rows) {
+        for (OutlineModelListener listener : getCurrentListeners()) {
+            listener.rowsLoaded(this, rows);
+        }
+    }
+
     private void notifyOfSortCleared() {
         for (OutlineModelListener listener : getCurrentListeners()) {
             listener.sortCleared(this);
@@ -302,6 +317,7 @@ public class OutlineModel implements SelectionOwner, StateEditable {
         }
         preserveSelection();
         mRows.addAll(index, list);
+        invalidateIndexes();
         mSelection.setSize(mRows.size());
         restoreSelection();
         notifyOfRowAdditions(list.toArray(new Row[0]));
@@ -312,6 +328,7 @@ public class OutlineModel implements SelectionOwner, StateEditable {
         List<Row> list = collectRowsAndSetOwner(new ArrayList<>(), row, true);
         preserveSelection();
         mRows.addAll(getIndexOfRow(row) + 1, list);
+        invalidatePositionIndex();
         mSelection.setSize(mRows.size());
         restoreSelection();
         notifyOfRowAdditions(list.toArray(new Row[0]));
@@ -439,6 +456,7 @@ public class OutlineModel implements SelectionOwner, StateEditable {
             mRows.remove(indexes[i]);
             rows[i].setOwner(null);
         }
+        invalidateIndexes();
         mSelection.setSize(mRows.size());
         restoreSelection();
         notifyOfRowsWereRemoved(rows);
@@ -446,6 +464,7 @@ public class OutlineModel implements SelectionOwner, StateEditable {
 
     /** Removes all rows. */
     public void removeAllRows() {
+        loadAllRows();
         Row[] rows = mRows.toArray(new Row[0]);
 
         mSelection.deselect();
@@ -455,6 +474,7 @@ public class OutlineModel implements SelectionOwner, StateEditable {
         for (Row element : rows) {
             element.setOwner(null);
         }
+        invalidateIndexes();
         notifyOfRowsWereRemoved(rows);
     }
 
@@ -466,8 +486,17 @@ public class OutlineModel implements SelectionOwner, StateEditable {
         removeRows(indexes);
     }
 
-    /** @return The rows contained by the model. */
+    /** @return The rows contained by the model. Any that haven't been loaded yet are loaded first. */
     public List<Row> getRows() {
+        loadAllRows();
+        return mRows;
+    }
+
+    /**
+     * @return The rows contained by the model, without loading any that haven't been loaded yet,
+     *         which are represented by {@link UnloadedRow}s instead.
+     */
+    List<Row> getRowsWithoutLoading() {
         return mRows;
     }
 
@@ -476,11 +505,53 @@ public class OutlineModel implements SelectionOwner, StateEditable {
         return mRows.size();
     }
 
+    /**
+     * @return The rows to size columns by. Those that haven't been loaded yet are skipped, rather
+     *         than loaded, other than the first few, which are loaded so there is something to go
+     *         on.
+     */
+    List<Row> getRowsToMeasure() {
+        if (mUnloadedRowSource == null) {
+            return mRows;
+        }
+        int[] indexes = new int[Math.min(mRows.size(), ROWS_TO_MEASURE)];
+        int   count   = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (mRows.get(i) instanceof UnloadedRow unloaded && !unloaded.isUnloadable()) {
+                indexes[count++] = i;
+            }
+        }
+        if (count > 0) {
+            loadRows(Arrays.copyOf(indexes, count));
+        }
+        List<Row> list = new ArrayList<>();
+        for (Row row : mRows) {
+            if (!(row instanceof UnloadedRow)) {
+                list.add(row);
+            }
+        }
+        return list;
+    }
+
     /**
      * @param index The index of the row.
-     * @return The row at the specified index.
+     * @return The row at the specified index, which is loaded first if it hasn't been yet.
      */
     public Row getRowAtIndex(int index) {
+        Row row = mRows.get(index);
+        if (row instanceof UnloadedRow unloaded && !unloaded.isUnloadable()) {
+            loadRows(new int[]{index});
+            row = mRows.get(index);
+        }
+        return row;
+    }
+
+    /**
+     * @param index The index of the row.
+     * @return The row at the specified index, without loading it if it hasn't been loaded yet, in
+     *         which case an {@link UnloadedRow} is returned instead.
+     */
+    Row getRowAtIndexWithoutLoading(int index) {
         return mRows.get(index);
     }
 
@@ -492,17 +563,193 @@ public class OutlineModel implements SelectionOwner, StateEditable {
         return mRows.indexOf(row);
     }
 
-    /** @return The top-level rows (i.e. those with a {@code null} parent). */
+    /**
+     * @return The top-level rows (i.e. those with a {@code null} parent). Any that haven't been
+     *         loaded yet are loaded first.
+     */
     public List<Row> getTopLevelRows() {
+        loadAllRows();
+        return getLoadedTopLevelRows();
+    }
+
+    /**
+     * @return The top-level rows (i.e. those with a {@code null} parent) that have been loaded so
+     *         far, without loading any others.
+     */
+    public List<Row> getLoadedTopLevelRows() {
         List<Row> list = new ArrayList<>();
         for (Row row : mRows) {
-            if (row.getParent() == null) {
+            if (row.getParent() == null && !(row instanceof UnloadedRow)) {
                 list.add(row);
             }
         }
         return list;
     }
 
+    /**
+     * Fills the model with rows that are only loaded from the source once they're first needed,
+     * such as when they're scrolled into view or selected. Everything that needs every row, such
+     * as sorting or {@link #getRows()}, loads the remainder first. Rows that haven't been loaded
+     * yet are never filtered out, so {@link #loadAllRows()} should be called before a {@link
+     * RowFilter} starts to filter any out. Must be called on an empty model.
+     *
+     * @param source The source of the rows.
+     * @param count  The number of top-level rows the source has.
+     */
+    public void setUnloadedRows(UnloadedRowSource source, int count) {
+        for (int i = 0; i < count; i++) {
+            Row row = new UnloadedRow(i);
+            row.setOwner(this);
+            mRows.add(row);
+        }
+        mUnloadedRowSource = count > 0 ? source : null;
+        mUnloadedRowCount = count;
+        invalidateIndexes();
+        mSelection.setSize(mRows.size());
+    }
+
+    /** @return Whether any rows have yet to be loaded. */
+    public boolean hasUnloadedRows() {
+        return mUnloadedRowSource != null;
+    }
+
+    /**
+     * Loads every row that hasn't been loaded yet. Those that can't be loaded are dropped from the
+     * model.
+     */
+    public void loadAllRows() {
+        if (mUnloadedRowSource == null) {
+            return;
+        }
+        if (mUnloadedRowCount > 0) {
+            int[] indexes = new int[mUnloadedRowCount];
+            int   count   = 0;
+            int   max     = mRows.size();
+            for (int i = 0; i < max; i++) {
+                if (mRows.get(i) instanceof UnloadedRow unloaded && !unloaded.isUnloadable()) {
+                    indexes[count++] = i;
+                }
+            }
+            loadRows(indexes);
+        }
+        if (mUnloadableRowCount > 0) {
+            int   count = mRows.size();
+            int[] moved = new int[count];
+            int   kept  = 0;
+            for (int i = 0; i < count; i++) {
+                Row row = mRows.get(i);
+                if (row instanceof UnloadedRow) {
+                    row.setOwner(null);
+                    moved[i] = -1;
+                } else {
+                    mRows.set(kept, row);
+                    moved[i] = kept++;
+                }
+            }
+            mRows.subList(kept, count).clear();
+            mUnloadableRowCount = 0;
+            invalidateIndexes();
+            remapSelection(moved);
+        }
+        finishLoadingRows();
+    }
+
+    /**
+     * Loads the rows at the specified indexes, replacing each with its loaded row, followed by
+     * whatever children it discloses.
+     *
+     * @param indexes The indexes of the {@link UnloadedRow}s to load, in ascending order.
+     */
+    private void loadRows(int[] indexes) {
+        int   count   = indexes.length;
+        int[] sources = new int[count];
+        for (int i = 0; i < count; i++) {
+            sources[i] = ((UnloadedRow) mRows.get(indexes[i])).getSourceIndex();
+        }
+        Row[]     rows     = mUnloadedRowSource.loadRows(sources);
+        List<Row> loaded   = new ArrayList<>();
+        int[]     added    = new int[count];
+        int       addition = 0;
+        mUnloadedRowCount -= count;
+        // Work from the end, so that disclosing children doesn't move the rows yet to be replaced
+        for (int i = count - 1; i >= 0; i--) {
+            int index = indexes[i];
+            Row row   = rows[i];
+            if (row == null) {
+                ((UnloadedRow) mRows.get(index)).markUnloadable();
+                mUnloadableRowCount++;
+                invalidatePositionIndex();
+                continue;
+            }
+            row.setOwner(this);
+            Row unloaded = mRows.set(index, row);
+            unloaded.setOwner(null);
+            if (mPositionIndex != null) {
+                if (isRowFiltered(row)) {
+                    invalidatePositionIndex();
+                } else {
+                    mPositionIndex.rowReplaced(unloaded, row);
+                }
+            }
+            loaded.add(row);
+            if (row.isOpen() && row.hasChildren()) {
+                List<Row> children = collectRowsAndSetOwner(new ArrayList<>(), row, true);
+                mRows.addAll(index + 1, children);
+                loaded.addAll(children);
+                added[i] = children.size();
+                addition += added[i];
+            }
+        }
+        if (addition > 0) {
+            int[] moved = new int[mRows.size() - addition];
+            int   shift = 0;
+            int   next  = 0;
+            for (int i = 0; i < moved.length; i++) {
+                moved[i] = i + shift;
+                while (next < count && indexes[next] == i) {
+                    shift += added[next++];
+                }
+            }
+            invalidatePositionIndex();
+            remapSelection(moved);
+        }
+        if (mUnloadedRowCount == 0 && mUnloadableRowCount == 0) {
+            finishLoadingRows();
+        }
+        notifyOfRowsLoaded(loaded.toArray(new Row[0]));
+    }
+
+    private void finishLoadingRows() {
+        UnloadedRowSource source = mUnloadedRowSource;
+        if (source != null) {
+            mUnloadedRowSource = null;
+            source.allRowsLoaded();
+        }
+    }
+
+    /**
+     * Moves the selection along with rows that have moved, without notifying anyone, as the rows
+     * selected are still the same.
+     *
+     * @param moved The new index of each row, by its old index, or {@code -1} if it was removed.
+     */
+    private void remapSelection(int[] moved) {
+        int[] selected = mSelection.getSelectedIndexes();
+        int   anchor   = mSelection.getAnchor();
+        int   count    = 0;
+        for (int index : selected) {
+            if (index < moved.length && moved[index] != -1) {
+                selected[count++] = moved[index];
+            }
+        }
+        mNotifyOfSelections = false;
+        mSelection.deselect();
+        mSelection.setSize(mRows.size());
+        mSelection.select(Arrays.copyOf(selected, count), false);
+        mSelection.setAnchor(anchor >= 0 && anchor < moved.length ? moved[anchor] : -1);
+        mNotifyOfSelections = true;
+    }
+
     /** @return The current selection. */
     public Selection getSelection() {
         return mSelection;
@@ -561,8 +808,10 @@ public class OutlineModel implements SelectionOwner, StateEditable {
     }
 
     private void sortInternal() {
+        loadAllRows();
         preserveSelection();
         RowSorter.sort(mColumns, mRows, true);
+        invalidateIndexes();
         restoreSelection();
         notifyOfSort();
     }
@@ -771,9 +1020,9 @@ public class OutlineModel implements SelectionOwner, StateEditable {
 
         while (index != -1) {
             Row     row = getRowAtIndex(index);
-            boolean add = true;
+            boolean add = !(row instanceof UnloadedRow); // One that couldn't be loaded
 
-            if (minimal) {
+            if (add && minimal) {
                 Row parent = row.getParent();
                 while (parent != null) {
                     if (mSelection.isSelected(getIndexOfRow(parent))) {
@@ -1071,6 +1320,7 @@ public class OutlineModel implements SelectionOwner, StateEditable {
         for (Row row : mRows) {
             row.resetOwner(this);
         }
+        invalidateIndexes();
         for (Map.Entry<?, ?> entry : state.entrySet()) {
             Object key = entry.getKey();
             if (key instanceof Row) {
@@ -1109,19 +1359,37 @@ public class OutlineModel implements SelectionOwner, StateEditable {
     /** @param filter The {@link RowFilter} to use. */
     public void setRowFilter(RowFilter filter) {
         mRowFilter = filter;
+        invalidateRowFilterResults();
     }
 
     /**
      * @param row The {@link Row} to check.
-     * @return Whether the {@link Row} should be filtered from view.
+     * @return Whether the {@link Row} should be filtered from view. The {@link RowFilter} is only
+     *         consulted if it hasn't been already for this row since the last call to {@link
+     *         #invalidateRowFilterResults()} or {@link Row#invalidateFilterResult()}, and never for
+     *         a row that hasn't been loaded yet.
      */
     public boolean isRowFiltered(Row row) {
+        if (row instanceof UnloadedRow unloaded) {
+            return unloaded.isUnloadable();
+        }
         if (mRowFilter != null) {
-            return mRowFilter.isRowFiltered(row);
+            return row.isFiltered(mRowFilter, mFilterGeneration);
         }
         return false;
     }
 
+    /**
+     * Discards the results of the {@link RowFilter} for all rows. Should be called whenever the
+     * criteria the filter uses change.
+     */
+    public void invalidateRowFilterResults() {
+        // The generation is unique across models, so that a row moved from one model to another
+        // can't carry a result from the first over to the second.
+        mFilterGeneration = ++LAST_FILTER_GENERATION;
+        invalidatePositionIndex();
+    }
+
     /** Causes the {@link RowFilter} to be re-applied to the selection. */
     public void reapplyRowFilter() {
         if (mRowFilter != null) {
@@ -1129,7 +1397,7 @@ public class OutlineModel implements SelectionOwner, StateEditable {
             int       index = mSelection.firstSelectedIndex();
             while (index != -1) {
                 Row row = getRowAtIndex(index);
-                if (mRowFilter.isRowFiltered(row)) {
+                if (isRowFiltered(row)) {
                     list.add(row);
                 }
                 index = mSelection.nextSelectedIndex(index + 1);
@@ -1142,6 +1410,66 @@ public class OutlineModel implements SelectionOwner, StateEditable {
         }
     }
 
+    /**
+     * @return The {@link RowPositionIndex} for the current rows, building it first if the rows, or
+     *         which of them are filtered out, have changed since it was last used.
+     */
+    RowPositionIndex getPositionIndex() {
+        if (mPositionIndex == null) {
+            mPositionIndex = new RowPositionIndex(this, mRows);
+        }
+        return mPositionIndex;
+    }
+
+    /** Discards the {@link RowPositionIndex}, so that it will be rebuilt when next needed. */
+    void invalidatePositionIndex() {
+        mPositionIndex = null;
+    }
+
+    /**
+     * @return The {@link RowSearchIndex} for the current rows, building it first if the rows, or
+     *         the text they can be found by, have changed since it was last used. The same index
+     *         is returned until then.
+     */
+    public RowSearchIndex getSearchIndex() {
+        if (mSearchIndex == null) {
+            mSearchIndex = new RowSearchIndex(this);
+        }
+        return mSearchIndex;
+    }
+
+    /**
+     * @param index The index to check.
+     * @return {@code true} if the index is the one {@link #getSearchIndex()} would return, without
+     *         building a new one if it wouldn't.
+     */
+    public boolean isCurrentSearchIndex(RowSearchIndex index) {
+        return index != null && index == mSearchIndex;
+    }
+
+    /** Discards the {@link RowSearchIndex}, so that it will be rebuilt when next needed. */
+    void invalidateSearchIndex() {
+        mSearchIndex = null;
+    }
+
+    private void invalidateIndexes() {
+        invalidatePositionIndex();
+        invalidateSearchIndex();
+    }
+
+    /**
+     * Called when a row's height changes.
+     *
+     * @param row       The row being changed.
+     * @param oldHeight The previous height.
+     * @param newHeight The new height.
+     */
+    void rowHeightChanged(Row row, int oldHeight, int newHeight) {
+        if (mPositionIndex != null) {
+            mPositionIndex.heightChanged(row, oldHeight, newHeight);
+        }
+    }
+
     public Row getDragTargetRow() {
         return mDragTargetRow;
     }
@@ -21,6 +21,16 @@ public interface OutlineModelListener {
      */
     void rowsAdded(OutlineModel model, Row[] rows);
 
+    /**
+     * Called after rows that were standing in for others that hadn't been loaded yet are replaced
+     * by the loaded rows. Unlike {@link #rowsAdded(OutlineModel, Row[])}, the content of the model
+     * hasn't changed.
+     *
+     * @param model The affected model.
+     * @param rows  The rows that were loaded, including any children they disclose.
+     */
+    void rowsLoaded(OutlineModel model, Row[] rows);
+
     /**
      * Called prior to rows being removed.
      *
@@ -20,6 +20,10 @@ import javax.swing.Icon;
 public abstract class Row {
     private   OutlineModel   mOwner;
     private   int            mHeight;
+    private   int            mIndexPosition;
+    private   int            mFilterGeneration;
+    private   boolean        mFiltered;
+    private   String         mSearchText;
     private   boolean        mOpen;
     private   Row            mParent;
     /** The children of this row. */
@@ -102,7 +106,86 @@ public abstract class Row {
      * @param height The height to set.
      */
     public void setHeight(int height) {
-        mHeight = height;
+        if (height != mHeight) {
+            int oldHeight = mHeight;
+            mHeight = height;
+            if (mOwner != null) {
+                mOwner.rowHeightChanged(this, oldHeight, height);
+            }
+        }
+    }
+
+    /**
+     * @param filter     The filter to apply.
+     * @param generation The generation of the filter's criteria.
+     * @return The result of the filter for this row, reusing the last one if it was for the same
+     *         generation.
+     */
+    boolean isFiltered(RowFilter filter, int generation) {
+        if (mFilterGeneration != generation) {
+            mFiltered = filter.isRowFiltered(this);
+            mFilterGeneration = generation;
+        }
+        return mFiltered;
+    }
+
+    /**
+     * Discards the cached result of the owner's {@link RowFilter} for this row. Should be called
+     * whenever the contents of this row change.
+     */
+    public void invalidateFilterResult() {
+        mFilterGeneration = 0;
+        if (mOwner != null) {
+            mOwner.invalidatePositionIndex();
+        }
+    }
+
+    /**
+     * @return The text this row can be found by, in lower case. Cached until {@link
+     *         #invalidateSearchText()} is called.
+     */
+    public String getSearchText() {
+        if (mSearchText == null) {
+            List<String> texts = new ArrayList<>();
+            collectSearchText(texts);
+            // A line feed can't be typed into a search field, so no match can straddle two texts
+            mSearchText = String.join("\n", texts).toLowerCase();
+        }
+        return mSearchText;
+    }
+
+    /** @param texts The list to add the text this row can be found by to. */
+    protected void collectSearchText(List<String> texts) {
+        // Nothing by default.
+    }
+
+    /**
+     * Discards the cached result of {@link #getSearchText()}. Should be called whenever the
+     * contents of this row change.
+     */
+    public void invalidateSearchText() {
+        mSearchText = null;
+        invalidateOwnerSearchIndex();
+    }
+
+    private void invalidateOwnerSearchIndex() {
+        // Rows that aren't disclosed may not have an owner, so look to their ancestors
+        for (Row row = this; row != null; row = row.mParent) {
+            if (row.mOwner != null) {
+                row.mOwner.invalidateSearchIndex();
+                return;
+            }
+        }
+    }
+
+    /** @return The position of this row within its owner's {@link RowPositionIndex}. */
+    int getIndexPosition() {
+        return mIndexPosition;
+    }
+
+    /** @param position The position of this row within its owner's {@link RowPositionIndex}. */
+    void setIndexPosition(int position) {
+        mIndexPosition = position;
     }
 
     /**
@@ -240,6 +323,7 @@ public abstract class Row {
             }
             mChildren.add(index, row);
             row.mParent = this;
+            invalidateOwnerSearchIndex();
         }
     }
 
@@ -254,6 +338,7 @@ public abstract class Row {
             row.removeFromParent();
             mChildren.add(row);
             row.mParent = this;
+            invalidateOwnerSearchIndex();
             return true;
         }
         return false;
@@ -268,6 +353,7 @@ public abstract class Row {
         if (row.isChildOf(this)) {
             mChildren.remove(row);
             row.mParent = null;
+            invalidateOwnerSearchIndex();
         }
     }
 
@@ -192,6 +192,7 @@ public abstract class RowEditor<T extends ListRow> extends ActionPanel {
         Commitable.sendCommitToFocusOwner();
         boolean modified = applyChangesSelf();
         if (modified) {
+            mRow.invalidateContentDigest();
             mRow.getDataFile().setModified(true);
         }
         return modified;
@@ -0,0 +1,185 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.ui.widget.outline;
+
+import java.util.List;
+
+/**
+ * Cumulative heights of the rows of an {@link OutlineModel}, kept in a pair of Fenwick trees so that
+ * the vertical position of any row, and the row at any vertical position, can be found in
+ * logarithmic time. One tree holds the heights of the rows that aren't filtered out, and the other
+ * the number of such rows, so that the space taken by row dividers can be added in at query time.
+ */
+final class RowPositionIndex {
+    private Row[] mRows;
+    private int[] mHeights;
+    private int[] mCounts;
+    private int   mUnmeasured;
+    private int   mHighBit;
+
+    /**
+     * @param model The model to index.
+     * @param rows  The rows of the model.
+     */
+    RowPositionIndex(OutlineModel model, List<Row> rows) {
+        int count = rows.size();
+        mRows = rows.toArray(new Row[0]);
+        mHeights = new int[count + 1];
+        mCounts = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            Row row = mRows[i];
+            row.setIndexPosition(i);
+            if (!model.isRowFiltered(row)) {
+                int height = row.getHeight();
+                if (height < 0) {
+                    mUnmeasured++;
+                }
+                mHeights[i + 1] += height;
+                mCounts[i + 1]++;
+            }
+        }
+        // Build both trees in place in linear time, by pushing each node's total up to its parent
+        for (int i = 1; i <= count; i++) {
+            int parent = i + (i & -i);
+            if (parent <= count) {
+                mHeights[parent] += mHeights[i];
+                mCounts[parent] += mCounts[i];
+            }
+        }
+        mHighBit = count == 0 ? 0 : Integer.highestOneBit(count);
+    }
+
+    /**
+     * @param row The row to look for.
+     * @return The index of the row, or {@code -1} if it isn't part of this index.
+     */
+    int indexOf(Row row) {
+        int index = row.getIndexPosition();
+        return index >= 0 && index < mRows.length && mRows[index] == row ? index : -1;
+    }
+
+    /**
+     * Updates the index to reflect a change in the height of a row. Rows that aren't part of this
+     * index are ignored.
+     *
+     * @param row       The row whose height changed.
+     * @param oldHeight The previous height.
+     * @param newHeight The new height.
+     */
+    void heightChanged(Row row, int oldHeight, int newHeight) {
+        int index = indexOf(row);
+        if (index != -1 && visibleBetween(index, index + 1) != 0) {
+            if (oldHeight < 0) {
+                mUnmeasured--;
+            }
+            if (newHeight < 0) {
+                mUnmeasured++;
+            }
+            for (int i = index + 1; i < mHeights.length; i += i & -i) {
+                mHeights[i] += newHeight - oldHeight;
+            }
+        }
+    }
+
+    /**
+     * Updates the index to reflect a row having taken the place of another. Rows that aren't part
+     * of this index are ignored.
+     *
+     * @param oldRow The row that was replaced.
+     * @param newRow The row that replaced it.
+     */
+    void rowReplaced(Row oldRow, Row newRow) {
+        int index = indexOf(oldRow);
+        if (index != -1) {
+            mRows[index] = newRow;
+            newRow.setIndexPosition(index);
+            heightChanged(newRow, oldRow.getHeight(), newRow.getHeight());
+        }
+    }
+
+    /** @return {@code true} if any row that isn't filtered out has yet to have its height set. */
+    boolean hasUnmeasuredRows() {
+        return mUnmeasured > 0;
+    }
+
+    /**
+     * @param start   The index of the first row, inclusive.
+     * @param end     The index of the last row, exclusive.
+     * @param divider The height of the divider drawn after each row.
+     * @return The total height of the rows that aren't filtered out within the range, each
+     *         followed by a divider.
+     */
+    int heightBetween(int start, int end, int divider) {
+        return sum(mHeights, end) - sum(mHeights, start) + divider * visibleBetween(start, end);
+    }
+
+    /**
+     * @param start The index of the first row, inclusive.
+     * @param end   The index of the last row, exclusive.
+     * @return The number of rows that aren't filtered out within the range.
+     */
+    int visibleBetween(int start, int end) {
+        return sum(mCounts, end) - sum(mCounts, start);
+    }
+
+    /**
+     * @param start   The index of the row at which {@code offset} is zero.
+     * @param offset  The vertical offset to look for.
+     * @param divider The height of the divider drawn after each row.
+     * @return The index of the first row, at or after {@code start}, that isn't filtered out and
+     *         ends beyond {@code offset}. Will be the number of rows if there is no such row.
+     */
+    int indexAt(int start, int offset, int divider) {
+        // Search for the longest prefix whose extent is no greater than the target, descending the
+        // two trees in step. Row heights are never negative once measured, so the combined sums
+        // only ever grow as the prefix does.
+        int target = Math.max(offset, 0) + sum(mHeights, start) + divider * sum(mCounts, start);
+        int index  = 0;
+        for (int bit = mHighBit; bit != 0; bit >>= 1) {
+            int next = index + bit;
+            if (next < mHeights.length) {
+                int extent = mHeights[next] + divider * mCounts[next];
+                if (extent <= target) {
+                    index = next;
+                    target -= extent;
+                }
+            }
+        }
+        return Math.max(index, start);
+    }
+
+    /**
+     * @param start The index of the row to start at.
+     * @return The index of the first row, at or after {@code start}, that isn't filtered out. Will
+     *         be the number of rows if there is no such row.
+     */
+    int nextVisible(int start) {
+        int target = sum(mCounts, start);
+        int index  = 0;
+        for (int bit = mHighBit; bit != 0; bit >>= 1) {
+            int next = index + bit;
+            if (next < mCounts.length && mCounts[next] <= target) {
+                index = next;
+                target -= mCounts[next];
+            }
+        }
+        return index;
+    }
+
+    private static int sum(int[] tree, int end) {
+        int total = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            total += tree[i];
+        }
+        return total;
+    }
+}
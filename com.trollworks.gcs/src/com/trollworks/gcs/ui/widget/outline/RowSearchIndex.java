@@ -0,0 +1,200 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.ui.widget.outline;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the {@link Row#getSearchText()} of every row within an {@link OutlineModel}, disclosed
+ * or not, for finding the rows that contain a piece of text. Each run of three characters is mapped
+ * to the rows whose text contains it, so that only the rows containing every such run of the text
+ * being searched for need to be checked.
+ * <p>
+ * Once built, an index is never modified, so it may be searched from any thread.
+ */
+public final class RowSearchIndex {
+    private static final int[]               NO_ROWS = new int[0];
+    private final        Row[]               mRows;
+    private final        String[]            mTexts;
+    private final        Map<Long, Postings> mPostings;
+
+    RowSearchIndex(OutlineModel model) {
+        List<Row> rows = new ArrayList<>();
+        for (Row row : new RowIterator<>(model)) {
+            rows.add(row);
+        }
+        int count = rows.size();
+        mRows = rows.toArray(new Row[0]);
+        mTexts = new String[count];
+        mPostings = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String text = mRows[i].getSearchText();
+            mTexts[i] = text;
+            int length = text.length();
+            for (int j = 2; j < length; j++) {
+                mPostings.computeIfAbsent(Long.valueOf(trigram(text, j - 2)), (k) -> new Postings()).add(i);
+            }
+        }
+    }
+
+    /**
+     * @param text The text to search for, in lower case.
+     * @return The rows whose search text contains the text.
+     */
+    public Result search(String text) {
+        return search(text, null);
+    }
+
+    /**
+     * @param text     The text to search for, in lower case.
+     * @param previous The result of an earlier search, or {@code null}. If it came from this index
+     *                 and its text is contained within the new text, only its rows are checked.
+     * @return The rows whose search text contains the text.
+     */
+    public Result search(String text, Result previous) {
+        if (previous != null && previous.mIndex == this && text.contains(previous.mText)) {
+            int[] found = new int[previous.mCount];
+            int   count = 0;
+            for (int i = 0; i < previous.mCount; i++) {
+                int index = previous.mFound[i];
+                if (mTexts[index].contains(text)) {
+                    found[count++] = index;
+                }
+            }
+            return new Result(this, text, found, count);
+        }
+        int length = text.length();
+        if (length < 3) {
+            int[] found = new int[mRows.length];
+            int   count = 0;
+            for (int i = 0; i < mRows.length; i++) {
+                if (mTexts[i].contains(text)) {
+                    found[count++] = i;
+                }
+            }
+            return new Result(this, text, found, count);
+        }
+        List<Postings> all = new ArrayList<>(length - 2);
+        for (int j = 2; j < length; j++) {
+            Postings postings = mPostings.get(Long.valueOf(trigram(text, j - 2)));
+            if (postings == null) {
+                return new Result(this, text, NO_ROWS, 0);
+            }
+            all.add(postings);
+        }
+        // Start from the rarest run, so that the candidates are as few as possible from the outset
+        all.sort((p1, p2) -> Integer.compare(p1.mCount, p2.mCount));
+        int[] candidates = all.get(0).mRows.clone();
+        int   count      = all.get(0).mCount;
+        for (int j = 1; j < all.size() && count > 0; j++) {
+            count = all.get(j).retainIn(candidates, count);
+        }
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            int index = candidates[i];
+            // Having every run of three is necessary, but not sufficient, so check the text
+            if (mTexts[index].contains(text)) {
+                candidates[found++] = index;
+            }
+        }
+        return new Result(this, text, candidates, found);
+    }
+
+    /** The rows found by a search of a {@link RowSearchIndex}. */
+    public static final class Result extends AbstractList<Row> {
+        private final RowSearchIndex mIndex;
+        private final String         mText;
+        private final int[]          mFound;
+        private final int            mCount;
+
+        Result(RowSearchIndex index, String text, int[] found, int count) {
+            mIndex = index;
+            mText = text;
+            mFound = found;
+            mCount = count;
+        }
+
+        /** @return The index that was searched. */
+        public RowSearchIndex getIndex() {
+            return mIndex;
+        }
+
+        /** @return The text that was searched for. */
+        public String getText() {
+            return mText;
+        }
+
+        /**
+         * @param index The position of the row within this result.
+         * @return The row, in the order a {@link RowIterator} would return them.
+         */
+        @Override
+        public Row get(int index) {
+            if (index < 0 || index >= mCount) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return mIndex.mRows[mFound[index]];
+        }
+
+        @Override
+        public int size() {
+            return mCount;
+        }
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /** The indexes of the rows containing a particular run of characters, in ascending order. */
+    private static class Postings {
+        private int[] mRows  = NO_ROWS;
+        private int   mCount;
+
+        void add(int row) {
+            if (mCount == 0 || mRows[mCount - 1] != row) {
+                if (mCount == mRows.length) {
+                    int[] rows = new int[Math.max(mCount * 2, 4)];
+                    System.arraycopy(mRows, 0, rows, 0, mCount);
+                    mRows = rows;
+                }
+                mRows[mCount++] = row;
+            }
+        }
+
+        /**
+         * Removes any rows not contained in these postings from the candidates.
+         *
+         * @param candidates The candidate rows, in ascending order.
+         * @param count      The number of candidates.
+         * @return The number of candidates that remain.
+         */
+        int retainIn(int[] candidates, int count) {
+            int kept = 0;
+            int j    = 0;
+            for (int i = 0; i < count && j < mCount; i++) {
+                int candidate = candidates[i];
+                while (j < mCount && mRows[j] < candidate) {
+                    j++;
+                }
+                if (j < mCount && mRows[j] == candidate) {
+                    candidates[kept++] = candidate;
+                }
+            }
+            return kept;
+        }
+    }
+}
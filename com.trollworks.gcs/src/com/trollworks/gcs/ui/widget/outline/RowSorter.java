@@ -11,14 +11,26 @@
 
 package com.trollworks.gcs.ui.widget.outline;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-/** Sorts rows by the sort sequence specified in the associated columns. */
-public final class RowSorter implements Comparator<Row> {
-    private Column[] mSortingOrder;
+/**
+ * Sorts rows by the sort sequence specified in the associated columns. Each group of siblings is
+ * sorted on its own, with the values being compared extracted from each row at most once per column
+ * and shared by every list the row is sorted within, and the flat list of rows is then put back
+ * together from the sorted groups.
+ */
+public final class RowSorter {
+    private static final Object          NULL_KEY = new Object();
+    private              Column[]        mSortingOrder;
+    private              Cell[]          mCells;
+    private              Map<Row, Entry> mEntries;
 
     private RowSorter(List<Column> columns) {
         int      count = columns.size();
@@ -55,6 +67,12 @@ public final class RowSorter implements Comparator<Row> {
                 }
             }
         }
+
+        mCells = new Cell[count];
+        for (i = 0; i < count && mSortingOrder[i] != null; i++) {
+            mCells[i] = mSortingOrder[i].getRowCell(null);
+        }
+        mEntries = new IdentityHashMap<>();
     }
 
     /**
@@ -79,14 +97,14 @@ public final class RowSorter implements Comparator<Row> {
             if (column.getSortSequence() != -1) {
                 RowSorter rowSorter = new RowSorter(columns);
 
-                rows.sort(rowSorter);
                 if (internal) {
                     for (Row row : collectContainerRows(rows, new HashSet<>())) {
                         if (row.hasChildren()) {
-                            row.getChildList().sort(rowSorter);
+                            rowSorter.sortSiblings(row.getChildList());
                         }
                     }
                 }
+                rowSorter.sortFlattened(rows);
                 return;
             }
         }
@@ -111,42 +129,102 @@ public final class RowSorter implements Comparator<Row> {
         return containers;
     }
 
-    @Override
-    public int compare(Row rowOne, Row rowTwo) {
-        if (rowOne.getParent() == rowTwo.getParent()) {
-            for (Column column : mSortingOrder) {
-                int result;
+    /**
+     * Sorts a list of rows in which each row that has any of its children present is followed by
+     * them, and their descendants, as is the case for the rows of an {@link OutlineModel}. Each
+     * group of siblings is sorted and the list is then rebuilt from them, parents first.
+     *
+     * @param rows The rows to sort.
+     */
+    private void sortFlattened(List<Row> rows) {
+        Set<Row>            present  = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Row>           roots    = new ArrayList<>();
+        Map<Row, List<Row>> children = new IdentityHashMap<>();
+        present.addAll(rows);
+        for (Row row : rows) {
+            Row parent = row.getParent();
+            if (parent != null && present.contains(parent)) {
+                children.computeIfAbsent(parent, (k) -> new ArrayList<>()).add(row);
+            } else {
+                roots.add(row);
+            }
+        }
+        sortSiblings(roots);
+        for (List<Row> siblings : children.values()) {
+            sortSiblings(siblings);
+        }
+        List<Row> sorted = new ArrayList<>(rows.size());
+        for (Row row : roots) {
+            addWithDescendants(sorted, row, children);
+        }
+        for (int i = 0; i < sorted.size(); i++) {
+            rows.set(i, sorted.get(i));
+        }
+    }
 
-                if (column == null) {
-                    return 0;
-                }
-                result = column.getRowCell(null).compare(column, rowOne, rowTwo);
-                if (result != 0) {
-                    return column.isSortAscending() ? result : -result;
-                }
+    private static void addWithDescendants(List<Row> sorted, Row row, Map<Row, List<Row>> children) {
+        sorted.add(row);
+        List<Row> siblings = children.get(row);
+        if (siblings != null) {
+            for (Row child : siblings) {
+                addWithDescendants(sorted, child, children);
             }
-        } else {
-            if (rowOne.isDescendantOf(rowTwo)) {
-                return 1;
+        }
+    }
+
+    /**
+     * Sorts rows that share a parent. Rows that compare as equal keep their relative order.
+     *
+     * @param rows The rows to sort.
+     */
+    private void sortSiblings(List<Row> rows) {
+        int count = rows.size();
+        if (count > 1) {
+            Entry[] entries = new Entry[count];
+            for (int i = 0; i < count; i++) {
+                Row row = rows.get(i);
+                entries[i] = mEntries.computeIfAbsent(row, (k) -> new Entry(row));
             }
-            if (rowTwo.isDescendantOf(rowOne)) {
-                return -1;
+            Arrays.sort(entries, this::compare);
+            for (int i = 0; i < count; i++) {
+                rows.set(i, entries[i].mRow);
             }
+        }
+    }
 
-            // Find common parents and compare them...
-            Row[] oneParents = rowOne.getPath();
-            Row[] twoParents = rowTwo.getPath();
-            int   max        = Math.min(oneParents.length, twoParents.length);
-            int   i;
-
-            for (i = 0; i < max; i++) {
-                if (oneParents[i] != twoParents[i]) {
-                    break;
-                }
+    private int compare(Entry one, Entry two) {
+        for (int i = 0; i < mSortingOrder.length; i++) {
+            Column column = mSortingOrder[i];
+            if (column == null) {
+                return 0;
+            }
+            int result = mCells[i].compareSortKeys(column, one.getKey(i), two.getKey(i));
+            if (result != 0) {
+                return column.isSortAscending() ? result : -result;
             }
-
-            return compare(oneParents[i], twoParents[i]);
         }
         return 0;
     }
+
+    /** A row, along with the sort keys extracted from it so far. */
+    private final class Entry {
+        private Row      mRow;
+        private Object[] mKeys;
+
+        Entry(Row row) {
+            mRow = row;
+            mKeys = new Object[mSortingOrder.length];
+        }
+
+        Object getKey(int index) {
+            // Keys are only extracted when first needed, as most comparisons are settled by the
+            // first column or two
+            Object key = mKeys[index];
+            if (key == null) {
+                key = mCells[index].getSortKey(mSortingOrder[index], mRow);
+                mKeys[index] = key != null ? key : NULL_KEY;
+            }
+            return key != NULL_KEY ? key : null;
+        }
+    }
 }
@@ -17,27 +17,46 @@ import com.trollworks.gcs.utility.I18n;
 import com.trollworks.gcs.utility.Log;
 import com.trollworks.gcs.utility.SaveType;
 import com.trollworks.gcs.utility.json.Json;
+import com.trollworks.gcs.utility.json.JsonCollection;
 import com.trollworks.gcs.utility.json.JsonMap;
-import com.trollworks.gcs.utility.json.JsonWriter;
+import com.trollworks.gcs.utility.json.JsonTreeWriter;
+import com.trollworks.gcs.utility.undo.MeasuredEdit;
+import com.trollworks.gcs.utility.undo.UndoSpillFile;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.OutputStreamWriter;
+import java.io.IOException;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
 
-/** An undo for the entire row, with the exception of its children. */
-public class RowUndo extends AbstractUndoableEdit {
-    private DataFile mDataFile;
-    private ListRow  mRow;
-    private String   mName;
-    private byte[]   mBefore;
-    private byte[]   mAfter;
+/**
+ * An undo for the entire row, with the exception of its children. Only the values that differ
+ * between the before and after states are retained. Since undo and redo are always applied to a row
+ * that is in the opposite state, the rest of the row's data is taken from the row itself.
+ * Consecutive undos for the same values of the same row are merged into one.
+ */
+public class RowUndo extends AbstractUndoableEdit implements MeasuredEdit {
+    private static final String              KEY_BEFORE = "before";
+    private static final String              KEY_AFTER  = "after";
+    private              DataFile            mDataFile;
+    private              ListRow             mRow;
+    private              String              mName;
+    private              JsonMap             mBefore;
+    private              String[]            mKeys;
+    private              Object[]            mBeforeValues;
+    private              Object[]            mAfterValues;
+    private              long                mMemoryUsage;
+    private              UndoSpillFile       mSpillFile;
+    private              UndoSpillFile.Entry mSpillEntry;
 
     /**
      * Creates a new RowUndo.
@@ -48,7 +67,7 @@ public class RowUndo extends AbstractUndoableEdit {
         mRow = row;
         mDataFile = mRow.getDataFile();
         mName = MessageFormat.format(I18n.text("{0}个更改"), mRow.getLocalizedName());
-        mBefore = serialize(mRow);
+        mBefore = capture(mRow);
     }
 
     /**
@@ -57,37 +76,197 @@ public class RowUndo extends AbstractUndoableEdit {
      * @return {@code true} if there is a difference between the before and after state.
      */
     public boolean finish() {
-        mAfter = serialize(mRow);
-        int length = mBefore.length;
-        if (length != mAfter.length) {
-            return true;
+        JsonMap     after = capture(mRow);
+        Set<String> keys  = new HashSet<>(mBefore.keySet());
+        keys.addAll(after.keySet());
+        List<String> changed = new ArrayList<>();
+        for (String key : keys) {
+            if (!isSameValue(mBefore.get(key), after.get(key))) {
+                changed.add(key);
+            }
+        }
+        int count = changed.size();
+        mKeys = changed.toArray(new String[0]);
+        Arrays.sort(mKeys);
+        mBeforeValues = new Object[count];
+        mAfterValues = new Object[count];
+        for (int i = 0; i < count; i++) {
+            mBeforeValues[i] = mBefore.get(mKeys[i]);
+            mAfterValues[i] = after.get(mKeys[i]);
+        }
+        mBefore = null;
+        updateMemoryUsage();
+        return count != 0;
+    }
+
+    private void updateMemoryUsage() {
+        long usage = EDIT_OVERHEAD;
+        for (int i = 0; i < mKeys.length; i++) {
+            usage += MeasuredEdit.estimateSize(mKeys[i]) + estimateSize(mBeforeValues[i]) + estimateSize(mAfterValues[i]);
+        }
+        mMemoryUsage = usage;
+    }
+
+    private static long estimateSize(Object value) {
+        if (value instanceof JsonCollection collection) {
+            return MeasuredEdit.estimateSize(collection.toString(true));
+        }
+        return MeasuredEdit.estimateSize(value);
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        if (mKeys == null) {
+            return EDIT_OVERHEAD;
         }
-        for (int i = 0; i < length; i++) {
-            if (mBefore[i] != mAfter[i]) {
-                return true;
+        if (mSpillFile != null) {
+            // The keys are kept in memory, so that merges can be checked for without reading the
+            // values back in
+            long usage = EDIT_OVERHEAD;
+            for (String key : mKeys) {
+                usage += MeasuredEdit.estimateSize(key);
             }
+            return usage;
         }
-        return false;
+        return mMemoryUsage;
     }
 
-    private static byte[] serialize(ListRow row) {
+    @Override
+    public boolean spill(UndoSpillFile file) {
+        if (mSpillFile != null || mKeys == null) {
+            return false;
+        }
+        JsonMap before = new JsonMap();
+        JsonMap after  = new JsonMap();
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mBeforeValues[i] != null) {
+                before.put(mKeys[i], mBeforeValues[i]);
+            }
+            if (mAfterValues[i] != null) {
+                after.put(mKeys[i], mAfterValues[i]);
+            }
+        }
+        JsonMap m = new JsonMap();
+        m.put(KEY_BEFORE, before);
+        m.put(KEY_AFTER, after);
+        byte[] data = m.toString(true).getBytes(StandardCharsets.UTF_8);
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            try (GZIPOutputStream gos = new GZIPOutputStream(baos)) {
-                try (JsonWriter w = new JsonWriter(new OutputStreamWriter(gos, StandardCharsets.UTF_8), "")) {
-                    row.save(w, SaveType.UNDO);
-                }
+            mSpillEntry = file.write(data);
+        } catch (IOException exception) {
+            Log.error(exception);
+            return false;
+        }
+        mSpillFile = file;
+        mBeforeValues = null;
+        mAfterValues = null;
+        return true;
+    }
+
+    private void unspill() {
+        if (mSpillFile == null) {
+            return;
+        }
+        int count = mKeys.length;
+        mBeforeValues = new Object[count];
+        mAfterValues = new Object[count];
+        try {
+            JsonMap m      = Json.asMap(Json.parse(new StringReader(new String(mSpillFile.read(mSpillEntry), StandardCharsets.UTF_8))));
+            JsonMap before = m.getMap(KEY_BEFORE);
+            JsonMap after  = m.getMap(KEY_AFTER);
+            for (int i = 0; i < count; i++) {
+                mBeforeValues[i] = before.get(mKeys[i]);
+                mAfterValues[i] = after.get(mKeys[i]);
             }
-            return baos.toByteArray();
-        } catch (Exception exception) {
+        } catch (IOException exception) {
+            Log.error(exception);
+            mKeys = new String[0];
+            mBeforeValues = new Object[0];
+            mAfterValues = new Object[0];
+        }
+        releaseSpill();
+        updateMemoryUsage();
+    }
+
+    private void releaseSpill() {
+        if (mSpillFile != null) {
+            mSpillFile.release(mSpillEntry);
+            mSpillFile = null;
+            mSpillEntry = null;
+        }
+    }
+
+    @Override
+    public void die() {
+        super.die();
+        releaseSpill();
+    }
+
+    /**
+     * @param other Another {@link RowUndo} that was finished after this one.
+     * @return {@code true} if the other undo changed exactly the same values of the same row.
+     */
+    boolean canMerge(RowUndo other) {
+        return mRow == other.mRow && mKeys != null && other.mKeys != null && Arrays.equals(mKeys, other.mKeys);
+    }
+
+    /**
+     * Extends this undo to also cover the changes made by another. Must only be called once {@link
+     * #canMerge(RowUndo)} has returned {@code true} for it.
+     *
+     * @param other The other {@link RowUndo}.
+     */
+    void merge(RowUndo other) {
+        unspill();
+        other.unspill();
+        mAfterValues = other.mAfterValues;
+        updateMemoryUsage();
+    }
+
+    @Override
+    public boolean addEdit(UndoableEdit edit) {
+        if (edit instanceof RowUndo other && canUndo() && canMerge(other)) {
+            merge(other);
+            other.die();
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isSameValue(Object v1, Object v2) {
+        if (v1 instanceof JsonCollection c1 && v2 instanceof JsonCollection c2) {
+            return c1.toString(true).equals(c2.toString(true));
+        }
+        return Objects.equals(v1, v2);
+    }
+
+    /**
+     * Captures the row's data. The data is built directly, rather than written out as text and
+     * parsed back in, but the cost remains proportional to the size of the row, since rows can only
+     * be saved and loaded whole.
+     */
+    private static JsonMap capture(ListRow row) {
+        try {
+            JsonTreeWriter w = new JsonTreeWriter();
+            row.save(w, SaveType.UNDO);
+            return Json.asMap(w.getValue());
+        } catch (IOException exception) {
             Log.error(exception);
         }
-        return new byte[0];
+        return new JsonMap();
     }
 
-    private void deserialize(byte[] buffer) {
-        try (GZIPInputStream s = new GZIPInputStream(new ByteArrayInputStream(buffer))) {
-            JsonMap   m     = Json.asMap(Json.parse(s));
+    private void apply(boolean before) {
+        unspill();
+        Object[] values = before ? mBeforeValues : mAfterValues;
+        try {
+            JsonMap m = capture(mRow);
+            for (int i = 0; i < mKeys.length; i++) {
+                if (values[i] == null) {
+                    m.remove(mKeys[i]);
+                } else {
+                    m.put(mKeys[i], values[i]);
+                }
+            }
             LoadState state = new LoadState();
             state.mDataFileVersion = DataFile.CURRENT_VERSION;
             state.mForUndo = true;
@@ -100,13 +279,13 @@ public class RowUndo extends AbstractUndoableEdit {
     @Override
     public void undo() throws CannotUndoException {
         super.undo();
-        deserialize(mBefore);
+        apply(true);
     }
 
     @Override
     public void redo() throws CannotRedoException {
         super.redo();
-        deserialize(mAfter);
+        apply(false);
     }
 
     /** @return The {@link DataFile} this undo works on. */
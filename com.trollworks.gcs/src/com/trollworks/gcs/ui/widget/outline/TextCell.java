@@ -71,6 +71,45 @@ public class TextCell implements Cell {
         return NumericComparator.caselessCompareStrings(one.getDataAsText(column), two.getDataAsText(column));
     }
 
+    @Override
+    public Object getSortKey(Column column, Row row) {
+        return new SortKey(column, row);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public int compareSortKeys(Column column, Object one, Object two) {
+        SortKey oneKey = (SortKey) one;
+        SortKey twoKey = (SortKey) two;
+        Object  oneObj = oneKey.mData;
+        Object  twoObj = twoKey.mData;
+        if (!(oneObj instanceof String) && oneObj.getClass() == twoObj.getClass() && oneObj instanceof Comparable<?>) {
+            return ((Comparable<Object>) oneObj).compareTo(twoObj);
+        }
+        return NumericComparator.caselessCompareStrings(oneKey.getText(), twoKey.getText());
+    }
+
+    /** The data of a row, with its text form only obtained if a comparison falls back to it. */
+    private static final class SortKey {
+        private Column mColumn;
+        private Row    mRow;
+        private Object mData;
+        private String mText;
+
+        SortKey(Column column, Row row) {
+            mColumn = column;
+            mRow = row;
+            mData = row.getData(column);
+        }
+
+        String getText() {
+            if (mText == null) {
+                mText = mRow.getDataAsText(mColumn);
+            }
+            return mText;
+        }
+    }
+
     /**
      * @param outline  The outline.
      * @param row      The row.
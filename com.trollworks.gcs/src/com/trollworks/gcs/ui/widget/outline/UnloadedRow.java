@@ -0,0 +1,64 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.ui.widget.outline;
+
+import java.util.List;
+
+/**
+ * Stands in for a top-level row of an {@link OutlineModel} that hasn't been loaded from its {@link
+ * UnloadedRowSource} yet. Never handed out by the model's public methods.
+ */
+final class UnloadedRow extends Row {
+    private int     mSourceIndex;
+    private boolean mUnloadable;
+
+    /** @param sourceIndex The index of the row within its {@link UnloadedRowSource}. */
+    UnloadedRow(int sourceIndex) {
+        mSourceIndex = sourceIndex;
+    }
+
+    /** @return The index of the row within its {@link UnloadedRowSource}. */
+    int getSourceIndex() {
+        return mSourceIndex;
+    }
+
+    /** @return Whether an attempt to load the row has failed. */
+    boolean isUnloadable() {
+        return mUnloadable;
+    }
+
+    /** Marks the row as one that couldn't be loaded, so that no further attempt is made. */
+    void markUnloadable() {
+        mUnloadable = true;
+    }
+
+    @Override
+    public Object getData(Column column) {
+        return null;
+    }
+
+    @Override
+    public String getDataAsText(Column column) {
+        return "";
+    }
+
+    @Override
+    public void setData(Column column, Object data) {
+        // There is nothing to set until the row has been loaded.
+    }
+
+    @Override
+    public int getPreferredHeight(Outline outline, List<Column> columns) {
+        // There is no content to measure, so stick with whatever height has been estimated
+        return Math.max(getHeight(), 0);
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.ui.widget.outline;
+
+/**
+ * Supplies the top-level rows of an {@link OutlineModel} that are only loaded once they're first
+ * needed. See {@link OutlineModel#setUnloadedRows(UnloadedRowSource, int)}.
+ */
+public interface UnloadedRowSource {
+    /**
+     * Loads top-level rows. Always called on the event dispatch thread, and never more than once
+     * for the same row.
+     *
+     * @param indexes The indexes of the rows to load.
+     * @return The rows, in the same order as their indexes. An entry is {@code null} if its row
+     *         couldn't be loaded.
+     */
+    Row[] loadRows(int[] indexes);
+
+    /** Called once every row has been loaded, after which this source is no longer used. */
+    void allRowsLoaded();
+}
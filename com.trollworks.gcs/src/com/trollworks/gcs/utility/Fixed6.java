@@ -22,6 +22,7 @@ public class Fixed6 implements Comparable<Fixed6> {
     public static final  Fixed6     ONE        = new Fixed6(1);
     private static final long       FACTOR     = 1000000;
     public static final  BigInteger BIG_FACTOR = BigInteger.valueOf(FACTOR);
+    private static final long       DIV_LIMIT  = Long.MAX_VALUE / FACTOR;
     private              long       mRawValue;
 
     private Fixed6(long value, boolean unused) {
@@ -92,6 +93,62 @@ public class Fixed6 implements Comparable<Fixed6> {
         }
     }
 
+    /**
+     * @param rawValue A raw value, such as one returned by {@link #getRawValue()}.
+     * @return A value with the specified raw value.
+     */
+    public static Fixed6 fromRawValue(long rawValue) {
+        return new Fixed6(rawValue, true);
+    }
+
+    /**
+     * @param value A whole number.
+     * @return The raw value that represents the whole number.
+     */
+    public static long rawValueOf(long value) {
+        return value * FACTOR;
+    }
+
+    /**
+     * Multiplies two raw values. Raw values may be added and subtracted directly, so this and
+     * {@link #divRaw(long, long)} allow arithmetic to be done without creating any objects.
+     *
+     * @param left  The raw value of the left side.
+     * @param right The raw value of the right side.
+     * @return The raw value of the product.
+     */
+    public static long mulRaw(long left, long right) {
+        long high = Math.multiplyHigh(left, right);
+        long low  = left * right;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return low / FACTOR;
+        }
+        // Use BigInteger here to allow cases that would normally overflow in the intermediate
+        // stages to work
+        return BigInteger.valueOf(left).multiply(BigInteger.valueOf(right)).divide(BIG_FACTOR).longValue();
+    }
+
+    /**
+     * Divides one raw value by another.
+     *
+     * @param left  The raw value of the dividend.
+     * @param right The raw value of the divisor.
+     * @return The raw value of the quotient.
+     */
+    public static long divRaw(long left, long right) {
+        if (left > -DIV_LIMIT && left < DIV_LIMIT) {
+            return left * FACTOR / right;
+        }
+        // Use BigInteger here to allow cases that would normally overflow in the intermediate
+        // stages to work
+        return BigInteger.valueOf(left).multiply(BIG_FACTOR).divide(BigInteger.valueOf(right)).longValue();
+    }
+
+    /** @return The raw value, which is the value multiplied by 10^6. */
+    public long getRawValue() {
+        return mRawValue;
+    }
+
     public Fixed6 add(Fixed6 other) {
         return new Fixed6(mRawValue + other.mRawValue, true);
     }
@@ -101,15 +158,11 @@ public class Fixed6 implements Comparable<Fixed6> {
     }
 
     public Fixed6 mul(Fixed6 other) {
-        // Use BigInteger here to allow cases that would normally overflow in the intermediate
-        // stages to work
-        return new Fixed6(BigInteger.valueOf(mRawValue).multiply(BigInteger.valueOf(other.mRawValue)).divide(BIG_FACTOR).longValue(), true);
+        return new Fixed6(mulRaw(mRawValue, other.mRawValue), true);
     }
 
     public Fixed6 div(Fixed6 other) {
-        // Use BigInteger here to allow cases that would normally overflow in the intermediate
-        // stages to work
-        return new Fixed6(BigInteger.valueOf(mRawValue).multiply(BIG_FACTOR).divide(BigInteger.valueOf(other.mRawValue)).longValue(), true);
+        return new Fixed6(divRaw(mRawValue, other.mRawValue), true);
     }
 
     /** @return a new value which has everything to the right of the decimal place truncated */
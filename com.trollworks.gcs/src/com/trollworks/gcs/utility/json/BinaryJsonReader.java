@@ -0,0 +1,140 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes JSON values written by {@link BinaryJsonWriter}, producing the same {@link JsonMap}s,
+ * {@link JsonArray}s and values that {@link Json#parse(java.io.Reader)} would have.
+ */
+public final class BinaryJsonReader {
+    private byte[]       mData;
+    private int          mPos;
+    private List<String> mStrings;
+
+    /** @param data The encoded data. */
+    public BinaryJsonReader(byte[] data) {
+        mData = data;
+        mStrings = new ArrayList<>();
+    }
+
+    /** @return {@code true} if more values are available. */
+    public boolean hasNext() {
+        return mPos < mData.length;
+    }
+
+    /** @return The next value. */
+    public Object next() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+            case BinaryJsonWriter.TAG_NULL:
+                return JsonNull.INSTANCE;
+            case BinaryJsonWriter.TAG_FALSE:
+                return Boolean.FALSE;
+            case BinaryJsonWriter.TAG_TRUE:
+                return Boolean.TRUE;
+            case BinaryJsonWriter.TAG_INT:
+                return Integer.valueOf((int) unzigzag(readVarLong()));
+            case BinaryJsonWriter.TAG_LONG:
+                return Long.valueOf(unzigzag(readVarLong()));
+            case BinaryJsonWriter.TAG_DOUBLE: {
+                long bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits |= (long) readByte() << (i * 8);
+                }
+                return Double.valueOf(Double.longBitsToDouble(bits));
+            }
+            case BinaryJsonWriter.TAG_STRING:
+            case BinaryJsonWriter.TAG_STRING_REF:
+                return readString(tag);
+            case BinaryJsonWriter.TAG_MAP: {
+                int     count = readCount();
+                JsonMap map   = new JsonMap();
+                for (int i = 0; i < count; i++) {
+                    String key = readString(readByte());
+                    map.put(key, next());
+                }
+                return map;
+            }
+            case BinaryJsonWriter.TAG_ARRAY: {
+                int       count = readCount();
+                JsonArray array = new JsonArray();
+                for (int i = 0; i < count; i++) {
+                    array.put(next());
+                }
+                return array;
+            }
+            default:
+                throw corrupt();
+        }
+    }
+
+    private String readString(int tag) throws IOException {
+        if (tag == BinaryJsonWriter.TAG_STRING_REF) {
+            int index = readCount();
+            if (index >= mStrings.size()) {
+                throw corrupt();
+            }
+            return mStrings.get(index);
+        }
+        if (tag != BinaryJsonWriter.TAG_STRING) {
+            throw corrupt();
+        }
+        int length = readCount();
+        if (length > mData.length - mPos) {
+            throw corrupt();
+        }
+        String str = new String(mData, mPos, length, StandardCharsets.UTF_8);
+        mPos += length;
+        mStrings.add(str);
+        return str;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readCount() throws IOException {
+        long count = readVarLong();
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw corrupt();
+        }
+        return (int) count;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw corrupt();
+    }
+
+    private int readByte() throws IOException {
+        if (mPos >= mData.length) {
+            throw corrupt();
+        }
+        return mData[mPos++] & 0xFF;
+    }
+
+    private static IOException corrupt() {
+        return new IOException("corrupt binary JSON data");
+    }
+}
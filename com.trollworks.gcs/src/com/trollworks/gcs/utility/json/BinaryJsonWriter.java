@@ -0,0 +1,130 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encodes JSON values into a compact binary form that {@link BinaryJsonReader} can decode. Integers
+ * are written as variable-length quantities and each distinct string is written only once, with
+ * later occurrences referring back to it.
+ */
+public final class BinaryJsonWriter {
+    static final int TAG_NULL       = 0;
+    static final int TAG_FALSE      = 1;
+    static final int TAG_TRUE       = 2;
+    static final int TAG_INT        = 3;
+    static final int TAG_LONG       = 4;
+    static final int TAG_DOUBLE     = 5;
+    static final int TAG_STRING     = 6;
+    static final int TAG_STRING_REF = 7;
+    static final int TAG_MAP        = 8;
+    static final int TAG_ARRAY      = 9;
+
+    private byte[]               mBuffer  = new byte[8192];
+    private int                  mSize;
+    private Map<String, Integer> mStrings = new HashMap<>();
+
+    /**
+     * Appends a value. Only the types of value that {@link Json#parse(java.io.Reader)} produces
+     * are supported.
+     *
+     * @param value The value to write.
+     */
+    public void write(Object value) throws IOException {
+        if (value == null || value == JsonNull.INSTANCE) {
+            writeByte(TAG_NULL);
+        } else if (value instanceof Boolean bool) {
+            writeByte(bool.booleanValue() ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer num) {
+            writeByte(TAG_INT);
+            writeVarLong(zigzag(num.intValue()));
+        } else if (value instanceof Long num) {
+            writeByte(TAG_LONG);
+            writeVarLong(zigzag(num.longValue()));
+        } else if (value instanceof Double num) {
+            writeByte(TAG_DOUBLE);
+            long bits = Double.doubleToRawLongBits(num.doubleValue());
+            for (int i = 0; i < 8; i++) {
+                writeByte((int) (bits >>> (i * 8)));
+            }
+        } else if (value instanceof String str) {
+            writeString(str);
+        } else if (value instanceof JsonMap map) {
+            Set<String> keys = map.keySet();
+            writeByte(TAG_MAP);
+            writeVarLong(keys.size());
+            for (String key : keys) {
+                writeString(key);
+                write(map.get(key));
+            }
+        } else if (value instanceof JsonArray array) {
+            int count = array.size();
+            writeByte(TAG_ARRAY);
+            writeVarLong(count);
+            for (int i = 0; i < count; i++) {
+                write(array.get(i));
+            }
+        } else {
+            throw new IOException("unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    /** @return The encoded data. */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(mBuffer, mSize);
+    }
+
+    private void writeString(String str) {
+        Integer index = mStrings.get(str);
+        if (index != null) {
+            writeByte(TAG_STRING_REF);
+            writeVarLong(index.intValue());
+        } else {
+            mStrings.put(str, Integer.valueOf(mStrings.size()));
+            byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+            writeByte(TAG_STRING);
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, mBuffer, mSize, bytes.length);
+            mSize += bytes.length;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        mBuffer[mSize++] = (byte) value;
+    }
+
+    private void ensureCapacity(int amount) {
+        if (mSize + amount > mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mSize + amount));
+        }
+    }
+}
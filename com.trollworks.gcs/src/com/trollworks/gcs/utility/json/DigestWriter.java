@@ -0,0 +1,113 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.json;
+
+import java.io.Writer;
+
+/**
+ * A {@link Writer} that discards the characters written to it, keeping only a 128-bit hash of them.
+ * Characters are folded in four at a time using the mixing steps of MurmurHash3, so nothing is
+ * buffered beyond the current block. Not suitable for cryptographic use.
+ */
+public class DigestWriter extends Writer {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private              long mHigh;
+    private              long mLow;
+    private              long mBlock;
+    private              int  mBlockCount;
+    private              long mLength;
+
+    @Override
+    public void write(int c) {
+        mBlock |= (long) (c & 0xFFFF) << (mBlockCount * 16);
+        mLength++;
+        if (++mBlockCount == 4) {
+            mix(mBlock);
+            mBlock = 0;
+            mBlockCount = 0;
+        }
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            write(buffer[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            write(str.charAt(i));
+        }
+    }
+
+    private void mix(long k) {
+        k *= C1;
+        k = Long.rotateLeft(k, 31);
+        k *= C2;
+        mHigh ^= k;
+        mHigh = Long.rotateLeft(mHigh, 27) + mLow;
+        mHigh = mHigh * 5 + 0x52dce729;
+        k *= C1;
+        k = Long.rotateLeft(k, 33);
+        k *= C2;
+        mLow ^= k;
+        mLow = Long.rotateLeft(mLow, 31) + mHigh;
+        mLow = mLow * 5 + 0x38495ab5;
+    }
+
+    /** @return The hash of the characters written so far. */
+    public JsonDigest getDigest() {
+        long high = mHigh;
+        long low  = mLow;
+        if (mBlockCount != 0) {
+            long k = mBlock * C1;
+            k = Long.rotateLeft(k, 31);
+            high ^= k * C2;
+            k = mBlock * C2;
+            k = Long.rotateLeft(k, 33);
+            low ^= k * C1;
+        }
+        high ^= mLength;
+        low ^= mLength;
+        high += low;
+        low += high;
+        high = finalMix(high);
+        low = finalMix(low);
+        high += low;
+        low += high;
+        return new JsonDigest(high, low);
+    }
+
+    private static long finalMix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to do.
+    }
+
+    @Override
+    public void close() {
+        // Nothing to do.
+    }
+}
@@ -11,7 +11,6 @@
 
 package com.trollworks.gcs.utility.json;
 
-import com.trollworks.gcs.utility.Log;
 import com.trollworks.gcs.utility.UrlUtils;
 
 import java.io.IOException;
@@ -25,20 +24,12 @@ import java.util.Map;
 
 /** Json utilities. */
 public final class Json {
-    private Reader  mReader;
-    private int     mIndex;
-    private int     mCharacter = 1;
-    private int     mLine      = 1;
-    private char    mPrevious;
-    private boolean mEOF;
-    private boolean mUsePrevious;
-
     /**
      * @param reader A {@link Reader} to load JSON data from.
      * @return The result of loading the data.
      */
     public static Object parse(Reader reader) throws IOException {
-        return new Json(reader).nextValue();
+        return new JsonReader(reader).nextValue();
     }
 
     /**
@@ -305,265 +296,6 @@ public final class Json {
         return buffer.toString();
     }
 
-    private Json(Reader reader) {
-        mReader = reader;
-    }
-
-    private char next() throws IOException {
-        int c;
-        if (mUsePrevious) {
-            mUsePrevious = false;
-            c = mPrevious;
-        } else {
-            try {
-                c = mReader.read();
-            } catch (IOException ioe) {
-                Log.error(toString());
-                throw ioe;
-            }
-            if (c <= 0) { // End of stream
-                mEOF = true;
-                c = 0;
-            }
-        }
-        mIndex++;
-        if (mPrevious == '\r') {
-            mLine++;
-            mCharacter = c == '\n' ? 0 : 1;
-        } else if (c == '\n') {
-            mLine++;
-            mCharacter = 0;
-        } else {
-            mCharacter++;
-        }
-        mPrevious = (char) c;
-        return mPrevious;
-    }
-
-    private char nextSkippingWhitespace() throws IOException {
-        for (; ; ) {
-            char c = next();
-            if (c == 0 || c > ' ') {
-                return c;
-            }
-        }
-    }
-
-    private Object nextValue() throws IOException {
-        char   c = nextSkippingWhitespace();
-        String s;
-
-        switch (c) {
-            case '"':
-            case '\'':
-                return nextString(c);
-            case '{':
-                back();
-                return nextMap();
-            case '[':
-            case '(':
-                back();
-                return nextArray();
-            default:
-                break;
-        }
-
-        StringBuilder sb = new StringBuilder();
-        while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
-            sb.append(c);
-            c = next();
-        }
-        back();
-
-        s = sb.toString().trim();
-        if (s.isEmpty()) {
-            throw syntaxError("missing value");
-        }
-        if ("true".equalsIgnoreCase(s)) {
-            return Boolean.TRUE;
-        }
-        if ("false".equalsIgnoreCase(s)) {
-            return Boolean.FALSE;
-        }
-        if ("null".equalsIgnoreCase(s)) {
-            return JsonNull.INSTANCE;
-        }
-
-        char b = s.charAt(0);
-        if (b >= '0' && b <= '9' || b == '.' || b == '-' || b == '+') {
-            if (b == '0' && s.length() > 2 && (s.charAt(1) == 'x' || s.charAt(1) == 'X')) {
-                try {
-                    return Integer.valueOf(Integer.parseInt(s.substring(2), 16));
-                } catch (Exception ignore) {
-                    Log.error(ignore);
-                }
-            }
-            try {
-                if (s.indexOf('.') > -1 || s.indexOf('e') > -1 || s.indexOf('E') > -1) {
-                    return Double.valueOf(s);
-                }
-                Long myLong = Long.valueOf(s);
-                if (myLong.longValue() == myLong.intValue()) {
-                    return Integer.valueOf(myLong.intValue());
-                }
-                return myLong;
-            } catch (Exception ignore) {
-                Log.error(ignore);
-            }
-        }
-        return s;
-    }
-
-    private JsonArray nextArray() throws IOException {
-        char c = nextSkippingWhitespace();
-        char q;
-        if (c == '[') {
-            q = ']';
-        } else if (c == '(') {
-            q = ')';
-        } else {
-            throw syntaxError("a JSONArray text must start with '['");
-        }
-        JsonArray array = new JsonArray();
-        if (nextSkippingWhitespace() == ']') {
-            return array;
-        }
-        back();
-        for (; ; ) {
-            if (nextSkippingWhitespace() == ',') {
-                back();
-                array.put(null);
-            } else {
-                back();
-                array.put(nextValue());
-            }
-            c = nextSkippingWhitespace();
-            switch (c) {
-                case ';', ',' -> {
-                    if (nextSkippingWhitespace() == ']') {
-                        return array;
-                    }
-                    back();
-                }
-                case ']', ')' -> {
-                    if (q != c) {
-                        throw syntaxError("expected a '" + q + "'");
-                    }
-                    return array;
-                }
-                default -> throw syntaxError("expected a ',' or ']'");
-            }
-        }
-    }
-
-    private JsonMap nextMap() throws IOException {
-        char   c;
-        String key;
-
-        if (nextSkippingWhitespace() != '{') {
-            throw syntaxError("JSON object text must begin with '{'");
-        }
-        JsonMap map = new JsonMap();
-        while (true) {
-            c = nextSkippingWhitespace();
-            switch (c) {
-                case 0:
-                    throw syntaxError("JSON object text must end with '}'");
-                case '}':
-                    return map;
-                default:
-                    back();
-                    key = nextValue().toString();
-            }
-
-            c = nextSkippingWhitespace();
-            if (c == '=') {
-                if (next() != '>') {
-                    back();
-                }
-            } else if (c != ':') {
-                throw syntaxError("expected a ':' after a key");
-            }
-            if (map.has(key)) {
-                throw new IOException("duplicate key \"" + key + "\"");
-            }
-            map.put(key, nextValue());
-
-            switch (nextSkippingWhitespace()) {
-                case ';':
-                case ',':
-                    if (nextSkippingWhitespace() == '}') {
-                        return map;
-                    }
-                    back();
-                    break;
-                case '}':
-                    return map;
-                default:
-                    throw syntaxError("expected a ',' or '}'");
-            }
-        }
-    }
-
-    private String nextString(char quote) throws IOException {
-        char          c;
-        StringBuilder buffer = new StringBuilder();
-        while (true) {
-            c = next();
-            switch (c) {
-                case 0, '\n', '\r' -> throw syntaxError("unterminated string");
-                case '\\' -> {
-                    c = next();
-                    switch (c) {
-                        case 'b' -> buffer.append('\b');
-                        case 't' -> buffer.append('\t');
-                        case 'n' -> buffer.append('\n');
-                        case 'f' -> buffer.append('\f');
-                        case 'r' -> buffer.append('\r');
-                        case 'u' -> buffer.append((char) Integer.parseInt(next4(), 16));
-                        case '"', '\'', '\\', '/' -> buffer.append(c);
-                        default -> throw syntaxError("illegal escape");
-                    }
-                }
-                default -> {
-                    if (c == quote) {
-                        return buffer.toString();
-                    }
-                    buffer.append(c);
-                }
-            }
-        }
-    }
-
-    private void back() {
-        if (mUsePrevious || mIndex <= 0) {
-            throw new IllegalStateException("stepping back two steps is not supported");
-        }
-        mIndex--;
-        mCharacter--;
-        mUsePrevious = true;
-        mEOF = false;
-    }
-
-    private String next4() throws IOException {
-        char[] buffer = new char[4];
-        int    pos    = 0;
-        while (pos < 4) {
-            buffer[pos] = next();
-            if (mEOF && !mUsePrevious) {
-                throw syntaxError("substring bounds error");
-            }
-            pos++;
-        }
-        return new String(buffer);
-    }
-
-    private IOException syntaxError(String message) {
-        return new IOException(message + this);
-    }
-
-    @Override
-    public String toString() {
-        return " at " + mIndex + " [character " + mCharacter + " line " + mLine + "]";
+    private Json() {
     }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/** A 128-bit hash of the JSON written by something, used to tell cheaply whether it has changed. */
+public final class JsonDigest {
+    private long mHigh;
+    private long mLow;
+
+    /** Writes the JSON to be hashed. */
+    public interface Source {
+        /** @param w The {@link JsonWriter} to use. */
+        void save(JsonWriter w) throws IOException;
+    }
+
+    /**
+     * @param source The {@link Source} of the JSON to hash.
+     * @return The hash of the JSON, in its compact form.
+     */
+    public static JsonDigest of(Source source) {
+        DigestWriter digest = new DigestWriter();
+        try (JsonWriter w = new JsonWriter(digest, "")) {
+            source.save(w);
+        } catch (IOException exception) {
+            // The DigestWriter never fails, so this could only have come from the source itself
+            throw new UncheckedIOException(exception);
+        }
+        return digest.getDigest();
+    }
+
+    JsonDigest(long high, long low) {
+        mHigh = high;
+        mLow = low;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof JsonDigest digest && mHigh == digest.mHigh && mLow == digest.mLow;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (mLow ^ (mLow >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        char[] buffer = new char[32];
+        for (int i = 0; i < 16; i++) {
+            buffer[15 - i] = Character.forDigit((int) (mHigh >>> (i * 4)) & 0xF, 16);
+            buffer[31 - i] = Character.forDigit((int) (mLow >>> (i * 4)) & 0xF, 16);
+        }
+        return new String(buffer);
+    }
+}
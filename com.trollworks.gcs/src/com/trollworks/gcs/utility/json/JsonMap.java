@@ -145,6 +145,11 @@ public class JsonMap extends JsonCollection {
         }
     }
 
+    /** @param key The key to remove, along with its value. */
+    public void remove(String key) {
+        mMap.remove(key);
+    }
+
     @Override
     public void appendTo(Appendable buffer, boolean compact, int depth) throws IOException {
         boolean needComma = false;
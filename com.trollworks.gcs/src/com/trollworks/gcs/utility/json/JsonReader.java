@@ -0,0 +1,762 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.json;
+
+import com.trollworks.gcs.utility.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A pull parser for JSON data. Tokens are scanned straight out of a private character buffer, so
+ * that callers may consume values one at a time as they are needed, rather than first building a
+ * tree of {@link JsonMap}s and {@link JsonArray}s. The same relaxed syntax that {@link
+ * Json#parse(Reader)} has always accepted is supported: single-quoted strings, unquoted text,
+ * {@code '='} or {@code "=>"} between keys and values, {@code ';'} as a separator and trailing
+ * separators.
+ * <p>
+ * Unlike {@link #nextValue()}, the pull methods do not check maps for duplicate keys.
+ */
+public final class JsonReader implements Closeable {
+    /** The types of token that may be returned by {@link #peek()}. */
+    public enum Token {
+        BEGIN_MAP,
+        END_MAP,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        KEY,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        END
+    }
+
+    private static final int BUFFER_SIZE       = 8192;
+    private static final int KEY_CACHE_SIZE    = 256;
+    private static final int MAX_FAST_DIGITS   = 18;
+    private static final int EMPTY_DOCUMENT    = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int MAP_KEY           = 2;
+    private static final int MAP_VALUE         = 3;
+    private static final int MAP_AFTER_VALUE   = 4;
+    private static final int ARRAY_FIRST       = 5;
+    private static final int ARRAY_VALUE       = 6;
+    private static final int ARRAY_AFTER_VALUE = 7;
+
+    private Reader        mReader;
+    private char[]        mBuffer;
+    private int           mPos;
+    private int           mLimit;
+    private long          mOffset;
+    private boolean       mEOF;
+    private int           mLine;
+    private long          mLineStart;
+    private boolean       mAfterCR;
+    private int[]         mStack;
+    private char[]        mClosers;
+    private int           mDepth;
+    private Token         mToken;
+    private char          mPendingCloser;
+    private String        mKey;
+    private String        mString;
+    private boolean       mHasLong;
+    private long          mLong;
+    private Object        mValue;
+    private StringBuilder mText;
+    private String[]      mKeyCache;
+    private JsonRecorder  mRecorder;
+
+    /** @param reader A {@link Reader} to load JSON data from. */
+    public JsonReader(Reader reader) {
+        mReader = reader;
+        mBuffer = new char[BUFFER_SIZE];
+        mLine = 1;
+        mStack = new int[32];
+        mClosers = new char[32];
+        mStack[mDepth++] = EMPTY_DOCUMENT;
+        mText = new StringBuilder();
+        mKeyCache = new String[KEY_CACHE_SIZE];
+    }
+
+    /**
+     * @param recorder The {@link JsonRecorder} to pass everything consumed from this point on to,
+     *                 or {@code null}.
+     */
+    public void setRecorder(JsonRecorder recorder) {
+        mRecorder = recorder;
+    }
+
+    /**
+     * @return The type of the next token, without consuming it. {@link Token#END} is returned once
+     *         the first value in the stream has been fully consumed; anything after it is ignored.
+     */
+    public Token peek() throws IOException {
+        if (mToken == null) {
+            mToken = advance();
+        }
+        return mToken;
+    }
+
+    /** @return {@code true} if the current map or array has another element. */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_MAP && token != Token.END_ARRAY && token != Token.END;
+    }
+
+    /** Consumes the start of a map. */
+    public void beginMap() throws IOException {
+        expect(Token.BEGIN_MAP);
+        push(MAP_KEY);
+    }
+
+    /** Consumes the end of a map. */
+    public void endMap() throws IOException {
+        expect(Token.END_MAP);
+        mDepth--;
+    }
+
+    /** Consumes the start of an array. */
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(ARRAY_FIRST);
+        mClosers[mDepth - 1] = mPendingCloser;
+    }
+
+    /** Consumes the end of an array. */
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        mDepth--;
+    }
+
+    /** @return The next key within the current map. */
+    public String nextKey() throws IOException {
+        expect(Token.KEY);
+        return mKey;
+    }
+
+    /**
+     * Consumes the next value, converting it as {@link Json#asString(Object)} would.
+     *
+     * @return The value.
+     */
+    public String nextString() throws IOException {
+        switch (peek()) {
+            case STRING:
+                consume();
+                return mString;
+            case NUMBER:
+                consume();
+                return mHasLong ? Long.toString(mLong) : mValue.toString();
+            default:
+                return Json.asString(nextValue());
+        }
+    }
+
+    /**
+     * Consumes the next value, converting it as {@link Json#asInt(Object)} would.
+     *
+     * @return The value.
+     */
+    public int nextInt() throws IOException {
+        if (peek() == Token.NUMBER && mHasLong) {
+            consume();
+            return (int) mLong;
+        }
+        return Json.asInt(nextScalar());
+    }
+
+    /**
+     * Consumes the next value, converting it as {@link Json#asLong(Object)} would.
+     *
+     * @return The value.
+     */
+    public long nextLong() throws IOException {
+        if (peek() == Token.NUMBER && mHasLong) {
+            consume();
+            return mLong;
+        }
+        return Json.asLong(nextScalar());
+    }
+
+    /**
+     * Consumes the next value, converting it as {@link Json#asDouble(Object)} would.
+     *
+     * @return The value.
+     */
+    public double nextDouble() throws IOException {
+        if (peek() == Token.NUMBER && mHasLong) {
+            consume();
+            return mLong;
+        }
+        return Json.asDouble(nextScalar());
+    }
+
+    /**
+     * Consumes the next value, converting it as {@link Json#asBoolean(Object)} would.
+     *
+     * @return The value.
+     */
+    public boolean nextBoolean() throws IOException {
+        return Json.asBoolean(nextScalar());
+    }
+
+    /**
+     * Consumes the next value, converting it as {@link Json#asMap(Object)} would.
+     *
+     * @return The value.
+     */
+    public JsonMap nextMap() throws IOException {
+        return Json.asMap(nextValue());
+    }
+
+    /**
+     * Consumes the next value, converting it as {@link Json#asArray(Object)} would.
+     *
+     * @return The value.
+     */
+    public JsonArray nextArray() throws IOException {
+        return Json.asArray(nextValue());
+    }
+
+    /**
+     * Consumes the next value, building a tree of {@link JsonMap}s and {@link JsonArray}s if it is
+     * a map or an array.
+     *
+     * @return The value.
+     */
+    public Object nextValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_MAP:
+                beginMap();
+                JsonMap map = new JsonMap();
+                while (hasNext()) {
+                    String key = nextKey();
+                    if (map.has(key)) {
+                        throw new IOException("duplicate key \"" + key + "\"");
+                    }
+                    map.put(key, nextValue());
+                }
+                endMap();
+                return map;
+            case BEGIN_ARRAY:
+                beginArray();
+                JsonArray array = new JsonArray();
+                while (hasNext()) {
+                    array.put(nextValue());
+                }
+                endArray();
+                return array;
+            case STRING:
+                consume();
+                return mString;
+            case NUMBER:
+            case BOOLEAN:
+            case NULL:
+                consume();
+                return getLiteralValue();
+            default:
+                throw syntaxError("expected a value, but found " + mToken);
+        }
+    }
+
+    /** Consumes the next value, including all of its contents if it is a map or an array. */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_MAP -> {
+                    beginMap();
+                    depth++;
+                }
+                case BEGIN_ARRAY -> {
+                    beginArray();
+                    depth++;
+                }
+                case END_MAP -> {
+                    endMap();
+                    depth--;
+                }
+                case END_ARRAY -> {
+                    endArray();
+                    depth--;
+                }
+                case KEY, STRING, NUMBER, BOOLEAN, NULL -> consume();
+                default -> throw syntaxError("expected a value, but found " + mToken);
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mReader.close();
+    }
+
+    private Object nextScalar() throws IOException {
+        switch (peek()) {
+            case STRING:
+                consume();
+                return mString;
+            case NUMBER:
+            case BOOLEAN:
+            case NULL:
+                consume();
+                return getLiteralValue();
+            default:
+                return nextValue();
+        }
+    }
+
+    private Object getLiteralValue() {
+        if (mHasLong) {
+            return mLong == (int) mLong ? (Object) Integer.valueOf((int) mLong) : (Object) Long.valueOf(mLong);
+        }
+        return mValue;
+    }
+
+    private void expect(Token token) throws IOException {
+        if (peek() != token) {
+            throw syntaxError("expected " + token + ", but found " + mToken);
+        }
+        consume();
+    }
+
+    private void consume() {
+        if (mRecorder != null) {
+            switch (mToken) {
+                case BEGIN_MAP -> mRecorder.beginMap();
+                case BEGIN_ARRAY -> mRecorder.beginArray();
+                case END_MAP, END_ARRAY -> mRecorder.end();
+                case KEY -> mRecorder.key(mKey);
+                case STRING -> mRecorder.value(mString);
+                case NUMBER, BOOLEAN, NULL -> mRecorder.value(getLiteralValue());
+            }
+        }
+        mToken = null;
+    }
+
+    private void push(int state) {
+        if (mDepth == mStack.length) {
+            int length = mDepth * 2;
+            int[] stack = new int[length];
+            System.arraycopy(mStack, 0, stack, 0, mDepth);
+            mStack = stack;
+            char[] closers = new char[length];
+            System.arraycopy(mClosers, 0, closers, 0, mDepth);
+            mClosers = closers;
+        }
+        mStack[mDepth++] = state;
+    }
+
+    private Token advance() throws IOException {
+        int top = mDepth - 1;
+        switch (mStack[top]) {
+            case EMPTY_DOCUMENT:
+                mStack[top] = NONEMPTY_DOCUMENT;
+                return readValue();
+            case MAP_KEY: {
+                char ch = skipWhitespace();
+                if (ch == 0) {
+                    throw syntaxError("JSON object text must end with '}'");
+                }
+                mPos++;
+                if (ch == '}') {
+                    return Token.END_MAP;
+                }
+                mKey = readKey(ch);
+                ch = skipWhitespace();
+                if (ch == '=') {
+                    mPos++;
+                    if (peekChar() == '>') {
+                        mPos++;
+                    }
+                } else if (ch == ':') {
+                    mPos++;
+                } else {
+                    throw syntaxError("expected a ':' after a key");
+                }
+                mStack[top] = MAP_VALUE;
+                return Token.KEY;
+            }
+            case MAP_VALUE:
+                mStack[top] = MAP_AFTER_VALUE;
+                return readValue();
+            case MAP_AFTER_VALUE:
+                switch (skipWhitespace()) {
+                    case ';', ',' -> {
+                        mPos++;
+                        mStack[top] = MAP_KEY;
+                        return advance();
+                    }
+                    case '}' -> {
+                        mPos++;
+                        return Token.END_MAP;
+                    }
+                    default -> throw syntaxError("expected a ',' or '}'");
+                }
+            case ARRAY_FIRST:
+                if (skipWhitespace() == ']') {
+                    mPos++;
+                    return Token.END_ARRAY;
+                }
+                mStack[top] = ARRAY_VALUE;
+                return advance();
+            case ARRAY_VALUE:
+                mStack[top] = ARRAY_AFTER_VALUE;
+                if (skipWhitespace() == ',') {
+                    // An omitted value, as in "[1,,2]"
+                    mHasLong = false;
+                    mValue = JsonNull.INSTANCE;
+                    return Token.NULL;
+                }
+                return readValue();
+            case ARRAY_AFTER_VALUE: {
+                char ch = skipWhitespace();
+                switch (ch) {
+                    case ';', ',' -> {
+                        mPos++;
+                        if (skipWhitespace() == ']') {
+                            mPos++;
+                            return Token.END_ARRAY;
+                        }
+                        mStack[top] = ARRAY_VALUE;
+                        return advance();
+                    }
+                    case ']', ')' -> {
+                        mPos++;
+                        if (ch != mClosers[top]) {
+                            throw syntaxError("expected a '" + mClosers[top] + "'");
+                        }
+                        return Token.END_ARRAY;
+                    }
+                    default -> throw syntaxError("expected a ',' or ']'");
+                }
+            }
+            default:
+                return Token.END;
+        }
+    }
+
+    private Token readValue() throws IOException {
+        char ch = skipWhitespace();
+        switch (ch) {
+            case '"', '\'' -> {
+                mPos++;
+                mString = readString(ch, false);
+                return Token.STRING;
+            }
+            case '{' -> {
+                mPos++;
+                return Token.BEGIN_MAP;
+            }
+            case '[', '(' -> {
+                mPos++;
+                mPendingCloser = ch == '[' ? ']' : ')';
+                return Token.BEGIN_ARRAY;
+            }
+            default -> {
+                return readLiteral();
+            }
+        }
+    }
+
+    /**
+     * @param ch The first character of the key, which has already been consumed.
+     * @return The key.
+     */
+    private String readKey(char ch) throws IOException {
+        if (ch == '"' || ch == '\'') {
+            return readString(ch, true);
+        }
+        if (ch == '{' || ch == '[' || ch == '(') {
+            throw syntaxError("expected a key");
+        }
+        mPos--;
+        readLiteral();
+        return getLiteralValue().toString();
+    }
+
+    private Token readLiteral() throws IOException {
+        StringBuilder text = mText;
+        text.setLength(0);
+        scan:
+        while (mPos < mLimit || fill()) {
+            char[] buffer = mBuffer;
+            int    start  = mPos;
+            int    limit  = mLimit;
+            for (int i = start; i < limit; i++) {
+                char ch = buffer[i];
+                if (ch < ' ' || isDelimiter(ch)) {
+                    text.append(buffer, start, i - start);
+                    mPos = i;
+                    break scan;
+                }
+            }
+            text.append(buffer, start, limit - start);
+            mPos = limit;
+        }
+        int length = text.length();
+        while (length > 0 && text.charAt(length - 1) <= ' ') {
+            length--;
+        }
+        if (length == 0) {
+            throw syntaxError("missing value");
+        }
+        if (parseLong(text, length)) {
+            return Token.NUMBER;
+        }
+        mHasLong = false;
+        String str = text.substring(0, length);
+        if ("true".equalsIgnoreCase(str)) {
+            mValue = Boolean.TRUE;
+            return Token.BOOLEAN;
+        }
+        if ("false".equalsIgnoreCase(str)) {
+            mValue = Boolean.FALSE;
+            return Token.BOOLEAN;
+        }
+        if ("null".equalsIgnoreCase(str)) {
+            mValue = JsonNull.INSTANCE;
+            return Token.NULL;
+        }
+        mValue = parseNumber(str);
+        if (mValue instanceof Number) {
+            return Token.NUMBER;
+        }
+        mString = str;
+        return Token.STRING;
+    }
+
+    /**
+     * Handles the common case of a plain integer without creating any objects.
+     *
+     * @return {@code true} if the text was a plain integer, in which case {@link #mLong} holds its
+     *         value.
+     */
+    private boolean parseLong(StringBuilder text, int length) {
+        int     i        = 0;
+        boolean negative = false;
+        char    ch       = text.charAt(0);
+        if (ch == '-' || ch == '+') {
+            negative = ch == '-';
+            i++;
+        }
+        int digits = length - i;
+        if (digits < 1 || digits > MAX_FAST_DIGITS) {
+            return false;
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            ch = text.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return false;
+            }
+            value = value * 10 + (ch - '0');
+        }
+        mHasLong = true;
+        mLong = negative ? -value : value;
+        return true;
+    }
+
+    static Object parseNumber(String str) {
+        char b = str.charAt(0);
+        if (b >= '0' && b <= '9' || b == '.' || b == '-' || b == '+') {
+            if (b == '0' && str.length() > 2 && (str.charAt(1) == 'x' || str.charAt(1) == 'X')) {
+                try {
+                    return Integer.valueOf(Integer.parseInt(str.substring(2), 16));
+                } catch (Exception ignore) {
+                    Log.error(ignore);
+                }
+            }
+            try {
+                if (str.indexOf('.') > -1 || str.indexOf('e') > -1 || str.indexOf('E') > -1) {
+                    return Double.valueOf(str);
+                }
+                Long myLong = Long.valueOf(str);
+                if (myLong.longValue() == myLong.intValue()) {
+                    return Integer.valueOf(myLong.intValue());
+                }
+                return myLong;
+            } catch (Exception ignore) {
+                Log.error(ignore);
+            }
+        }
+        return str;
+    }
+
+    private static boolean isDelimiter(char ch) {
+        return switch (ch) {
+            case ',', ':', ']', '}', '/', '\\', '"', '[', '{', ';', '=', '#' -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @param quote The quote character that opened the string, which has already been consumed.
+     * @param key   Whether the string is a key, in which case a previously seen instance of the
+     *              same key is returned, if possible.
+     * @return The contents of the string.
+     */
+    private String readString(char quote, boolean key) throws IOException {
+        char[] buffer = mBuffer;
+        int    start  = mPos;
+        int    limit  = mLimit;
+        int    i      = start;
+        while (i < limit) {
+            char ch = buffer[i];
+            if (ch == quote) {
+                mPos = i + 1;
+                return key ? cachedKey(buffer, start, i - start) : new String(buffer, start, i - start);
+            }
+            if (ch == '\\' || ch == '\n' || ch == '\r' || ch == 0) {
+                break;
+            }
+            i++;
+        }
+        // The string contains escapes or spans the end of the buffer, so build it up piecemeal
+        StringBuilder text = mText;
+        text.setLength(0);
+        text.append(buffer, start, i - start);
+        mPos = i;
+        while (true) {
+            char ch = nextChar();
+            switch (ch) {
+                case 0, '\n', '\r' -> throw syntaxError("unterminated string");
+                case '\\' -> {
+                    ch = nextChar();
+                    switch (ch) {
+                        case 'b' -> text.append('\b');
+                        case 't' -> text.append('\t');
+                        case 'n' -> text.append('\n');
+                        case 'f' -> text.append('\f');
+                        case 'r' -> text.append('\r');
+                        case 'u' -> text.append((char) Integer.parseInt(next4(), 16));
+                        case '"', '\'', '\\', '/' -> text.append(ch);
+                        default -> throw syntaxError("illegal escape");
+                    }
+                }
+                default -> {
+                    if (ch == quote) {
+                        return text.toString();
+                    }
+                    text.append(ch);
+                }
+            }
+        }
+    }
+
+    private String cachedKey(char[] buffer, int start, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer[start + i];
+        }
+        int    slot   = (hash ^ (hash >>> 16)) & (KEY_CACHE_SIZE - 1);
+        String cached = mKeyCache[slot];
+        if (cached != null && cached.hashCode() == hash && cached.length() == length) {
+            int i = 0;
+            while (i < length && cached.charAt(i) == buffer[start + i]) {
+                i++;
+            }
+            if (i == length) {
+                return cached;
+            }
+        }
+        String key = new String(buffer, start, length);
+        mKeyCache[slot] = key;
+        return key;
+    }
+
+    private String next4() throws IOException {
+        char[] buffer = new char[4];
+        for (int i = 0; i < 4; i++) {
+            if (mPos == mLimit && !fill()) {
+                throw syntaxError("substring bounds error");
+            }
+            buffer[i] = mBuffer[mPos++];
+        }
+        return new String(buffer);
+    }
+
+    /** @return The next character, which is consumed, or {@code 0} at the end of the stream. */
+    private char nextChar() throws IOException {
+        if (mPos == mLimit && !fill()) {
+            return 0;
+        }
+        return mBuffer[mPos++];
+    }
+
+    /** @return The next character, which is not consumed, or {@code 0} at the end of the stream. */
+    private char peekChar() throws IOException {
+        if (mPos == mLimit && !fill()) {
+            return 0;
+        }
+        return mBuffer[mPos];
+    }
+
+    /**
+     * Consumes any whitespace.
+     *
+     * @return The next character, which is not consumed, or {@code 0} at the end of the stream.
+     */
+    private char skipWhitespace() throws IOException {
+        while (mPos < mLimit || fill()) {
+            char ch = mBuffer[mPos];
+            if (ch == 0 || ch > ' ') {
+                mAfterCR = false;
+                return ch;
+            }
+            mPos++;
+            if (ch == '\r' || (ch == '\n' && !mAfterCR)) {
+                mLine++;
+            }
+            if (ch == '\r' || ch == '\n') {
+                mLineStart = mOffset + mPos;
+            }
+            mAfterCR = ch == '\r';
+        }
+        return 0;
+    }
+
+    /** @return {@code true} if more characters are now available in the buffer. */
+    private boolean fill() throws IOException {
+        if (mEOF) {
+            return false;
+        }
+        mOffset += mLimit;
+        mPos = 0;
+        mLimit = 0;
+        int n;
+        try {
+            n = mReader.read(mBuffer, 0, mBuffer.length);
+        } catch (IOException ioe) {
+            Log.error(toString());
+            throw ioe;
+        }
+        if (n <= 0) {
+            mEOF = true;
+            return false;
+        }
+        mLimit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + this);
+    }
+
+    @Override
+    public String toString() {
+        long index = mOffset + mPos;
+        return " at " + index + " [character " + (index - mLineStart) + " line " + mLine + "]";
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a tree of {@link JsonMap}s and {@link JsonArray}s from everything a {@link JsonReader}
+ * consumes, including values it skips, so that a document read a piece at a time may also be had
+ * whole afterward without parsing it a second time.
+ */
+public final class JsonRecorder {
+    private List<JsonCollection> mOpen = new ArrayList<>();
+    private String               mKey;
+    private Object               mValue;
+
+    /** @return The first value that was consumed, or {@code null} if nothing has been. */
+    public Object getValue() {
+        return mValue;
+    }
+
+    void beginMap() {
+        open(new JsonMap());
+    }
+
+    void beginArray() {
+        open(new JsonArray());
+    }
+
+    void end() {
+        mOpen.remove(mOpen.size() - 1);
+    }
+
+    void key(String key) {
+        mKey = key;
+    }
+
+    void value(Object value) {
+        if (mOpen.isEmpty()) {
+            if (mValue == null) {
+                mValue = value;
+            }
+        } else if (mOpen.get(mOpen.size() - 1) instanceof JsonMap map) {
+            map.put(mKey, value);
+        } else {
+            ((JsonArray) mOpen.get(mOpen.size() - 1)).put(value);
+        }
+    }
+
+    private void open(JsonCollection collection) {
+        value(collection);
+        mOpen.add(collection);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link JsonWriter} that records the calls made to it rather than producing text, so that they
+ * can be replayed to another {@link JsonWriter} later, possibly on another thread. Replaying
+ * produces exactly the text the calls would have produced directly. Everything recorded is either
+ * immutable or a private copy, so the data that was written may be freely modified afterward.
+ */
+public class JsonRecordingWriter extends JsonWriter {
+    private static final Object       START_MAP   = new Object();
+    private static final Object       END_MAP     = new Object();
+    private static final Object       START_ARRAY = new Object();
+    private static final Object       END_ARRAY   = new Object();
+    private              List<Object> mEvents     = new ArrayList<>();
+
+    private static final class Key {
+        private String mKey;
+
+        Key(String key) {
+            mKey = key;
+        }
+    }
+
+    private static final class KeyValue {
+        private String mKey;
+        private Object mValue;
+
+        KeyValue(String key, Object value) {
+            mKey = key;
+            mValue = value;
+        }
+    }
+
+    public JsonRecordingWriter() {
+        super(Writer.nullWriter(), "");
+    }
+
+    /** @param w The {@link JsonWriter} to make the recorded calls to. */
+    public void replay(JsonWriter w) throws IOException {
+        for (Object event : mEvents) {
+            if (event == START_MAP) {
+                w.startMap();
+            } else if (event == END_MAP) {
+                w.endMap();
+            } else if (event == START_ARRAY) {
+                w.startArray();
+            } else if (event == END_ARRAY) {
+                w.endArray();
+            } else if (event instanceof Key key) {
+                w.key(key.mKey);
+            } else if (event instanceof KeyValue kv) {
+                Object value = kv.mValue;
+                if (value instanceof Boolean b) {
+                    w.keyValue(kv.mKey, b.booleanValue());
+                } else if (value instanceof Integer i) {
+                    w.keyValue(kv.mKey, i.intValue());
+                } else if (value instanceof Long l) {
+                    w.keyValue(kv.mKey, l.longValue());
+                } else if (value instanceof Number n) {
+                    w.keyValue(kv.mKey, n);
+                } else if (value instanceof String str) {
+                    w.keyValue(kv.mKey, str);
+                } else if (value instanceof JsonCollection c) {
+                    w.keyValue(kv.mKey, c);
+                } else {
+                    w.keyValue(kv.mKey, (Number) null);
+                }
+            } else if (event instanceof Boolean b) {
+                w.value(b.booleanValue());
+            } else if (event instanceof Integer i) {
+                w.value(i.intValue());
+            } else if (event instanceof Long l) {
+                w.value(l.longValue());
+            } else if (event instanceof Number n) {
+                w.value(n);
+            } else if (event instanceof String str) {
+                w.value(str);
+            } else if (event instanceof JsonCollection c) {
+                w.value(c);
+            } else {
+                w.value((Number) null);
+            }
+        }
+    }
+
+    @Override
+    public void startMap() {
+        mEvents.add(START_MAP);
+    }
+
+    @Override
+    public void endMap() {
+        mEvents.add(END_MAP);
+    }
+
+    @Override
+    public void startArray() {
+        mEvents.add(START_ARRAY);
+    }
+
+    @Override
+    public void endArray() {
+        mEvents.add(END_ARRAY);
+    }
+
+    @Override
+    public void key(String key) {
+        mEvents.add(new Key(key));
+    }
+
+    @Override
+    public void value(boolean value) {
+        mEvents.add(Boolean.valueOf(value));
+    }
+
+    @Override
+    public void value(int value) {
+        mEvents.add(Integer.valueOf(value));
+    }
+
+    @Override
+    public void value(long value) {
+        mEvents.add(Long.valueOf(value));
+    }
+
+    @Override
+    public void value(Number value) {
+        mEvents.add(value != null ? value : JsonNull.INSTANCE);
+    }
+
+    @Override
+    public void value(String value) {
+        // Written the same way as an empty string
+        mEvents.add(value != null ? value : "");
+    }
+
+    @Override
+    public void value(JsonCollection value) {
+        mEvents.add(JsonTreeWriter.copy(value));
+    }
+
+    @Override
+    public void keyValue(String key, JsonCollection value) {
+        mEvents.add(new KeyValue(key, value != null ? JsonTreeWriter.copy(value) : JsonNull.INSTANCE));
+    }
+
+    @Override
+    public void keyValue(String key, String value) {
+        mEvents.add(new KeyValue(key, value != null ? value : ""));
+    }
+
+    @Override
+    public void keyValueNot(String key, String value, String not) {
+        if (!Objects.equals(value, not)) {
+            keyValue(key, value);
+        }
+    }
+
+    @Override
+    public void keyValue(String key, Number value) {
+        mEvents.add(new KeyValue(key, value != null ? value : JsonNull.INSTANCE));
+    }
+
+    @Override
+    public void keyValue(String key, boolean value) {
+        mEvents.add(new KeyValue(key, Boolean.valueOf(value)));
+    }
+
+    @Override
+    public void keyValueNot(String key, boolean value, boolean not) {
+        if (value != not) {
+            keyValue(key, value);
+        }
+    }
+
+    @Override
+    public void keyValue(String key, int value) {
+        mEvents.add(new KeyValue(key, Integer.valueOf(value)));
+    }
+
+    @Override
+    public void keyValueNot(String key, int value, int not) {
+        if (value != not) {
+            keyValue(key, value);
+        }
+    }
+
+    @Override
+    public void keyValue(String key, long value) {
+        mEvents.add(new KeyValue(key, Long.valueOf(value)));
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+}
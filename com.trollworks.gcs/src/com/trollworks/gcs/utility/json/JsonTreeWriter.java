@@ -0,0 +1,206 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.json;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link JsonWriter} that builds a tree of {@link JsonMap}s and {@link JsonArray}s rather than
+ * text. The tree holds the same values that {@link Json#parse(java.io.Reader)} would produce from
+ * the text the other writers emit, without the cost of producing and then parsing that text.
+ */
+public class JsonTreeWriter extends JsonWriter {
+    private List<JsonCollection> mOpen = new ArrayList<>();
+    private String               mKey;
+    private Object               mValue;
+
+    public JsonTreeWriter() {
+        super(Writer.nullWriter(), "");
+    }
+
+    /** @return The first value that was written, or {@code null} if nothing has been. */
+    public Object getValue() {
+        return mValue;
+    }
+
+    @Override
+    public void startMap() {
+        open(new JsonMap());
+    }
+
+    @Override
+    public void endMap() {
+        mOpen.remove(mOpen.size() - 1);
+    }
+
+    @Override
+    public void startArray() {
+        open(new JsonArray());
+    }
+
+    @Override
+    public void endArray() {
+        mOpen.remove(mOpen.size() - 1);
+    }
+
+    @Override
+    public void key(String key) {
+        mKey = key;
+    }
+
+    @Override
+    public void value(boolean value) {
+        add(Boolean.valueOf(value));
+    }
+
+    @Override
+    public void value(int value) {
+        add(Integer.valueOf(value));
+    }
+
+    @Override
+    public void value(long value) {
+        add(number(value));
+    }
+
+    @Override
+    public void value(Number value) {
+        add(number(value));
+    }
+
+    @Override
+    public void value(String value) {
+        add(value != null ? value : "");
+    }
+
+    @Override
+    public void value(JsonCollection value) {
+        add(copy(value));
+    }
+
+    @Override
+    public void keyValue(String key, JsonCollection value) {
+        key(key);
+        add(value != null ? copy(value) : JsonNull.INSTANCE);
+    }
+
+    @Override
+    public void keyValue(String key, String value) {
+        key(key);
+        value(value);
+    }
+
+    @Override
+    public void keyValueNot(String key, String value, String not) {
+        if (!Objects.equals(value, not)) {
+            keyValue(key, value);
+        }
+    }
+
+    @Override
+    public void keyValue(String key, Number value) {
+        key(key);
+        value(value);
+    }
+
+    @Override
+    public void keyValue(String key, boolean value) {
+        key(key);
+        value(value);
+    }
+
+    @Override
+    public void keyValueNot(String key, boolean value, boolean not) {
+        if (value != not) {
+            keyValue(key, value);
+        }
+    }
+
+    @Override
+    public void keyValue(String key, int value) {
+        key(key);
+        value(value);
+    }
+
+    @Override
+    public void keyValueNot(String key, int value, int not) {
+        if (value != not) {
+            keyValue(key, value);
+        }
+    }
+
+    @Override
+    public void keyValue(String key, long value) {
+        key(key);
+        value(value);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+
+    private void open(JsonCollection collection) {
+        add(collection);
+        mOpen.add(collection);
+    }
+
+    private void add(Object value) {
+        if (mOpen.isEmpty()) {
+            if (mValue == null) {
+                mValue = value;
+            }
+        } else if (mOpen.get(mOpen.size() - 1) instanceof JsonMap map) {
+            map.put(mKey, value);
+        } else {
+            ((JsonArray) mOpen.get(mOpen.size() - 1)).put(value);
+        }
+    }
+
+    private static Object number(long value) {
+        return value == (int) value ? (Object) Integer.valueOf((int) value) : (Object) Long.valueOf(value);
+    }
+
+    private static Object number(Number value) {
+        if (value == null) {
+            return JsonNull.INSTANCE;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return number(value.longValue());
+        }
+        // Other numbers are written in a form that doesn't always parse back to the same type
+        return JsonReader.parseNumber(Json.toString(value));
+    }
+
+    /** Copies a collection, so that the tree never shares anything with the caller's data. */
+    static Object copy(Object value) {
+        if (value instanceof JsonMap map) {
+            JsonMap m = new JsonMap();
+            for (String key : map.keySet()) {
+                m.put(key, copy(map.get(key)));
+            }
+            return m;
+        }
+        if (value instanceof JsonArray array) {
+            JsonArray a     = new JsonArray();
+            int       count = array.size();
+            for (int i = 0; i < count; i++) {
+                a.put(copy(array.get(i)));
+            }
+            return a;
+        }
+        return value;
+    }
+}
@@ -39,16 +39,19 @@ public final class Numbers {
     public static final  DateTimeFormatter DATE_TIME_STORED_FORMAT           = new DateTimeFormatterBuilder().parseCaseInsensitive().parseLenient().appendText(MONTH_OF_YEAR, SHORT).appendLiteral(' ').appendValue(DAY_OF_MONTH, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral(", ").appendValue(YEAR, 4).appendLiteral(", ").appendValue(CLOCK_HOUR_OF_AMPM, 1, 2, SignStyle.NOT_NEGATIVE).appendLiteral(':').appendValue(MINUTE_OF_HOUR, 2).appendLiteral(' ').appendText(AMPM_OF_DAY, SHORT).toFormatter();
     public static final  String            LOCALIZED_DECIMAL_SEPARATOR       = Character.toString(DecimalFormatSymbols.getInstance().getDecimalSeparator());
     private static final String            SAFE_LOCALIZED_GROUPING_SEPARATOR = Pattern.quote(Character.toString(DecimalFormatSymbols.getInstance().getGroupingSeparator()));
-    private static final DecimalFormat     NUMBER_FORMAT;
-    private static final DecimalFormat     NUMBER_PLUS_FORMAT;
 
-    static {
-        NUMBER_FORMAT = (DecimalFormat) NumberFormat.getNumberInstance();
-        NUMBER_FORMAT.setMaximumFractionDigits(5);
-
-        NUMBER_PLUS_FORMAT = (DecimalFormat) NUMBER_FORMAT.clone();
-        NUMBER_PLUS_FORMAT.setPositivePrefix("+");
-    }
+    // DecimalFormat isn't safe for concurrent use, and files may be loaded and saved on several
+    // threads at once, so each thread gets its own
+    private static final ThreadLocal<DecimalFormat> NUMBER_FORMAT      = ThreadLocal.withInitial(() -> {
+        DecimalFormat format = (DecimalFormat) NumberFormat.getNumberInstance();
+        format.setMaximumFractionDigits(5);
+        return format;
+    });
+    private static final ThreadLocal<DecimalFormat> NUMBER_PLUS_FORMAT = ThreadLocal.withInitial(() -> {
+        DecimalFormat format = (DecimalFormat) NUMBER_FORMAT.get().clone();
+        format.setPositivePrefix("+");
+        return format;
+    });
 
     private Numbers() {
     }
@@ -359,7 +362,7 @@ public final class Numbers {
      * @return The formatted string.
      */
     public static String format(long value) {
-        return NUMBER_FORMAT.format(value);
+        return NUMBER_FORMAT.get().format(value);
     }
 
     /**
@@ -367,7 +370,7 @@ public final class Numbers {
      * @return The formatted string.
      */
     public static String formatWithForcedSign(long value) {
-        return NUMBER_PLUS_FORMAT.format(value);
+        return NUMBER_PLUS_FORMAT.get().format(value);
     }
 
     /**
@@ -375,7 +378,7 @@ public final class Numbers {
      * @return The formatted string.
      */
     public static String format(double value) {
-        return NUMBER_FORMAT.format(value);
+        return NUMBER_FORMAT.get().format(value);
     }
 
     /**
@@ -383,6 +386,6 @@ public final class Numbers {
      * @return The formatted string.
      */
     public static String formatWithForcedSign(double value) {
-        return NUMBER_PLUS_FORMAT.format(value);
+        return NUMBER_PLUS_FORMAT.get().format(value);
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.undo;
+
+import java.awt.image.BufferedImage;
+import javax.swing.undo.UndoableEdit;
+
+/** An {@link UndoableEdit} that knows roughly how much memory it retains. */
+public interface MeasuredEdit extends UndoableEdit {
+    /** The approximate overhead of an edit, before counting any values it holds. */
+    int EDIT_OVERHEAD = 64;
+
+    /** @return The approximate number of bytes retained by this edit. */
+    long getMemoryUsage();
+
+    /**
+     * Moves the bulk of this edit's state out of memory and into a {@link UndoSpillFile}, from
+     * which it will be read back should it be needed again.
+     *
+     * @param file The {@link UndoSpillFile} to use.
+     * @return {@code true} if any memory was released.
+     */
+    default boolean spill(UndoSpillFile file) {
+        return false;
+    }
+
+    /**
+     * @param value A value held by an edit.
+     * @return The approximate number of bytes retained by the value.
+     */
+    static long estimateSize(Object value) {
+        if (value instanceof String str) {
+            return 40 + 2L * str.length();
+        }
+        if (value instanceof BufferedImage img) {
+            return 64 + 4L * img.getWidth() * img.getHeight();
+        }
+        return value == null ? 0 : 24;
+    }
+}
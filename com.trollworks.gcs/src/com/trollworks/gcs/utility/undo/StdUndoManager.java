@@ -12,6 +12,7 @@
 package com.trollworks.gcs.utility.undo;
 
 import com.trollworks.gcs.menu.edit.Undoable;
+import com.trollworks.gcs.settings.Settings;
 import com.trollworks.gcs.ui.UIUtilities;
 
 import java.awt.Component;
@@ -20,22 +21,116 @@ import javax.swing.undo.CannotUndoException;
 import javax.swing.undo.UndoManager;
 import javax.swing.undo.UndoableEdit;
 
-/** The standard {@link UndoManager} for use with our app's windows. */
+/**
+ * The standard {@link UndoManager} for use with our app's windows. The memory retained by its
+ * edits is held to the budget set in the general settings: once exceeded, the oldest edits that are
+ * able to are moved out to a temporary file, and if that isn't enough, the oldest edits are
+ * discarded.
+ */
 public class StdUndoManager extends UndoManager {
-    private boolean mInTransaction;
+    /** The maximum number of edits retained, regardless of how little memory they use. */
+    public static final  int           MAX_EDITS       = 1000;
+    private static final long          UNMEASURED_EDIT = 512;
+    private              UndoSpillFile mSpillFile;
+    private              Runnable      mTransactionListener;
+    private              boolean       mInTransaction;
+
+    /** Creates a new {@link StdUndoManager}. */
+    public StdUndoManager() {
+        mSpillFile = new UndoSpillFile();
+        setLimit(MAX_EDITS);
+    }
+
+    @Override
+    public synchronized boolean addEdit(UndoableEdit edit) {
+        boolean added = super.addEdit(edit);
+        if (added) {
+            enforceMemoryBudget();
+        }
+        return added;
+    }
+
+    private void enforceMemoryBudget() {
+        long budget = Settings.getInstance().getGeneralSettings().getUndoMemoryBudget() * 1024L * 1024L;
+        long usage  = getMemoryUsage();
+        if (usage <= budget) {
+            return;
+        }
+        // Leave the most recent edit alone, as it is the one most likely to be undone next
+        int last = edits.size() - 1;
+        for (int i = 0; i < last && usage > budget; i++) {
+            if (edits.get(i) instanceof MeasuredEdit edit) {
+                long before = edit.getMemoryUsage();
+                if (edit.spill(mSpillFile)) {
+                    usage -= before - edit.getMemoryUsage();
+                }
+            }
+        }
+        int discard = 0;
+        while (discard < last && usage > budget) {
+            usage -= getMemoryUsage(edits.get(discard++));
+        }
+        if (discard > 0) {
+            trimEdits(0, discard - 1);
+        }
+    }
+
+    /** @return The approximate number of bytes of memory retained by the edits. */
+    public synchronized long getMemoryUsage() {
+        long usage = 0;
+        for (UndoableEdit edit : edits) {
+            usage += getMemoryUsage(edit);
+        }
+        return usage;
+    }
+
+    private static long getMemoryUsage(UndoableEdit edit) {
+        return edit instanceof MeasuredEdit measured ? measured.getMemoryUsage() : UNMEASURED_EDIT;
+    }
+
+    /** @return The number of bytes of edit data that have been moved out to a temporary file. */
+    public long getSpilledSize() {
+        return mSpillFile.getSize();
+    }
+
+    @Override
+    public synchronized void discardAllEdits() {
+        super.discardAllEdits();
+        mSpillFile.close();
+    }
 
     @Override
     public synchronized void undo() throws CannotUndoException {
         mInTransaction = true;
-        super.undo();
-        mInTransaction = false;
+        try {
+            super.undo();
+        } finally {
+            mInTransaction = false;
+        }
+        if (mTransactionListener != null) {
+            mTransactionListener.run();
+        }
     }
 
     @Override
     public synchronized void redo() throws CannotRedoException {
         mInTransaction = true;
-        super.redo();
-        mInTransaction = false;
+        try {
+            super.redo();
+        } finally {
+            mInTransaction = false;
+        }
+        if (mTransactionListener != null) {
+            mTransactionListener.run();
+        }
+    }
+
+    /**
+     * @param listener Called after each undo or redo has completed, but not after one that failed.
+     *                 May be {@code null}.
+     */
+    public void setTransactionListener(Runnable listener) {
+        mTransactionListener = listener;
     }
 
     /** @return Whether this {@link UndoManager} is currently processing an undo or redo. */
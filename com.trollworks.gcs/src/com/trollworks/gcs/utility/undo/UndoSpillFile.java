@@ -0,0 +1,158 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.undo;
+
+import com.trollworks.gcs.utility.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A temporary file holding the state of undo edits that have been moved out of memory. The file is
+ * only created once something is first written to it and is removed when closed. Space is
+ * reclaimed as entries are released: the file is emptied once nothing in it is still needed, and
+ * the entries that are still needed are moved down over the released ones once those make up most
+ * of the file.
+ */
+public final class UndoSpillFile implements Closeable {
+    private static final long        MIN_COMPACT_SIZE = 1024 * 1024;
+    private              Path        mPath;
+    private              FileChannel mChannel;
+    private              long        mSize;
+    private              long        mLiveSize;
+    private              List<Entry> mEntries         = new ArrayList<>();
+
+    /** The location of a piece of data within an {@link UndoSpillFile}. */
+    public static final class Entry {
+        private long mPos;
+        private int  mLength;
+
+        Entry(long pos, int length) {
+            mPos = pos;
+            mLength = length;
+        }
+    }
+
+    /**
+     * @param data The data to write.
+     * @return The entry the data was written to.
+     */
+    public synchronized Entry write(byte[] data) throws IOException {
+        if (mChannel == null) {
+            mPath = Files.createTempFile("gcs-undo-", ".tmp");
+            mPath.toFile().deleteOnExit();
+            mChannel = FileChannel.open(mPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            mSize = 0;
+        }
+        Entry entry = new Entry(mSize, data.length);
+        writeFully(data, mSize);
+        mSize += data.length;
+        mLiveSize += data.length;
+        mEntries.add(entry);
+        return entry;
+    }
+
+    /**
+     * @param entry An entry returned by {@link #write(byte[])} that hasn't been released.
+     * @return The data.
+     */
+    public synchronized byte[] read(Entry entry) throws IOException {
+        if (mChannel == null || !mEntries.contains(entry)) {
+            throw new IOException("undo data is no longer available");
+        }
+        return readFully(entry.mPos, entry.mLength);
+    }
+
+    /**
+     * Releases the space taken by an entry, which must no longer be read from.
+     *
+     * @param entry An entry returned by {@link #write(byte[])}.
+     */
+    public synchronized void release(Entry entry) {
+        if (mChannel == null || !mEntries.remove(entry)) {
+            return;
+        }
+        mLiveSize -= entry.mLength;
+        try {
+            if (mEntries.isEmpty()) {
+                mChannel.truncate(0);
+                mSize = 0;
+            } else if (mSize - mLiveSize >= MIN_COMPACT_SIZE && mSize - mLiveSize > mLiveSize) {
+                compact();
+            }
+        } catch (IOException exception) {
+            Log.error(exception);
+        }
+    }
+
+    /** Moves each entry down to follow the one before it, then drops the space left at the end. */
+    private void compact() throws IOException {
+        // Entries are kept in the order they were written, which is also the order of their
+        // positions, so each is only ever moved to an earlier position
+        long pos = 0;
+        for (Entry entry : mEntries) {
+            if (entry.mPos != pos) {
+                writeFully(readFully(entry.mPos, entry.mLength), pos);
+                entry.mPos = pos;
+            }
+            pos += entry.mLength;
+        }
+        mChannel.truncate(pos);
+        mSize = pos;
+    }
+
+    private void writeFully(byte[] data, long pos) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            mChannel.write(buffer, pos + buffer.position());
+        }
+    }
+
+    private byte[] readFully(long pos, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (mChannel.read(buffer, pos + buffer.position()) < 0) {
+                throw new IOException("premature EOF");
+            }
+        }
+        return buffer.array();
+    }
+
+    /** @return The number of bytes currently held in the file. */
+    public synchronized long getSize() {
+        return mSize;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (mChannel != null) {
+            try {
+                mChannel.close();
+                Files.deleteIfExists(mPath);
+            } catch (IOException exception) {
+                Log.error(exception);
+            }
+            mChannel = null;
+            mPath = null;
+            mSize = 0;
+            mLiveSize = 0;
+            mEntries.clear();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright ©1998-2022 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.utility.units;
+
+import com.trollworks.gcs.utility.Fixed6;
+
+/**
+ * A mutable running total of weights in a fixed set of {@link WeightUnits}. Unlike summing {@link
+ * WeightValue}s, no objects are created as values are accumulated, while the results are identical
+ * to those {@link WeightValue#add(UnitsValue)} would produce.
+ */
+public final class WeightAccumulator {
+    private WeightUnits mUnits;
+    private long        mRawValue;
+
+    /**
+     * Creates a new, zeroed, WeightAccumulator.
+     *
+     * @param units The {@link WeightUnits} to accumulate in.
+     */
+    public WeightAccumulator(WeightUnits units) {
+        mUnits = units;
+    }
+
+    /**
+     * Sets the accumulator back to zero.
+     *
+     * @param units The {@link WeightUnits} to accumulate in from now on.
+     */
+    public void reset(WeightUnits units) {
+        mUnits = units;
+        mRawValue = 0;
+    }
+
+    /** @return The units. */
+    public WeightUnits getUnits() {
+        return mUnits;
+    }
+
+    /** @return The raw {@link Fixed6} value of the total. */
+    public long getRawValue() {
+        return mRawValue;
+    }
+
+    /** @param rawValue The raw {@link Fixed6} value to set the total to. */
+    public void setRawValue(long rawValue) {
+        mRawValue = rawValue;
+    }
+
+    /** @param value The value to add. */
+    public void add(WeightValue value) {
+        add(value.getUnits(), value.getValue().getRawValue());
+    }
+
+    /**
+     * @param units    The units the value is in.
+     * @param rawValue The raw {@link Fixed6} value to add.
+     */
+    public void add(WeightUnits units, long rawValue) {
+        mRawValue += mUnits.convert(units, rawValue);
+    }
+
+    /**
+     * @param units    The units the value is in.
+     * @param rawValue The raw {@link Fixed6} value to subtract.
+     */
+    public void subtract(WeightUnits units, long rawValue) {
+        mRawValue -= mUnits.convert(units, rawValue);
+    }
+
+    /**
+     * Adds a value after first converting it by GURPS Metric rules into metric units, if this
+     * accumulator uses metric units, or into imperial units, if it does not.
+     *
+     * @param value The value to add.
+     */
+    public void addConvertedByGurpsMetric(WeightValue value) {
+        WeightUnits units    = value.getUnits();
+        boolean     toMetric = mUnits.isMetric();
+        add(units.getGurpsMetricUnits(toMetric), units.convertGurpsMetric(value.getValue().getRawValue(), toMetric));
+    }
+
+    /** @return The normalized raw {@link Fixed6} value of the total. */
+    public long getNormalizedRawValue() {
+        return mUnits.normalize(mRawValue);
+    }
+
+    /**
+     * @param value The value to compare against. May be {@code null}.
+     * @return {@code true} if the value has the same units and value as the total.
+     */
+    public boolean matches(WeightValue value) {
+        return value != null && value.getUnits() == mUnits && value.getValue().getRawValue() == mRawValue;
+    }
+
+    /** @return A new {@link WeightValue} holding the total. */
+    public WeightValue toWeightValue() {
+        return new WeightValue(Fixed6.fromRawValue(mRawValue), mUnits);
+    }
+}
@@ -85,6 +85,68 @@ public enum WeightUnits implements Units {
         return units.getFactor().mul(value).div(mFactor);
     }
 
+    /**
+     * @param units    The units the value is in.
+     * @param rawValue The raw {@link Fixed6} value to convert.
+     * @return The raw value, converted to these units.
+     */
+    public long convert(WeightUnits units, long rawValue) {
+        return Fixed6.divRaw(Fixed6.mulRaw(units.mFactor.getRawValue(), rawValue), mFactor.getRawValue());
+    }
+
+    /**
+     * @param rawValue The raw {@link Fixed6} value to normalize.
+     * @return The normalized raw value.
+     */
+    public long normalize(long rawValue) {
+        return Fixed6.mulRaw(mFactor.getRawValue(), rawValue);
+    }
+
+    /**
+     * @param toMetric {@code true} to convert to metric units, {@code false} to convert to imperial
+     *                 units.
+     * @return The units a weight in these units becomes when converted by GURPS Metric rules. Units
+     *         that are already of the requested kind are returned unchanged.
+     */
+    public WeightUnits getGurpsMetricUnits(boolean toMetric) {
+        if (toMetric) {
+            return switch (this) {
+                case LB -> KG;
+                case LT, TN -> T;
+                case OZ -> G;
+                default -> this;
+            };
+        }
+        return switch (this) {
+            case G -> OZ;
+            case KG -> LB;
+            case T -> LT;
+            default -> this;
+        };
+    }
+
+    /**
+     * @param rawValue The raw {@link Fixed6} value of a weight in these units.
+     * @param toMetric {@code true} to convert to metric units, {@code false} to convert to imperial
+     *                 units.
+     * @return The raw value of the weight once converted by GURPS Metric rules into the units
+     *         returned by {@link #getGurpsMetricUnits(boolean)}.
+     */
+    public long convertGurpsMetric(long rawValue, boolean toMetric) {
+        if (toMetric) {
+            return switch (this) {
+                case LB -> Fixed6.divRaw(rawValue, Fixed6.rawValueOf(2));
+                case OZ -> Fixed6.mulRaw(rawValue, Fixed6.rawValueOf(30));
+                default -> rawValue;
+            };
+        }
+        return switch (this) {
+            case G -> Fixed6.divRaw(rawValue, Fixed6.rawValueOf(30));
+            case KG -> Fixed6.mulRaw(rawValue, Fixed6.rawValueOf(2));
+            default -> rawValue;
+        };
+    }
+
     @Override
     public Fixed6 normalize(Fixed6 value) {
         return mFactor.mul(value);
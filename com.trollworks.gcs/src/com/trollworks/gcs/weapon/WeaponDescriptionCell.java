@@ -144,6 +144,23 @@ public class WeaponDescriptionCell implements Cell {
         return result;
     }
 
+    @Override
+    public Object getSortKey(Column column, Row row) {
+        WeaponDisplayRow weaponRow = (WeaponDisplayRow) row;
+        return new String[]{getPrimaryText(weaponRow), getSecondaryText(weaponRow)};
+    }
+
+    @Override
+    public int compareSortKeys(Column column, Object one, Object two) {
+        String[] k1     = (String[]) one;
+        String[] k2     = (String[]) two;
+        int      result = NumericComparator.caselessCompareStrings(k1[0], k2[0]);
+        if (result == 0) {
+            result = NumericComparator.caselessCompareStrings(k1[1], k2[1]);
+        }
+        return result;
+    }
+
     @Override
     public Cursor getCursor(MouseEvent event, Rectangle bounds, Row row, Column column) {
         return Cursor.getDefaultCursor();
@@ -194,6 +194,7 @@ public abstract class WeaponStats {
     public void setDefaults(List<SkillDefault> defaults) {
         if (!mDefaults.equals(defaults)) {
             mDefaults = new ArrayList<>(defaults);
+            notifyOfChange();
         }
     }
 